@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.api;
+
+import java.util.Collection;
+
+/**
+ * Text similarity measure which can skip the exact computation for pairs that cannot reach a
+ * given score. Implementations use cheap upper bounds of their scores, e.g. derived from the
+ * lengths of the texts. Higher scores must denote more similar texts.
+ *
+ * @see TopKSimilarities
+ */
+public interface ThresholdedTextSimilarityMeasure
+	extends TextSimilarityMeasure
+{
+	/**
+	 * Returned by {@link #getSimilarityIfAbove(Collection, Collection, double)} if the similarity
+	 * is known to be below the threshold. It is smaller than any threshold.
+	 */
+	static final double BELOW_THRESHOLD = Double.NEGATIVE_INFINITY;
+
+	/**
+	 * Computes the similarity between two bags of words text representations if it is not below
+	 * the given threshold.
+	 *
+	 * @return the similarity as computed by {@link #getSimilarity(Collection, Collection)} if it
+	 *         is at least the threshold, otherwise either the similarity or
+	 *         {@link #BELOW_THRESHOLD}.
+	 */
+	double getSimilarityIfAbove(Collection<String> strings1, Collection<String> strings2,
+			double threshold)
+		throws SimilarityException;
+}
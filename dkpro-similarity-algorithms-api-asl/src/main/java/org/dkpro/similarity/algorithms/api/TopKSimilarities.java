@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the candidates most similar to a query. Once k candidates have been found, the score of
+ * the worst of them is passed as threshold to measures implementing
+ * {@link ThresholdedTextSimilarityMeasure}, so candidates which cannot make it into the result are
+ * mostly discarded without computing their exact score.
+ */
+public final class TopKSimilarities
+{
+	/**
+	 * Orders by ascending score, candidates found later are worse than earlier ones of the same
+	 * score.
+	 */
+	private static final Comparator<Hit> WORST_FIRST = new Comparator<Hit>()
+	{
+		@Override
+		public int compare(Hit aHit1, Hit aHit2)
+		{
+			int c = Double.compare(aHit1.score, aHit2.score);
+			if (c != 0) {
+				return c;
+			}
+			return aHit2.index < aHit1.index ? -1 : (aHit2.index == aHit1.index ? 0 : 1);
+		}
+	};
+
+	private TopKSimilarities()
+	{
+		// No instances
+	}
+
+	/**
+	 * Scores the candidates against the query and keeps the k best ones. Candidates with a score
+	 * below the minimum score or with an undefined score are ignored. If several candidates have
+	 * the same score, earlier candidates are preferred.
+	 *
+	 * @param aMeasure
+	 *            the measure. If it implements {@link ThresholdedTextSimilarityMeasure}, exact
+	 *            scores are only computed for candidates which can make it into the result.
+	 * @param aMinScore
+	 *            the smallest score of interest, e.g. {@link Double#NEGATIVE_INFINITY}.
+	 * @return at most k hits ordered by descending score.
+	 */
+	public static List<Hit> getTopK(TextSimilarityMeasure aMeasure, Collection<String> aQuery,
+			List<? extends Collection<String>> aCandidates, int aK, double aMinScore)
+		throws SimilarityException
+	{
+		if (aK <= 0) {
+			throw new IllegalArgumentException("k must be positive");
+		}
+
+		ThresholdedTextSimilarityMeasure thresholded = null;
+		if (aMeasure instanceof ThresholdedTextSimilarityMeasure) {
+			thresholded = (ThresholdedTextSimilarityMeasure) aMeasure;
+		}
+
+		PriorityQueue<Hit> hits = new PriorityQueue<Hit>(Math.min(aK, 1024), WORST_FIRST);
+		int index = 0;
+		for (Collection<String> candidate : aCandidates) {
+			double threshold = aMinScore;
+			if (hits.size() == aK) {
+				threshold = Math.max(threshold, hits.peek().score);
+			}
+
+			double score;
+			if (thresholded != null) {
+				score = thresholded.getSimilarityIfAbove(aQuery, candidate, threshold);
+			}
+			else {
+				score = aMeasure.getSimilarity(aQuery, candidate);
+			}
+
+			if (!Double.isNaN(score) && score >= aMinScore) {
+				if (hits.size() < aK) {
+					hits.add(new Hit(index, score));
+				}
+				else if (score > hits.peek().score) {
+					hits.poll();
+					hits.add(new Hit(index, score));
+				}
+			}
+			index++;
+		}
+
+		List<Hit> result = new ArrayList<Hit>(hits);
+		Collections.sort(result, Collections.reverseOrder(WORST_FIRST));
+		return result;
+	}
+
+	/**
+	 * A candidate and its score.
+	 */
+	public static final class Hit
+	{
+		private final int index;
+		private final double score;
+
+		Hit(int aIndex, double aScore)
+		{
+			index = aIndex;
+			score = aScore;
+		}
+
+		/**
+		 * @return the position of the candidate in the list of candidates.
+		 */
+		public int getIndex()
+		{
+			return index;
+		}
+
+		public double getScore()
+		{
+			return score;
+		}
+
+		@Override
+		public String toString()
+		{
+			return "[" + index + "] " + score;
+		}
+	}
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.api.ngrams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Assigns consecutive ids to tokens in the order in which they are first seen. Distinct tokens
+ * always get distinct ids. The dictionary grows with the vocabulary it has seen.
+ */
+public class InternedTokenDictionary
+	implements TokenDictionary
+{
+	/**
+	 * Id of the {@code null} token.
+	 */
+	public static final int NULL_ID = 0;
+
+	private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<String, Integer>();
+	private final List<String> tokens = new ArrayList<String>();
+
+	@Override
+	public int getId(String aToken)
+	{
+		if (aToken == null) {
+			return NULL_ID;
+		}
+
+		Integer id = ids.get(aToken);
+		if (id == null) {
+			synchronized (ids) {
+				id = ids.get(aToken);
+				if (id == null) {
+					id = ids.size() + 1;
+					ids.put(aToken, id);
+					tokens.add(aToken);
+				}
+			}
+		}
+		return id;
+	}
+
+	/**
+	 * @return the token with the given id or {@code null} if no token has this id.
+	 */
+	public String getToken(int aId)
+	{
+		synchronized (ids) {
+			return aId > 0 && aId <= tokens.size() ? tokens.get(aId - 1) : null;
+		}
+	}
+
+	/**
+	 * @return the number of distinct tokens seen so far.
+	 */
+	public int size()
+	{
+		return ids.size();
+	}
+}
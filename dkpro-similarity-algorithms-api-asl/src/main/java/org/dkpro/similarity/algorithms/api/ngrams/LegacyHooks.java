@@ -0,0 +1,64 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.api.ngrams;
+
+import java.util.Collection;
+
+/**
+ * Detects subclasses that override a deprecated hook method of an n-gram measure. The measures
+ * score such subclasses with the original n-gram representation, so the overridden method is
+ * still called.
+ */
+public final class LegacyHooks
+{
+	private LegacyHooks()
+	{
+		// No instances
+	}
+
+	/**
+	 * Checks whether the given class or one of its superclasses below the given measure classes
+	 * declares the method.
+	 *
+	 * @param aClass
+	 *            the runtime class of the measure.
+	 * @param aMeasureClasses
+	 *            the measure classes whose own declarations of the method do not count. The
+	 *            search stops at the first of them.
+	 * @param aName
+	 *            the name of the method.
+	 * @param aParameterTypes
+	 *            the parameter types of the method.
+	 * @return whether a subclass declares the method.
+	 */
+	public static boolean overrides(Class<?> aClass, Collection<? extends Class<?>> aMeasureClasses,
+			String aName, Class<?>... aParameterTypes)
+	{
+		Class<?> c = aClass;
+		while (c != null && !aMeasureClasses.contains(c)) {
+			try {
+				c.getDeclaredMethod(aName, aParameterTypes);
+				return true;
+			}
+			catch (NoSuchMethodException e) {
+				c = c.getSuperclass();
+			}
+		}
+		return false;
+	}
+}
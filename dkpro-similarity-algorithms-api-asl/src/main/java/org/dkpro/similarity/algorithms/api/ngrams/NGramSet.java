@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.api.ngrams;
+
+import java.util.Arrays;
+
+/**
+ * Set of the distinct n-grams of a token sequence. Each n-gram is reduced to a 64-bit hash of
+ * its token ids or token hashes and the hashes are kept in a sorted array, so that set sizes and intersections
+ * are computed by merging two arrays without allocations.
+ */
+public final class NGramSet
+{
+	private static final long PRIME = 0x9E3779B97F4A7C15L;
+
+	private final long[] hashes;
+
+	private NGramSet(long[] aHashes)
+	{
+		hashes = aHashes;
+	}
+
+	/**
+	 * Creates the set of all n-grams of the given token ids.
+	 * 
+	 * @param aIds
+	 *            the token ids, see {@link TokenDictionary}.
+	 * @param aLength
+	 *            the number of ids to use from the array.
+	 * @param aN
+	 *            the n-gram length.
+	 */
+	public static NGramSet create(int[] aIds, int aLength, int aN)
+	{
+		int count = Math.max(0, aLength - (aN - 1));
+		long[] hashes = new long[count];
+		for (int i = 0; i < count; i++) {
+			long hash = 0;
+			for (int k = 0; k < aN; k++) {
+				hash = hash * PRIME + aIds[i + k] + 1;
+			}
+			hashes[i] = mix(hash);
+		}
+		return distinct(hashes);
+	}
+
+	/**
+	 * Creates the set of all n-grams of the given tokens. If no dictionary is given, each token
+	 * is reduced to a 64-bit hash of its characters instead of an id. This keeps no state, so
+	 * the sets of any two calls can be compared, at the risk of a hash collision in the order of
+	 * 2<sup>-64</sup> per pair of distinct tokens.
+	 * 
+	 * @param aTokens
+	 *            the tokens, may contain {@code null}.
+	 * @param aLength
+	 *            the number of tokens to use from the array.
+	 * @param aN
+	 *            the n-gram length.
+	 * @param aDictionary
+	 *            the dictionary mapping the tokens to ids or {@code null} to hash the tokens.
+	 */
+	public static NGramSet create(String[] aTokens, int aLength, int aN,
+			TokenDictionary aDictionary)
+	{
+		if (aDictionary != null) {
+			int[] ids = new int[aLength];
+			for (int i = 0; i < aLength; i++) {
+				ids[i] = aDictionary.getId(aTokens[i]);
+			}
+			return create(ids, aLength, aN);
+		}
+
+		long[] terms = new long[aLength];
+		for (int i = 0; i < aLength; i++) {
+			terms[i] = hash(aTokens[i]);
+		}
+
+		int count = Math.max(0, aLength - (aN - 1));
+		long[] hashes = new long[count];
+		for (int i = 0; i < count; i++) {
+			long hash = 0;
+			for (int k = 0; k < aN; k++) {
+				hash = hash * PRIME + terms[i + k];
+			}
+			hashes[i] = mix(hash);
+		}
+		return distinct(hashes);
+	}
+
+	/**
+	 * Sorts the hashes and removes duplicates in place.
+	 */
+	private static NGramSet distinct(long[] aHashes)
+	{
+		Arrays.sort(aHashes);
+		int size = 0;
+		for (int i = 0; i < aHashes.length; i++) {
+			if (size == 0 || aHashes[i] != aHashes[size - 1]) {
+				aHashes[size++] = aHashes[i];
+			}
+		}
+		return new NGramSet(size == aHashes.length ? aHashes : Arrays.copyOf(aHashes, size));
+	}
+
+	/**
+	 * @return the number of distinct n-grams.
+	 */
+	public int size()
+	{
+		return hashes.length;
+	}
+
+	/**
+	 * @return the hash of the n-gram at the given position. The hashes are sorted ascending.
+	 */
+	public long get(int aIndex)
+	{
+		return hashes[aIndex];
+	}
+
+	/**
+	 * @return the number of n-grams contained in both sets.
+	 */
+	public int intersectionSize(NGramSet aOther)
+	{
+		long[] other = aOther.hashes;
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		while (i < hashes.length && j < other.length) {
+			if (hashes[i] == other[j]) {
+				count++;
+				i++;
+				j++;
+			}
+			else if (hashes[i] < other[j]) {
+				i++;
+			}
+			else {
+				j++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of n-grams contained in at least one of the sets.
+	 */
+	public int unionSize(NGramSet aOther)
+	{
+		return size() + aOther.size() - intersectionSize(aOther);
+	}
+
+	/**
+	 * 64-bit hash of the characters of a token (FNV-1a), as used for tokens without a
+	 * dictionary. Distinct tokens collide with a probability in the order of 2<sup>-64</sup>.
+	 */
+	public static long hash(String aToken)
+	{
+		if (aToken == null) {
+			return 0;
+		}
+
+		long h = 0xCBF29CE484222325L;
+		for (int i = 0; i < aToken.length(); i++) {
+			h ^= aToken.charAt(i);
+			h *= 0x100000001B3L;
+		}
+		return mix(h);
+	}
+
+	/**
+	 * Spreads the bits of the polynomial hash (finalizer of MurmurHash3).
+	 */
+	private static long mix(long aHash)
+	{
+		long h = aHash;
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
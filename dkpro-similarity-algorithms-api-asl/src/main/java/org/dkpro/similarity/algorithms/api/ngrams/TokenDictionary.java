@@ -0,0 +1,32 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.api.ngrams;
+
+/**
+ * Maps tokens to integer ids. Equal tokens must always get the same id and implementations
+ * must be safe to use from several threads.
+ */
+public interface TokenDictionary
+{
+	/**
+	 * @param aToken
+	 *            a token, may be {@code null}.
+	 * @return the id of the token.
+	 */
+	int getId(String aToken);
+}
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.api.ngrams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class InternedTokenDictionaryTest
+{
+	@Test
+	public void idsAndTokens()
+	{
+		InternedTokenDictionary dictionary = new InternedTokenDictionary();
+		int a = dictionary.getId("a");
+		int b = dictionary.getId("b");
+
+		assertEquals(1, a);
+		assertEquals(2, b);
+		assertEquals(a, dictionary.getId("a"));
+		assertEquals(InternedTokenDictionary.NULL_ID, dictionary.getId(null));
+		assertEquals(2, dictionary.size());
+
+		assertEquals("a", dictionary.getToken(a));
+		assertEquals("b", dictionary.getToken(b));
+		assertNull(dictionary.getToken(InternedTokenDictionary.NULL_ID));
+		assertNull(dictionary.getToken(3));
+		assertNull(dictionary.getToken(-1));
+	}
+
+	@Test
+	public void concurrentInterning()
+		throws Exception
+	{
+		final InternedTokenDictionary dictionary = new InternedTokenDictionary();
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Void>> futures = new ArrayList<Future<Void>>();
+			for (int t = 0; t < 4; t++) {
+				futures.add(executor.submit(new Callable<Void>()
+				{
+					@Override
+					public Void call()
+					{
+						for (int i = 0; i < 1000; i++) {
+							String token = "t" + i;
+							assertEquals(token, dictionary.getToken(dictionary.getId(token)));
+						}
+						return null;
+					}
+				}));
+			}
+			for (Future<Void> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1000, dictionary.size());
+		Set<Integer> ids = new HashSet<Integer>();
+		for (int i = 0; i < 1000; i++) {
+			ids.add(dictionary.getId("t" + i));
+		}
+		assertEquals(1000, ids.size());
+	}
+}
@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.dkpro.similarity.algorithms.api.SimilarityException;
+
+/**
+ * Helpers for measures which compute partial scores in parallel.
+ */
+public final class ParallelScoring
+{
+	private ParallelScoring()
+	{
+		// No instances
+	}
+
+	/**
+	 * Waits for all futures and returns their results in the order of the futures. If a
+	 * computation failed, the remaining computations are cancelled and the failure is rethrown.
+	 * Runtime exceptions and errors are rethrown as they are, other exceptions are wrapped in a
+	 * {@link SimilarityException} unless they are one already.
+	 */
+	public static <T> List<T> getAll(List<Future<T>> aFutures)
+		throws SimilarityException
+	{
+		List<T> results = new ArrayList<T>(aFutures.size());
+		try {
+			for (Future<T> future : aFutures) {
+				results.add(future.get());
+			}
+			return results;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SimilarityException("Interrupted while waiting for scores", e);
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof SimilarityException) {
+				throw (SimilarityException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new SimilarityException(cause);
+		}
+		finally {
+			if (results.size() < aFutures.size()) {
+				for (Future<T> future : aFutures) {
+					future.cancel(true);
+				}
+			}
+		}
+	}
+}
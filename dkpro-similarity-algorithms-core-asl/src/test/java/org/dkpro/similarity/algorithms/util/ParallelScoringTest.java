@@ -0,0 +1,183 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.dkpro.similarity.algorithms.api.SimilarityException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelScoringTest
+{
+	private ExecutorService executor;
+
+	@Before
+	public void setUp()
+	{
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown()
+	{
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void resultsInSubmissionOrder()
+		throws Exception
+	{
+		List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+		for (int i = 0; i < 4; i++) {
+			final int value = i;
+			futures.add(executor.submit(new Callable<Integer>()
+			{
+				@Override
+				public Integer call()
+					throws Exception
+				{
+					// Later tasks finish first
+					Thread.sleep(20 * (4 - value));
+					return value;
+				}
+			}));
+		}
+
+		assertEquals(Arrays.asList(0, 1, 2, 3), ParallelScoring.getAll(futures));
+	}
+
+	@Test(timeout = 10000)
+	public void failureCancelsRemainingTasks()
+		throws Exception
+	{
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch interrupted = new CountDownLatch(1);
+		List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+		futures.add(executor.submit(new Callable<Integer>()
+		{
+			@Override
+			public Integer call()
+				throws Exception
+			{
+				// Fail once the other task is running
+				started.await();
+				throw new IllegalStateException("failed");
+			}
+		}));
+		futures.add(executor.submit(new Callable<Integer>()
+		{
+			@Override
+			public Integer call()
+				throws Exception
+			{
+				try {
+					started.countDown();
+					new CountDownLatch(1).await();
+					return 1;
+				}
+				catch (InterruptedException e) {
+					interrupted.countDown();
+					throw e;
+				}
+			}
+		}));
+
+		try {
+			ParallelScoring.getAll(futures);
+			fail("Expected the failure of the first task");
+		}
+		catch (IllegalStateException e) {
+			assertEquals("failed", e.getMessage());
+		}
+
+		assertTrue(futures.get(1).isCancelled());
+		assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void similarityExceptionIsRethrown()
+	{
+		SimilarityException failure = new SimilarityException("failed");
+		assertSame(failure, getFailure(failure));
+	}
+
+	@Test
+	public void runtimeExceptionIsRethrown()
+	{
+		RuntimeException failure = new IllegalArgumentException("failed");
+		assertSame(failure, getFailure(failure));
+	}
+
+	@Test
+	public void errorIsRethrown()
+	{
+		Error failure = new AssertionError("failed");
+		assertSame(failure, getFailure(failure));
+	}
+
+	@Test
+	public void checkedExceptionIsWrapped()
+	{
+		IOException failure = new IOException("failed");
+		Throwable thrown = getFailure(failure);
+		assertTrue(thrown instanceof SimilarityException);
+		assertSame(failure, thrown.getCause());
+	}
+
+	private Throwable getFailure(final Throwable aFailure)
+	{
+		List<Future<Integer>> futures = new ArrayList<Future<Integer>>();
+		futures.add(executor.submit(new Callable<Integer>()
+		{
+			@Override
+			public Integer call()
+				throws Exception
+			{
+				if (aFailure instanceof Error) {
+					throw (Error) aFailure;
+				}
+				throw (Exception) aFailure;
+			}
+		}));
+
+		try {
+			ParallelScoring.getAll(futures);
+		}
+		catch (Throwable e) {
+			return e;
+		}
+		fail("Expected a failure");
+		return null;
+	}
+}
@@ -20,9 +20,11 @@ package org.dkpro.similarity.algorithms.lexical.ngrams;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -30,6 +32,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
 import org.dkpro.similarity.algorithms.api.SimilarityException;
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasureBase;
+import org.dkpro.similarity.algorithms.lexical.string.util.IdfTable;
 
 import de.tudarmstadt.ukp.dkpro.core.api.resources.ResourceUtils;
 
@@ -49,14 +52,29 @@ public class CharacterNGramMeasure
 	
 	private static final String alphabet = "abcdefjhijklmnopqrstuvwxyz0123456789";
 	
+	private static final int[] ALPHABET_INDEX = new int[128];
+	
+	static {
+		Arrays.fill(ALPHABET_INDEX, -1);
+		for (int i = 0; i < alphabet.length(); i++) {
+			char c = alphabet.charAt(i);
+			ALPHABET_INDEX[c] = alphabet.indexOf(c);
+		}
+	}
+	
 	int n;
-	Set<String> ngrams;
 	Map<String, Double> idf;
 	
+	private IdfTable idfTable;
+	
+	/**
+	 * The IDF values are compiled into a lookup table, later changes to the map are not seen.
+	 */
 	public CharacterNGramMeasure(int n, Map<String, Double> idfValues)
 	{
 		this.n = n;
 		this.idf = idfValues;
+		this.idfTable = IdfTable.fromMap(idfValues);
 	}
 	
 	public CharacterNGramMeasure(int n, String idfValuesFile)
@@ -72,89 +90,107 @@ public class CharacterNGramMeasure
 			String[] linesplit = line.split("\t");
 			idf.put(linesplit[0], Double.parseDouble(linesplit[1]));
 		}
+		idfTable = IdfTable.fromMap(idf);
 	}
 	
-	@Override
-	public double getSimilarity(String text1, String text2)
-		throws SimilarityException
+	/**
+	 * Computes the n-gram profile of a text. A profile can be reused to score the text against
+	 * many others.
+	 */
+	public Profile getProfile(String text)
 	{
-		Set<String> ngrams1 = getNGrams(text1);
-		Set<String> ngrams2 = getNGrams(text2);
-		
-		ngrams = new HashSet<String>();
-		ngrams.addAll(ngrams1);
-		ngrams.addAll(ngrams2);		
-		 
-		Map<String, Double> tf1 = getTF(ngrams1);
-		Map<String, Double> tf2 = getTF(ngrams2);
+		String chars = encode(text);
+		int count = n > 0 ? Math.max(0, chars.length() - (n - 1)) : 0;
 		
-		// Build up the vectors
-		double[] tfidf1 = new double[ngrams.size()];
-		double[] tfidf2 = new double[ngrams.size()];
+		// Ids of the n-grams that have an IDF value
+		int[] ids = new int[count];
+		int found = 0;
+		for (int i = 0; i < count; i++) {
+			int id = idfTable.getId(chars.substring(i, i + n));
+			if (idfTable.contains(id)) {
+				ids[found++] = id;
+			}
+		}
+		Arrays.sort(ids, 0, found);
 		
-		int idx = 0;
-		for (String ngram : ngrams)
-		{
-			if (tf1.containsKey(ngram) && idf.containsKey(ngram)) {
-                tfidf1[idx] = tf1.get(ngram) * idf.get(ngram);
-            }
-            else {
-                tfidf1[idx] = 0.0;
-            }
-			
-			if (tf2.containsKey(ngram) && idf.containsKey(ngram)) {
-                tfidf2[idx] = tf2.get(ngram) * idf.get(ngram);
-            }
-            else {
-                tfidf2[idx] = 0.0;
-            }
-			       
-			idx++;
+		// Keep distinct n-grams
+		double[] weights = new double[found];
+		int size = 0;
+		double mag = 0.0;
+		for (int i = 0; i < found; i++) {
+			if (i > 0 && ids[i] == ids[i - 1]) {
+				continue;
+			}
+			double weight = idfTable.getIdf(ids[i]);
+			if (weight != 0.0) {
+				ids[size] = ids[i];
+				weights[size] = weight;
+				mag += weight * weight;
+				size++;
+			}
 		}
 		
-		// Compute Cosine
+		return new Profile(Arrays.copyOf(ids, size), Arrays.copyOf(weights, size),
+				Math.sqrt(mag));
+	}
+	
+	/**
+	 * Computes the TF-IDF cosine of two profiles in a single merge pass over their n-grams.
+	 */
+	public double getSimilarity(Profile profile1, Profile profile2)
+	{
+		int[] ids1 = profile1.ids;
+		int[] ids2 = profile2.ids;
 		double dotprod = 0.0;
-		for (int i = 0; i < ngrams.size(); i++) {
-            dotprod += tfidf1[i] * tfidf2[i];
-        }
-		
-		double mag1 = 0.0;
-		for (int i = 0; i < ngrams.size(); i++) {
-            mag1 += Math.pow(tfidf1[i], 2);
-        }
-		
-		double mag2 = 0.0;
-		for (int i = 0; i < ngrams.size(); i++) {
-            mag2 += Math.pow(tfidf2[i], 2);
-        }
+		int i = 0;
+		int j = 0;
+		while (i < ids1.length && j < ids2.length) {
+			if (ids1[i] == ids2[j]) {
+				dotprod += profile1.weights[i] * profile2.weights[j];
+				i++;
+				j++;
+			}
+			else if (ids1[i] < ids2[j]) {
+				i++;
+			}
+			else {
+				j++;
+			}
+		}
 		
-		return dotprod / (Math.sqrt(mag1) * Math.sqrt(mag2));
+		return dotprod / (profile1.magnitude * profile2.magnitude);
 	}
 	
 	@Override
-	public double getSimilarity(Collection<String> stringList1,
-			Collection<String> stringList2)
+	public double getSimilarity(String text1, String text2)
 		throws SimilarityException
 	{
-		return getSimilarity(StringUtils.join(stringList1, " "), StringUtils.join(stringList2, " "));
+		return getSimilarity(getProfile(text1), getProfile(text2));
 	}
 	
-	private Map<String, Double> getTF(Set<String> ngrams)
+	/**
+	 * Scores one text against many candidates. The n-grams of the text are computed only once.
+	 * 
+	 * @return the scores in the order of the candidates.
+	 */
+	public double[] getSimilarities(String text, List<String> candidates)
+		throws SimilarityException
 	{
-		Map<String, Double> tf = new HashMap<String, Double>();
-		
-		for (String ngram : ngrams)
-		{
-			double count = 0;
-			if (tf.containsKey(ngram)) {
-                count = tf.get(ngram);
-            }
-			
-			count++;
-			tf.put(ngram, count);
+		Profile profile = getProfile(text);
+		double[] scores = new double[candidates.size()];
+		int i = 0;
+		for (String candidate : candidates) {
+			scores[i++] = getSimilarity(profile, getProfile(candidate));
 		}
-		
-		return tf;
+		return scores;
+	}
+	
+	@Override
+	public double getSimilarity(Collection<String> stringList1,
+			Collection<String> stringList2)
+		throws SimilarityException
+	{
+		return getSimilarity(StringUtils.join(stringList1, " "), StringUtils.join(stringList2, " "));
 	}
 	
 	public Set<String> getNGrams(String text)
@@ -180,13 +216,12 @@ public class CharacterNGramMeasure
 		StringBuilder sb = new StringBuilder();
 		
 		text = text.toLowerCase();
-		char[] chars = text.toCharArray();
-		
-		for (char c : chars)
+		for (int i = 0; i < text.length(); i++)
 		{
-			if (alphabet.indexOf(c) > -1) {
-                sb.append(c);
-            }
+			char c = text.charAt(i);
+			if (c < ALPHABET_INDEX.length && ALPHABET_INDEX[c] >= 0) {
+				sb.append(c);
+			}
 		}
 		
 		return sb.toString();
@@ -203,4 +238,29 @@ public class CharacterNGramMeasure
     {
         return true;
     }	
+
+	/**
+	 * The distinct n-grams of a text that have an IDF value, with their TF-IDF weights.
+	 */
+	public static final class Profile
+	{
+		private final int[] ids;
+		private final double[] weights;
+		private final double magnitude;
+		
+		private Profile(int[] ids, double[] weights, double magnitude)
+		{
+			this.ids = ids;
+			this.weights = weights;
+			this.magnitude = magnitude;
+		}
+		
+		/**
+		 * @return the number of distinct n-grams with an IDF value.
+		 */
+		public int size()
+		{
+			return ids.length;
+		}
+	}
 }
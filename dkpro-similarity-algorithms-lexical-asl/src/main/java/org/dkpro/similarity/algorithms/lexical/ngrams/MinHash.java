@@ -0,0 +1,139 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lexical.ngrams;
+
+import java.util.Random;
+
+import org.dkpro.similarity.algorithms.api.ngrams.NGramSet;
+
+/**
+ * MinHash signatures of n-gram sets. For each of {@code k} random permutations of the 64-bit
+ * n-gram hashes, the signature keeps the smallest permuted value of the set. The probability that
+ * two sets agree at a position equals their Jaccard coefficient, so the fraction of agreeing
+ * positions estimates the {@link WordNGramJaccardMeasure} without looking at the n-grams again.
+ * 
+ * A. Z. Broder. 1997. On the resemblance and containment of documents. In Proceedings of the
+ * Compression and Complexity of Sequences, pages 21–29.
+ * 
+ * Instances are immutable and can be shared between threads. Signatures are only comparable if
+ * they have been computed with the same number of hash functions and the same seed.
+ */
+public final class MinHash
+{
+	/**
+	 * Value of all signature positions of an empty set.
+	 */
+	public static final long EMPTY = Long.MAX_VALUE;
+
+	private final long[] multipliers;
+	private final long[] increments;
+
+	/**
+	 * @param numHashes
+	 *            the length of the signatures. The standard error of the Jaccard estimate is
+	 *            about {@code 1 / sqrt(numHashes)}.
+	 * @param seed
+	 *            the seed of the hash functions.
+	 */
+	public MinHash(int numHashes, long seed)
+	{
+		if (numHashes < 1) {
+			throw new IllegalArgumentException("Number of hashes must be positive");
+		}
+
+		Random random = new Random(seed);
+		multipliers = new long[numHashes];
+		increments = new long[numHashes];
+		for (int i = 0; i < numHashes; i++) {
+			// Odd multipliers make x * a + b a permutation of the 64-bit values
+			multipliers[i] = random.nextLong() | 1L;
+			increments[i] = random.nextLong();
+		}
+	}
+
+	public int getNumHashes()
+	{
+		return multipliers.length;
+	}
+
+	/**
+	 * Computes the signature of an n-gram set. All positions of the signature of an empty set
+	 * are {@link #EMPTY}.
+	 */
+	public long[] getSignature(NGramSet ngrams)
+	{
+		long[] signature = new long[multipliers.length];
+		for (int i = 0; i < signature.length; i++) {
+			signature[i] = EMPTY;
+		}
+
+		for (int n = 0; n < ngrams.size(); n++) {
+			long hash = ngrams.get(n);
+			for (int i = 0; i < signature.length; i++) {
+				long value = permute(hash * multipliers[i] + increments[i]);
+				if (value < signature[i]) {
+					signature[i] = value;
+				}
+			}
+		}
+		return signature;
+	}
+
+	/**
+	 * Estimates the Jaccard coefficient of two n-gram sets from their signatures. Like
+	 * {@link WordNGramJaccardMeasure}, the estimate for two empty sets is 0.
+	 */
+	public static double estimateJaccard(long[] signature1, long[] signature2)
+	{
+		if (signature1.length != signature2.length) {
+			throw new IllegalArgumentException("Signatures have different lengths: "
+					+ signature1.length + " and " + signature2.length);
+		}
+
+		int equal = 0;
+		for (int i = 0; i < signature1.length; i++) {
+			if (signature1[i] == signature2[i] && signature1[i] != EMPTY) {
+				equal++;
+			}
+		}
+		return equal / (double) signature1.length;
+	}
+
+	/**
+	 * Estimates the Jaccard coefficient of two n-gram sets.
+	 */
+	public double estimateJaccard(NGramSet ngrams1, NGramSet ngrams2)
+	{
+		return estimateJaccard(getSignature(ngrams1), getSignature(ngrams2));
+	}
+
+	/**
+	 * Bijective bit mixer (finalizer of MurmurHash3) that breaks up the linear structure of the
+	 * multiply-add permutation.
+	 */
+	private static long permute(long value)
+	{
+		long h = value;
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
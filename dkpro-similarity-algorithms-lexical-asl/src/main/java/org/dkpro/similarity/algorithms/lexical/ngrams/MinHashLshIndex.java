@@ -0,0 +1,300 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lexical.ngrams;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Banded locality-sensitive hashing index over {@link MinHash} signatures. Each signature is cut
+ * into {@code bands} bands of {@code rows} positions. Two documents become a candidate pair if
+ * they agree on all positions of at least one band, which happens with probability
+ * {@code 1 - (1 - s^rows)^bands} for Jaccard coefficient {@code s}. The probability rises
+ * steeply around {@link #getThreshold()}, so only a small fraction of all pairs needs to be
+ * compared.
+ * 
+ * Candidates are checked against the estimated Jaccard coefficient of their full signatures
+ * before they are reported, so the result contains no pair below the requested threshold.
+ * 
+ * J. Leskovec, A. Rajaraman, and J. D. Ullman. 2014. Mining of Massive Datasets, chapter 3.4.
+ * Cambridge University Press.
+ * 
+ * The index is not thread-safe.
+ */
+public class MinHashLshIndex
+{
+	private final int bands;
+	private final int rows;
+
+	private final List<long[]> signatures = new ArrayList<long[]>();
+
+	// Band keys of document d are stored at d * bands + b
+	private int[] bandKeys = new int[0];
+
+	// Per band the entries (key << 32 | id) of all documents of non-empty sets in sorted order,
+	// built on demand
+	private long[][] buckets;
+
+	/**
+	 * @param bands
+	 *            the number of bands.
+	 * @param rows
+	 *            the number of signature positions per band. Signatures must have
+	 *            {@code bands * rows} positions.
+	 */
+	public MinHashLshIndex(int bands, int rows)
+	{
+		if (bands < 1 || rows < 1) {
+			throw new IllegalArgumentException("Bands and rows must be positive");
+		}
+		this.bands = bands;
+		this.rows = rows;
+	}
+
+	/**
+	 * Creates an index whose threshold is close to the given Jaccard coefficient, using all
+	 * positions of signatures with the given length.
+	 */
+	public static MinHashLshIndex forThreshold(double threshold, int numHashes)
+	{
+		int bestRows = 1;
+		double bestError = Double.MAX_VALUE;
+		for (int r = 1; r <= numHashes; r++) {
+			if (numHashes % r == 0) {
+				double error = Math.abs(getThreshold(numHashes / r, r) - threshold);
+				if (error < bestError) {
+					bestError = error;
+					bestRows = r;
+				}
+			}
+		}
+		return new MinHashLshIndex(numHashes / bestRows, bestRows);
+	}
+
+	/**
+	 * @return the Jaccard coefficient at which a pair becomes a candidate with a probability of
+	 *         about one half.
+	 */
+	public double getThreshold()
+	{
+		return getThreshold(bands, rows);
+	}
+
+	private static double getThreshold(int bands, int rows)
+	{
+		return Math.pow(1.0 / bands, 1.0 / rows);
+	}
+
+	public int getBands()
+	{
+		return bands;
+	}
+
+	public int getRows()
+	{
+		return rows;
+	}
+
+	/**
+	 * @return the number of documents in the index.
+	 */
+	public int size()
+	{
+		return signatures.size();
+	}
+
+	/**
+	 * @return the signature of the document with the given id.
+	 */
+	public long[] getSignature(int id)
+	{
+		return signatures.get(id);
+	}
+
+	/**
+	 * Adds the signature of a document.
+	 * 
+	 * @return the id of the document. Ids are assigned consecutively starting at 0.
+	 */
+	public int add(long[] signature)
+	{
+		if (signature.length != bands * rows) {
+			throw new IllegalArgumentException("Expected signature of length " + (bands * rows)
+					+ " but got " + signature.length);
+		}
+
+		int id = signatures.size();
+		signatures.add(signature);
+		if (bandKeys.length < (id + 1) * bands) {
+			bandKeys = Arrays.copyOf(bandKeys, Math.max((id + 1) * bands, bandKeys.length * 2));
+		}
+		for (int b = 0; b < bands; b++) {
+			bandKeys[id * bands + b] = bandKey(signature, b);
+		}
+		buckets = null;
+		return id;
+	}
+
+	/**
+	 * Finds the indexed documents whose estimated Jaccard coefficient with the given signature
+	 * is at least {@code threshold}.
+	 * 
+	 * @return the ids of the documents in ascending order.
+	 */
+	public int[] query(long[] signature, double threshold)
+	{
+		if (isEmpty(signature)) {
+			return new int[0];
+		}
+
+		long[][] sortedBuckets = getBuckets();
+		int[] keys = new int[bands];
+		int[] result = new int[16];
+		int count = 0;
+		for (int b = 0; b < bands; b++) {
+			keys[b] = bandKey(signature, b);
+			long[] entries = sortedBuckets[b];
+			int i = Arrays.binarySearch(entries, (long) keys[b] << 32);
+			if (i < 0) {
+				i = -i - 1;
+			}
+			for (; i < entries.length && (int) (entries[i] >>> 32) == keys[b]; i++) {
+				int id = (int) entries[i];
+				if (sharesEarlierBand(id, keys, b)) {
+					// Already seen in an earlier band
+					continue;
+				}
+				if (MinHash.estimateJaccard(signature, signatures.get(id)) >= threshold) {
+					if (count == result.length) {
+						result = Arrays.copyOf(result, count * 2);
+					}
+					result[count++] = id;
+				}
+			}
+		}
+
+		result = Arrays.copyOf(result, count);
+		Arrays.sort(result);
+		return result;
+	}
+
+	/**
+	 * Reports each pair of indexed documents that shares a band and whose estimated Jaccard
+	 * coefficient is at least {@code threshold} exactly once.
+	 */
+	public void findCandidatePairs(double threshold, PairHandler handler)
+	{
+		long[][] sortedBuckets = getBuckets();
+		for (int b = 0; b < bands; b++) {
+			long[] entries = sortedBuckets[b];
+			int start = 0;
+			while (start < entries.length) {
+				int end = start + 1;
+				while (end < entries.length && (entries[end] >>> 32) == (entries[start] >>> 32)) {
+					end++;
+				}
+				for (int i = start; i < end; i++) {
+					int id1 = (int) entries[i];
+					for (int j = i + 1; j < end; j++) {
+						int id2 = (int) entries[j];
+						if (sharesEarlierBand(id2, bandKeys, id1 * bands, b)) {
+							// Already seen in an earlier band
+							continue;
+						}
+						double estimate = MinHash.estimateJaccard(signatures.get(id1),
+								signatures.get(id2));
+						if (estimate >= threshold) {
+							handler.pair(id1, id2, estimate);
+						}
+					}
+				}
+				start = end;
+			}
+		}
+	}
+
+	private long[][] getBuckets()
+	{
+		if (buckets == null) {
+			int n = signatures.size();
+			long[][] sortedBuckets = new long[bands][];
+			for (int b = 0; b < bands; b++) {
+				long[] entries = new long[n];
+				int count = 0;
+				for (int id = 0; id < n; id++) {
+					// Empty sets would all share one bucket but never reach any threshold
+					if (!isEmpty(signatures.get(id))) {
+						entries[count++] = ((long) bandKeys[id * bands + b] << 32) | id;
+					}
+				}
+				// Sorting groups equal keys and orders each group by id
+				Arrays.sort(entries, 0, count);
+				sortedBuckets[b] = count == n ? entries : Arrays.copyOf(entries, count);
+			}
+			buckets = sortedBuckets;
+		}
+		return buckets;
+	}
+
+	private boolean sharesEarlierBand(int id, int[] keys, int band)
+	{
+		return sharesEarlierBand(id, keys, 0, band);
+	}
+
+	private boolean sharesEarlierBand(int id, int[] keys, int offset, int band)
+	{
+		for (int b = 0; b < band; b++) {
+			if (bandKeys[id * bands + b] == keys[offset + b]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private int bandKey(long[] signature, int band)
+	{
+		long h = band;
+		for (int r = band * rows; r < (band + 1) * rows; r++) {
+			h = (h ^ signature[r]) * 0x9E3779B97F4A7C15L;
+			h ^= h >>> 29;
+		}
+		return (int) (h >>> 32);
+	}
+
+	private static boolean isEmpty(long[] signature)
+	{
+		return signature[0] == MinHash.EMPTY;
+	}
+
+	/**
+	 * Receives candidate pairs from {@link MinHashLshIndex#findCandidatePairs}.
+	 */
+	public interface PairHandler
+	{
+		/**
+		 * @param id1
+		 *            the smaller id of the pair.
+		 * @param id2
+		 *            the larger id of the pair.
+		 * @param estimatedJaccard
+		 *            the Jaccard coefficient estimated from the signatures.
+		 */
+		void pair(int id1, int id2, double estimatedJaccard);
+	}
+}
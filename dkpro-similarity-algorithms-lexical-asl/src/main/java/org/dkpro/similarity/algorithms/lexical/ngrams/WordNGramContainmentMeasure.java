@@ -21,6 +21,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.dkpro.similarity.algorithms.api.ngrams.NGramSet;
+
 /**
  * Similar to the {@link WordNGramJaccardMeasure}, but uses the containment
  * measure by Broder (1997) to compute the n-gram overlap:
@@ -45,6 +47,21 @@ public class WordNGramContainmentMeasure
 	}
 
 	@Override
+	protected double getNormalizedSimilarity(
+			NGramSet suspiciousNGrams, NGramSet originalNGrams)
+	{
+		// Compare using the Containment measure (Broder, 1997)
+		double norm = suspiciousNGrams.size();
+		double sim = 0.0;
+		
+		if (norm > 0.0)
+			sim = suspiciousNGrams.intersectionSize(originalNGrams) / norm;
+		
+		return sim;
+	}
+
+	@Override
+	@Deprecated
 	protected double getNormalizedSimilarity(
 			Set<List<String>> suspiciousNGrams, Set<List<String>> originalNGrams)
 	{
@@ -61,4 +78,14 @@ public class WordNGramContainmentMeasure
 		
 		return sim;
 	}
+
+	@Override
+	protected double getUpperBound(NGramSet suspiciousNGrams, NGramSet originalNGrams)
+	{
+		int size = suspiciousNGrams.size();
+		if (size == 0) {
+			return 0.0;
+		}
+		return (double) Math.min(size, originalNGrams.size()) / size;
+	}
 }
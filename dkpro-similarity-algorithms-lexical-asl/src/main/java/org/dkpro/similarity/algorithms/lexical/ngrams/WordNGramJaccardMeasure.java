@@ -26,6 +26,10 @@ import java.util.Set;
 
 import org.dkpro.similarity.algorithms.api.SimilarityException;
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasureBase;
+import org.dkpro.similarity.algorithms.api.ThresholdedTextSimilarityMeasure;
+import org.dkpro.similarity.algorithms.api.ngrams.LegacyHooks;
+import org.dkpro.similarity.algorithms.api.ngrams.NGramSet;
+import org.dkpro.similarity.algorithms.api.ngrams.TokenDictionary;
 
 /**
  * This comparator is an n-gram similarity model which employs the Jaccard similarity coefficient.
@@ -40,11 +44,23 @@ import org.dkpro.similarity.algorithms.api.TextSimilarityMeasureBase;
  */
 public class WordNGramJaccardMeasure
     extends TextSimilarityMeasureBase
+    implements ThresholdedTextSimilarityMeasure
 {
     protected int n;
 
     private boolean toLowerCase;
 
+    private TokenDictionary tokenDictionary;
+
+    /**
+     * Whether a subclass overrides {@link #getNormalizedSimilarity(Set, Set)}. Such subclasses are
+     * scored on n-gram lists, so they keep their behavior.
+     */
+    private final boolean legacyHook = LegacyHooks.overrides(getClass(),
+            Arrays.<Class<?>> asList(WordNGramJaccardMeasure.class,
+                    WordNGramContainmentMeasure.class),
+            "getNormalizedSimilarity", Set.class, Set.class);
+
     public WordNGramJaccardMeasure()
     {
         // default constructor uses trigrams and does not convert to lowerCase
@@ -76,15 +92,80 @@ public class WordNGramJaccardMeasure
     public double getSimilarity(Collection<String> stringList1, Collection<String> stringList2)
         throws SimilarityException
     {
+        if (legacyHook) {
+            return getNormalizedSimilarity(getNGramLists(stringList1), getNGramLists(stringList2));
+        }
+
         // Get n-grams
-        Set<List<String>> ngrams1 = getNGrams(Arrays.asList(stringList1.toArray(new String[] {})));
-        Set<List<String>> ngrams2 = getNGrams(Arrays.asList(stringList2.toArray(new String[] {})));
+        NGramSet ngrams1 = getNGrams(stringList1);
+        NGramSet ngrams2 = getNGrams(stringList2);
 
         double sim = getNormalizedSimilarity(ngrams1, ngrams2);
 
         return sim;
     }
 
+    @Override
+    public double getSimilarityIfAbove(Collection<String> stringList1,
+            Collection<String> stringList2, double threshold)
+        throws SimilarityException
+    {
+        if (legacyHook) {
+            return getSimilarity(stringList1, stringList2);
+        }
+        return getSimilarityIfAbove(getNGrams(stringList1), getNGrams(stringList2), threshold);
+    }
+
+    /**
+     * Compares two n-gram sets created by {@link #getNGrams(Collection)} if the similarity can
+     * reach the threshold. The set sizes bound the similarity, so the intersection is only
+     * computed if the bound is not below the threshold.
+     * 
+     * @return the similarity or {@link #BELOW_THRESHOLD}.
+     */
+    public double getSimilarityIfAbove(NGramSet ngrams1, NGramSet ngrams2, double threshold)
+    {
+        if (getUpperBound(ngrams1, ngrams2) < threshold) {
+            return BELOW_THRESHOLD;
+        }
+        return getNormalizedSimilarity(ngrams1, ngrams2);
+    }
+
+    /**
+     * Computes an upper bound of {@link #getNormalizedSimilarity(NGramSet, NGramSet)} from the
+     * sizes of the sets. The intersection is at most as large as the smaller set and the union
+     * at least as large as the larger set.
+     */
+    protected double getUpperBound(NGramSet suspiciousNGrams, NGramSet originalNGrams)
+    {
+        int size1 = suspiciousNGrams.size();
+        int size2 = originalNGrams.size();
+        if (size1 == 0 || size2 == 0) {
+            return 0.0;
+        }
+        return (double) Math.min(size1, size2) / Math.max(size1, size2);
+    }
+
+    protected double getNormalizedSimilarity(NGramSet suspiciousNGrams, NGramSet originalNGrams)
+    {
+        // Compare using the Jaccard similarity coefficient (Manning & Schütze, 1999)
+        double norm = suspiciousNGrams.unionSize(originalNGrams);
+        double sim = 0.0;
+
+        if (norm > 0.0) {
+            sim = suspiciousNGrams.intersectionSize(originalNGrams) / norm;
+        }
+
+        return sim;
+    }
+
+    /**
+     * Compares n-grams represented as token lists. This is the hook of earlier versions and only
+     * used if a subclass overrides it.
+     * 
+     * @deprecated override {@link #getNormalizedSimilarity(NGramSet, NGramSet)} instead.
+     */
+    @Deprecated
     protected double getNormalizedSimilarity(Set<List<String>> suspiciousNGrams,
             Set<List<String>> originalNGrams)
     {
@@ -107,15 +188,30 @@ public class WordNGramJaccardMeasure
         return sim;
     }
 
-    private Set<List<String>> getNGrams(List<String> stringList)
+    /**
+     * @return the distinct n-grams of the tokens as used by this measure.
+     */
+    public NGramSet getNGrams(Collection<String> stringList)
     {
+        String[] tokens = new String[stringList.size()];
+        int i = 0;
+        for (String token : stringList) {
+            tokens[i++] = toLowerCase ? token.toLowerCase() : token;
+        }
+
+        return NGramSet.create(tokens, tokens.length, n, tokenDictionary);
+    }
+
+    private Set<List<String>> getNGramLists(Collection<String> stringList)
+    {
+        List<String> tokens = new ArrayList<String>(stringList);
         Set<List<String>> ngrams = new HashSet<List<String>>();
 
-        for (int i = 0; i < stringList.size() - (n - 1); i++) {
+        for (int i = 0; i < tokens.size() - (n - 1); i++) {
             // Generate n-gram at index i
             List<String> ngram = new ArrayList<String>();
             for (int k = 0; k < n; k++) {
-                String token = stringList.get(i + k);
+                String token = tokens.get(i + k);
                 if (toLowerCase) {
                     token = token.toLowerCase();
                 }
@@ -144,4 +240,19 @@ public class WordNGramJaccardMeasure
     {
         this.toLowerCase = toLowerCase;
     }
+
+    public TokenDictionary getTokenDictionary()
+    {
+        return tokenDictionary;
+    }
+
+    /**
+     * Sets the dictionary that maps tokens to ids. A dictionary can be shared by several
+     * measures. By default, no dictionary is used and the tokens are hashed, so the measure keeps
+     * no state however many texts it compares.
+     */
+    public void setTokenDictionary(TokenDictionary tokenDictionary)
+    {
+        this.tokenDictionary = tokenDictionary;
+    }
 }
@@ -20,24 +20,26 @@ package org.dkpro.similarity.algorithms.lexical.string;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
-import no.uib.cipr.matrix.DenseVector;
-import no.uib.cipr.matrix.Vector;
-
-import org.apache.commons.io.FileUtils;
 import org.dkpro.similarity.algorithms.api.SimilarityException;
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasureBase;
-import org.dkpro.similarity.algorithms.vsm.InnerVectorProduct;
-import org.dkpro.similarity.algorithms.vsm.VectorNorm;
-
-import de.tudarmstadt.ukp.dkpro.core.api.frequency.util.FrequencyDistribution;
+import org.dkpro.similarity.algorithms.api.ngrams.InternedTokenDictionary;
+import org.dkpro.similarity.algorithms.api.ngrams.NGramSet;
+import org.dkpro.similarity.algorithms.lexical.string.util.IdfTable;
 
+/**
+ * Cosine similarity of TF or TF-IDF weighted term vectors. Terms are mapped to the ids of the
+ * {@link IdfTable} or, if they have no IDF value, to 64-bit hashes. Each text is turned into a
+ * sparse {@link DocumentVector}, so the similarity is computed by merging two sorted key arrays.
+ * The measure keeps no state for the terms it has seen. Document vectors can be computed once
+ * and reused, e.g. to rank many documents against one query, see
+ * {@link #getSimilarities(DocumentVector, List)}.
+ */
 public class CosineSimilarity
 	extends TextSimilarityMeasureBase
 {
@@ -59,6 +61,8 @@ public class CosineSimilarity
 	// TZ 2014-08-19
 	// removed the IDF only weighting mode, as it always needs to be used together with TF
 	// otherwise both vectors will be equal and similarity will always be 1 no matter what weighting is used
+	// The IDF-only constructor uses BINARY TF weights instead, i.e. the terms are weighted by
+	// IDF only
 	private enum WeightingMode
 	{
 		TF, TFIDF
@@ -68,7 +72,7 @@ public class CosineSimilarity
 	private WeightingModeTf weightingModeTf;
 	private WeightingModeIdf weightingModeIdf;
 	private NormalizationMode normalizationMode;
-	private Map<String, Double> idfScores;
+	private IdfTable idfTable;
 
 	public CosineSimilarity()
 	{
@@ -84,77 +88,73 @@ public class CosineSimilarity
 	 * @param modeTf What kind of TF weighting should be used
 	 * @param modeIdf What kind of IDF weighting should be used
 	 * @param normMode What kind of normalization should be used
-	 * @param idfScores A map of strings to IDF scores
+	 * @param idfScores A map of strings to IDF scores. The scores are compiled into an
+	 *        {@link IdfTable}, later changes to the map are not seen.
 	 */
 	public CosineSimilarity(WeightingModeTf modeTf, WeightingModeIdf modeIdf,
 			NormalizationMode normMode, Map<String, Double> idfScores)
 	{
-		initialize(modeTf, modeIdf, normMode, idfScores);
+		initialize(modeTf, modeIdf, normMode, idfScores != null ? IdfTable.fromMap(idfScores)
+				: null);
 	}
 
+	/**
+	 * @param modeTf What kind of TF weighting should be used
+	 * @param modeIdf What kind of IDF weighting should be used
+	 * @param normMode What kind of normalization should be used
+	 * @param idfTable The IDF scores
+	 */
+	public CosineSimilarity(WeightingModeTf modeTf, WeightingModeIdf modeIdf,
+			NormalizationMode normMode, IdfTable idfTable)
+	{
+		initialize(modeTf, modeIdf, normMode, idfTable);
+	}
+
+	/**
+	 * Weights the terms by IDF only, i.e. {@link WeightingModeTf#BINARY} TF weights are used.
+	 * 
+	 * @param modeIdf What kind of IDF weighting should be used
+	 * @param normMode What kind of normalization should be used
+	 * @param idfScoresFile A tab-separated file of strings and IDF scores or a binary file
+	 *        written by {@link IdfTable#write(File)}
+	 * @throws IllegalArgumentException if the file cannot be read
+	 */
 	public CosineSimilarity(WeightingModeIdf modeIdf, NormalizationMode normMode,
 			String idfScoresFile)
 	{
-		HashMap<String, Double> idfValues = null;
-		if(idfScoresFile != null)
-		{
-		idfValues = new HashMap<String,Double>();
-		try {
-			for (String line : FileUtils.readLines(new File(idfScoresFile)))
-			{
-				if (line.length() > 0)
-				{
-					String[] cols = line.split("\t");
-					idfValues.put(cols[0], Double.parseDouble(cols[1]));
-				}
-			}
-		}
-		catch (NumberFormatException e) {
-			e.printStackTrace();
-		}
-		catch (IOException e) {
-			e.printStackTrace();
-		}
-		}
-		else
-		{
-			idfValues = null;
-		}
-		initialize(null, modeIdf, normMode, idfValues);
+		initialize(WeightingModeTf.BINARY, modeIdf, normMode, loadIdfTable(idfScoresFile));
 	}
 
+	/**
+	 * @param idfScoresFile A tab-separated file of strings and IDF scores or a binary file
+	 *        written by {@link IdfTable#write(File)}
+	 * @throws IllegalArgumentException if the file cannot be read
+	 */
 	public CosineSimilarity(WeightingModeTf modeTf, WeightingModeIdf modeIdf,
 			NormalizationMode normMode, String idfScoresFile)
 	{
-		HashMap<String, Double> idfValues;
-		if (idfScoresFile != null) {
-			idfValues = new HashMap<String, Double>();
-			try {
-				for (String line : FileUtils.readLines(new File(idfScoresFile))) {
-					if (line.length() > 0) {
-						String[] cols = line.split("\t");
-						idfValues.put(cols[0], Double.parseDouble(cols[1]));
-					}
-				}
-			} catch (NumberFormatException e) {
-				e.printStackTrace();
-			} catch (IOException e) {
-				e.printStackTrace();
-			}
-		} else {
-			idfValues = null;
-		}
-		initialize(modeTf, modeIdf, normMode, idfValues);
+		initialize(modeTf, modeIdf, normMode, loadIdfTable(idfScoresFile));
 	}
 
+	private static IdfTable loadIdfTable(String idfScoresFile)
+	{
+		if (idfScoresFile == null) {
+			return null;
+		}
+
+		try {
+			return IdfTable.load(new File(idfScoresFile));
+		}
+		catch (IOException e) {
+			throw new IllegalArgumentException("Cannot read IDF scores from [" + idfScoresFile
+					+ "]", e);
+		}
+	}
 
 	private void initialize(WeightingModeTf modeTf, WeightingModeIdf modeIdf,
-			NormalizationMode normMode, Map<String, Double> idfScores)
+			NormalizationMode normMode, IdfTable idfTable)
 	{
-		if (modeTf == null && modeIdf != null) {
-			this.weightingMode = WeightingMode.TFIDF;
-		}
-		else if (modeTf != null && modeIdf == null) {
+		if (modeIdf == null) {
 			this.weightingMode = WeightingMode.TF;
 		}
 		else {
@@ -164,35 +164,71 @@ public class CosineSimilarity
 		this.weightingModeTf = modeTf;
 		this.weightingModeIdf = modeIdf;
 		this.normalizationMode = normMode;
-		this.idfScores = idfScores;
+		if (weightingMode == WeightingMode.TFIDF && idfTable == null) {
+			idfTable = IdfTable.fromMap(Collections.<String, Double> emptyMap());
+		}
+		this.idfTable = idfTable;
 	}
 
 	@Override
 	public double getSimilarity(Collection<String> terms1, Collection<String> terms2)
 		throws SimilarityException
 	{
+		return getSimilarity(getVector(terms1), getVector(terms2));
+	}
+
+	/**
+	 * Computes the similarity of two document vectors created by {@link #getVector(Collection)}
+	 * of this measure.
+	 */
+	public double getSimilarity(DocumentVector vector1, DocumentVector vector2)
+	{
+		long[] keys1 = vector1.keys;
+		long[] keys2 = vector2.keys;
+
+		// Merge the sorted term keys
+		int common = 0;
+		double num = 0.0;
+		double unseenIdf = 1.0;
+		if (weightingMode == WeightingMode.TFIDF) {
+			// the smallest IDF value of all terms is used for weighting unseen tokens
+			unseenIdf = weightIdf(Math.min(vector1.minIdf, vector2.minIdf));
+		}
+		int i = 0;
+		int j = 0;
+		while (i < keys1.length && j < keys2.length) {
+			if (keys1[i] == keys2[j]) {
+				double w1 = vector1.tf[i] * (vector1.seen[i] ? vector1.idf[i] : unseenIdf);
+				double w2 = vector2.tf[j] * (vector2.seen[j] ? vector2.idf[j] : unseenIdf);
+				num += w1 * w2;
+				common++;
+				i++;
+				j++;
+			}
+			else if (keys1[i] < keys2[j]) {
+				i++;
+			}
+			else {
+				j++;
+			}
+		}
+
 		// fix for issue #11
 		// all equal, return 1.0
-		Set<String> unionTermSet = new HashSet<String>(terms1);
-		unionTermSet.addAll(terms2);
-		if (terms1.size() == terms2.size() && terms1.size() == unionTermSet.size()) {
-		    return 1.0;
+		int union = keys1.length + keys2.length - common;
+		if (vector1.size == vector2.size && vector1.size == union) {
+			return 1.0;
 		}
 
-		// Get TF/IDF/TFIDF vectors
-		Vector vector1 = getVector(unionTermSet, terms1);
-		Vector vector2 = getVector(unionTermSet, terms2);
-		
-		// Numerator
-		double num = InnerVectorProduct.COSINE.apply(vector1, vector2);
-		
 		double norm;
 		switch (normalizationMode) {
 		case L1:
-			norm = VectorNorm.L1.apply(vector1, vector2);
+			norm = (vector1.seenNorm1 + Math.abs(unseenIdf) * vector1.unseenNorm1)
+					* (vector2.seenNorm1 + Math.abs(unseenIdf) * vector2.unseenNorm1);
 			break;
 		case L2:
-			norm = VectorNorm.L2.apply(vector1, vector2);
+			norm = Math.sqrt(vector1.seenNorm2 + unseenIdf * unseenIdf * vector1.unseenNorm2)
+					* Math.sqrt(vector2.seenNorm2 + unseenIdf * unseenIdf * vector2.unseenNorm2);
 			break;
 		default:
 			throw new IllegalStateException("Unsupported norm: "+normalizationMode);
@@ -206,6 +242,21 @@ public class CosineSimilarity
 		return num / norm;
 	}
 
+	/**
+	 * Ranks many documents against one query.
+	 * 
+	 * @return the scores in the order of the documents.
+	 */
+	public double[] getSimilarities(DocumentVector query, List<DocumentVector> documents)
+	{
+		double[] scores = new double[documents.size()];
+		int i = 0;
+		for (DocumentVector document : documents) {
+			scores[i++] = getSimilarity(query, document);
+		}
+		return scores;
+	}
+
 	/* 
 	 * Up to 2.0.0, this used to treat the strings as representations of whole sentences that were silently tokenized.
 	 * I think that this is counter-intuitive and intransparent.
@@ -229,89 +280,159 @@ public class CosineSimilarity
 	    return getSimilarity(parts1, parts2);
 	}
 
-	private Vector getVector(Collection<String> allTerms, Collection<String> docTerms)
+	/**
+	 * Creates the weighted term vector of a document. The vector can be reused for any number of
+	 * comparisons with this measure.
+	 */
+	public DocumentVector getVector(Collection<String> docTerms)
 	{
-		Vector vector = new DenseVector(allTerms.size());
-
-		// TF
-		if (weightingMode == WeightingMode.TF || weightingMode == WeightingMode.TFIDF) {
-			FrequencyDistribution<String> fd = new FrequencyDistribution<String>();
-			fd.incAll(docTerms);
-
-			int i = 0;
-			for (String term : allTerms) {
-				double score = fd.getCount(term);
-
-				if (weightingModeTf == WeightingModeTf.BINARY) {
-					if (score >= 1) {
-						score = 1.0;
-					}
-				}
-				else if (weightingModeTf == WeightingModeTf.FREQUENCY_LOG) {
-					if (score > 0.0) {
-						score = Math.log(score);
-					}
-				}
-				else if (weightingModeTf == WeightingModeTf.FREQUENCY_LOGPLUSONE) {
-					if (score > 0.0) {
-						score = Math.log(score) + 1;
-					}
-				}
-				else if (weightingModeTf == WeightingModeTf.FREQUENCY) {
-					// do nothing, we already have the frequency as the score
-				}
-				else {
-					throw new IllegalArgumentException("Unhandled weighting parameter: " + weightingModeTf);
-				}
-
-				vector.set(i, score);
-				i++;
+		// Sort the term keys to count the term frequencies
+		long[] sorted = new long[docTerms.size()];
+		int n = 0;
+		for (String term : docTerms) {
+			sorted[n++] = getKey(term);
+		}
+		Arrays.sort(sorted);
+
+		int distinct = 0;
+		for (int k = 0; k < n; k++) {
+			if (k == 0 || sorted[k] != sorted[k - 1]) {
+				distinct++;
 			}
 		}
 
-		// IDF
-		if (weightingMode == WeightingMode.TFIDF) {
-			int i = 0;
-			
-			// get the smallest IDF value in the map - it will be used for weighting unseen tokens
-			double minScore = 1.0;
-			for (String term : allTerms) {
-				if (idfScores.containsKey(term) && idfScores.get(term) < minScore) {
-					minScore = idfScores.get(term);
-				}
+		DocumentVector vector = new DocumentVector(n, distinct);
+		int d = 0;
+		int k = 0;
+		while (k < n) {
+			long key = sorted[k];
+			int count = 0;
+			while (k < n && sorted[k] == key) {
+				count++;
+				k++;
 			}
-			
-			for (String term : allTerms) {
-				double score = 0.0;
-				
-				if (idfScores.containsKey(term)) {
-					score = idfScores.get(term);
-				}
-				else {
-					// we do not want to have a 0.0 zero value, as this will lead to NaN with log-weighting
-					// so we use the smallest recorded IDF value
-					score = minScore;
-				}
-
-				// it is a bit unclear what binary IDF should actually be
-				if (weightingModeIdf == WeightingModeIdf.LOG) {
-					score = Math.log(score);
-				}
-				else if (weightingModeIdf == WeightingModeIdf.LOGPLUSONE) {
-					score = Math.log(score) + 1;
-				}
-				else if (weightingModeIdf == WeightingModeIdf.PASSTHROUGH) {
-					// do nothing, we already have the idf as the score
-				}
-				else {
-					throw new IllegalArgumentException("Unhandled weighting parameter: " + weightingModeIdf);
-				}
-				
-				vector.set(i, vector.get(i) * score);
-				i++;
+
+			double tf = weightTf(count);
+			vector.keys[d] = key;
+			vector.tf[d] = tf;
+			if (weightingMode == WeightingMode.TF) {
+				// Without IDF all terms have the weight one
+				vector.seen[d] = true;
+				vector.idf[d] = 1.0;
+			}
+			else if (key > 0) {
+				// Only the terms of the IDF table have positive keys
+				double idf = idfTable.getIdf((int) key);
+				vector.seen[d] = true;
+				vector.idf[d] = weightIdf(idf);
+				vector.minIdf = Math.min(vector.minIdf, idf);
 			}
+			if (vector.seen[d]) {
+				double w = tf * vector.idf[d];
+				vector.seenNorm1 += Math.abs(w);
+				vector.seenNorm2 += w * w;
+			}
+			else {
+				vector.unseenNorm1 += Math.abs(tf);
+				vector.unseenNorm2 += tf * tf;
+			}
+			d++;
 		}
-
 		return vector;
 	}
+
+	/**
+	 * @return the id of the term in the IDF table or, if it has no IDF value, a negative hash.
+	 */
+	private long getKey(String term)
+	{
+		if (idfTable != null) {
+			int id = idfTable.getId(term);
+			if (id != InternedTokenDictionary.NULL_ID) {
+				return id;
+			}
+		}
+		return NGramSet.hash(term) | Long.MIN_VALUE;
+	}
+
+	private double weightTf(double score)
+	{
+		if (weightingModeTf == WeightingModeTf.BINARY) {
+			if (score >= 1) {
+				score = 1.0;
+			}
+		}
+		else if (weightingModeTf == WeightingModeTf.FREQUENCY_LOG) {
+			if (score > 0.0) {
+				score = Math.log(score);
+			}
+		}
+		else if (weightingModeTf == WeightingModeTf.FREQUENCY_LOGPLUSONE) {
+			if (score > 0.0) {
+				score = Math.log(score) + 1;
+			}
+		}
+		else if (weightingModeTf == WeightingModeTf.FREQUENCY) {
+			// do nothing, we already have the frequency as the score
+		}
+		else {
+			throw new IllegalArgumentException("Unhandled weighting parameter: " + weightingModeTf);
+		}
+		return score;
+	}
+
+	private double weightIdf(double score)
+	{
+		// it is a bit unclear what binary IDF should actually be
+		if (weightingModeIdf == WeightingModeIdf.LOG) {
+			score = Math.log(score);
+		}
+		else if (weightingModeIdf == WeightingModeIdf.LOGPLUSONE) {
+			score = Math.log(score) + 1;
+		}
+		else if (weightingModeIdf == WeightingModeIdf.PASSTHROUGH) {
+			// do nothing, we already have the idf as the score
+		}
+		else {
+			throw new IllegalArgumentException("Unhandled weighting parameter: " + weightingModeIdf);
+		}
+		return score;
+	}
+
+	/**
+	 * Sparse weighted term vector of a document. Terms without an IDF value are weighted with the
+	 * smallest IDF value of the two compared documents, so their weight is only applied when
+	 * two vectors are compared.
+	 */
+	public static final class DocumentVector
+	{
+		private final int size;
+		private final long[] keys;
+		private final double[] tf;
+		private final boolean[] seen;
+		private final double[] idf;
+
+		private double minIdf = 1.0;
+		private double seenNorm1;
+		private double seenNorm2;
+		private double unseenNorm1;
+		private double unseenNorm2;
+
+		private DocumentVector(int size, int distinct)
+		{
+			this.size = size;
+			keys = new long[distinct];
+			tf = new double[distinct];
+			seen = new boolean[distinct];
+			idf = new double[distinct];
+		}
+
+		/**
+		 * @return the number of distinct terms.
+		 */
+		public int getTermCount()
+		{
+			return keys.length;
+		}
+	}
 }
@@ -22,55 +22,44 @@ import java.util.Collection;
 import org.apache.commons.lang.StringUtils;
 import org.dkpro.similarity.algorithms.api.SimilarityException;
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasureBase;
+import org.dkpro.similarity.algorithms.lexical.string.util.LevenshteinDistance;
 
 
 /**
- * SecondString comparator fails for some texts. Used the implementation from
+ * SecondString comparator fails for some texts. Originally used the implementation from
  * http://en.wikibooks.org/wiki/Algorithm_Implementation/Strings/Levenshtein_distance#Java
+ * which is now replaced by the linear memory {@link LevenshteinDistance} yielding the same
+ * distances.
  */
 public class LevenshteinComparator
     extends TextSimilarityMeasureBase
 {
+    private final int maxDistance;
+
     public LevenshteinComparator()
     {
-    	// nothing yet
+    	this(Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param aMaxDistance
+     *            the largest distance of interest. The computation stops once the distance is
+     *            known to be larger, in which case {@code aMaxDistance + 1} is returned.
+     */
+    public LevenshteinComparator(int aMaxDistance)
+    {
+        if (aMaxDistance < 0) {
+            throw new IllegalArgumentException("Maximum distance must not be negative");
+        }
+        maxDistance = aMaxDistance;
     }
 
 	@Override
 	public double getSimilarity(String s1, String s2)
 		throws SimilarityException
 	{
-		return computeLevenshteinDistance(s1, s2);
+		return LevenshteinDistance.distance(s1, s2, maxDistance);
 	}
-	
-	 private static int minimum(int a, int b, int c) {
-         return Math.min(Math.min(a, b), c);
-	 }
-	
-	 private int computeLevenshteinDistance(CharSequence str1, CharSequence str2)
-	 {
-         int[][] distance = new int[str1.length() + 1][str2.length() + 1];
-
-         for (int i = 0; i <= str1.length(); i++) {
-            distance[i][0] = i;
-        }
-         for (int j = 0; j <= str2.length(); j++) {
-            distance[0][j] = j;
-        }
-
-         for (int i = 1; i <= str1.length(); i++) {
-            for (int j = 1; j <= str2.length(); j++) {
-                distance[i][j] = minimum(
-                                 distance[i - 1][j] + 1,
-                                 distance[i][j - 1] + 1,
-                                 distance[i - 1][j - 1]
-                                                 + ((str1.charAt(i - 1) == str2.charAt(j - 1)) ? 0
-                                                                 : 1));
-            }
-        }
-
-         return distance[str1.length()][str2.length()];
-	 }
 
 	@Override
 	public double getSimilarity(Collection<String> strings1, Collection<String> strings2)
@@ -22,9 +22,12 @@ import java.util.Collection;
 import org.apache.commons.lang.StringUtils;
 import org.dkpro.similarity.algorithms.api.SimilarityException;
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasureBase;
+import org.dkpro.similarity.algorithms.api.ThresholdedTextSimilarityMeasure;
+import org.dkpro.similarity.algorithms.lexical.string.util.LongestCommonSubsequence;
 
 public class LongestCommonSubsequenceComparator
 	extends TextSimilarityMeasureBase
+	implements ThresholdedTextSimilarityMeasure
 {	
 
 	@Override
@@ -35,11 +38,21 @@ public class LongestCommonSubsequenceComparator
 	    return getSimilarity(StringUtils.join(stringList1,  " "), StringUtils.join(stringList2,  " "));
 	}
 	
+	@Override
+	public double getSimilarityIfAbove(Collection<String> stringList1,
+			Collection<String> stringList2, double threshold)
+		throws SimilarityException
+	{
+		String string1 = StringUtils.join(stringList1, " ");
+		String string2 = StringUtils.join(stringList2, " ");
+		if (getUpperBound(string1, string2) < threshold) {
+			return BELOW_THRESHOLD;
+		}
+		return getSimilarity(string1, string2);
+	}
+
 	/**
 	 * Considers both parameters to be full texts, not individual terms.
-	 * 
-	 * Code taken from:
-	 * http://introcs.cs.princeton.edu/96optimization/LCS.java.html
 	 */
 	@Override
 	public double getSimilarity(String string1, String string2)
@@ -48,16 +61,47 @@ public class LongestCommonSubsequenceComparator
 		if (string1.trim().isEmpty()) {
       			return 0;
     		}
-		String lcs = getLCS(string1, string2);
-		
-		// Normalize
-		double numerator = string1.length() + string2.length() - 2 * lcs.length();
-		double denominator = string1.length() + string2.length(); 
-		double score = 1.0 - (numerator / denominator);
+		int lcs = getLCSLength(string1, string2);
 		
-		return score;
+		return normalize(string1.length(), string2.length(), lcs);
+	}
+
+	/**
+	 * Computes an upper bound of {@link #getSimilarity(String, String)} from the lengths of the
+	 * strings. A common subsequence is at most as long as the shorter string.
+	 */
+	protected double getUpperBound(String string1, String string2)
+	{
+		if (string1.trim().isEmpty()) {
+			return 0;
+		}
+		int shorter = Math.min(string1.length(), string2.length());
+		return normalize(string1.length(), string2.length(), shorter);
+	}
+
+	private static double normalize(int length1, int length2, int lcs)
+	{
+		double numerator = length1 + length2 - 2 * lcs;
+		double denominator = length1 + length2; 
+		return 1.0 - (numerator / denominator);
+	}
+	
+	/**
+	 * Computes the length of the longest common subsequence in linear memory, see
+	 * {@link LongestCommonSubsequence}.
+	 */
+	protected int getLCSLength(String string1, String string2)
+	{
+		return LongestCommonSubsequence.length(string1, string2);
 	}
 	
+	/**
+	 * Computes a longest common subsequence. This needs memory quadratic in the length of the
+	 * strings, use {@link #getLCSLength(String, String)} if only the length is needed.
+	 * 
+	 * Code taken from:
+	 * http://introcs.cs.princeton.edu/96optimization/LCS.java.html
+	 */
 	protected String getLCS(String string1, String string2)
 	{
 		String x = string1;
@@ -38,8 +38,32 @@ public class LongestCommonSubsequenceNormComparator
 		if (string1.trim().isEmpty()) {
       			return 0;
     		}
-		String lcs = getLCS(string1.toLowerCase(), string2.toLowerCase());
+		int lcs = getLCSLength(string1.toLowerCase(), string2.toLowerCase());
 		
-		return (double) lcs.length() / string1.length();
+		return (double) lcs / string1.length();
+	}
+
+	@Override
+	protected double getUpperBound(String string1, String string2)
+	{
+		if (string1.trim().isEmpty()) {
+			return 0;
+		}
+		int shorter = Math.min(getLowerCaseLength(string1), getLowerCaseLength(string2));
+		return (double) shorter / string1.length();
+	}
+
+	/**
+	 * Computes the length of the lower-cased string without creating it if possible. Lower-casing
+	 * can only change the length of strings which contain a character from U+00C0 on.
+	 */
+	private static int getLowerCaseLength(String string)
+	{
+		for (int i = 0; i < string.length(); i++) {
+			if (string.charAt(i) >= '\u00C0') {
+				return string.toLowerCase().length();
+			}
+		}
+		return string.length();
 	}
 }
@@ -18,14 +18,17 @@
 package org.dkpro.similarity.algorithms.lexical.string;
 
 import java.util.Collection;
+import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
 import org.dkpro.similarity.algorithms.api.SimilarityException;
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasureBase;
-import org.dkpro.similarity.algorithms.lexical.string.util.gst.GeneralizedSuffixTree;
+import org.dkpro.similarity.algorithms.api.ThresholdedTextSimilarityMeasure;
+import org.dkpro.similarity.algorithms.lexical.string.util.SuffixAutomaton;
 
 public class LongestCommonSubstringComparator
 	extends TextSimilarityMeasureBase
+	implements ThresholdedTextSimilarityMeasure
 {
 	@Override
 	public double getSimilarity(Collection<String> stringList1,
@@ -35,36 +38,77 @@ public class LongestCommonSubstringComparator
 	    return getSimilarity(StringUtils.join(stringList1, " "), StringUtils.join(stringList2, " "));
 	}
 	
+	@Override
+	public double getSimilarityIfAbove(Collection<String> stringList1,
+			Collection<String> stringList2, double threshold)
+		throws SimilarityException
+	{
+		String string1 = StringUtils.join(stringList1, " ");
+		String string2 = StringUtils.join(stringList2, " ");
+		if (getUpperBound(string1, string2) < threshold) {
+			return BELOW_THRESHOLD;
+		}
+		return getSimilarity(string1, string2);
+	}
+
 	/**
 	 * Considers both parameters to be full texts, not individual terms.
 	 * 
-	 * Implementation based on generalized suffix trees:
-	 * http://illya-keeplearning.blogspot.com/search/label/suffix%20tree
-	 * 
-	 * Direct download:
-	 * http://illya.yolasite.com/resources/suffix-tree-6.zip
+	 * The length of the longest common substring is computed with a suffix automaton of the
+	 * shorter text, see {@link SuffixAutomaton}.
 	 */
 	@Override
 	public double getSimilarity(String string1, String string2)
 		throws SimilarityException
 	{
 		if (string1.trim().isEmpty()) {
-     			return 0;
-   		}
-		String lcs = getLCS(string1, string2);
-		
-		// Normalize
-		double numerator = string1.length() + string2.length() - 2 * lcs.length();
-		double denominator = string1.length() + string2.length(); 
-		double score = 1.0 - (numerator / denominator);
-		
-		return score;
+			return 0;
+		}
+		int lcs = SuffixAutomaton.longestCommonSubstring(string1, string2);
+		return normalize(string1.length(), string2.length(), lcs);
 	}
-	
-	private String getLCS(String string1, String string2)
+
+	/**
+	 * Computes an upper bound of {@link #getSimilarity(String, String)} from the lengths of the
+	 * strings. A common substring is at most as long as the shorter string.
+	 */
+	protected double getUpperBound(String string1, String string2)
 	{
-		GeneralizedSuffixTree gst = new GeneralizedSuffixTree(string1, string2);
-		return gst.getLcsAsString();
+		if (string1.trim().isEmpty()) {
+			return 0;
+		}
+		int shorter = Math.min(string1.length(), string2.length());
+		return normalize(string1.length(), string2.length(), shorter);
 	}
 
+	/**
+	 * Scores one text against many candidates. The suffix automaton of the text is built only
+	 * once and shared by all candidates. The scores are the same as those of
+	 * {@link #getSimilarity(String, String)} with the text as first parameter.
+	 * 
+	 * @return the scores in the order of the candidates.
+	 */
+	public double[] getSimilarities(String text, List<String> candidates)
+		throws SimilarityException
+	{
+		double[] scores = new double[candidates.size()];
+		if (text.trim().isEmpty()) {
+			return scores;
+		}
+
+		SuffixAutomaton automaton = new SuffixAutomaton(text);
+		int i = 0;
+		for (String candidate : candidates) {
+			int lcs = automaton.longestCommonSubstring(candidate);
+			scores[i++] = normalize(text.length(), candidate.length(), lcs);
+		}
+		return scores;
+	}
+
+	private static double normalize(int length1, int length2, int lcs)
+	{
+		double numerator = length1 + length2 - 2 * lcs;
+		double denominator = length1 + length2; 
+		return 1.0 - (numerator / denominator);
+	}
 }
@@ -18,22 +18,37 @@
 package org.dkpro.similarity.algorithms.lexical.string;
 
 import java.util.Collection;
+import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
 import org.dkpro.similarity.algorithms.api.SimilarityException;
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasureBase;
+import org.dkpro.similarity.algorithms.vsm.util.CacheMetrics;
+import org.dkpro.similarity.algorithms.vsm.util.ConcurrentCache;
 
 import com.wcohen.ss.AbstractStringDistance;
 import com.wcohen.ss.api.StringWrapper;
 
-
+/**
+ * Base class for measures of the SecondString library. Prepared strings are kept in a bounded
+ * cache per measure, so strings that are compared repeatedly, e.g. a query against many
+ * candidates, are only prepared once. See {@link #setPreparedCacheSize(int)}.
+ */
 public abstract class SecondStringComparator_ImplBase
     extends TextSimilarityMeasureBase
 {
+    /**
+     * Default number of prepared strings cached per measure.
+     */
+    public static final int DEFAULT_PREPARED_CACHE_SIZE = 10000;
     
     protected AbstractStringDistance secondStringMeasureL1;
     protected AbstractStringDistance secondStringMeasureL2;
 
+    private int preparedCacheSize = DEFAULT_PREPARED_CACHE_SIZE;
+    private volatile ConcurrentCache<String, StringWrapper> preparedCacheL1;
+    private volatile ConcurrentCache<String, StringWrapper> preparedCacheL2;
+
     public enum SecondStringTextSimilarityMeasure {
         Jaro,
         JaroWinkler,
@@ -46,12 +61,32 @@ public abstract class SecondStringComparator_ImplBase
         throws SimilarityException
     {
         // preparing the string saves some cycles through caching, if many comparisons with the same string are done.
-        StringWrapper wrappedString1 = secondStringMeasureL1.prepare(s1);
-        StringWrapper wrappedString2 = secondStringMeasureL1.prepare(s2);
+        StringWrapper wrappedString1 = prepareL1(s1);
+        StringWrapper wrappedString2 = prepareL1(s2);
 
         return secondStringMeasureL1.score(wrappedString1, wrappedString2);
     }
     
+    /**
+     * Scores one string against many candidates. The string is prepared only once, the
+     * candidates are taken from the prepared string cache if possible. The scores are the same as
+     * those of {@link #getSimilarity(String, String)}.
+     * 
+     * @return the scores in the order of the candidates.
+     */
+    public double[] getSimilarities(String s1, List<String> candidates)
+        throws SimilarityException
+    {
+        StringWrapper wrappedString1 = prepareL1(s1);
+
+        double[] scores = new double[candidates.size()];
+        int i = 0;
+        for (String candidate : candidates) {
+            scores[i++] = secondStringMeasureL1.score(wrappedString1, prepareL1(candidate));
+        }
+        return scores;
+    }
+    
     @Override
     public double getSimilarity(Collection<String> s1, Collection<String> s2)
         throws SimilarityException
@@ -68,11 +103,81 @@ public abstract class SecondStringComparator_ImplBase
         }
 
         // find tokens (I know that we already know what the tokens are, but the SecondString implementation needs it that way)
-        StringWrapper wrappedString1 = secondStringMeasureL2.prepare(concatenatedString1);
-        StringWrapper wrappedString2 = secondStringMeasureL2.prepare(concatenatedString2);
+        StringWrapper wrappedString1 = prepareL2(concatenatedString1);
+        StringWrapper wrappedString2 = prepareL2(concatenatedString2);
 
         double distance = secondStringMeasureL2.score(wrappedString1, wrappedString2);
 
         return distance;
     }
+
+    /**
+     * Sets the maximum number of prepared strings cached per measure. Zero disables the cache.
+     * Changing the size discards the cached strings.
+     */
+    public synchronized void setPreparedCacheSize(int preparedCacheSize)
+    {
+        this.preparedCacheSize = preparedCacheSize;
+        preparedCacheL1 = null;
+        preparedCacheL2 = null;
+    }
+
+    public int getPreparedCacheSize()
+    {
+        return preparedCacheSize;
+    }
+
+    /**
+     * @return the metrics of the cache of prepared strings of the character-level measure or
+     *         {@code null} if caching is disabled.
+     */
+    public CacheMetrics getPreparedCacheMetrics()
+    {
+        return getPreparedCache(false);
+    }
+
+    private StringWrapper prepareL1(String s)
+    {
+        return prepare(secondStringMeasureL1, getPreparedCache(false), s);
+    }
+
+    private StringWrapper prepareL2(String s)
+    {
+        return prepare(secondStringMeasureL2, getPreparedCache(true), s);
+    }
+
+    private static StringWrapper prepare(AbstractStringDistance measure,
+            ConcurrentCache<String, StringWrapper> cache, String s)
+    {
+        if (cache == null) {
+            return measure.prepare(s);
+        }
+
+        StringWrapper wrapped = cache.get(s);
+        if (wrapped == null) {
+            wrapped = measure.prepare(s);
+            cache.put(s, wrapped);
+        }
+        return wrapped;
+    }
+
+    private ConcurrentCache<String, StringWrapper> getPreparedCache(boolean level2)
+    {
+        ConcurrentCache<String, StringWrapper> cache = level2 ? preparedCacheL2 : preparedCacheL1;
+        if (cache == null && preparedCacheSize > 0) {
+            synchronized (this) {
+                cache = level2 ? preparedCacheL2 : preparedCacheL1;
+                if (cache == null && preparedCacheSize > 0) {
+                    cache = new ConcurrentCache<String, StringWrapper>(preparedCacheSize);
+                    if (level2) {
+                        preparedCacheL2 = cache;
+                    }
+                    else {
+                        preparedCacheL1 = cache;
+                    }
+                }
+            }
+        }
+        return cache;
+    }
 }
\ No newline at end of file
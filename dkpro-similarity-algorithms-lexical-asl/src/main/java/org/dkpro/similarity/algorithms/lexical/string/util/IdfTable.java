@@ -0,0 +1,196 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lexical.string.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.dkpro.similarity.algorithms.api.ngrams.InternedTokenDictionary;
+
+/**
+ * IDF values compiled into a token dictionary and a {@code float[]} indexed by token id. The
+ * tokens of the table get the ids {@code 1} to {@link #size()}. Tokens that are not in the table
+ * get {@link InternedTokenDictionary#NULL_ID}. Looking up tokens does not change the table, so it
+ * can be shared by any number of threads and measures.
+ * <p>
+ * Tables are read from tab-separated text files with one token and IDF value per line or from
+ * the compact binary format written by {@link #write(File)}.
+ */
+public final class IdfTable
+{
+	private static final int MAGIC = 0x49444654; // IDFT
+	private static final int FORMAT_VERSION = 1;
+
+	private final Map<String, Integer> ids;
+	private final String[] tokens;
+	private final float[] idf;
+
+	private IdfTable(List<String> aTokens, float[] aIdf)
+	{
+		ids = new HashMap<String, Integer>(aTokens.size() * 4 / 3 + 1);
+		tokens = new String[aTokens.size()];
+		idf = new float[aTokens.size() + 1];
+		for (int i = 0; i < tokens.length; i++) {
+			String token = aTokens.get(i);
+			int id = i + 1;
+			if (ids.put(token, id) != null) {
+				throw new IllegalArgumentException("Duplicate token [" + token + "]");
+			}
+			tokens[i] = token;
+			idf[id] = aIdf[i];
+		}
+	}
+
+	/**
+	 * Compiles the IDF values of the given map. Later changes to the map are not seen by the table.
+	 */
+	public static IdfTable fromMap(Map<String, Double> aIdfScores)
+	{
+		List<String> tokens = new ArrayList<String>(aIdfScores.size());
+		float[] values = new float[aIdfScores.size()];
+		for (Map.Entry<String, Double> e : aIdfScores.entrySet()) {
+			if (e.getKey() != null && e.getValue() != null) {
+				values[tokens.size()] = e.getValue().floatValue();
+				tokens.add(e.getKey());
+			}
+		}
+		return new IdfTable(tokens, values);
+	}
+
+	/**
+	 * Reads a table from a binary file written by {@link #write(File)} or from a tab-separated
+	 * text file with one token and IDF value per line.
+	 */
+	public static IdfTable load(File aFile)
+		throws IOException
+	{
+		InputStream is = null;
+		try {
+			is = new BufferedInputStream(new FileInputStream(aFile));
+			DataInputStream in = new DataInputStream(is);
+			if (aFile.length() >= 4 && in.readInt() == MAGIC) {
+				return read(in);
+			}
+		}
+		finally {
+			IOUtils.closeQuietly(is);
+		}
+
+		// Later lines override earlier ones for the same token
+		Map<String, Double> idfScores = new HashMap<String, Double>();
+		for (String line : FileUtils.readLines(aFile)) {
+			if (line.length() > 0) {
+				String[] cols = line.split("\t");
+				try {
+					idfScores.put(cols[0], Double.parseDouble(cols[1]));
+				}
+				catch (RuntimeException e) {
+					throw new IOException("Invalid IDF score in line [" + line + "] of ["
+							+ aFile + "]", e);
+				}
+			}
+		}
+		return fromMap(idfScores);
+	}
+
+	private static IdfTable read(DataInputStream aIn)
+		throws IOException
+	{
+		int version = aIn.readInt();
+		if (version != FORMAT_VERSION) {
+			throw new IOException("Unsupported IDF table format version [" + version + "]");
+		}
+		int size = aIn.readInt();
+		List<String> tokens = new ArrayList<String>(size);
+		float[] values = new float[size];
+		for (int i = 0; i < size; i++) {
+			tokens.add(aIn.readUTF());
+			values[i] = aIn.readFloat();
+		}
+		return new IdfTable(tokens, values);
+	}
+
+	/**
+	 * Writes the table in the binary format.
+	 */
+	public void write(File aFile)
+		throws IOException
+	{
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(aFile)));
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(tokens.length);
+			for (int i = 0; i < tokens.length; i++) {
+				out.writeUTF(tokens[i]);
+				out.writeFloat(idf[i + 1]);
+			}
+		}
+		finally {
+			IOUtils.closeQuietly(out);
+		}
+	}
+
+	/**
+	 * @return the id of the token or {@link InternedTokenDictionary#NULL_ID} if the table has no
+	 *         IDF value for it, see {@link #contains(int)}.
+	 */
+	public int getId(String aToken)
+	{
+		Integer id = ids.get(aToken);
+		return id != null ? id : InternedTokenDictionary.NULL_ID;
+	}
+
+	/**
+	 * @return if the table has an IDF value for the token with the given id.
+	 */
+	public boolean contains(int aId)
+	{
+		return aId > 0 && aId <= tokens.length;
+	}
+
+	/**
+	 * @return the IDF value of the token with the given id, which must be contained in the table.
+	 */
+	public float getIdf(int aId)
+	{
+		return idf[aId];
+	}
+
+	/**
+	 * @return the number of tokens with an IDF value.
+	 */
+	public int size()
+	{
+		return tokens.length;
+	}
+}
@@ -0,0 +1,334 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lexical.string.util;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Greedy String Tiling with the Running-Karp-Rabin matcher. Characters are compared
+ * case-insensitively like {@code String.valueOf(c).toLowerCase()} does in the default locale.
+ * <p>
+ * Each round determines the length {@code L} of the longest run of equal characters that are
+ * unmarked in both strings and covers all runs of length {@code L}, in the order of their start
+ * in the pattern and then in the text, by tiles unless a tile of the same round already covers
+ * one of their characters. Rounds continue as long as such runs are at least
+ * {@code minMatchLength} characters long. Runs are found by hashing all unmarked windows of the
+ * text with a rolling hash and looking up the unmarked windows of the pattern, halving the
+ * window length until a match is found.
+ * <p>
+ * The pattern is case-folded and hashed once, so an instance can be used to tile one document
+ * against many others, also from several threads.
+ * <ul>
+ * <li>M.J. Wise: String similarity via greedy string tiling and running Karp-Rabin matching.
+ * Technical report, University of Sydney (1993)</li>
+ * </ul>
+ */
+public final class KarpRabinTiling
+{
+	private static final long BASE = 0x100000001B3L;
+
+	private static volatile CaseFolding caseFolding;
+
+	private final int[] pattern;
+	private final int minMatchLength;
+
+	/**
+	 * @param aPattern
+	 *            the string whose coverage by tiles is measured.
+	 * @param aMinMatchLength
+	 *            the minimum length of a tile.
+	 */
+	public KarpRabinTiling(String aPattern, int aMinMatchLength)
+	{
+		pattern = fold(aPattern);
+		minMatchLength = Math.max(1, aMinMatchLength);
+	}
+
+	/**
+	 * @return the length of the pattern.
+	 */
+	public int length()
+	{
+		return pattern.length;
+	}
+
+	/**
+	 * Tiles the pattern with the given text.
+	 * 
+	 * @return the number of pattern characters covered by tiles.
+	 */
+	public int tile(String aText)
+	{
+		int[] text = fold(aText);
+		int n1 = pattern.length;
+		int n2 = text.length;
+		if (n1 < minMatchLength || n2 < minMatchLength) {
+			return 0;
+		}
+
+		long[] marks1 = new long[(n1 + 63) >>> 6];
+		long[] marks2 = new long[(n2 + 63) >>> 6];
+		long[] patternHashes = new long[n1];
+		long[] textHashes = new long[n2];
+		int[] next = new int[n2];
+		int[] buckets = new int[Integer.highestOneBit(Math.max(n2, 2)) << 1];
+		Tiles tiles = new Tiles();
+
+		int covered = 0;
+		int searchLength = Math.min(n1, n2);
+		while (true) {
+			int maxMatch = scan(text, searchLength, marks1, marks2, patternHashes, textHashes,
+					next, buckets, tiles);
+			if (maxMatch == 0) {
+				if (searchLength == minMatchLength) {
+					break;
+				}
+				searchLength = Math.max(minMatchLength, searchLength / 2);
+				continue;
+			}
+
+			for (int t = 0; t < tiles.size; t++) {
+				int i = tiles.index1[t];
+				int j = tiles.index2[t];
+				if (!isMarked(marks1, i, maxMatch) && !isMarked(marks2, j, maxMatch)) {
+					mark(marks1, i, maxMatch);
+					mark(marks2, j, maxMatch);
+					covered += maxMatch;
+				}
+			}
+
+			if (maxMatch == minMatchLength) {
+				break;
+			}
+			// Marks only grow, so later matches are at most as long as this one
+			searchLength = maxMatch;
+		}
+		return covered;
+	}
+
+	/**
+	 * Finds all maximal runs of unmarked equal characters that are at least {@code aLength}
+	 * characters long and keeps the longest ones in {@code aTiles}.
+	 * 
+	 * @return the length of the longest run or 0 if there is none.
+	 */
+	private int scan(int[] aText, int aLength, long[] aMarks1, long[] aMarks2,
+			long[] aPatternHashes, long[] aTextHashes, int[] aNext, int[] aBuckets, Tiles aTiles)
+	{
+		int n1 = pattern.length;
+		int n2 = aText.length;
+		aTiles.size = 0;
+
+		// Index the unmarked windows of the text; the chains list windows in ascending order
+		int windows2 = hashWindows(aText, aLength, aMarks2, aTextHashes);
+		if (windows2 == 0) {
+			return 0;
+		}
+		int mask = aBuckets.length - 1;
+		for (int b = 0; b < aBuckets.length; b++) {
+			aBuckets[b] = -1;
+		}
+		for (int j = n2 - aLength; j >= 0; j--) {
+			if (aTextHashes[j] != 0) {
+				int b = bucket(aTextHashes[j], mask);
+				aNext[j] = aBuckets[b];
+				aBuckets[b] = j;
+			}
+		}
+
+		if (hashWindows(pattern, aLength, aMarks1, aPatternHashes) == 0) {
+			return 0;
+		}
+		int maxMatch = 0;
+		for (int i = 0; i <= n1 - aLength; i++) {
+			long hash = aPatternHashes[i];
+			if (hash == 0) {
+				continue;
+			}
+			for (int j = aBuckets[bucket(hash, mask)]; j != -1; j = aNext[j]) {
+				if (aTextHashes[j] != hash || !regionMatches(aText, i, j, aLength)) {
+					continue;
+				}
+
+				int k = aLength;
+				while (i + k < n1 && j + k < n2 && pattern[i + k] == aText[j + k]
+						&& !isMarked(aMarks1, i + k) && !isMarked(aMarks2, j + k)) {
+					k++;
+				}
+				if (k > maxMatch) {
+					maxMatch = k;
+					aTiles.size = 0;
+				}
+				if (k == maxMatch) {
+					aTiles.add(i, j);
+				}
+			}
+		}
+		return maxMatch;
+	}
+
+	/**
+	 * Computes the hashes of all windows of the given length. Windows that contain a marked
+	 * character get the hash 0, all others a non-zero hash.
+	 * 
+	 * @return the number of unmarked windows.
+	 */
+	private static int hashWindows(int[] aCodes, int aLength, long[] aMarks, long[] aHashes)
+	{
+		long power = 1;
+		for (int t = 0; t < aLength; t++) {
+			power *= BASE;
+		}
+
+		int count = 0;
+		int unmarked = 0;
+		long hash = 0;
+		for (int e = 0; e < aCodes.length; e++) {
+			hash = hash * BASE + aCodes[e] + 1;
+			if (e >= aLength) {
+				hash -= (aCodes[e - aLength] + 1) * power;
+			}
+			unmarked = isMarked(aMarks, e) ? 0 : unmarked + 1;
+			int start = e - aLength + 1;
+			if (start >= 0) {
+				if (unmarked >= aLength) {
+					aHashes[start] = hash == 0 ? 1 : hash;
+					count++;
+				}
+				else {
+					aHashes[start] = 0;
+				}
+			}
+		}
+		return count;
+	}
+
+	private boolean regionMatches(int[] aText, int aOffset1, int aOffset2, int aLength)
+	{
+		for (int t = 0; t < aLength; t++) {
+			if (pattern[aOffset1 + t] != aText[aOffset2 + t]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int bucket(long aHash, int aMask)
+	{
+		return (int) ((aHash * 0x9E3779B97F4A7C15L) >>> 32) & aMask;
+	}
+
+	private static boolean isMarked(long[] aMarks, int aIndex)
+	{
+		return (aMarks[aIndex >>> 6] & (1L << aIndex)) != 0;
+	}
+
+	private static boolean isMarked(long[] aMarks, int aFrom, int aLength)
+	{
+		for (int t = aFrom; t < aFrom + aLength; t++) {
+			if (isMarked(aMarks, t)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static void mark(long[] aMarks, int aFrom, int aLength)
+	{
+		for (int t = aFrom; t < aFrom + aLength; t++) {
+			aMarks[t >>> 6] |= 1L << t;
+		}
+	}
+
+	/**
+	 * Maps each character to a code such that two characters have the same code exactly if their
+	 * lower case forms in the default locale are equal.
+	 */
+	static int[] fold(String aString)
+	{
+		int[] table = CaseFolding.forLocale(Locale.getDefault());
+		int[] codes = new int[aString.length()];
+		for (int i = 0; i < codes.length; i++) {
+			codes[i] = table[aString.charAt(i)];
+		}
+		return codes;
+	}
+
+	/**
+	 * Lower case codes of all UTF-16 code units for one locale.
+	 */
+	private static final class CaseFolding
+	{
+		private final Locale locale;
+		private final int[] table;
+
+		private CaseFolding(Locale aLocale)
+		{
+			locale = aLocale;
+			table = new int[Character.MAX_VALUE + 1];
+
+			// Some characters have lower case forms of several characters
+			Map<String, Integer> expansions = new HashMap<String, Integer>();
+			for (int c = 0; c <= Character.MAX_VALUE; c++) {
+				String lower = String.valueOf((char) c).toLowerCase(aLocale);
+				if (lower.length() == 1) {
+					table[c] = lower.charAt(0);
+				}
+				else {
+					Integer code = expansions.get(lower);
+					if (code == null) {
+						code = Character.MAX_VALUE + 1 + expansions.size();
+						expansions.put(lower, code);
+					}
+					table[c] = code;
+				}
+			}
+		}
+
+		static int[] forLocale(Locale aLocale)
+		{
+			CaseFolding folding = caseFolding;
+			if (folding == null || !folding.locale.equals(aLocale)) {
+				folding = new CaseFolding(aLocale);
+				caseFolding = folding;
+			}
+			return folding.table;
+		}
+	}
+
+	private static final class Tiles
+	{
+		int[] index1 = new int[16];
+		int[] index2 = new int[16];
+		int size;
+
+		void add(int aIndex1, int aIndex2)
+		{
+			if (size == index1.length) {
+				index1 = Arrays.copyOf(index1, size * 2);
+				index2 = Arrays.copyOf(index2, size * 2);
+			}
+			index1[size] = aIndex1;
+			index2[size] = aIndex2;
+			size++;
+		}
+	}
+}
@@ -0,0 +1,269 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lexical.string.util;
+
+/**
+ * Levenshtein (edit) distance between two character sequences using linear memory.
+ * <p>
+ * After stripping the common prefix and suffix, the distance is computed with the bit-parallel
+ * algorithm of Myers in the formulation of Hyyrö if the shorter sequence fits into a machine
+ * word (64 characters). Longer sequences are compared with a two-row dynamic program restricted
+ * to a diagonal band (Ukkonen), which is widened until it contains the optimal alignment. The
+ * result is always identical to the full quadratic dynamic program.
+ * <p>
+ * An optional upper bound allows the computation to stop as soon as the distance is known to
+ * exceed it.
+ * <ul>
+ * <li>H. Hyyrö: A bit-vector algorithm for computing Levenshtein and Damerau edit distances.
+ * Nordic Journal of Computing 10 (2003)</li>
+ * <li>E. Ukkonen: Algorithms for approximate string matching. Information and Control 64
+ * (1985)</li>
+ * </ul>
+ */
+public final class LevenshteinDistance
+{
+	private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+	private LevenshteinDistance()
+	{
+		// No instances
+	}
+
+	/**
+	 * Computes the Levenshtein distance.
+	 */
+	public static int distance(CharSequence aFirst, CharSequence aSecond)
+	{
+		return distance(aFirst, aSecond, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Computes the Levenshtein distance if it is at most the given bound.
+	 *
+	 * @param aMaxDistance
+	 *            the largest distance of interest.
+	 * @return the distance or {@code aMaxDistance + 1} if the distance is larger than
+	 *         {@code aMaxDistance}.
+	 */
+	public static int distance(CharSequence aFirst, CharSequence aSecond, int aMaxDistance)
+	{
+		if (aMaxDistance < 0) {
+			throw new IllegalArgumentException("Maximum distance must not be negative");
+		}
+		int exceeded = aMaxDistance == Integer.MAX_VALUE ? aMaxDistance : aMaxDistance + 1;
+
+		// Common prefixes and suffixes do not contribute to the distance
+		int start = 0;
+		int end1 = aFirst.length();
+		int end2 = aSecond.length();
+		while (start < end1 && start < end2 && aFirst.charAt(start) == aSecond.charAt(start)) {
+			start++;
+		}
+		while (end1 > start && end2 > start && aFirst.charAt(end1 - 1) == aSecond.charAt(end2 - 1)) {
+			end1--;
+			end2--;
+		}
+
+		// Use the shorter sequence as pattern
+		CharSequence pattern = aFirst;
+		CharSequence text = aSecond;
+		int patternEnd = end1;
+		int textEnd = end2;
+		if (end1 - start > end2 - start) {
+			pattern = aSecond;
+			text = aFirst;
+			patternEnd = end2;
+			textEnd = end1;
+		}
+		int m = patternEnd - start;
+		int n = textEnd - start;
+
+		// The distance is at least the difference of the lengths
+		if (n - m > aMaxDistance) {
+			return exceeded;
+		}
+		if (m == 0) {
+			return n;
+		}
+
+		int distance;
+		if (m <= Long.SIZE) {
+			distance = bitParallel(pattern, start, m, text, start, n, aMaxDistance);
+		}
+		else {
+			distance = banded(pattern, start, m, text, start, n, aMaxDistance);
+		}
+		return distance > aMaxDistance ? exceeded : distance;
+	}
+
+	/**
+	 * Bit-parallel computation for patterns of at most 64 characters. Bit i of the vertical
+	 * delta vectors encodes the difference between rows i+1 and i of the current column.
+	 */
+	private static int bitParallel(CharSequence aPattern, int aPatternOffset, int m,
+			CharSequence aText, int aTextOffset, int n, int aMaxDistance)
+	{
+		PatternMasks masks = new PatternMasks(aPattern, aPatternOffset, m);
+
+		long last = 1L << (m - 1);
+		long pv = -1L;
+		long mv = 0L;
+		int score = m;
+		for (int j = 0; j < n; j++) {
+			long eq = masks.get(aText.charAt(aTextOffset + j));
+			long xv = eq | mv;
+			long xh = (((eq & pv) + pv) ^ pv) | eq;
+			long ph = mv | ~(xh | pv);
+			long mh = pv & xh;
+			if ((ph & last) != 0) {
+				score++;
+			}
+			else if ((mh & last) != 0) {
+				score--;
+			}
+
+			// The distance can drop by at most one per remaining character
+			if (score - (n - j - 1) > aMaxDistance) {
+				return score - (n - j - 1);
+			}
+
+			// The first row of the matrix grows by one per column
+			ph = (ph << 1) | 1L;
+			mh = mh << 1;
+			pv = mh | ~(xv | ph);
+			mv = ph & xv;
+		}
+		return score;
+	}
+
+	/**
+	 * Dynamic program over two rows, restricted to the cells within a band around the main
+	 * diagonal. If the distance is not larger than the band width, the band contains an optimal
+	 * alignment, otherwise the band is doubled and the computation is repeated.
+	 */
+	private static int banded(CharSequence aPattern, int aPatternOffset, int m,
+			CharSequence aText, int aTextOffset, int n, int aMaxDistance)
+	{
+		int[] previous = new int[m + 1];
+		int[] current = new int[m + 1];
+
+		int band = Math.max(n - m, 16);
+		while (true) {
+			if (band >= aMaxDistance || band >= n) {
+				// The last run, no need to widen the band again
+				band = Math.min(Math.min(aMaxDistance, n), INFINITY);
+				return bandedRun(aPattern, aPatternOffset, m, aText, aTextOffset, n, band,
+						aMaxDistance, previous, current);
+			}
+
+			int distance = bandedRun(aPattern, aPatternOffset, m, aText, aTextOffset, n, band,
+					band, previous, current);
+			if (distance <= band) {
+				return distance;
+			}
+			band = band * 2;
+		}
+	}
+
+	/**
+	 * Rows are indexed by the text, columns by the pattern. Only cells with
+	 * {@code |row - column| <= aBand} are computed, all others count as infinite.
+	 *
+	 * @return the distance or a value larger than {@code aLimit} if the distance is larger.
+	 */
+	private static int bandedRun(CharSequence aPattern, int aPatternOffset, int m,
+			CharSequence aText, int aTextOffset, int n, int aBand, int aLimit, int[] aPrevious,
+			int[] aCurrent)
+	{
+		int[] previous = aPrevious;
+		int[] current = aCurrent;
+		for (int j = 0; j <= m; j++) {
+			previous[j] = j <= aBand ? j : INFINITY;
+			current[j] = INFINITY;
+		}
+
+		for (int i = 1; i <= n; i++) {
+			int lo = Math.max(1, i - aBand);
+			int hi = Math.min(m, i + aBand);
+			char c = aText.charAt(aTextOffset + i - 1);
+
+			current[0] = i <= aBand ? i : INFINITY;
+			current[lo - 1] = lo == 1 ? current[0] : INFINITY;
+			int rowMin = current[lo - 1];
+			for (int j = lo; j <= hi; j++) {
+				int cost = previous[j - 1] + (aPattern.charAt(aPatternOffset + j - 1) == c ? 0 : 1);
+				int insert = previous[j] + 1;
+				int delete = current[j - 1] + 1;
+				int d = cost < insert ? cost : insert;
+				d = d < delete ? d : delete;
+				current[j] = d;
+				if (d < rowMin) {
+					rowMin = d;
+				}
+			}
+
+			// Values never decrease along a path, so the distance is at least the row minimum
+			if (rowMin > aLimit) {
+				return rowMin;
+			}
+
+			int[] tmp = previous;
+			previous = current;
+			current = tmp;
+		}
+		return previous[m];
+	}
+
+	/**
+	 * Maps each character of the pattern to the bit mask of its positions. Characters are
+	 * looked up in a small open addressing table because patterns hold at most 64 distinct
+	 * characters.
+	 */
+	private static final class PatternMasks
+	{
+		private final char[] keys = new char[128];
+		private final long[] masks = new long[128];
+		private final boolean[] used = new boolean[128];
+
+		PatternMasks(CharSequence aPattern, int aOffset, int aLength)
+		{
+			for (int i = 0; i < aLength; i++) {
+				char c = aPattern.charAt(aOffset + i);
+				int slot = slot(c);
+				keys[slot] = c;
+				used[slot] = true;
+				masks[slot] |= 1L << i;
+			}
+		}
+
+		long get(char aChar)
+		{
+			int slot = slot(aChar);
+			return used[slot] ? masks[slot] : 0L;
+		}
+
+		private int slot(char aChar)
+		{
+			int slot = (aChar * 0x9E37) >>> 9 & 127;
+			while (used[slot] && keys[slot] != aChar) {
+				slot = (slot + 1) & 127;
+			}
+			return slot;
+		}
+	}
+}
@@ -0,0 +1,179 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lexical.string.util;
+
+/**
+ * Length of the longest common subsequence of two character sequences using the bit-parallel
+ * algorithm of Allison and Dix in the formulation of Hyyrö. The shorter sequence is encoded as
+ * bit vectors of {@code ceil(m / 64)} words per distinct character, so memory is linear in the
+ * length of the shorter sequence and the running time is {@code O(n * m / 64)}.
+ * <ul>
+ * <li>L. Allison, T.I. Dix: A bit-string longest-common-subsequence algorithm. Information
+ * Processing Letters 23 (1986)</li>
+ * <li>H. Hyyrö: Bit-parallel LCS-length computation revisited. Proceedings of the 15th
+ * Australasian Workshop on Combinatorial Algorithms (2004)</li>
+ * </ul>
+ */
+public final class LongestCommonSubsequence
+{
+	private LongestCommonSubsequence()
+	{
+		// No instances
+	}
+
+	/**
+	 * Computes the length of the longest common subsequence.
+	 */
+	public static int length(CharSequence aFirst, CharSequence aSecond)
+	{
+		// Common prefixes and suffixes are part of every longest common subsequence
+		int start = 0;
+		int end1 = aFirst.length();
+		int end2 = aSecond.length();
+		while (start < end1 && start < end2 && aFirst.charAt(start) == aSecond.charAt(start)) {
+			start++;
+		}
+		int common = start;
+		while (end1 > start && end2 > start && aFirst.charAt(end1 - 1) == aSecond.charAt(end2 - 1)) {
+			end1--;
+			end2--;
+			common++;
+		}
+
+		// Use the shorter sequence as pattern
+		CharSequence pattern = aFirst;
+		CharSequence text = aSecond;
+		int patternEnd = end1;
+		int textEnd = end2;
+		if (end1 > end2) {
+			pattern = aSecond;
+			text = aFirst;
+			patternEnd = end2;
+			textEnd = end1;
+		}
+		int m = patternEnd - start;
+		if (m == 0) {
+			return common;
+		}
+
+		int words = (m + Long.SIZE - 1) / Long.SIZE;
+		PatternMasks masks = new PatternMasks(pattern, start, m, words);
+
+		// A zero bit i in v means that row i+1 contributes to the LCS
+		long[] v = new long[words];
+		for (int w = 0; w < words; w++) {
+			v[w] = -1L;
+		}
+
+		for (int j = start; j < textEnd; j++) {
+			int offset = masks.offset(text.charAt(j));
+			if (offset < 0) {
+				// The character does not occur in the pattern, v does not change
+				continue;
+			}
+
+			long carry = 0;
+			for (int w = 0; w < words; w++) {
+				long vw = v[w];
+				long u = vw & masks.masks[offset + w];
+				long sum = vw + u;
+				long carryOut = Long.compareUnsigned(sum, vw) < 0 ? 1 : 0;
+				long sumWithCarry = sum + carry;
+				if (carry != 0 && sumWithCarry == 0) {
+					carryOut = 1;
+				}
+				carry = carryOut;
+				v[w] = sumWithCarry | (vw - u);
+			}
+		}
+
+		int ones = 0;
+		for (int w = 0; w < words - 1; w++) {
+			ones += Long.bitCount(v[w]);
+		}
+		int lastBits = m - (words - 1) * Long.SIZE;
+		long lastMask = lastBits == Long.SIZE ? -1L : (1L << lastBits) - 1;
+		ones += Long.bitCount(v[words - 1] & lastMask);
+
+		return common + m - ones;
+	}
+
+	/**
+	 * Maps each character of the pattern to the bit vector of its positions. The vectors of all
+	 * distinct characters are stored one after another in a single array.
+	 */
+	private static final class PatternMasks
+	{
+		private final char[] keys;
+		private final int[] offsets;
+		private final int mask;
+		private final int words;
+		final long[] masks;
+
+		PatternMasks(CharSequence aPattern, int aStart, int aLength, int aWords)
+		{
+			words = aWords;
+
+			int capacity = 16;
+			while (capacity < aLength * 2 && capacity < (1 << 17)) {
+				capacity <<= 1;
+			}
+			keys = new char[capacity];
+			offsets = new int[capacity];
+			mask = capacity - 1;
+			for (int i = 0; i < capacity; i++) {
+				offsets[i] = -1;
+			}
+
+			// First pass to count the distinct characters
+			int distinct = 0;
+			for (int i = 0; i < aLength; i++) {
+				int slot = slot(aPattern.charAt(aStart + i));
+				if (offsets[slot] < 0) {
+					keys[slot] = aPattern.charAt(aStart + i);
+					offsets[slot] = distinct * words;
+					distinct++;
+				}
+			}
+
+			masks = new long[distinct * words];
+			for (int i = 0; i < aLength; i++) {
+				int offset = offsets[slot(aPattern.charAt(aStart + i))];
+				masks[offset + i / Long.SIZE] |= 1L << (i % Long.SIZE);
+			}
+		}
+
+		/**
+		 * @return the offset of the bit vector of the given character in {@link #masks} or -1
+		 *         if the character does not occur in the pattern.
+		 */
+		int offset(char aChar)
+		{
+			return offsets[slot(aChar)];
+		}
+
+		private int slot(char aChar)
+		{
+			int slot = (aChar * 0x9E3779B1) >>> 16 & mask;
+			while (offsets[slot] >= 0 && keys[slot] != aChar) {
+				slot = (slot + 1) & mask;
+			}
+			return slot;
+		}
+	}
+}
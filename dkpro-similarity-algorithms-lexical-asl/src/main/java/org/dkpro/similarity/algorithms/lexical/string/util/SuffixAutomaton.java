@@ -0,0 +1,251 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lexical.string.util;
+
+/**
+ * Suffix automaton (directed acyclic word graph) of a character sequence, stored in primitive
+ * arrays. The automaton of a text of length {@code n} has at most {@code 2n} states and
+ * {@code 3n} transitions and is built in linear time. Afterwards the length of the longest
+ * common substring with any other sequence is found in time linear in the length of that
+ * sequence.
+ * <p>
+ * The automaton is not modified by queries, so one instance can be built for a document and
+ * shared to score it against many candidates, also from several threads.
+ * <ul>
+ * <li>A. Blumer et al.: The smallest automaton recognizing the subwords of a text. Theoretical
+ * Computer Science 40 (1985)</li>
+ * </ul>
+ */
+public final class SuffixAutomaton
+{
+	private static final int NONE = -1;
+
+	private final int length;
+
+	// States
+	private final int[] stateLength;
+	private final int[] stateLink;
+	private final int[] stateFirstEdge;
+	private int stateCount;
+
+	// Transitions as singly linked list per state
+	private final char[] edgeChar;
+	private final int[] edgeTarget;
+	private final int[] edgeNext;
+	private int edgeCount;
+
+	// Open addressing index (state, char) -> edge
+	private final long[] indexKeys;
+	private final int[] indexEdges;
+	private final int indexMask;
+
+	/**
+	 * Builds the automaton of the given text.
+	 */
+	public SuffixAutomaton(CharSequence aText)
+	{
+		length = aText.length();
+
+		int maxStates = Math.max(2, 2 * length);
+		stateLength = new int[maxStates];
+		stateLink = new int[maxStates];
+		stateFirstEdge = new int[maxStates];
+
+		int maxEdges = Math.max(4, 3 * length);
+		edgeChar = new char[maxEdges];
+		edgeTarget = new int[maxEdges];
+		edgeNext = new int[maxEdges];
+
+		int capacity = Integer.highestOneBit(maxEdges) << 2;
+		indexKeys = new long[capacity];
+		indexEdges = new int[capacity];
+		indexMask = capacity - 1;
+
+		stateLink[0] = NONE;
+		stateFirstEdge[0] = NONE;
+		stateCount = 1;
+
+		int last = 0;
+		for (int i = 0; i < length; i++) {
+			last = extend(last, aText.charAt(i));
+		}
+	}
+
+	/**
+	 * @return the length of the indexed text.
+	 */
+	public int length()
+	{
+		return length;
+	}
+
+	/**
+	 * @return the number of states of the automaton.
+	 */
+	public int getStateCount()
+	{
+		return stateCount;
+	}
+
+	/**
+	 * Computes the length of the longest substring that the given sequence has in common with the
+	 * indexed text.
+	 */
+	public int longestCommonSubstring(CharSequence aOther)
+	{
+		int state = 0;
+		int current = 0;
+		int best = 0;
+		int n = aOther.length();
+		for (int i = 0; i < n; i++) {
+			char c = aOther.charAt(i);
+			int target = transition(state, c);
+			while (target == NONE && state != 0) {
+				state = stateLink[state];
+				current = stateLength[state];
+				target = transition(state, c);
+			}
+			if (target == NONE) {
+				current = 0;
+			}
+			else {
+				state = target;
+				current++;
+				if (current > best) {
+					best = current;
+					if (best == length) {
+						break;
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Computes the length of the longest common substring of two sequences. The shorter one is
+	 * indexed.
+	 */
+	public static int longestCommonSubstring(CharSequence aFirst, CharSequence aSecond)
+	{
+		if (aFirst.length() == 0 || aSecond.length() == 0) {
+			return 0;
+		}
+		if (aFirst.length() <= aSecond.length()) {
+			return new SuffixAutomaton(aFirst).longestCommonSubstring(aSecond);
+		}
+		else {
+			return new SuffixAutomaton(aSecond).longestCommonSubstring(aFirst);
+		}
+	}
+
+	private int extend(int aLast, char aChar)
+	{
+		int cur = newState(stateLength[aLast] + 1);
+		int p = aLast;
+		while (p != NONE && transition(p, aChar) == NONE) {
+			addEdge(p, aChar, cur);
+			p = stateLink[p];
+		}
+		if (p == NONE) {
+			stateLink[cur] = 0;
+			return cur;
+		}
+
+		int q = transition(p, aChar);
+		if (stateLength[p] + 1 == stateLength[q]) {
+			stateLink[cur] = q;
+			return cur;
+		}
+
+		// Split q by cloning it with the shorter length
+		int clone = newState(stateLength[p] + 1);
+		for (int e = stateFirstEdge[q]; e != NONE; e = edgeNext[e]) {
+			addEdge(clone, edgeChar[e], edgeTarget[e]);
+		}
+		stateLink[clone] = stateLink[q];
+		while (p != NONE) {
+			int e = edge(p, aChar);
+			if (e == NONE || edgeTarget[e] != q) {
+				break;
+			}
+			edgeTarget[e] = clone;
+			p = stateLink[p];
+		}
+		stateLink[q] = clone;
+		stateLink[cur] = clone;
+		return cur;
+	}
+
+	private int newState(int aLength)
+	{
+		int state = stateCount++;
+		stateLength[state] = aLength;
+		stateFirstEdge[state] = NONE;
+		return state;
+	}
+
+	private void addEdge(int aState, char aChar, int aTarget)
+	{
+		int e = edgeCount++;
+		edgeChar[e] = aChar;
+		edgeTarget[e] = aTarget;
+		edgeNext[e] = stateFirstEdge[aState];
+		stateFirstEdge[aState] = e;
+
+		// Keys are stored incremented by one so that zero marks a free slot
+		long key = key(aState, aChar);
+		int slot = slot(key);
+		while (indexKeys[slot] != 0) {
+			slot = (slot + 1) & indexMask;
+		}
+		indexKeys[slot] = key;
+		indexEdges[slot] = e;
+	}
+
+	private int transition(int aState, char aChar)
+	{
+		int e = edge(aState, aChar);
+		return e == NONE ? NONE : edgeTarget[e];
+	}
+
+	private int edge(int aState, char aChar)
+	{
+		long key = key(aState, aChar);
+		int slot = slot(key);
+		long k;
+		while ((k = indexKeys[slot]) != 0) {
+			if (k == key) {
+				return indexEdges[slot];
+			}
+			slot = (slot + 1) & indexMask;
+		}
+		return NONE;
+	}
+
+	private static long key(int aState, char aChar)
+	{
+		return (((long) aState << 16) | aChar) + 1;
+	}
+
+	private int slot(long aKey)
+	{
+		long h = aKey * 0x9E3779B97F4A7C15L;
+		return (int) (h >>> 32) & indexMask;
+	}
+}
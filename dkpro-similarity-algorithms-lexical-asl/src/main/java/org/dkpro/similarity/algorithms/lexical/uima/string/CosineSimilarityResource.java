@@ -66,7 +66,12 @@ public class CosineSimilarityResource
 		}
 
         this.mode = TextSimilarityResourceMode.text;
-        measure = new CosineSimilarity(weightingTf, weightingIdf, normalization, idfValuesFile);
+        try {
+            measure = new CosineSimilarity(weightingTf, weightingIdf, normalization, idfValuesFile);
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResourceInitializationException(e);
+        }
 
         return true;
     }
@@ -0,0 +1,58 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lexical;
+
+import java.util.Random;
+
+/**
+ * Random input for the tests comparing an optimized implementation against a straightforward
+ * reference implementation.
+ */
+public final class RandomStrings
+{
+	/**
+	 * Alphabets cycled through by the randomized tests: a binary one producing long repeats, a
+	 * small ASCII one, and one with non-ASCII, CJK, maximum and null characters.
+	 */
+	private static final String[] ALPHABETS = { "ab", "abcdefgh", "aä中￿ \u0000" };
+
+	private RandomStrings()
+	{
+		// No instances
+	}
+
+	/**
+	 * Get the alphabet for the given iteration of a randomized test.
+	 */
+	public static String alphabet(int aIteration)
+	{
+		return ALPHABETS[aIteration % ALPHABETS.length];
+	}
+
+	/**
+	 * Create a string of the given length from characters drawn uniformly from the alphabet.
+	 */
+	public static String random(Random aRandom, String aAlphabet, int aLength)
+	{
+		StringBuilder sb = new StringBuilder(aLength);
+		for (int i = 0; i < aLength; i++) {
+			sb.append(aAlphabet.charAt(aRandom.nextInt(aAlphabet.length())));
+		}
+		return sb.toString();
+	}
+}
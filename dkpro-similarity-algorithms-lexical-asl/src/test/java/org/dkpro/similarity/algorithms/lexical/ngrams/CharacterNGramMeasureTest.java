@@ -17,10 +17,19 @@
  *******************************************************************************/
 package org.dkpro.similarity.algorithms.lexical.ngrams;
 
+import static java.util.Arrays.asList;
+import static org.dkpro.similarity.algorithms.lexical.RandomStrings.random;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 
 import org.dkpro.similarity.algorithms.api.TermSimilarityMeasure;
 import org.dkpro.similarity.algorithms.lexical.ngrams.CharacterNGramMeasure;
@@ -54,4 +63,81 @@ public class CharacterNGramMeasureTest
 		assertEquals(0.117, measure.getSimilarity(a1, a2), epsilon);
 		assertEquals(0.988, measure.getSimilarity(b1, b2), epsilon);
    }
+
+    @Test
+    public void oneAgainstMany()
+        throws Exception
+    {
+        Map<String,Double> idfValues = new HashMap<String,Double>();
+        idfValues.put("the", 0.01);
+        idfValues.put("fox", 2.5);
+        idfValues.put("dog", 2.1);
+
+        CharacterNGramMeasure measure = new CharacterNGramMeasure(3, idfValues);
+
+        String text = "The quick brown fox jumps over the lazy dog.";
+        List<String> candidates = asList("The quick brown dog jumps.", "THE FOX", "zzz", text);
+        double[] expected = new double[candidates.size()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = measure.getSimilarity(text, candidates.get(i));
+        }
+
+        assertArrayEquals(expected, measure.getSimilarities(text, candidates), 0.0);
+        // "dog" never occurs because "g" is not part of the alphabet of the measure
+        assertEquals(2, measure.getProfile(text).size());
+        assertTrue(Double.isNaN(expected[2]));
+        assertEquals(1.0, expected[3], epsilon);
+    }
+
+    @Test
+    public void sameAsStringNGrams()
+        throws Exception
+    {
+        Random rnd = new Random(42);
+        String alphabet = "abcgAG1 .ä";
+        for (int n : new int[] { 1, 2, 3, 12, 13 }) {
+            for (int i = 0; i < 200; i++) {
+                String s1 = random(rnd, alphabet, rnd.nextInt(60));
+                String s2 = random(rnd, alphabet, rnd.nextInt(60));
+
+                CharacterNGramMeasure measure = new CharacterNGramMeasure(n,
+                        new HashMap<String, Double>());
+                Map<String, Double> idfValues = new HashMap<String, Double>();
+                List<String> ngrams = new ArrayList<String>(measure.getNGrams(s1 + s2));
+                for (String ngram : ngrams) {
+                    if (rnd.nextInt(4) > 0) {
+                        idfValues.put(ngram, rnd.nextDouble() * 5);
+                    }
+                }
+                idfValues.put("not an n-gram", 1.0);
+
+                measure = new CharacterNGramMeasure(n, idfValues);
+                assertEquals(s1 + " / " + s2, reference(measure, idfValues, s1, s2),
+                        measure.getSimilarity(s1, s2), 1e-9);
+            }
+        }
+    }
+
+    private static double reference(CharacterNGramMeasure aMeasure, Map<String, Double> aIdf,
+            String aText1, String aText2)
+    {
+        Set<String> ngrams1 = aMeasure.getNGrams(aText1);
+        Set<String> ngrams2 = aMeasure.getNGrams(aText2);
+        Set<String> ngrams = new HashSet<String>(ngrams1);
+        ngrams.addAll(ngrams2);
+
+        double dotprod = 0.0;
+        double mag1 = 0.0;
+        double mag2 = 0.0;
+        for (String ngram : ngrams) {
+            // The measure stores the IDF values with single precision
+            double idf = aIdf.containsKey(ngram) ? aIdf.get(ngram).floatValue() : 0.0;
+            double tfidf1 = ngrams1.contains(ngram) ? idf : 0.0;
+            double tfidf2 = ngrams2.contains(ngram) ? idf : 0.0;
+            dotprod += tfidf1 * tfidf2;
+            mag1 += tfidf1 * tfidf1;
+            mag2 += tfidf2 * tfidf2;
+        }
+        return dotprod / (Math.sqrt(mag1) * Math.sqrt(mag2));
+    }
 }
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lexical.ngrams;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.dkpro.similarity.algorithms.api.ngrams.NGramSet;
+import org.junit.Test;
+
+public class MinHashTest
+{
+	@Test
+	public void estimateJaccard()
+		throws Exception
+	{
+		WordNGramJaccardMeasure measure = new WordNGramJaccardMeasure(2);
+		MinHash minHash = new MinHash(512, 42);
+		Random rnd = new Random(42);
+
+		for (int i = 0; i < 50; i++) {
+			List<String> doc1 = randomDocument(rnd, 200);
+			List<String> doc2 = mutate(rnd, doc1, rnd.nextDouble());
+
+			double jaccard = measure.getSimilarity(doc1, doc2);
+			double estimate = minHash.estimateJaccard(measure.getNGrams(doc1),
+					measure.getNGrams(doc2));
+			assertEquals(jaccard, estimate, 0.1);
+		}
+
+		NGramSet empty = measure.getNGrams(new ArrayList<String>());
+		assertEquals(0.0, minHash.estimateJaccard(empty, empty), 0.0);
+		List<String> doc = asList("a", "b", "c");
+		assertEquals(1.0, minHash.estimateJaccard(measure.getNGrams(doc), measure.getNGrams(doc)),
+				0.0);
+	}
+
+	@Test
+	public void candidatePairs()
+		throws Exception
+	{
+		WordNGramJaccardMeasure measure = new WordNGramJaccardMeasure(3);
+		MinHash minHash = new MinHash(128, 7);
+		MinHashLshIndex index = MinHashLshIndex.forThreshold(0.7, minHash.getNumHashes());
+		assertEquals(128, index.getBands() * index.getRows());
+		assertEquals(0.7, index.getThreshold(), 0.1);
+
+		// Groups of near duplicates among unrelated documents
+		Random rnd = new Random(42);
+		List<List<String>> docs = new ArrayList<List<String>>();
+		for (int i = 0; i < 100; i++) {
+			List<String> doc = randomDocument(rnd, 100);
+			docs.add(doc);
+			if (i % 10 == 0) {
+				docs.add(mutate(rnd, doc, 0.02));
+				docs.add(mutate(rnd, doc, 0.02));
+			}
+		}
+		docs.add(new ArrayList<String>());
+		docs.add(new ArrayList<String>());
+		Collections.shuffle(docs, rnd);
+
+		for (List<String> doc : docs) {
+			index.add(minHash.getSignature(measure.getNGrams(doc)));
+		}
+
+		final double threshold = 0.7;
+		final Set<String> pairs = new HashSet<String>();
+		index.findCandidatePairs(threshold, new MinHashLshIndex.PairHandler()
+		{
+			@Override
+			public void pair(int id1, int id2, double estimatedJaccard)
+			{
+				assertTrue(id1 < id2);
+				assertTrue(estimatedJaccard >= threshold);
+				assertTrue("Reported twice", pairs.add(id1 + "-" + id2));
+			}
+		});
+
+		// Compare with all pairs
+		Set<String> expected = new HashSet<String>();
+		for (int i = 0; i < docs.size(); i++) {
+			for (int j = i + 1; j < docs.size(); j++) {
+				if (measure.getSimilarity(docs.get(i), docs.get(j)) >= 0.8) {
+					expected.add(i + "-" + j);
+				}
+				else if (measure.getSimilarity(docs.get(i), docs.get(j)) < 0.3) {
+					assertFalse(pairs.contains(i + "-" + j));
+				}
+			}
+		}
+		// Each group has up to three similar pairs
+		assertTrue(expected.size() >= 20 && expected.size() <= 30);
+		assertTrue(pairs.containsAll(expected));
+
+		// Querying with an indexed document finds its group
+		for (int i = 0; i < docs.size(); i++) {
+			int[] found = index.query(index.getSignature(i), threshold);
+			List<Integer> group = new ArrayList<Integer>();
+			for (String pair : pairs) {
+				String[] ids = pair.split("-");
+				if (ids[0].equals(String.valueOf(i)) || ids[1].equals(String.valueOf(i))) {
+					group.add(Integer.valueOf(ids[0].equals(String.valueOf(i)) ? ids[1] : ids[0]));
+				}
+			}
+			if (!docs.get(i).isEmpty()) {
+				group.add(i);
+			}
+			Collections.sort(group);
+			int[] expectedGroup = new int[group.size()];
+			for (int k = 0; k < expectedGroup.length; k++) {
+				expectedGroup[k] = group.get(k);
+			}
+			assertArrayEquals(expectedGroup, found);
+		}
+	}
+
+	private static List<String> randomDocument(Random rnd, int length)
+	{
+		List<String> doc = new ArrayList<String>();
+		for (int i = 0; i < length; i++) {
+			doc.add("w" + rnd.nextInt(500));
+		}
+		return doc;
+	}
+
+	private static List<String> mutate(Random rnd, List<String> doc, double rate)
+	{
+		List<String> result = new ArrayList<String>(doc);
+		for (int i = 0; i < result.size(); i++) {
+			if (rnd.nextDouble() < rate) {
+				result.set(i, "x" + rnd.nextInt(500));
+			}
+		}
+		return result;
+	}
+}
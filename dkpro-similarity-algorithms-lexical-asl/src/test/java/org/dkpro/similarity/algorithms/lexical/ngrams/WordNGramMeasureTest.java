@@ -19,9 +19,17 @@ package org.dkpro.similarity.algorithms.lexical.ngrams;
 
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasure;
+import org.dkpro.similarity.algorithms.api.ThresholdedTextSimilarityMeasure;
+import org.dkpro.similarity.algorithms.api.ngrams.InternedTokenDictionary;
 import org.dkpro.similarity.algorithms.lexical.ngrams.WordNGramContainmentMeasure;
 import org.dkpro.similarity.algorithms.lexical.ngrams.WordNGramJaccardMeasure;
 import org.junit.Test;
@@ -57,4 +65,125 @@ public class WordNGramMeasureTest
 		assertEquals(1.0, measure.getSimilarity(l1, l2), epsilon);
 		assertEquals(0.142, measure.getSimilarity(l1, l3), epsilon);
    }
+
+    @Test
+    public void sameAsListNGrams()
+        throws Exception
+    {
+        Random rnd = new Random(42);
+        String[] vocabulary = { "a", "A", "b", "B", "c", "the", "The", "Aa", "BB" };
+
+        // "Aa" and "BB" have the same String hash code
+        InternedTokenDictionary dictionary = new InternedTokenDictionary();
+        for (int n = 1; n <= 4; n++) {
+            WordNGramJaccardMeasure jaccard = new WordNGramJaccardMeasure(n, n % 2 == 0);
+            WordNGramContainmentMeasure containment = new WordNGramContainmentMeasure(n);
+            jaccard.setTokenDictionary(dictionary);
+            containment.setTokenDictionary(dictionary);
+            // Without a dictionary the tokens are hashed
+            WordNGramJaccardMeasure hashedJaccard = new WordNGramJaccardMeasure(n, n % 2 == 0);
+            WordNGramContainmentMeasure hashedContainment = new WordNGramContainmentMeasure(n);
+
+            for (int i = 0; i < 300; i++) {
+                List<String> l1 = random(rnd, vocabulary, rnd.nextInt(12));
+                List<String> l2 = random(rnd, vocabulary, rnd.nextInt(12));
+
+                Set<List<String>> ngrams1 = ngrams(l1, n, jaccard.isToLowerCase());
+                Set<List<String>> ngrams2 = ngrams(l2, n, jaccard.isToLowerCase());
+                Set<List<String>> common = new HashSet<List<String>>(ngrams1);
+                common.retainAll(ngrams2);
+                Set<List<String>> union = new HashSet<List<String>>(ngrams1);
+                union.addAll(ngrams2);
+                double expected = union.isEmpty() ? 0.0 : common.size() / (double) union.size();
+                assertEquals(l1 + " / " + l2, expected, jaccard.getSimilarity(l1, l2), 0.0);
+                assertEquals(l1 + " / " + l2, expected, hashedJaccard.getSimilarity(l1, l2), 0.0);
+
+                ngrams1 = ngrams(l1, n, false);
+                ngrams2 = ngrams(l2, n, false);
+                common = new HashSet<List<String>>(ngrams1);
+                common.retainAll(ngrams2);
+                expected = ngrams1.isEmpty() ? 0.0 : common.size() / (double) ngrams1.size();
+                assertEquals(l1 + " / " + l2, expected, containment.getSimilarity(l1, l2), 0.0);
+                assertEquals(l1 + " / " + l2, expected, hashedContainment.getSimilarity(l1, l2),
+                        0.0);
+            }
+        }
+        // The lower-casing measures add "aa" and "bb"
+        assertEquals(vocabulary.length + 2, dictionary.size());
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void legacySubclass()
+        throws Exception
+    {
+        List<String> l1 = asList("The quick brown fox jumps over the lazy dog".split(" "));
+        List<String> l3 = asList("The quick brown dog jumps".split(" "));
+
+        // Subclasses written against the n-gram list hook keep working
+        WordNGramJaccardMeasure measure = new WordNGramContainmentMeasure(3)
+        {
+            @Override
+            protected double getNormalizedSimilarity(Set<List<String>> suspiciousNGrams,
+                    Set<List<String>> originalNGrams)
+            {
+                return super.getNormalizedSimilarity(suspiciousNGrams, originalNGrams) / 2;
+            }
+        };
+
+        assertEquals(0.071, measure.getSimilarity(l1, l3), epsilon);
+        assertEquals(0.071, measure.getSimilarityIfAbove(l1, l3, 0.5), epsilon);
+    }
+
+    @Test
+    public void ifAbove()
+        throws Exception
+    {
+        Random rnd = new Random(42);
+        String[] vocabulary = { "a", "b", "c", "d", "e", "f" };
+        WordNGramJaccardMeasure[] measures = { new WordNGramJaccardMeasure(2),
+                new WordNGramContainmentMeasure(2) };
+        double[] thresholds = { 0.0, 0.2, 0.5, 0.8, 1.0 };
+
+        for (int i = 0; i < 300; i++) {
+            List<String> l1 = random(rnd, vocabulary, rnd.nextInt(10));
+            List<String> l2 = random(rnd, vocabulary, rnd.nextInt(20));
+            for (WordNGramJaccardMeasure measure : measures) {
+                double exact = measure.getSimilarity(l1, l2);
+                for (double threshold : thresholds) {
+                    double score = measure.getSimilarityIfAbove(l1, l2, threshold);
+                    if (exact >= threshold) {
+                        assertEquals(l1 + " / " + l2, exact, score, 0.0);
+                    }
+                    else {
+                        assertTrue(score == exact
+                                || score == ThresholdedTextSimilarityMeasure.BELOW_THRESHOLD);
+                    }
+                }
+            }
+        }
+    }
+
+    private static List<String> random(Random aRandom, String[] aVocabulary, int aLength)
+    {
+        List<String> tokens = new ArrayList<String>();
+        for (int i = 0; i < aLength; i++) {
+            tokens.add(aVocabulary[aRandom.nextInt(aVocabulary.length)]);
+        }
+        return tokens;
+    }
+
+    private static Set<List<String>> ngrams(List<String> aTokens, int aN, boolean aLowerCase)
+    {
+        Set<List<String>> ngrams = new HashSet<List<String>>();
+        for (int i = 0; i < aTokens.size() - (aN - 1); i++) {
+            List<String> ngram = new ArrayList<String>();
+            for (int k = 0; k < aN; k++) {
+                String token = aTokens.get(i + k);
+                ngram.add(aLowerCase ? token.toLowerCase() : token);
+            }
+            ngrams.add(ngram);
+        }
+        return ngrams;
+    }
 }
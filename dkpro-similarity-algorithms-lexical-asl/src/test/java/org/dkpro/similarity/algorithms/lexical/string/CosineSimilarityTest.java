@@ -19,15 +19,20 @@ package org.dkpro.similarity.algorithms.lexical.string;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.io.FileUtils;
 import org.dkpro.similarity.algorithms.api.TermSimilarityMeasure;
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasure;
+import org.dkpro.similarity.algorithms.api.ngrams.InternedTokenDictionary;
 import org.dkpro.similarity.algorithms.lexical.string.CosineSimilarity;
+import org.dkpro.similarity.algorithms.lexical.string.CosineSimilarity.DocumentVector;
+import org.dkpro.similarity.algorithms.lexical.string.util.IdfTable;
 import org.junit.Test;
    
 public class CosineSimilarityTest {
@@ -233,4 +238,111 @@ public class CosineSimilarityTest {
 
         assertEquals(1.0, measure.getSimilarity(tokens1, tokens2), 0.000001);
     }
+
+    @Test
+    public void idfTableFile() throws Exception {
+        File tsvFile = new File("target/test-output/idf.tsv");
+        File binFile = new File("target/test-output/idf.bin");
+        tsvFile.getParentFile().mkdirs();
+        FileUtils.writeLines(tsvFile, Arrays.asList("test\t0.5", "String1\t0.5", "String2\t0.3333333"));
+        IdfTable.load(tsvFile).write(binFile);
+        assertEquals(3, IdfTable.load(binFile).size());
+
+        String[] b1 = "test String1 test".split(" ");
+        String[] b2 = "String2 test".split(" ");
+
+        for (File file : new File[] { tsvFile, binFile }) {
+            TextSimilarityMeasure comparator = new CosineSimilarity(
+                    CosineSimilarity.WeightingModeTf.FREQUENCY,
+                    CosineSimilarity.WeightingModeIdf.PASSTHROUGH,
+                    CosineSimilarity.NormalizationMode.L2,
+                    file.getPath()
+            );
+            assertEquals(0.7442, comparator.getSimilarity(b1, b2), epsilon);
+        }
+
+        // Looking up unknown tokens does not grow the table
+        IdfTable table = IdfTable.load(binFile);
+        assertEquals(InternedTokenDictionary.NULL_ID, table.getId("unknown"));
+        assertEquals(3, table.size());
+    }
+
+    @Test
+    public void idfOnly() throws Exception {
+        File tsvFile = new File("target/test-output/idf-only.tsv");
+        tsvFile.getParentFile().mkdirs();
+        FileUtils.writeLines(tsvFile, Arrays.asList("test\t0.5", "String1\t0.5", "String2\t0.3333333"));
+
+        String[] b1 = "test String1 test".split(" ");
+        String[] b2 = "String2 test".split(" ");
+
+        // Without TF weighting mode, the terms are weighted by their presence and IDF value
+        TextSimilarityMeasure idfOnly = new CosineSimilarity(
+                CosineSimilarity.WeightingModeIdf.PASSTHROUGH,
+                CosineSimilarity.NormalizationMode.L2,
+                tsvFile.getPath()
+        );
+        TextSimilarityMeasure binary = new CosineSimilarity(
+                CosineSimilarity.WeightingModeTf.BINARY,
+                CosineSimilarity.WeightingModeIdf.PASSTHROUGH,
+                CosineSimilarity.NormalizationMode.L2,
+                tsvFile.getPath()
+        );
+        assertEquals(0.5884, idfOnly.getSimilarity(b1, b2), epsilon);
+        assertEquals(binary.getSimilarity(b1, b2), idfOnly.getSimilarity(b1, b2), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingTfMode() throws Exception {
+        // Only the IDF-only constructor defaults to binary TF weights
+        TextSimilarityMeasure comparator = new CosineSimilarity(null,
+                CosineSimilarity.WeightingModeIdf.PASSTHROUGH,
+                CosineSimilarity.NormalizationMode.L2, new HashMap<String, Double>());
+        comparator.getSimilarity("test String1".split(" "), "test String2".split(" "));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingIdfFile() throws Exception {
+        new CosineSimilarity(
+                CosineSimilarity.WeightingModeTf.FREQUENCY,
+                CosineSimilarity.WeightingModeIdf.PASSTHROUGH,
+                CosineSimilarity.NormalizationMode.L2,
+                "target/test-output/does-not-exist.tsv"
+        );
+    }
+
+    @Test
+    public void oneAgainstMany() throws Exception {
+        Map<String,Double> idfScores = new HashMap<String,Double>();
+        idfScores.put("test", 1.0 / 2.0);
+        idfScores.put("String1", 1.0 / 2.0);
+
+        CosineSimilarity measure = new CosineSimilarity(
+                CosineSimilarity.WeightingModeTf.FREQUENCY,
+                CosineSimilarity.WeightingModeIdf.LOGPLUSONE,
+                CosineSimilarity.NormalizationMode.L2,
+                idfScores
+        );
+
+        List<String> query = Arrays.asList("test String1 test".split(" "));
+        List<List<String>> docs = new ArrayList<List<String>>();
+        docs.add(Arrays.asList("String2 test".split(" ")));
+        docs.add(Arrays.asList("test String1 test".split(" ")));
+        docs.add(Arrays.asList("foo bar".split(" ")));
+        docs.add(new ArrayList<String>());
+
+        List<DocumentVector> vectors = new ArrayList<DocumentVector>();
+        for (List<String> doc : docs) {
+            vectors.add(measure.getVector(doc));
+        }
+
+        double[] scores = measure.getSimilarities(measure.getVector(query), vectors);
+        assertEquals(docs.size(), scores.length);
+        for (int i = 0; i < docs.size(); i++) {
+            assertEquals(measure.getSimilarity(query, docs.get(i)), scores[i], 0.0);
+        }
+        assertEquals(0.632455, scores[0], epsilon);
+        assertEquals(1.0, scores[1], epsilon);
+        assertEquals(0.0, scores[2], epsilon);
+    }
 }
\ No newline at end of file
@@ -17,6 +17,8 @@
  *******************************************************************************/
 package org.dkpro.similarity.algorithms.lexical.string;
 
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import org.dkpro.similarity.algorithms.api.TermSimilarityMeasure;
@@ -39,4 +41,23 @@ public class GreedyStringTilingTest
 
 		assertEquals(0.522, measure.getSimilarity(a1, a2), epsilon);
    }
+
+    @Test
+    public void oneAgainstMany()
+        throws Exception
+    {
+        GreedyStringTiling measure = new GreedyStringTiling(3);
+
+        String suspicious = "The quick brown fox jumps over the lazy dog.";
+        String[] candidates = { "Lorem ipsum quick brown dolor, consectetur over the nomen tuum.",
+                "THE QUICK BROWN FOX", "", "xyz" };
+        double[] expected = new double[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            expected[i] = measure.getSimilarity(suspicious, candidates[i]);
+        }
+
+        assertArrayEquals(expected, measure.getSimilarities(suspicious, asList(candidates)), 0.0);
+        assertEquals(0.522, expected[0], epsilon);
+        assertEquals(19.0 / 44.0, expected[1], epsilon);
+    }
 }
@@ -59,4 +59,15 @@ public class LevenshteinComparatorTest
         assertEquals(1, measure.getSimilarity(a1, a2), epsilon);
         assertEquals(6, measure.getSimilarity(b1, b2), epsilon);
     }
+
+    @Test
+    public void testMaxDistance()
+        throws Exception
+    {
+        TermSimilarityMeasure measure = new LevenshteinComparator(3);
+
+        assertEquals(1, measure.getSimilarity("test String1", "test String2"), epsilon);
+        assertEquals(4, measure.getSimilarity("This is my string", "That is your string"),
+                epsilon);
+    }
 }
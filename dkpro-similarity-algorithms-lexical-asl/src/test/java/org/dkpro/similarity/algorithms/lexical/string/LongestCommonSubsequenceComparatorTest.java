@@ -17,8 +17,11 @@
  *******************************************************************************/
 package org.dkpro.similarity.algorithms.lexical.string;
 
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
+import org.dkpro.similarity.algorithms.api.ThresholdedTextSimilarityMeasure;
 import org.dkpro.similarity.algorithms.lexical.string.LongestCommonSubsequenceComparator;
 import org.dkpro.similarity.algorithms.lexical.string.LongestCommonSubsequenceNormComparator;
 import org.junit.Test;
@@ -49,4 +52,38 @@ public class LongestCommonSubsequenceComparatorTest
         assertEquals(0.428, lcscN.getSimilarity("This is a test", "a test"), EPSILON);        
         assertEquals(0.0, lcscN.getSimilarity("This is a test", "nono"), EPSILON);
     }
+
+    @Test
+    public void ifAbove()
+        throws Exception
+    {
+        LongestCommonSubsequenceComparator[] measures = { new LongestCommonSubsequenceComparator(),
+                new LongestCommonSubsequenceNormComparator() };
+        // "İ" becomes two characters when lower-cased
+        String[] texts = { "This is a test", "a test", "nono", "THIS IS A TEST AGAIN", " ", "",
+                "İİİ", "i̇i̇i̇ test" };
+        double[] thresholds = { 0.0, 0.3, 0.6, 0.9, 1.0 };
+
+        for (LongestCommonSubsequenceComparator measure : measures) {
+            for (String text1 : texts) {
+                for (String text2 : texts) {
+                    double exact = measure.getSimilarity(text1, text2);
+                    for (double threshold : thresholds) {
+                        double score = measure.getSimilarityIfAbove(asList(text1), asList(text2),
+                                threshold);
+                        if (exact >= threshold) {
+                            assertEquals(exact, score, 0.0);
+                        }
+                        else {
+                            assertTrue(score == exact
+                                    || score == ThresholdedTextSimilarityMeasure.BELOW_THRESHOLD);
+                        }
+                    }
+                }
+            }
+        }
+
+        assertEquals(ThresholdedTextSimilarityMeasure.BELOW_THRESHOLD, measures[0]
+                .getSimilarityIfAbove(asList("This is a test"), asList("a"), 0.5), 0.0);
+    }
 }
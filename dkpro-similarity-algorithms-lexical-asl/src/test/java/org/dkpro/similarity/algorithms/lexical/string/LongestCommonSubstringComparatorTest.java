@@ -17,9 +17,18 @@
  *******************************************************************************/
 package org.dkpro.similarity.algorithms.lexical.string;
 
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+
 import org.dkpro.similarity.algorithms.api.TermSimilarityMeasure;
+import org.dkpro.similarity.algorithms.api.TopKSimilarities;
+import org.dkpro.similarity.algorithms.api.TopKSimilarities.Hit;
 import org.dkpro.similarity.algorithms.lexical.string.LongestCommonSubstringComparator;
 import org.junit.Test;
    
@@ -43,4 +52,65 @@ public class LongestCommonSubstringComparatorTest
 		assertEquals(0.9166, measure.getSimilarity(a1, a2), epsilon);
 		assertEquals(0.3888, measure.getSimilarity(b1, b2), epsilon);
    }
+
+    @Test
+    public void oneAgainstMany()
+        throws Exception
+    {
+        LongestCommonSubstringComparator measure = new LongestCommonSubstringComparator();
+
+        String text = "This is my string";
+        String[] candidates = { "That is your string", "This is my string", "", "xyz" };
+        double[] expected = new double[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            expected[i] = measure.getSimilarity(text, candidates[i]);
+        }
+
+        assertArrayEquals(expected, measure.getSimilarities(text, asList(candidates)), 0.0);
+        assertArrayEquals(new double[2], measure.getSimilarities(" ", asList("a", "b")), 0.0);
+    }
+
+    @Test
+    public void topK()
+        throws Exception
+    {
+        LongestCommonSubstringComparator measure = new LongestCommonSubstringComparator();
+
+        Random rnd = new Random(42);
+        List<String> query = asList("abcabcab");
+        List<Collection<String>> candidates = new ArrayList<Collection<String>>();
+        for (int i = 0; i < 500; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = 1 + rnd.nextInt(30);
+            for (int k = 0; k < length; k++) {
+                sb.append((char) ('a' + rnd.nextInt(3)));
+            }
+            candidates.add(asList(sb.toString()));
+        }
+
+        for (int k : new int[] { 1, 5, 50, 1000 }) {
+            List<Hit> hits = TopKSimilarities.getTopK(measure, query, candidates, k, 0.1);
+
+            // Brute force: all scores, best first, earlier candidates first on ties
+            List<Integer> expected = new ArrayList<Integer>();
+            List<Double> expectedScores = new ArrayList<Double>();
+            for (int i = 0; i < candidates.size(); i++) {
+                double score = measure.getSimilarity(query, candidates.get(i));
+                if (score >= 0.1) {
+                    int pos = 0;
+                    while (pos < expected.size() && expectedScores.get(pos) >= score) {
+                        pos++;
+                    }
+                    expected.add(pos, i);
+                    expectedScores.add(pos, score);
+                }
+            }
+
+            assertEquals(Math.min(k, expected.size()), hits.size());
+            for (int i = 0; i < hits.size(); i++) {
+                assertEquals((int) expected.get(i), hits.get(i).getIndex());
+                assertEquals(expectedScores.get(i), hits.get(i).getScore(), 0.0);
+            }
+        }
+    }
 }
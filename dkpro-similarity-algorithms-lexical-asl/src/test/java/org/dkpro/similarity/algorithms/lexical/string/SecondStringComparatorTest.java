@@ -0,0 +1,78 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lexical.string;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class SecondStringComparatorTest
+{
+	@Test
+	public void preparedCache()
+		throws Exception
+	{
+		String query = "test String";
+		List<String> candidates = asList("test Strimg", "String test", "", "test String",
+				"test Strimg");
+
+		// Pairs of a measure with the default cache and one without
+		SecondStringComparator_ImplBase[][] pairs = {
+				{ new JaroSecondStringComparator(), new JaroSecondStringComparator() },
+				{ new JaroWinklerSecondStringComparator(),
+						new JaroWinklerSecondStringComparator() },
+				{ new LevenshteinSecondStringComparator(),
+						new LevenshteinSecondStringComparator() },
+				{ new MongeElkanSecondStringComparator(),
+						new MongeElkanSecondStringComparator() } };
+
+		for (SecondStringComparator_ImplBase[] pair : pairs) {
+			SecondStringComparator_ImplBase measure = pair[0];
+			SecondStringComparator_ImplBase uncached = pair[1];
+			uncached.setPreparedCacheSize(0);
+			assertNull(uncached.getPreparedCacheMetrics());
+
+			double[] expected = new double[candidates.size()];
+			for (int i = 0; i < expected.length; i++) {
+				expected[i] = uncached.getSimilarity(query, candidates.get(i));
+			}
+
+			double[] scores = measure.getSimilarities(query, candidates);
+			assertArrayEquals(measure.getName(), expected, scores, 0.0);
+			// The query and the repeated candidate are served from the cache
+			assertEquals(measure.getName(), 2, measure.getPreparedCacheMetrics().getHitCount());
+			assertEquals(measure.getName(), 4, measure.getPreparedCacheMetrics().getSize());
+
+			for (int i = 0; i < expected.length; i++) {
+				assertEquals(expected[i], measure.getSimilarity(query, candidates.get(i)), 0.0);
+			}
+
+			List<String> tokens1 = asList("test", "String");
+			List<String> tokens2 = asList("String", "tests");
+			assertEquals(uncached.getSimilarity(tokens1, tokens2),
+					measure.getSimilarity(tokens1, tokens2), 0.0);
+			assertEquals(uncached.getSimilarity(tokens1, tokens2),
+					measure.getSimilarity(tokens1, tokens2), 0.0);
+		}
+	}
+}
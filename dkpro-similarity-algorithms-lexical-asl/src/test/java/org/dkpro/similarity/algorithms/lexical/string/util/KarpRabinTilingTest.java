@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lexical.string.util;
+
+import static org.dkpro.similarity.algorithms.lexical.RandomStrings.random;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class KarpRabinTilingTest
+{
+	@Test
+	public void examples()
+	{
+		assertEquals(0, new KarpRabinTiling("", 3).tile("abc"));
+		assertEquals(0, new KarpRabinTiling("abc", 3).tile(""));
+		assertEquals(0, new KarpRabinTiling("abc", 4).tile("abc"));
+		assertEquals(3, new KarpRabinTiling("ABC", 3).tile("xabcx"));
+		assertEquals(6, new KarpRabinTiling("abcxyz", 3).tile("xyz--abc"));
+		// The longer tile is taken first and the rest is too short
+		assertEquals(3, new KarpRabinTiling("abcd", 2).tile("bcd-ab"));
+	}
+
+	@Test
+	public void sameAsNaiveTiling()
+	{
+		Random rnd = new Random(42);
+		for (int i = 0; i < 1000; i++) {
+			int length1 = rnd.nextInt(i % 2 == 0 ? 20 : 150);
+			int length2 = rnd.nextInt(i % 2 == 0 ? 20 : 150);
+			// Mixed case letters, including ones whose case mapping changes the length
+			String alphabet = i % 3 == 0 ? "abAB" : i % 3 == 1 ? "abcdefgh " : "aäÄ中İi ";
+			String s1 = random(rnd, alphabet, length1);
+			String s2 = random(rnd, alphabet, length2);
+			int minMatchLength = rnd.nextInt(5);
+
+			KarpRabinTiling tiling = new KarpRabinTiling(s1, minMatchLength);
+			assertEquals(s1 + " / " + s2 + " / " + minMatchLength,
+					reference(s1, s2, Math.max(1, minMatchLength)), tiling.tile(s2));
+		}
+	}
+
+	/**
+	 * Straightforward cubic Greedy String Tiling.
+	 */
+	private static int reference(String aString1, String aString2, int aMinMatchLength)
+	{
+		boolean[] marked1 = new boolean[aString1.length()];
+		boolean[] marked2 = new boolean[aString2.length()];
+		int covered = 0;
+		int maxMatch;
+		do {
+			maxMatch = aMinMatchLength;
+			List<int[]> tiles = new ArrayList<int[]>();
+			for (int i = 0; i < aString1.length(); i++) {
+				for (int j = 0; j < aString2.length(); j++) {
+					int k = 0;
+					while (i + k < aString1.length() && j + k < aString2.length()
+							&& !marked1[i + k] && !marked2[j + k]
+							&& lower(aString1, i + k).equals(lower(aString2, j + k))) {
+						k++;
+					}
+					if (k > maxMatch) {
+						tiles.clear();
+						maxMatch = k;
+					}
+					if (k == maxMatch) {
+						tiles.add(new int[] { i, j });
+					}
+				}
+			}
+			for (int[] tile : tiles) {
+				boolean occluded = false;
+				for (int k = 0; k < maxMatch; k++) {
+					occluded |= marked1[tile[0] + k] || marked2[tile[1] + k];
+				}
+				if (!occluded) {
+					for (int k = 0; k < maxMatch; k++) {
+						marked1[tile[0] + k] = true;
+						marked2[tile[1] + k] = true;
+					}
+					covered += maxMatch;
+				}
+			}
+		}
+		while (maxMatch > aMinMatchLength);
+		return covered;
+	}
+
+	private static String lower(String aString, int aIndex)
+	{
+		return aString.substring(aIndex, aIndex + 1).toLowerCase();
+	}
+}
@@ -0,0 +1,117 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lexical.string.util;
+
+import static org.dkpro.similarity.algorithms.lexical.RandomStrings.alphabet;
+import static org.dkpro.similarity.algorithms.lexical.RandomStrings.random;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LevenshteinDistanceTest
+{
+	@Test
+	public void examples()
+	{
+		assertEquals(0, LevenshteinDistance.distance("", ""));
+		assertEquals(3, LevenshteinDistance.distance("abc", ""));
+		assertEquals(3, LevenshteinDistance.distance("kitten", "sitting"));
+		assertEquals(1, LevenshteinDistance.distance("test String1", "test String2"));
+		assertEquals(6, LevenshteinDistance.distance("This is my string", "That is your string"));
+	}
+
+	@Test
+	public void sameAsFullMatrix()
+	{
+		Random rnd = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			// Cover both the bit-parallel (<= 64) and the banded (> 64) implementation
+			int length1 = rnd.nextInt(i % 2 == 0 ? 70 : 300);
+			int length2 = Math.max(0, length1 + rnd.nextInt(41) - 20);
+			String alphabet = alphabet(i);
+			String s1 = random(rnd, alphabet, length1);
+			String s2 = i % 4 == 0 ? mutate(rnd, s1, alphabet) : random(rnd, alphabet, length2);
+
+			int expected = reference(s1, s2);
+			assertEquals(s1 + " / " + s2, expected, LevenshteinDistance.distance(s1, s2));
+			assertEquals(s2 + " / " + s1, expected, LevenshteinDistance.distance(s2, s1));
+
+			int max = rnd.nextInt(expected + 5);
+			assertEquals(expected <= max ? expected : max + 1,
+					LevenshteinDistance.distance(s1, s2, max));
+		}
+	}
+
+	@Test
+	public void longTexts()
+	{
+		Random rnd = new Random(7);
+		String s1 = random(rnd, "abcdefghij ", 5000);
+		String s2 = mutate(rnd, s1, "abcdefghij ");
+
+		int expected = reference(s1, s2);
+		assertEquals(expected, LevenshteinDistance.distance(s1, s2));
+		assertEquals(11, LevenshteinDistance.distance(s1, random(rnd, "xyz", 5000), 10));
+	}
+
+	private static String mutate(Random aRandom, String aString, String aAlphabet)
+	{
+		StringBuilder sb = new StringBuilder(aString);
+		int edits = aRandom.nextInt(1 + aString.length() / 10);
+		for (int i = 0; i < edits && sb.length() > 0; i++) {
+			int pos = aRandom.nextInt(sb.length());
+			char c = aAlphabet.charAt(aRandom.nextInt(aAlphabet.length()));
+			switch (aRandom.nextInt(3)) {
+			case 0:
+				sb.setCharAt(pos, c);
+				break;
+			case 1:
+				sb.insert(pos, c);
+				break;
+			default:
+				sb.deleteCharAt(pos);
+				break;
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * The full matrix implementation previously used by the LevenshteinComparator.
+	 */
+	private static int reference(String aString1, String aString2)
+	{
+		int[][] distance = new int[aString1.length() + 1][aString2.length() + 1];
+		for (int i = 0; i <= aString1.length(); i++) {
+			distance[i][0] = i;
+		}
+		for (int j = 0; j <= aString2.length(); j++) {
+			distance[0][j] = j;
+		}
+		for (int i = 1; i <= aString1.length(); i++) {
+			for (int j = 1; j <= aString2.length(); j++) {
+				distance[i][j] = Math.min(Math.min(distance[i - 1][j] + 1,
+						distance[i][j - 1] + 1), distance[i - 1][j - 1]
+						+ ((aString1.charAt(i - 1) == aString2.charAt(j - 1)) ? 0 : 1));
+			}
+		}
+		return distance[aString1.length()][aString2.length()];
+	}
+}
@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lexical.string.util;
+
+import static org.dkpro.similarity.algorithms.lexical.RandomStrings.alphabet;
+import static org.dkpro.similarity.algorithms.lexical.RandomStrings.random;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LongestCommonSubsequenceTest
+{
+	@Test
+	public void examples()
+	{
+		assertEquals(0, LongestCommonSubsequence.length("", ""));
+		assertEquals(0, LongestCommonSubsequence.length("abc", ""));
+		assertEquals(4, LongestCommonSubsequence.length("ABCBDAB", "BDCABA"));
+		assertEquals(6, LongestCommonSubsequence.length("This is a test", "a test"));
+	}
+
+	@Test
+	public void sameAsFullMatrix()
+	{
+		Random rnd = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			// Cover patterns of one and of several words
+			int length1 = rnd.nextInt(i % 2 == 0 ? 70 : 400);
+			int length2 = rnd.nextInt(i % 2 == 0 ? 70 : 400);
+			String alphabet = alphabet(i);
+			String s1 = random(rnd, alphabet, length1);
+			String s2 = random(rnd, alphabet, length2);
+
+			int expected = reference(s1, s2);
+			assertEquals(s1 + " / " + s2, expected, LongestCommonSubsequence.length(s1, s2));
+			assertEquals(s2 + " / " + s1, expected, LongestCommonSubsequence.length(s2, s1));
+		}
+	}
+
+	private static int reference(String aString1, String aString2)
+	{
+		int[][] opt = new int[aString1.length() + 1][aString2.length() + 1];
+		for (int i = aString1.length() - 1; i >= 0; i--) {
+			for (int j = aString2.length() - 1; j >= 0; j--) {
+				if (aString1.charAt(i) == aString2.charAt(j)) {
+					opt[i][j] = opt[i + 1][j + 1] + 1;
+				}
+				else {
+					opt[i][j] = Math.max(opt[i + 1][j], opt[i][j + 1]);
+				}
+			}
+		}
+		return opt[0][0];
+	}
+}
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lexical.string.util;
+
+import static org.dkpro.similarity.algorithms.lexical.RandomStrings.alphabet;
+import static org.dkpro.similarity.algorithms.lexical.RandomStrings.random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class SuffixAutomatonTest
+{
+	@Test
+	public void examples()
+	{
+		assertEquals(0, SuffixAutomaton.longestCommonSubstring("", ""));
+		assertEquals(0, SuffixAutomaton.longestCommonSubstring("abc", ""));
+		assertEquals(0, SuffixAutomaton.longestCommonSubstring("abc", "xyz"));
+		assertEquals(11, SuffixAutomaton.longestCommonSubstring("test String1", "test String2"));
+		assertEquals(7, SuffixAutomaton.longestCommonSubstring("This is my string",
+				"That is your string"));
+	}
+
+	@Test
+	public void oneAgainstMany()
+	{
+		SuffixAutomaton automaton = new SuffixAutomaton("abracadabra");
+		assertEquals(11, automaton.length());
+		assertEquals(4, automaton.longestCommonSubstring("xxabraxx"));
+		assertEquals(11, automaton.longestCommonSubstring("abracadabra"));
+		assertEquals(3, automaton.longestCommonSubstring("cad"));
+		assertEquals(0, automaton.longestCommonSubstring("zzz"));
+		assertEquals(1, automaton.longestCommonSubstring("rrr"));
+	}
+
+	@Test
+	public void sameAsFullMatrix()
+	{
+		Random rnd = new Random(42);
+		for (int i = 0; i < 2000; i++) {
+			int length1 = rnd.nextInt(i % 2 == 0 ? 20 : 300);
+			int length2 = rnd.nextInt(i % 2 == 0 ? 20 : 300);
+			String alphabet = alphabet(i);
+			String s1 = random(rnd, alphabet, length1);
+			String s2 = random(rnd, alphabet, length2);
+
+			int expected = reference(s1, s2);
+			assertEquals(s1 + " / " + s2, expected, SuffixAutomaton.longestCommonSubstring(s1, s2));
+			assertEquals(s2 + " / " + s1, expected, SuffixAutomaton.longestCommonSubstring(s2, s1));
+
+			SuffixAutomaton automaton = new SuffixAutomaton(s1);
+			assertEquals(s1 + " / " + s2, expected, automaton.longestCommonSubstring(s2));
+			assertTrue(automaton.getStateCount() <= Math.max(2, 2 * s1.length()));
+		}
+	}
+
+	private static int reference(String aString1, String aString2)
+	{
+		int best = 0;
+		int[][] opt = new int[aString1.length() + 1][aString2.length() + 1];
+		for (int i = 1; i <= aString1.length(); i++) {
+			for (int j = 1; j <= aString2.length(); j++) {
+				if (aString1.charAt(i - 1) == aString2.charAt(j - 1)) {
+					opt[i][j] = opt[i - 1][j - 1] + 1;
+					best = Math.max(best, opt[i][j]);
+				}
+			}
+		}
+		return best;
+	}
+}
@@ -22,16 +22,21 @@ import static java.util.Collections.singleton;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.dkpro.similarity.algorithms.api.SimilarityException;
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasureBase;
+import org.dkpro.similarity.algorithms.util.ParallelScoring;
+import org.dkpro.similarity.algorithms.vsm.util.CacheMetrics;
+import org.dkpro.similarity.algorithms.vsm.util.ConcurrentCache;
 
 import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity.PoS;
@@ -45,10 +50,26 @@ public abstract class LexSemResourceComparator
 
 	protected final static double NOT_RELATED = -1.0;
 
+	/**
+	 * Default number of terms for which the entities are cached.
+	 */
+	public static final int DEFAULT_ENTITY_CACHE_SIZE = 10000;
+
+	/**
+	 * Default number of entity pairs for which the scores are cached.
+	 */
+	public static final int DEFAULT_SCORE_CACHE_SIZE = 100000;
+
 	private LexicalSemanticResource lexSemResource;
 	private Map<String, Set<Entity>> cache;
 	private PoS defaultPos;
 
+	private int entityCacheSize = DEFAULT_ENTITY_CACHE_SIZE;
+	private int scoreCacheSize = DEFAULT_SCORE_CACHE_SIZE;
+	private volatile ConcurrentCache<String, Set<Entity>> entityCache;
+	private volatile ConcurrentCache<EntityPair, Double> scoreCache;
+	private ExecutorService executor;
+
 	public LexSemResourceComparator(LexicalSemanticResource aLexSemResource)
 		throws LexicalSemanticResourceException
 	{
@@ -59,6 +80,7 @@ public abstract class LexSemResourceComparator
 	public void setLexSemResource(LexicalSemanticResource aLexSemResource)
 	{
 		lexSemResource = aLexSemResource;
+		clearCaches();
 	}
 
 	public LexicalSemanticResource getLexicalSemanticResource()
@@ -71,11 +93,70 @@ public abstract class LexSemResourceComparator
 		return cache;
 	}
 
+	/**
+	 * Sets a map used to cache the entities of terms instead of the bounded entity cache.
+	 */
 	public void setCache(Map<String, Set<Entity>> aCache)
 	{
 		cache = aCache;
 	}
 
+	/**
+	 * Sets the maximum number of terms for which the entities are cached. Zero disables the
+	 * cache. Changing the size discards the cached entities.
+	 */
+	public synchronized void setEntityCacheSize(int aEntityCacheSize)
+	{
+		entityCacheSize = aEntityCacheSize;
+		entityCache = null;
+	}
+
+	public int getEntityCacheSize()
+	{
+		return entityCacheSize;
+	}
+
+	/**
+	 * Sets the maximum number of entity pairs for which the scores are cached. Zero disables the
+	 * cache. Changing the size discards the cached scores.
+	 */
+	public synchronized void setScoreCacheSize(int aScoreCacheSize)
+	{
+		scoreCacheSize = aScoreCacheSize;
+		scoreCache = null;
+	}
+
+	public int getScoreCacheSize()
+	{
+		return scoreCacheSize;
+	}
+
+	/**
+	 * @return the metrics of the entity cache or {@code null} if it is disabled.
+	 */
+	public CacheMetrics getEntityCacheMetrics()
+	{
+		return getEntityCache();
+	}
+
+	/**
+	 * @return the metrics of the entity pair score cache or {@code null} if it is disabled.
+	 */
+	public CacheMetrics getScoreCacheMetrics()
+	{
+		return getScoreCache();
+	}
+
+	/**
+	 * Discards all cached entities and scores. Subclasses call this when a change of their
+	 * configuration changes the scores.
+	 */
+	public synchronized void clearCaches()
+	{
+		entityCache = null;
+		scoreCache = null;
+	}
+
 	public void setDefaultPos(PoS aDefaultPos)
 	{
 		defaultPos = aDefaultPos;
@@ -86,12 +167,55 @@ public abstract class LexSemResourceComparator
 		return defaultPos;
 	}
 
+	/**
+	 * Sets an executor used to look up the entities of the terms and to score the term pairs in
+	 * parallel. The scores are reduced in the same order as without an executor, so the results
+	 * are identical. Since the lookups of most resources wait for I/O, the executor may use more
+	 * threads than there are cores. The resource and a map set by {@link #setCache(Map)} must
+	 * support concurrent access.
+	 *
+	 * @param aExecutor
+	 *            the executor or {@code null} to score the term pairs sequentially.
+	 */
+	public void setExecutor(ExecutorService aExecutor)
+	{
+		executor = aExecutor;
+	}
+
+	public ExecutorService getExecutor()
+	{
+		return executor;
+	}
+
 	public abstract double getSimilarity(Entity entity1, Entity entity2)
 		throws SimilarityException, LexicalSemanticResourceException;
 
 	public abstract double getSimilarity(Set<Entity> entities1, Set<Entity> entities2)
 		throws SimilarityException, LexicalSemanticResourceException;
 
+	/**
+	 * Computes the similarity of two entities using the entity pair score cache. Entity pairs
+	 * recur often when comparing the entities of many term pairs, so implementations of
+	 * {@link #getSimilarity(Set, Set)} should use this method instead of
+	 * {@link #getSimilarity(Entity, Entity)}.
+	 */
+	protected double getCachedSimilarity(Entity aEntity1, Entity aEntity2)
+		throws SimilarityException, LexicalSemanticResourceException
+	{
+		ConcurrentCache<EntityPair, Double> scores = getScoreCache();
+		if (scores == null) {
+			return getSimilarity(aEntity1, aEntity2);
+		}
+
+		EntityPair key = new EntityPair(this, aEntity1.getId(), aEntity2.getId());
+		Double score = scores.get(key);
+		if (score == null) {
+			score = getSimilarity(aEntity1, aEntity2);
+			scores.put(key, score);
+		}
+		return score;
+	}
+
 	@Override
 	public final double getSimilarity(String aTerm1, String aTerm2)
 		throws SimilarityException
@@ -113,20 +237,26 @@ public abstract class LexSemResourceComparator
 			Collection<String> set1 = aTerms1.size() == 1 ? aTerms1 : new TreeSet<String>(aTerms1);
 			Collection<String> set2 = aTerms2.size() == 1 ? aTerms2 : new TreeSet<String>(aTerms2);
 
-			List<Double> scores = new ArrayList<Double>();
-			for (String t1 : set1) {
-				Set<Entity> entities1 = getEntities(t1, aPos);
-				if (entities1.size() == 0) {
-					continue;
-				}
-
-				for (String t2 : set2) {
-					Set<Entity> entities2 = getEntities(t2, aPos);
-					if (entities2.size() == 0) {
+			List<Double> scores;
+			if (executor != null) {
+				scores = getScoresInParallel(set1, set2, aPos);
+			}
+			else {
+				scores = new ArrayList<Double>();
+				for (String t1 : set1) {
+					Set<Entity> entities1 = getEntities(t1, aPos);
+					if (entities1.size() == 0) {
 						continue;
 					}
 
-					scores.add(getSimilarity(entities1, entities2));
+					for (String t2 : set2) {
+						Set<Entity> entities2 = getEntities(t2, aPos);
+						if (entities2.size() == 0) {
+							continue;
+						}
+
+						scores.add(getSimilarity(entities1, entities2));
+					}
 				}
 			}
 
@@ -142,43 +272,143 @@ public abstract class LexSemResourceComparator
 		}
 	}
 
-	protected Set<Entity> getEntities(String aTerm, PoS aPos)
-		throws LexicalSemanticResourceException
+	/**
+	 * Scores the term pairs using the executor. The scores are in the same order as those of the
+	 * sequential loop.
+	 */
+	private List<Double> getScoresInParallel(Collection<String> aTerms1,
+			Collection<String> aTerms2, PoS aPos)
+		throws SimilarityException
 	{
-		if (cache == null) {
-			if (aPos != null) {
-				return lexSemResource.getEntity(aTerm, aPos);
+		List<Set<Entity>> entities1 = ParallelScoring.getAll(submitLookups(aTerms1, aPos));
+		List<Set<Entity>> entities2 = ParallelScoring.getAll(submitLookups(aTerms2, aPos));
+
+		List<Future<Double>> scores = new ArrayList<Future<Double>>();
+		for (final Set<Entity> e1 : entities1) {
+			if (e1.size() == 0) {
+				continue;
 			}
-			else {
-				return lexSemResource.getEntity(aTerm);
+
+			for (final Set<Entity> e2 : entities2) {
+				if (e2.size() == 0) {
+					continue;
+				}
+
+				scores.add(executor.submit(new Callable<Double>()
+				{
+					@Override
+					public Double call()
+						throws Exception
+					{
+						return getSimilarity(e1, e2);
+					}
+				}));
 			}
 		}
-		else {
+		return ParallelScoring.getAll(scores);
+	}
+
+	private List<Future<Set<Entity>>> submitLookups(Collection<String> aTerms, final PoS aPos)
+	{
+		List<Future<Set<Entity>>> lookups = new ArrayList<Future<Set<Entity>>>(aTerms.size());
+		for (final String term : aTerms) {
+			lookups.add(executor.submit(new Callable<Set<Entity>>()
+			{
+				@Override
+				public Set<Entity> call()
+					throws Exception
+				{
+					return getEntities(term, aPos);
+				}
+			}));
+		}
+		return lookups;
+	}
+
+	protected Set<Entity> getEntities(String aTerm, PoS aPos)
+		throws LexicalSemanticResourceException
+	{
+		if (cache != null) {
 			String key = (aPos != null ? aPos.toString() : "*") + aTerm;
 			Set<Entity> entities = cache.get(key);
 			if (entities == null) {
-				if (aPos != null) {
-					entities = lexSemResource.getEntity(aTerm, aPos);
-				}
-				else {
-					entities = lexSemResource.getEntity(aTerm);
-				}
+				entities = lookupEntities(aTerm, aPos);
 				cache.put(key, entities);
 			}
 			return entities;
 		}
+
+		ConcurrentCache<String, Set<Entity>> entities = getEntityCache();
+		if (entities == null) {
+			return lookupEntities(aTerm, aPos);
+		}
+
+		String key = (aPos != null ? aPos.toString() : "*") + aTerm;
+		Set<Entity> result = entities.get(key);
+		if (result == null) {
+			result = lookupEntities(aTerm, aPos);
+			if (result != null) {
+				entities.put(key, result);
+			}
+		}
+		return result;
 	}
 
+	private Set<Entity> lookupEntities(String aTerm, PoS aPos)
+		throws LexicalSemanticResourceException
+	{
+		if (aPos != null) {
+			return lexSemResource.getEntity(aTerm, aPos);
+		}
+		else {
+			return lexSemResource.getEntity(aTerm);
+		}
+	}
+
+	private ConcurrentCache<String, Set<Entity>> getEntityCache()
+	{
+		ConcurrentCache<String, Set<Entity>> c = entityCache;
+		if (c == null && entityCacheSize > 0) {
+			synchronized (this) {
+				c = entityCache;
+				if (c == null && entityCacheSize > 0) {
+					c = new ConcurrentCache<String, Set<Entity>>(entityCacheSize);
+					entityCache = c;
+				}
+			}
+		}
+		return c;
+	}
+
+	private ConcurrentCache<EntityPair, Double> getScoreCache()
+	{
+		ConcurrentCache<EntityPair, Double> c = scoreCache;
+		if (c == null && scoreCacheSize > 0) {
+			synchronized (this) {
+				c = scoreCache;
+				if (c == null && scoreCacheSize > 0) {
+					c = new ConcurrentCache<EntityPair, Double>(scoreCacheSize);
+					scoreCache = c;
+				}
+			}
+		}
+		return c;
+	}
+
+	/**
+	 * The entities of terms are always cached in the bounded entity cache, so mass operations
+	 * need no separate cache anymore.
+	 */
 	@Override
 	public void beginMassOperation()
 	{
-		cache = new HashMap<String, Set<Entity>>();
+		// Nothing to do
 	}
 
 	@Override
 	public void endMassOperation()
 	{
-		cache = null;
+		// Nothing to do
 	}
 
 	public LexicalSemanticResource getLexSemResource()
@@ -207,4 +437,43 @@ public abstract class LexSemResourceComparator
 		return isDistanceMeasure() ? Collections.min(scores) : Collections.max(scores);
 	}
 
+	/**
+	 * Key of the score cache. The order of the entities is kept since measures need not be
+	 * symmetric. The measure is part of the key, so different measures never share scores.
+	 */
+	private static final class EntityPair
+	{
+		private final Object measure;
+		private final String id1;
+		private final String id2;
+		private final int hash;
+
+		EntityPair(Object aMeasure, String aId1, String aId2)
+		{
+			measure = aMeasure;
+			id1 = aId1;
+			id2 = aId2;
+			hash = (System.identityHashCode(aMeasure) * 31 + aId1.hashCode()) * 31
+					+ aId2.hashCode();
+		}
+
+		@Override
+		public boolean equals(Object aObj)
+		{
+			if (this == aObj) {
+				return true;
+			}
+			if (!(aObj instanceof EntityPair)) {
+				return false;
+			}
+			EntityPair other = (EntityPair) aObj;
+			return measure == other.measure && id1.equals(other.id1) && id2.equals(other.id2);
+		}
+
+		@Override
+		public int hashCode()
+		{
+			return hash;
+		}
+	}
 }
@@ -17,34 +17,63 @@
  *******************************************************************************/
 package org.dkpro.similarity.algorithms.lsr.aggregate;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.dkpro.similarity.algorithms.api.SimilarityException;
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasure;
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasureBase;
-import org.dkpro.similarity.algorithms.util.Cache;
+import org.dkpro.similarity.algorithms.api.ngrams.InternedTokenDictionary;
+import org.dkpro.similarity.algorithms.util.ParallelScoring;
+import org.dkpro.similarity.algorithms.vsm.util.CacheMetrics;
+import org.dkpro.similarity.algorithms.vsm.util.ConcurrentCache;
 
 
 /**
  * Implements the aggregation strategy by
  * <a href="http://www.cse.unt.edu/~rada/papers/mihalcea.aaai06.pdf">Mihalcea et al. (2006)</a>. 
- *
+ * <p>
+ * Word pair scores are kept in a thread-safe cache keyed by the ids of the lowercased words. The
+ * ids come from a dictionary which is compacted to the words of the cached pairs when it has seen
+ * many more words than the cache can refer to. The cache can be saved with
+ * {@link #writeCache(File)} and read again in a later run. When many texts are compared with the
+ * same text, prepare it once with {@link #prepareReference(Collection)}.
  */
 public class MCS06AggregateComparator
 	extends TextSimilarityMeasureBase
 {
+	public static final int DEFAULT_CACHE_SIZE = 50000;
+
+	private static final int CACHE_FILE_MAGIC = 0x4D435336; // MCS6
+	private static final int CACHE_FILE_VERSION = 1;
+
+	// The cached pairs refer to at most twice as many words as the cache holds pairs
+	private static final int WORDS_PER_CACHED_PAIR = 4;
+	private static final int MIN_DICTIONARY_SIZE = 1024;
+
 	private TextSimilarityMeasure measure;
 	private Map<String,Double> idfValues;
-	private Cache<Set<String>,Double> cache;
+	private volatile PairScores scores;
+	private ExecutorService executor;
 	
 	/**
 	 * The constructor ideally should take a _Term_SimilarityMeasure as parameter,
@@ -82,81 +111,195 @@ public class MCS06AggregateComparator
 	private void initialize(TextSimilarityMeasure measure)
 	{
 		this.measure = measure;
-		this.cache = new Cache<Set<String>,Double>(50000);
+		this.scores = new PairScores(DEFAULT_CACHE_SIZE);
 	}
 	
+	/**
+	 * Sets an executor used to compute the word pair scores in parallel. The scores are combined
+	 * in the same order as without an executor, so the results are identical. The word
+	 * similarity measure must support concurrent calls. It should not use the same bounded
+	 * executor, as its tasks would wait for tasks queued behind them.
+	 *
+	 * @param executor
+	 *            the executor or {@code null} to compute the scores sequentially.
+	 */
+	public void setExecutor(ExecutorService executor)
+	{
+		this.executor = executor;
+	}
+
+	public ExecutorService getExecutor()
+	{
+		return executor;
+	}
+
+	/**
+	 * Sets the maximum number of word pair scores kept in the cache. The cached scores and the
+	 * word ids are dropped.
+	 */
+	public void setCacheSize(int cacheSize)
+	{
+		this.scores = new PairScores(cacheSize);
+	}
+
+	public int getCacheSize()
+	{
+		return (int) scores.cache.getMaximumWeight();
+	}
+
+	/**
+	 * @return the metrics of the cache. Compacting the word ids starts a new cache, so the
+	 *         metrics cover the time since the last compaction.
+	 */
+	public CacheMetrics getCacheMetrics()
+	{
+		return scores.cache;
+	}
+
+	/**
+	 * @return the number of words which currently have an id.
+	 */
+	int getDictionarySize()
+	{
+		return scores.dictionary.size();
+	}
+
+	/**
+	 * Writes the cached word pair scores to the given file.
+	 */
+	public void writeCache(File file)
+		throws IOException
+	{
+		PairScores current = scores;
+		Map<Long,Double> cached = current.cache.snapshot();
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			out.writeInt(CACHE_FILE_MAGIC);
+			out.writeInt(CACHE_FILE_VERSION);
+			out.writeInt(cached.size());
+			for (Map.Entry<Long,Double> e : cached.entrySet()) {
+				out.writeUTF(current.getWord1(e.getKey()));
+				out.writeUTF(current.getWord2(e.getKey()));
+				out.writeDouble(e.getValue());
+			}
+		}
+		finally {
+			IOUtils.closeQuietly(out);
+		}
+	}
+
+	/**
+	 * Adds the word pair scores written by {@link #writeCache(File)} to the cache. The scores
+	 * must have been computed with the same word similarity measure.
+	 */
+	public void readCache(File file)
+		throws IOException
+	{
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (in.readInt() != CACHE_FILE_MAGIC) {
+				throw new IOException("Not a word pair score file [" + file + "]");
+			}
+			int version = in.readInt();
+			if (version != CACHE_FILE_VERSION) {
+				throw new IOException("Unsupported word pair score file version [" + version + "]");
+			}
+			PairScores current = scores;
+			int size = in.readInt();
+			for (int i = 0; i < size; i++) {
+				String w1 = in.readUTF();
+				String w2 = in.readUTF();
+				current.put(w1, w2, in.readDouble());
+			}
+		}
+		finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	/**
+	 * Prepares a text which is compared with many other texts using
+	 * {@link #getSimilarity(Reference, Collection)}. The reference remembers the best match of
+	 * each word of the other texts within the reference text.
+	 */
+	public Reference prepareReference(Collection<String> stringList)
+	{
+		return new Reference(this, lowercase(stringList));
+	}
+
 	@Override
 	public double getSimilarity(Collection<String> stringList1,
 			Collection<String> stringList2)
 		throws SimilarityException
 	{
-		return 0.5 * (getDirectionalRelatedness(stringList1, stringList2) + 
-					  getDirectionalRelatedness(stringList2, stringList1));
+		PairScores current = scores;
+		double similarity = getSimilarity(current, current.intern(lowercase(stringList1)),
+				current.intern(lowercase(stringList2)), null);
+		compactIfNeeded(current);
+		return similarity;
 	}
 	
-	private double getDirectionalRelatedness(Collection<String> stringList1,
-			Collection<String> stringList2)
+	/**
+	 * Computes the same score as {@link #getSimilarity(Collection, Collection)} with the
+	 * reference text as the first text.
+	 */
+	public double getSimilarity(Reference reference, Collection<String> stringList)
+		throws SimilarityException
+	{
+		if (reference.owner != this) {
+			throw new IllegalArgumentException("Reference was prepared by another comparator");
+		}
+
+		PairScores current = scores;
+		Reference.Prepared prepared = reference.getPrepared(current);
+		double similarity = getSimilarity(current, prepared.words,
+				current.intern(lowercase(stringList)), prepared.bestMatches);
+		compactIfNeeded(current);
+		return similarity;
+	}
+
+	private double getSimilarity(PairScores current, Words words1, Words words2,
+			Map<Integer,Double> bestMatches2)
+		throws SimilarityException
+	{
+		Map<Long,Double> scored = null;
+		if (executor != null) {
+			scored = scoreInParallel(current, words1, words2);
+		}
+
+		return 0.5 * (getDirectionalRelatedness(current, words1, words2, null, scored) + 
+					  getDirectionalRelatedness(current, words2, words1, bestMatches2, scored));
+	}
+	
+	/**
+	 * @param bestMatches
+	 *            best subscores of the words of the first text within the second text, or
+	 *            {@code null} if they are not remembered.
+	 * @param scored
+	 *            word pair scores computed in parallel for this comparison, or {@code null}.
+	 */
+	private double getDirectionalRelatedness(PairScores current, Words words1, Words words2,
+			Map<Integer,Double> bestMatches, Map<Long,Double> scored)
 		throws SimilarityException
 	{
 		double weightedSum = 0.0;
 		double idfSum = 0.0; 
 	
-		for (String w1 : stringList1)
+		for (int i = 0; i < words1.words.length; i++)
 		{
-			try
-			{
-				w1 = w1.toLowerCase();
-			}
-			catch (NullPointerException e)
-			{
-				// Ignore
+			String w1 = words1.words[i];
+			if (w1 == null) {
 				continue;
 			}
 			
-			Set<Double> subscores = new HashSet<Double>();
-			
-			for (String w2 : stringList2)
-			{
-				try
-				{
-					w2 = w2.toLowerCase();
-	
-					Set<String> wordset = new HashSet<String>();
-					wordset.add(w1);
-					wordset.add(w2);
-					
-					double score;
-					if (cache.containsKey(wordset)) {
-						score = cache.get(wordset);
-					} else { 
-						score = measure.getSimilarity(w1, w2);
-						cache.put(wordset, score);
-					}
-					
-					subscores.add(score);
-				}
-				catch (NullPointerException e)
-				{
-					// Ignore
-				}
-			}
-			
 			// Get best score for the pair (w1, w2)
-			double bestSubscore = 0.0;
-			
-			if (stringList2.size() > 0)
-			{
-				if (measure.isDistanceMeasure()) {
-                    bestSubscore = Collections.min(subscores);
-                }
-                else {
-                    bestSubscore = Collections.max(subscores);
-                }
-				
-				// Handle error cases such as "not found"
-				if (bestSubscore < 0.0)
-				{
-					bestSubscore = 0.0;
+			Double bestSubscore = bestMatches != null ? bestMatches.get(words1.ids[i]) : null;
+			if (bestSubscore == null) {
+				bestSubscore = getBestSubscore(current, words1.ids[i], w1, words2, scored);
+				if (bestMatches != null) {
+					bestMatches.put(words1.ids[i], bestSubscore);
 				}
 			}
 			
@@ -179,6 +322,174 @@ public class MCS06AggregateComparator
 		return weightedSum / idfSum;
 	}
 	
+	private double getBestSubscore(PairScores current, int id1, String w1, Words words2,
+			Map<Long,Double> scored)
+		throws SimilarityException
+	{
+		if (words2.words.length == 0) {
+			return 0.0;
+		}
+
+		double bestSubscore = 0.0;
+		boolean found = false;
+		for (int j = 0; j < words2.words.length; j++) {
+			if (words2.words[j] == null) {
+				continue;
+			}
+
+			Double score = getScore(current, id1, w1, words2.ids[j], words2.words[j], scored);
+			if (score == null) {
+				continue;
+			}
+
+			int cmp = Double.compare(score, bestSubscore);
+			if (!found || (measure.isDistanceMeasure() ? cmp < 0 : cmp > 0)) {
+				bestSubscore = score;
+				found = true;
+			}
+		}
+
+		// Handle error cases such as "not found"
+		if (bestSubscore < 0.0) {
+			bestSubscore = 0.0;
+		}
+		return bestSubscore;
+	}
+
+	/**
+	 * @return the cached or computed score, or {@code null} if the word similarity measure failed
+	 *         with a {@link NullPointerException}.
+	 */
+	private Double getScore(PairScores current, int id1, String w1, int id2, String w2,
+			Map<Long,Double> scored)
+		throws SimilarityException
+	{
+		Long key = getPairKey(id1, id2);
+		if (scored != null && scored.containsKey(key)) {
+			return scored.get(key);
+		}
+		Double score = current.cache.get(key);
+		if (score == null) {
+			try {
+				score = measure.getSimilarity(w1, w2);
+			}
+			catch (NullPointerException e) {
+				// Ignore
+				return null;
+			}
+			current.cache.put(key, score);
+		}
+		return score;
+	}
+
+	/**
+	 * Computes the scores of all word pairs which are not cached yet using the executor. The
+	 * scores are returned for the current comparison and also added to the cache. They are not
+	 * read back from the cache, since a comparison may need more pairs than the cache holds.
+	 * Pairs for which the word similarity measure failed with a {@link NullPointerException}
+	 * have a {@code null} score.
+	 */
+	private Map<Long,Double> scoreInParallel(PairScores current, Words words1, Words words2)
+		throws SimilarityException
+	{
+		final Map<Long, String[]> missing = new LinkedHashMap<Long, String[]>();
+		for (int i = 0; i < words1.words.length; i++) {
+			if (words1.words[i] == null) {
+				continue;
+			}
+			for (int j = 0; j < words2.words.length; j++) {
+				if (words2.words[j] == null) {
+					continue;
+				}
+
+				Long key = getPairKey(words1.ids[i], words2.ids[j]);
+				if (!missing.containsKey(key) && current.cache.get(key) == null) {
+					missing.put(key, new String[] { words1.words[i], words2.words[j] });
+				}
+			}
+		}
+
+		List<Future<Double>> futures = new ArrayList<Future<Double>>(missing.size());
+		for (final String[] words : missing.values()) {
+			futures.add(executor.submit(new Callable<Double>()
+			{
+				@Override
+				public Double call()
+					throws SimilarityException
+				{
+					try {
+						return measure.getSimilarity(words[0], words[1]);
+					}
+					catch (NullPointerException e) {
+						// Ignored like in the sequential computation
+						return null;
+					}
+				}
+			}));
+		}
+
+		List<Double> scores = ParallelScoring.getAll(futures);
+		Map<Long,Double> scored = new HashMap<Long,Double>(missing.size() * 2);
+		int i = 0;
+		for (Long key : missing.keySet()) {
+			Double score = scores.get(i++);
+			scored.put(key, score);
+			if (score != null) {
+				current.cache.put(key, score);
+			}
+		}
+		return scored;
+	}
+
+	/**
+	 * The score of a word pair does not depend on the order of the words.
+	 */
+	private static Long getPairKey(int id1, int id2)
+	{
+		int lo = Math.min(id1, id2);
+		int hi = Math.max(id1, id2);
+		return ((long) lo << 32) | (hi & 0xFFFFFFFFL);
+	}
+
+	private static String[] lowercase(Collection<String> stringList)
+	{
+		String[] words = new String[stringList.size()];
+		int i = 0;
+		for (String w : stringList) {
+			if (w != null) {
+				words[i] = w.toLowerCase();
+			}
+			i++;
+		}
+		return words;
+	}
+
+	/**
+	 * Replaces the word ids by a dictionary of only the words of the cached pairs if the
+	 * dictionary has seen many more words than the cache can refer to. Comparisons which are
+	 * still running keep using the previous ids and cache.
+	 */
+	private void compactIfNeeded(PairScores current)
+	{
+		long maxWords = Math.max(MIN_DICTIONARY_SIZE,
+				WORDS_PER_CACHED_PAIR * current.cache.getMaximumWeight());
+		if (current.dictionary.size() <= maxWords) {
+			return;
+		}
+
+		synchronized (this) {
+			if (scores != current) {
+				return;
+			}
+			PairScores compacted = new PairScores((int) current.cache.getMaximumWeight());
+			for (Map.Entry<Long,Double> e : current.cache.snapshot().entrySet()) {
+				compacted.put(current.getWord1(e.getKey()), current.getWord2(e.getKey()),
+						e.getValue());
+			}
+			scores = compacted;
+		}
+	}
+
 	@Override
 	public String getName()
 	{
@@ -189,4 +500,114 @@ public class MCS06AggregateComparator
 	{
 		return measure;
 	}
+
+	/**
+	 * Word pair scores and the dictionary which assigns the ids of their keys. Both are replaced
+	 * together.
+	 */
+	private static final class PairScores
+	{
+		final InternedTokenDictionary dictionary = new InternedTokenDictionary();
+		final ConcurrentCache<Long,Double> cache;
+
+		PairScores(int cacheSize)
+		{
+			cache = new ConcurrentCache<Long,Double>(cacheSize);
+		}
+
+		Words intern(String[] words)
+		{
+			int[] ids = new int[words.length];
+			for (int i = 0; i < words.length; i++) {
+				if (words[i] != null) {
+					ids[i] = dictionary.getId(words[i]);
+				}
+			}
+			return new Words(words, ids);
+		}
+
+		void put(String w1, String w2, double score)
+		{
+			cache.put(getPairKey(dictionary.getId(w1), dictionary.getId(w2)), score);
+		}
+
+		String getWord1(long key)
+		{
+			return dictionary.getToken((int) (key >>> 32));
+		}
+
+		String getWord2(long key)
+		{
+			return dictionary.getToken((int) (key & 0xFFFFFFFFL));
+		}
+	}
+
+	/**
+	 * Lowercased words of a text and their ids. Words which are {@code null} have no id.
+	 */
+	private static final class Words
+	{
+		final String[] words;
+		final int[] ids;
+
+		Words(String[] words, int[] ids)
+		{
+			this.words = words;
+			this.ids = ids;
+		}
+	}
+
+	/**
+	 * A text prepared by {@link MCS06AggregateComparator#prepareReference(Collection)}. It can be
+	 * used by several threads at once.
+	 */
+	public static final class Reference
+	{
+		private final MCS06AggregateComparator owner;
+		private final String[] words;
+		private volatile Prepared prepared;
+
+		private Reference(MCS06AggregateComparator owner, String[] words)
+		{
+			this.owner = owner;
+			this.words = words;
+		}
+
+		/**
+		 * @return the word ids and best matches for the given scores. They are prepared again
+		 *         when the comparator has compacted its word ids.
+		 */
+		private Prepared getPrepared(PairScores scores)
+		{
+			Prepared p = prepared;
+			if (p == null || p.scores != scores) {
+				p = new Prepared(scores, scores.intern(words));
+				prepared = p;
+			}
+			return p;
+		}
+
+		/**
+		 * @return the number of words whose best match within the reference is remembered.
+		 */
+		public int getBestMatchCount()
+		{
+			Prepared p = prepared;
+			return p != null ? p.bestMatches.size() : 0;
+		}
+
+		private static final class Prepared
+		{
+			final PairScores scores;
+			final Words words;
+			final ConcurrentMap<Integer,Double> bestMatches =
+					new ConcurrentHashMap<Integer,Double>();
+
+			Prepared(PairScores scores, Words words)
+			{
+				this.scores = scores;
+				this.words = words;
+			}
+		}
+	}
 }
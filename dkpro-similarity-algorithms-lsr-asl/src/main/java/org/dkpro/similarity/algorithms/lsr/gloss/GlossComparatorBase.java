@@ -0,0 +1,150 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lsr.gloss;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.dkpro.similarity.algorithms.lsr.LexSemResourceComparator;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
+
+/**
+ * Base class of comparators which compare the glosses of entities. It manages an optional
+ * {@link GlossIndex}. Subclasses define how glosses are obtained and tokenized and describe this
+ * configuration, so that only a matching index is used.
+ */
+public abstract class GlossComparatorBase
+	extends LexSemResourceComparator
+{
+	private final Log log = LogFactory.getLog(GlossComparatorBase.class);
+
+	private GlossIndex glossIndex;
+
+	public GlossComparatorBase(LexicalSemanticResource aLexSemResource)
+		throws LexicalSemanticResourceException
+	{
+		super(aLexSemResource);
+	}
+
+	/**
+	 * @return the gloss of the entity or {@code null} if it has none.
+	 */
+	protected String getGloss(Entity aEntity)
+		throws LexicalSemanticResourceException
+	{
+		return getLexicalSemanticResource().getGloss(aEntity);
+	}
+
+	/**
+	 * @return the tokens of a gloss as they are compared by the subclass.
+	 */
+	protected abstract Collection<String> tokenizeGloss(String aGloss);
+
+	/**
+	 * @return a description of how {@link #getGloss(Entity)} obtains the glosses and how
+	 *         {@link #tokenizeGloss(String)} splits them. A gloss index is only accepted if it was
+	 *         built with the same description.
+	 */
+	protected String getGlossIndexDescription()
+	{
+		return getClass().getName();
+	}
+
+	/**
+	 * Sets a precomputed gloss index which is used instead of the resource for entities contained
+	 * in it.
+	 *
+	 * @param aGlossIndex the index or {@code null} to always use the resource.
+	 */
+	public void setGlossIndex(GlossIndex aGlossIndex)
+	{
+		if (aGlossIndex != null && !aGlossIndex.getDescription().equals(getGlossIndexDescription())) {
+			throw new IllegalArgumentException("Gloss index was built for ["
+					+ aGlossIndex.getDescription() + "] but comparator uses ["
+					+ getGlossIndexDescription() + "]");
+		}
+		glossIndex = aGlossIndex;
+		clearCaches();
+	}
+
+	public GlossIndex getGlossIndex()
+	{
+		return glossIndex;
+	}
+
+	/**
+	 * Loads the gloss index from the given file. If the file does not exist, the index is built
+	 * from all entities of the resource and written to the file.
+	 */
+	public GlossIndex initializeGlossIndex(File aIndexFile)
+		throws LexicalSemanticResourceException, IOException
+	{
+		GlossIndex index;
+		if (aIndexFile.exists()) {
+			index = GlossIndex.load(aIndexFile);
+		}
+		else {
+			log.info("Building gloss index [" + aIndexFile + "]");
+			index = GlossIndex.build(getLexicalSemanticResource().getEntities(),
+					new GlossIndex.GlossSource()
+					{
+						@Override
+						public Collection<String> getGlossTokens(Entity aEntity)
+							throws LexicalSemanticResourceException
+						{
+							String gloss = getGloss(aEntity);
+							if (gloss == null || gloss.length() == 0) {
+								return null;
+							}
+							return tokenizeGloss(gloss);
+						}
+					}, getGlossIndexDescription());
+			index.write(aIndexFile);
+		}
+		setGlossIndex(index);
+		return index;
+	}
+
+	/**
+	 * @return the token bag of the gloss of the entity or {@code null} if there is no gloss index
+	 *         or the entity is not contained in it.
+	 */
+	protected int[] getIndexedTokenBag(Entity aEntity)
+	{
+		return glossIndex != null ? glossIndex.getTokenBag(aEntity) : null;
+	}
+
+	/**
+	 * Discards the cached scores and drops the gloss index if it was built for other glosses.
+	 * Subclasses call this when a change of their configuration changes the glosses.
+	 */
+	protected void glossesChanged()
+	{
+		if (glossIndex != null && !glossIndex.getDescription().equals(getGlossIndexDescription())) {
+			log.info("Dropping gloss index built for [" + glossIndex.getDescription() + "]");
+			glossIndex = null;
+		}
+		clearCaches();
+	}
+}
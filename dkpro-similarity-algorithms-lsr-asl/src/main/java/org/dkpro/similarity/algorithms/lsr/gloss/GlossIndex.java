@@ -0,0 +1,273 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lsr.gloss;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+import org.dkpro.similarity.algorithms.api.ngrams.InternedTokenDictionary;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
+
+/**
+ * Precomputed glosses of the entities of a lexical semantic resource for the gloss based
+ * comparators. The gloss of each entity is stored as a bag of tokens, i.e. as the sorted array of
+ * the distinct ids of its tokens, so the overlap of two glosses is computed by merging two sorted
+ * arrays. Pseudo glosses are expanded when the index is built.
+ * <p>
+ * The index can be written to a file and loaded again, so it only needs to be built once per
+ * resource. The description of the index records how the glosses were obtained and tokenized, so
+ * that a comparator can refuse an index which does not match its configuration.
+ */
+public final class GlossIndex
+{
+	private static final int MAGIC = 0x474C4958; // GLIX
+	private static final int FORMAT_VERSION = 1;
+
+	private static final int[] EMPTY = new int[0];
+
+	/**
+	 * Provides the tokens of the gloss of an entity while the index is built.
+	 */
+	public interface GlossSource
+	{
+		/**
+		 * @return the tokens of the gloss or {@code null} if the entity has no gloss.
+		 */
+		Collection<String> getGlossTokens(Entity aEntity)
+			throws LexicalSemanticResourceException;
+	}
+
+	private final String description;
+	private final String[] tokens;
+	private final Map<String, int[]> bags;
+
+	private GlossIndex(String aDescription, String[] aTokens, Map<String, int[]> aBags)
+	{
+		description = aDescription;
+		tokens = aTokens;
+		bags = aBags;
+	}
+
+	/**
+	 * @param aGlosses
+	 *            the gloss tokens by entity id. Entities without a gloss may be mapped to
+	 *            {@code null}.
+	 */
+	GlossIndex(String aDescription, Map<String, ? extends Collection<String>> aGlosses)
+	{
+		InternedTokenDictionary dictionary = new InternedTokenDictionary();
+		Map<String, int[]> bagMap = new HashMap<String, int[]>(aGlosses.size() * 2);
+		for (Map.Entry<String, ? extends Collection<String>> e : aGlosses.entrySet()) {
+			bagMap.put(e.getKey(), toBag(dictionary, e.getValue()));
+		}
+
+		description = aDescription;
+		tokens = new String[dictionary.size()];
+		for (int i = 0; i < tokens.length; i++) {
+			tokens[i] = dictionary.getToken(i + 1);
+		}
+		bags = bagMap;
+	}
+
+	/**
+	 * Builds the index for the given entities.
+	 *
+	 * @param aDescription
+	 *            describes how the glosses were obtained, see {@link #getDescription()}.
+	 */
+	public static GlossIndex build(Iterable<Entity> aEntities, GlossSource aSource,
+			String aDescription)
+		throws LexicalSemanticResourceException
+	{
+		Map<String, Collection<String>> glosses = new LinkedHashMap<String, Collection<String>>();
+		for (Entity entity : aEntities) {
+			glosses.put(entity.getId(), aSource.getGlossTokens(entity));
+		}
+		return new GlossIndex(aDescription, glosses);
+	}
+
+	private static int[] toBag(InternedTokenDictionary aDictionary, Collection<String> aTokens)
+	{
+		if (aTokens == null || aTokens.isEmpty()) {
+			return EMPTY;
+		}
+
+		int[] ids = new int[aTokens.size()];
+		int n = 0;
+		for (String token : aTokens) {
+			ids[n++] = aDictionary.getId(token);
+		}
+		Arrays.sort(ids);
+
+		// Remove duplicates
+		int distinct = 0;
+		for (int i = 0; i < n; i++) {
+			if (distinct == 0 || ids[distinct - 1] != ids[i]) {
+				ids[distinct++] = ids[i];
+			}
+		}
+		return distinct == ids.length ? ids : Arrays.copyOf(ids, distinct);
+	}
+
+	/**
+	 * Reads an index from a file written by {@link #write(File)}.
+	 */
+	public static GlossIndex load(File aFile)
+		throws IOException
+	{
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(aFile)));
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a gloss index [" + aFile + "]");
+			}
+			int version = in.readInt();
+			if (version != FORMAT_VERSION) {
+				throw new IOException("Unsupported gloss index format version [" + version + "]");
+			}
+
+			String description = in.readUTF();
+			String[] tokens = new String[in.readInt()];
+			for (int i = 0; i < tokens.length; i++) {
+				tokens[i] = in.readUTF();
+			}
+
+			int size = in.readInt();
+			Map<String, int[]> bags = new HashMap<String, int[]>(size * 2);
+			for (int i = 0; i < size; i++) {
+				String id = in.readUTF();
+				int[] bag = new int[in.readInt()];
+				for (int j = 0; j < bag.length; j++) {
+					bag[j] = in.readInt();
+				}
+				bags.put(id, bag.length == 0 ? EMPTY : bag);
+			}
+			return new GlossIndex(description, tokens, bags);
+		}
+		finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	/**
+	 * Writes the index to the given file.
+	 */
+	public void write(File aFile)
+		throws IOException
+	{
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(aFile)));
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(description);
+			out.writeInt(tokens.length);
+			for (String token : tokens) {
+				out.writeUTF(token);
+			}
+			out.writeInt(bags.size());
+			for (Map.Entry<String, int[]> e : bags.entrySet()) {
+				out.writeUTF(e.getKey());
+				out.writeInt(e.getValue().length);
+				for (int id : e.getValue()) {
+					out.writeInt(id);
+				}
+			}
+		}
+		finally {
+			IOUtils.closeQuietly(out);
+		}
+	}
+
+	/**
+	 * @return how the glosses were obtained and tokenized.
+	 */
+	public String getDescription()
+	{
+		return description;
+	}
+
+	/**
+	 * @return the sorted distinct token ids of the gloss of the entity, an empty array if the
+	 *         entity has no gloss, or {@code null} if the entity is not in the index. The array
+	 *         must not be modified.
+	 */
+	public int[] getTokenBag(Entity aEntity)
+	{
+		return getTokenBag(aEntity.getId());
+	}
+
+	int[] getTokenBag(String aId)
+	{
+		return bags.get(aId);
+	}
+
+	/**
+	 * @return the token with the given id.
+	 */
+	public String getToken(int aId)
+	{
+		return tokens[aId - 1];
+	}
+
+	/**
+	 * @return the number of entities in the index.
+	 */
+	public int size()
+	{
+		return bags.size();
+	}
+
+	/**
+	 * @return the number of tokens the two bags have in common.
+	 */
+	public static int getOverlap(int[] aBag1, int[] aBag2)
+	{
+		int overlap = 0;
+		int i = 0;
+		int j = 0;
+		while (i < aBag1.length && j < aBag2.length) {
+			if (aBag1[i] < aBag2[j]) {
+				i++;
+			}
+			else if (aBag1[i] > aBag2[j]) {
+				j++;
+			}
+			else {
+				overlap++;
+				i++;
+				j++;
+			}
+		}
+		return overlap;
+	}
+}
@@ -25,11 +25,12 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.dkpro.similarity.algorithms.api.SimilarityException;
-import org.dkpro.similarity.algorithms.lsr.LexSemResourceComparator;
 
 import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource;
@@ -46,14 +47,14 @@ import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResource
  *
  */
 public class GlossOverlapComparator 
-    extends LexSemResourceComparator
+    extends GlossComparatorBase
 {
     private final Log logger = LogFactory.getLog(getClass());
 
     private boolean usePseudoGlosses;
 
-    Set<LexicalRelation> lexicalRelations;
-    Map<SemanticRelation,Integer> semanticRelations;
+    private Set<LexicalRelation> lexicalRelations;
+    private Map<SemanticRelation,Integer> semanticRelations;
 
     public GlossOverlapComparator(LexicalSemanticResource lexSemResource, boolean usePseudoGlosses) throws LexicalSemanticResourceException {
         super(lexSemResource);
@@ -73,6 +74,36 @@ public class GlossOverlapComparator
         semanticRelations.put(SemanticRelation.other, 1);
     }
 
+    /**
+     * Sets the lexical relations used to build pseudo glosses. Discards the cached scores and a
+     * gloss index built for other relations.
+     */
+    public void setLexicalRelations(Set<LexicalRelation> aLexicalRelations)
+    {
+        lexicalRelations = new HashSet<LexicalRelation>(aLexicalRelations);
+        glossesChanged();
+    }
+
+    public Set<LexicalRelation> getLexicalRelations()
+    {
+        return Collections.unmodifiableSet(lexicalRelations);
+    }
+
+    /**
+     * Sets the semantic relations and their depths used to build pseudo glosses. Discards the
+     * cached scores and a gloss index built for other relations.
+     */
+    public void setSemanticRelations(Map<SemanticRelation, Integer> aSemanticRelations)
+    {
+        semanticRelations = new HashMap<SemanticRelation, Integer>(aSemanticRelations);
+        glossesChanged();
+    }
+
+    public Map<SemanticRelation, Integer> getSemanticRelations()
+    {
+        return Collections.unmodifiableMap(semanticRelations);
+    }
+
     @Override
     public double getSimilarity(Set<Entity> entities1, Set<Entity> entities2)
         throws LexicalSemanticResourceException, SimilarityException
@@ -92,7 +123,7 @@ public class GlossOverlapComparator
         List<Double> relatednessValues = new ArrayList<Double>();
         for (Entity e1 : entities1) {
             for (Entity e2 : entities2) {
-                relatednessValues.add( getSimilarity(e1, e2) );
+                relatednessValues.add( getCachedSimilarity(e1, e2) );
             }
         }
 
@@ -100,12 +131,39 @@ public class GlossOverlapComparator
 
     }
 
+    @Override
+    protected String getGlossIndexDescription()
+    {
+        String description = getClass().getName();
+        if (usePseudoGlosses) {
+            description += "-pseudo " + new TreeSet<LexicalRelation>(lexicalRelations) + " "
+                    + new TreeMap<SemanticRelation,Integer>(semanticRelations);
+        }
+        else {
+            description += "-normal";
+        }
+        return description;
+    }
+
     @Override
     public double getSimilarity(Entity e1, Entity e2)
         throws LexicalSemanticResourceException, SimilarityException
     {
         double similarity;
 
+        int[] bag1 = getIndexedTokenBag(e1);
+        int[] bag2 = getIndexedTokenBag(e2);
+        if (bag1 != null && bag2 != null) {
+            similarity = (double) GlossIndex.getOverlap(bag1, bag2)
+                    / Math.min(bag1.length, bag2.length);
+
+            if (Double.isNaN(similarity)) {
+                return 0.0;
+            }
+
+            return similarity;
+        }
+
         try {
             String gloss1 = getGloss(e1);
             String gloss2 = getGloss(e2);
@@ -139,7 +197,8 @@ public class GlossOverlapComparator
         return this.getClass().getSimpleName() + "-" + gloss_suffix;
     }
 
-    private String getGloss(Entity e)
+    @Override
+    protected String getGloss(Entity e)
         throws LexicalSemanticResourceException
     {
         String gloss;
@@ -154,13 +213,15 @@ public class GlossOverlapComparator
         return gloss;
     }
     
+    @Override
+    protected Set<String> tokenizeGloss(String s) {
+        return new HashSet<String>(Arrays.asList(s.split(" ")));
+    }
+    
     private double getOverlapCoefficient(String s1, String s2) {
         
-        Set<String> tokens1 = new HashSet<String>();
-        Set<String> tokens2 = new HashSet<String>();
-        
-        tokens1.addAll(Arrays.asList(s1.split(" ")));
-        tokens2.addAll(Arrays.asList(s2.split(" ")));
+        Set<String> tokens1 = tokenizeGloss(s1);
+        Set<String> tokens2 = tokenizeGloss(s2);
         
         int minSize = Math.min(tokens1.size(), tokens2.size());
         
@@ -57,15 +57,29 @@ public class LinComparator
 
         double relatedness = NOT_FOUND;
         try {
-            Entity lcs = getEntityGraph().getLCS(this.root, e1, e2);
+            double iicLcs;
+            double iicE1;
+            double iicE2;
 
-            if (lcs == null) {
-                return NO_LCS;
+            int n1 = getIndexedNode(e1);
+            int n2 = getIndexedNode(e2);
+            if (n1 != TaxonomyIndex.NOT_INDEXED && n2 != TaxonomyIndex.NOT_INDEXED) {
+                TaxonomyIndex index = getTaxonomyIndex();
+                iicLcs = index.getInformationContent(index.getLcs(n1, n2));
+                iicE1 = index.getInformationContent(n1);
+                iicE2 = index.getInformationContent(n2);
             }
+            else {
+                Entity lcs = getEntityGraph().getLCS(this.root, e1, e2);
 
-            double iicLcs = getEntityGraph().getIntrinsicInformationContent(lcs);
-            double iicE1 = getEntityGraph().getIntrinsicInformationContent(e1);
-            double iicE2 = getEntityGraph().getIntrinsicInformationContent(e2);
+                if (lcs == null) {
+                    return NO_LCS;
+                }
+
+                iicLcs = getEntityGraph().getIntrinsicInformationContent(lcs);
+                iicE1 = getEntityGraph().getIntrinsicInformationContent(e1);
+                iicE2 = getEntityGraph().getIntrinsicInformationContent(e2);
+            }
 
             if (iicE1 == 0 && iicE2 == 0) {
                 return 0.0;
@@ -17,6 +17,8 @@
  *******************************************************************************/
 package org.dkpro.similarity.algorithms.lsr.path;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
@@ -48,6 +50,8 @@ public abstract class PathBasedComparator
     protected EntityGraph entityGraph;
     protected Entity root;
 
+    private TaxonomyIndex taxonomyIndex;
+
 
 	public PathBasedComparator(LexicalSemanticResource lexSemResource)
 		throws LexicalSemanticResourceException
@@ -99,6 +103,59 @@ public abstract class PathBasedComparator
         return entityGraph;
     }
 
+    /**
+     * Sets a precomputed taxonomy index which is used instead of the entity graph for entities
+     * contained in it. The same index can be shared by all path based comparators on the same
+     * resource and root.
+     *
+     * @param aTaxonomyIndex the index or {@code null} to always use the entity graph.
+     */
+    public void setTaxonomyIndex(TaxonomyIndex aTaxonomyIndex)
+    {
+        if (aTaxonomyIndex != null && root != null
+                && !aTaxonomyIndex.getRootId().equals(root.getId())) {
+            throw new IllegalArgumentException("Taxonomy index has root ["
+                    + aTaxonomyIndex.getRootId() + "] but comparator uses root [" + root.getId()
+                    + "]");
+        }
+        taxonomyIndex = aTaxonomyIndex;
+        clearCaches();
+    }
+
+    public TaxonomyIndex getTaxonomyIndex()
+    {
+        return taxonomyIndex;
+    }
+
+    /**
+     * Loads the taxonomy index from the given file. If the file does not exist, the index is
+     * built from the entity graph and written to the file.
+     */
+    public TaxonomyIndex initializeTaxonomyIndex(File aIndexFile)
+        throws LexicalSemanticResourceException, IOException
+    {
+        TaxonomyIndex index;
+        if (aIndexFile.exists()) {
+            index = TaxonomyIndex.load(aIndexFile);
+        }
+        else {
+            log.info("Building taxonomy index [" + aIndexFile + "]");
+            index = TaxonomyIndex.build(entityGraph, root);
+            index.write(aIndexFile);
+        }
+        setTaxonomyIndex(index);
+        return index;
+    }
+
+    /**
+     * @return the node of the entity in the taxonomy index or {@link TaxonomyIndex#NOT_INDEXED}
+     *         if there is no index or the entity is not contained in it.
+     */
+    protected int getIndexedNode(Entity aEntity)
+    {
+        return taxonomyIndex != null ? taxonomyIndex.getNode(aEntity) : TaxonomyIndex.NOT_INDEXED;
+    }
+
     @Override
 	public double getSimilarity(Set<Entity> entities1, Set<Entity> entities2)
 		throws SimilarityException, LexicalSemanticResourceException
@@ -117,7 +174,7 @@ public abstract class PathBasedComparator
         List<Double> relatednessValues = new ArrayList<Double>();
         for (Entity e1 : entities1) {
             for (Entity e2 : entities2) {
-            	relatednessValues.add( getSimilarity(e1, e2) );
+            	relatednessValues.add( getCachedSimilarity(e1, e2) );
             }
         }
 
@@ -152,6 +209,12 @@ public abstract class PathBasedComparator
 	protected double getShortestPathLength(Entity e1, Entity e2)
 		throws LexicalSemanticResourceException
 	{
+		int n1 = getIndexedNode(e1);
+		int n2 = getIndexedNode(e2);
+		if (n1 != TaxonomyIndex.NOT_INDEXED && n2 != TaxonomyIndex.NOT_INDEXED) {
+			return taxonomyIndex.getPathLength(n1, n2);
+		}
+
 		double minPathLength;
 
         // try to use the shortest path length method from the LSR first
@@ -178,6 +241,7 @@ public abstract class PathBasedComparator
 
     public void setRoot(Entity root) {
         this.root = root;
+        clearCaches();
     }
 
 	protected Entity getGuessedRoot()
@@ -57,6 +57,13 @@ public class ResnikComparator
             return 1.0;
         }
 
+        int n1 = getIndexedNode(e1);
+        int n2 = getIndexedNode(e2);
+        if (n1 != TaxonomyIndex.NOT_INDEXED && n2 != TaxonomyIndex.NOT_INDEXED) {
+            TaxonomyIndex index = getTaxonomyIndex();
+            return index.getInformationContent(index.getLcs(n1, n2));
+        }
+
         double relatedness = NOT_FOUND;
         try {
             Entity lcs = getEntityGraph().getLCS(this.root, e1, e2);
@@ -0,0 +1,497 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lsr.path;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.IOUtils;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.graph.EntityGraph;
+
+/**
+ * Precomputed taxonomy of a lexical semantic resource for the path based comparators. The
+ * entities reachable from the root are numbered in breadth-first order. For each entity the index
+ * stores all its parents, its depth, i.e. the length of its shortest path from the root, and its
+ * intrinsic information content.
+ * <p>
+ * The lowest common subsumer of two entities is their deepest common ancestor, and their path
+ * length is the shortest path which goes up from both entities to a common ancestor. If neither
+ * entity has an ancestor with more than one parent, both are answered in constant time using an
+ * Euler tour of the tree of first parents and a sparse table of range minima. Otherwise the
+ * ancestors of both entities are searched, which for taxonomies with multiple inheritance such as
+ * WordNet only visits a few nodes.
+ * <p>
+ * Building the index traverses the entity graph once. The index can be written to a file and
+ * loaded again, so it only needs to be built once per resource.
+ */
+public final class TaxonomyIndex
+{
+	/**
+	 * Returned by {@link #getNode(Entity)} for entities which are not in the index.
+	 */
+	public static final int NOT_INDEXED = -1;
+
+	private static final int MAGIC = 0x54584958; // TXIX
+	private static final int FORMAT_VERSION = 3;
+
+	private final String[] ids;
+	// Parents of node i are parentList[parentStart[i]] to parentList[parentStart[i + 1] - 1]
+	private final int[] parentStart;
+	private final int[] parentList;
+	// Whether the node and all its ancestors have at most one parent
+	private final boolean[] singlePath;
+	private final int[] depths;
+	private final float[] informationContent;
+	private final Map<String, Integer> nodes;
+	private final int maxDepth;
+
+	// Euler tour of the tree of first parents and the position of the first visit of each node
+	private final int[] first;
+	private final int[][] sparseTable;
+	private final int[] euler;
+
+	/**
+	 * @param aIds
+	 *            the ids of the entities in breadth-first order, the root first.
+	 * @param aParents
+	 *            the parent of each node, {@code -1} for the root. Parents precede their
+	 *            children.
+	 * @param aInformationContent
+	 *            the intrinsic information content of each node.
+	 */
+	TaxonomyIndex(String[] aIds, int[] aParents, float[] aInformationContent)
+	{
+		this(aIds, toParentLists(aParents), aInformationContent);
+	}
+
+	/**
+	 * @param aIds
+	 *            the ids of the entities in breadth-first order, the root first.
+	 * @param aParents
+	 *            the parents of each node, none for the root. The first parent of a node is the
+	 *            parent on its shortest path from the root and precedes the node.
+	 * @param aInformationContent
+	 *            the intrinsic information content of each node.
+	 */
+	TaxonomyIndex(String[] aIds, int[][] aParents, float[] aInformationContent)
+	{
+		int n = aIds.length;
+		if (n == 0 || aParents.length != n || aInformationContent.length != n) {
+			throw new IllegalArgumentException("Invalid taxonomy index");
+		}
+
+		ids = aIds;
+		informationContent = aInformationContent;
+
+		parentStart = new int[n + 1];
+		for (int i = 0; i < n; i++) {
+			parentStart[i + 1] = parentStart[i] + aParents[i].length;
+		}
+		parentList = new int[parentStart[n]];
+
+		nodes = new HashMap<String, Integer>(n * 2);
+		depths = new int[n];
+		singlePath = new boolean[n];
+		int deepest = 0;
+		for (int i = 0; i < n; i++) {
+			int[] p = aParents[i];
+			if (i == 0 ? p.length != 0 : (p.length == 0 || p[0] < 0 || p[0] >= i)) {
+				throw new IllegalArgumentException("First parent of node [" + i
+						+ "] must precede it");
+			}
+			for (int j = 0; j < p.length; j++) {
+				if (p[j] < 0 || p[j] >= n || p[j] == i) {
+					throw new IllegalArgumentException("Invalid parent [" + p[j] + "] of node ["
+							+ i + "]");
+				}
+				parentList[parentStart[i] + j] = p[j];
+			}
+			if (nodes.put(aIds[i], i) != null) {
+				throw new IllegalArgumentException("Duplicate entity [" + aIds[i] + "]");
+			}
+			if (i == 0) {
+				singlePath[i] = true;
+			}
+			else {
+				depths[i] = depths[p[0]] + 1;
+				deepest = Math.max(deepest, depths[i]);
+				singlePath[i] = p.length == 1 && singlePath[p[0]];
+			}
+		}
+		maxDepth = deepest;
+
+		// Children in the tree of first parents as compressed adjacency lists
+		int[] childStart = new int[n + 1];
+		for (int i = 1; i < n; i++) {
+			childStart[getParent(i) + 1]++;
+		}
+		for (int i = 0; i < n; i++) {
+			childStart[i + 1] += childStart[i];
+		}
+		int[] children = new int[Math.max(n - 1, 0)];
+		int[] fill = new int[n];
+		for (int i = 1; i < n; i++) {
+			int p = getParent(i);
+			children[childStart[p] + fill[p]++] = i;
+		}
+
+		// Iterative Euler tour, the taxonomy may be too deep for recursion
+		euler = new int[2 * n - 1];
+		first = new int[n];
+		int[] stack = new int[n];
+		int[] next = new int[n];
+		int top = 0;
+		int pos = 0;
+		stack[0] = 0;
+		next[0] = childStart[0];
+		first[0] = pos;
+		euler[pos++] = 0;
+		while (top >= 0) {
+			int node = stack[top];
+			if (next[node] < childStart[node + 1]) {
+				int child = children[next[node]++];
+				stack[++top] = child;
+				next[child] = childStart[child];
+				first[child] = pos;
+				euler[pos++] = child;
+			}
+			else {
+				top--;
+				if (top >= 0) {
+					euler[pos++] = stack[top];
+				}
+			}
+		}
+
+		// Sparse table: level k holds the shallowest node of each range of length 2^k
+		int m = euler.length;
+		int levels = 32 - Integer.numberOfLeadingZeros(m);
+		sparseTable = new int[levels][];
+		sparseTable[0] = euler;
+		for (int k = 1; k < levels; k++) {
+			int half = 1 << (k - 1);
+			int[] previous = sparseTable[k - 1];
+			int[] level = new int[m - (1 << k) + 1];
+			for (int i = 0; i < level.length; i++) {
+				level[i] = shallower(previous[i], previous[i + half]);
+			}
+			sparseTable[k] = level;
+		}
+	}
+
+	private static int[][] toParentLists(int[] aParents)
+	{
+		int[][] lists = new int[aParents.length][];
+		for (int i = 0; i < aParents.length; i++) {
+			lists[i] = aParents[i] < 0 ? new int[0] : new int[] { aParents[i] };
+		}
+		return lists;
+	}
+
+	private int shallower(int aNode1, int aNode2)
+	{
+		return depths[aNode1] <= depths[aNode2] ? aNode1 : aNode2;
+	}
+
+	/**
+	 * Builds the index of all entities reachable from the root in the entity graph.
+	 */
+	public static TaxonomyIndex build(EntityGraph aGraph, Entity aRoot)
+		throws LexicalSemanticResourceException
+	{
+		List<Entity> entities = new ArrayList<Entity>();
+		List<List<Integer>> parents = new ArrayList<List<Integer>>();
+		Map<String, Integer> seen = new HashMap<String, Integer>();
+
+		entities.add(aRoot);
+		parents.add(new ArrayList<Integer>());
+		seen.put(aRoot.getId(), 0);
+		for (int i = 0; i < entities.size(); i++) {
+			for (Entity child : aGraph.getChildren(entities.get(i))) {
+				Integer node = seen.get(child.getId());
+				if (node == null) {
+					node = entities.size();
+					seen.put(child.getId(), node);
+					entities.add(child);
+					parents.add(new ArrayList<Integer>());
+				}
+				// Edges into the root would be cycles
+				if (node != 0 && !parents.get(node).contains(i)) {
+					parents.get(node).add(i);
+				}
+			}
+		}
+
+		int n = entities.size();
+		String[] ids = new String[n];
+		int[][] parentArrays = new int[n][];
+		float[] ic = new float[n];
+		for (int i = 0; i < n; i++) {
+			ids[i] = entities.get(i).getId();
+			List<Integer> p = parents.get(i);
+			parentArrays[i] = new int[p.size()];
+			for (int j = 0; j < p.size(); j++) {
+				parentArrays[i][j] = p.get(j);
+			}
+			ic[i] = (float) aGraph.getIntrinsicInformationContent(entities.get(i));
+		}
+		return new TaxonomyIndex(ids, parentArrays, ic);
+	}
+
+	/**
+	 * Reads an index written by {@link #write(File)}.
+	 */
+	public static TaxonomyIndex load(File aFile)
+		throws IOException
+	{
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(aFile)));
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a taxonomy index [" + aFile + "]");
+			}
+			int version = in.readInt();
+			if (version != FORMAT_VERSION) {
+				throw new IOException("Unsupported taxonomy index format version [" + version
+						+ "]");
+			}
+			int n = in.readInt();
+			String[] ids = new String[n];
+			int[][] parents = new int[n][];
+			float[] ic = new float[n];
+			for (int i = 0; i < n; i++) {
+				ids[i] = in.readUTF();
+				parents[i] = new int[in.readInt()];
+				for (int j = 0; j < parents[i].length; j++) {
+					parents[i][j] = in.readInt();
+				}
+				ic[i] = in.readFloat();
+			}
+			return new TaxonomyIndex(ids, parents, ic);
+		}
+		finally {
+			IOUtils.closeQuietly(in);
+		}
+	}
+
+	/**
+	 * Writes the entity ids, parents and information content values. The other tables are
+	 * rebuilt when the index is loaded.
+	 */
+	public void write(File aFile)
+		throws IOException
+	{
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(aFile)));
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeInt(ids.length);
+			for (int i = 0; i < ids.length; i++) {
+				out.writeUTF(ids[i]);
+				out.writeInt(parentStart[i + 1] - parentStart[i]);
+				for (int j = parentStart[i]; j < parentStart[i + 1]; j++) {
+					out.writeInt(parentList[j]);
+				}
+				out.writeFloat(informationContent[i]);
+			}
+		}
+		finally {
+			IOUtils.closeQuietly(out);
+		}
+	}
+
+	/**
+	 * @return the node of the entity or {@link #NOT_INDEXED}.
+	 */
+	public int getNode(Entity aEntity)
+	{
+		return getNode(aEntity.getId());
+	}
+
+	int getNode(String aId)
+	{
+		Integer node = nodes.get(aId);
+		return node != null ? node : NOT_INDEXED;
+	}
+
+	/**
+	 * @return the number of indexed entities.
+	 */
+	public int size()
+	{
+		return ids.length;
+	}
+
+	/**
+	 * @return the id of the entity of the root node.
+	 */
+	public String getRootId()
+	{
+		return ids[0];
+	}
+
+	/**
+	 * @return the parent on the shortest path from the root or {@code -1} for the root.
+	 */
+	public int getParent(int aNode)
+	{
+		return aNode == 0 ? -1 : parentList[parentStart[aNode]];
+	}
+
+	/**
+	 * @return all parents of the node, the parent on the shortest path from the root first.
+	 */
+	public int[] getParents(int aNode)
+	{
+		return Arrays.copyOfRange(parentList, parentStart[aNode], parentStart[aNode + 1]);
+	}
+
+	/**
+	 * @return the number of edges from the root to the node.
+	 */
+	public int getDepth(int aNode)
+	{
+		return depths[aNode];
+	}
+
+	/**
+	 * @return the largest depth of any node.
+	 */
+	public int getMaxDepth()
+	{
+		return maxDepth;
+	}
+
+	public float getInformationContent(int aNode)
+	{
+		return informationContent[aNode];
+	}
+
+	/**
+	 * @return the lowest common subsumer of two nodes, i.e. their deepest common ancestor. Among
+	 *         equally deep ancestors the one on the shortest path between the nodes is chosen.
+	 */
+	public int getLcs(int aNode1, int aNode2)
+	{
+		if (singlePath[aNode1] && singlePath[aNode2]) {
+			return getTreeLcs(aNode1, aNode2);
+		}
+		return searchCommonAncestors(aNode1, aNode2)[0];
+	}
+
+	/**
+	 * @return the number of edges on the shortest path between two nodes which goes up from both
+	 *         nodes to a common ancestor. If one node is an ancestor of the other, this is the
+	 *         length of the shortest path up to it.
+	 */
+	public int getPathLength(int aNode1, int aNode2)
+	{
+		if (singlePath[aNode1] && singlePath[aNode2]) {
+			return depths[aNode1] + depths[aNode2] - 2 * depths[getTreeLcs(aNode1, aNode2)];
+		}
+		return searchCommonAncestors(aNode1, aNode2)[1];
+	}
+
+	private int getTreeLcs(int aNode1, int aNode2)
+	{
+		int l = first[aNode1];
+		int r = first[aNode2];
+		if (l > r) {
+			int t = l;
+			l = r;
+			r = t;
+		}
+		int k = 31 - Integer.numberOfLeadingZeros(r - l + 1);
+		return shallower(sparseTable[k][l], sparseTable[k][r - (1 << k) + 1]);
+	}
+
+	/**
+	 * Searches the ancestors of both nodes.
+	 *
+	 * @return the lowest common subsumer and the length of the shortest path via any common
+	 *         ancestor.
+	 */
+	private int[] searchCommonAncestors(int aNode1, int aNode2)
+	{
+		Map<Integer, Integer> distances1 = getAncestorDistances(aNode1);
+		Map<Integer, Integer> distances2 = getAncestorDistances(aNode2);
+
+		int lcs = -1;
+		int lcsPathLength = Integer.MAX_VALUE;
+		int pathLength = Integer.MAX_VALUE;
+		for (Map.Entry<Integer, Integer> e : distances1.entrySet()) {
+			Integer distance2 = distances2.get(e.getKey());
+			if (distance2 == null) {
+				continue;
+			}
+			int node = e.getKey();
+			int length = e.getValue() + distance2;
+			pathLength = Math.min(pathLength, length);
+			if (lcs == -1 || depths[node] > depths[lcs]
+					|| (depths[node] == depths[lcs] && (length < lcsPathLength
+							|| (length == lcsPathLength && node < lcs)))) {
+				lcs = node;
+				lcsPathLength = length;
+			}
+		}
+		return new int[] { lcs, pathLength };
+	}
+
+	/**
+	 * @return the node and all its ancestors with the length of the shortest path up to them.
+	 */
+	private Map<Integer, Integer> getAncestorDistances(int aNode)
+	{
+		Map<Integer, Integer> distances = new HashMap<Integer, Integer>();
+		int[] queue = new int[16];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = aNode;
+		distances.put(aNode, 0);
+		while (head < tail) {
+			int node = queue[head++];
+			int distance = distances.get(node) + 1;
+			for (int j = parentStart[node]; j < parentStart[node + 1]; j++) {
+				int parent = parentList[j];
+				if (!distances.containsKey(parent)) {
+					distances.put(parent, distance);
+					if (tail == queue.length) {
+						queue = Arrays.copyOf(queue, tail * 2);
+					}
+					queue[tail++] = parent;
+				}
+			}
+		}
+		return distances;
+	}
+}
@@ -56,6 +56,17 @@ public class WuPalmerComparator
             return 1.0;
         }
 
+        int n1 = getIndexedNode(e1);
+        int n2 = getIndexedNode(e2);
+        if (n1 != TaxonomyIndex.NOT_INDEXED && n2 != TaxonomyIndex.NOT_INDEXED) {
+            TaxonomyIndex index = getTaxonomyIndex();
+            int lcs = index.getLcs(n1, n2);
+            double depthLCS = index.getDepth(lcs);
+            double pl1      = index.getPathLength(n1, lcs) + 1;
+            double pl2      = index.getPathLength(n2, lcs) + 1;
+            return 2 * depthLCS / (pl1 + pl2 + 2 * depthLCS);
+        }
+
         // get the lowest common subsumer (lcs) of the two entities
         Entity lcs = null;
         try {
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lsr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dkpro.similarity.algorithms.api.SimilarityException;
+import org.dkpro.similarity.algorithms.vsm.util.CacheMetrics;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
+
+public class LexSemResourceComparatorTest
+{
+    private static final double epsilon = 0.0001;
+
+    @Test
+    public void cacheMetrics()
+        throws Exception
+    {
+        StubResource resource = new StubResource();
+        CountingComparator comparator = new CountingComparator(resource.proxy());
+
+        comparator.getSimilarity("a", "b");
+        comparator.getSimilarity("a", "b");
+
+        assertEquals(1, comparator.calls.get());
+        assertEquals(2, resource.getLookups());
+        CacheMetrics scores = comparator.getScoreCacheMetrics();
+        assertEquals(1, scores.getHitCount());
+        assertEquals(1, scores.getMissCount());
+        assertEquals(1, scores.getSize());
+        CacheMetrics entities = comparator.getEntityCacheMetrics();
+        assertEquals(2, entities.getHitCount());
+        assertEquals(2, entities.getMissCount());
+        assertEquals(2, entities.getSize());
+    }
+
+    @Test
+    public void asymmetricMeasure()
+        throws Exception
+    {
+        CountingComparator comparator = new CountingComparator(new StubResource().proxy());
+
+        assertEquals(1.0, comparator.getSimilarity("a", "b"), epsilon);
+        assertEquals(0.5, comparator.getSimilarity("b", "a"), epsilon);
+        assertEquals(1.0, comparator.getSimilarity("a", "b"), epsilon);
+        assertEquals(0.5, comparator.getSimilarity("b", "a"), epsilon);
+        assertEquals(2, comparator.calls.get());
+    }
+
+    @Test
+    public void zeroSizeDisablesCaches()
+        throws Exception
+    {
+        StubResource resource = new StubResource();
+        CountingComparator comparator = new CountingComparator(resource.proxy());
+        comparator.setScoreCacheSize(0);
+        comparator.setEntityCacheSize(0);
+
+        comparator.getSimilarity("a", "b");
+        comparator.getSimilarity("a", "b");
+
+        assertNull(comparator.getScoreCacheMetrics());
+        assertNull(comparator.getEntityCacheMetrics());
+        assertEquals(2, comparator.calls.get());
+        assertEquals(4, resource.getLookups());
+    }
+
+    @Test
+    public void setLexSemResourceClearsCaches()
+        throws Exception
+    {
+        StubResource resource = new StubResource();
+        CountingComparator comparator = new CountingComparator(resource.proxy());
+        comparator.getSimilarity("a", "b");
+
+        StubResource other = new StubResource();
+        comparator.setLexSemResource(other.proxy());
+        assertEquals(0, comparator.getScoreCacheMetrics().getSize());
+        assertEquals(0, comparator.getEntityCacheMetrics().getSize());
+
+        comparator.getSimilarity("a", "b");
+        assertEquals(2, comparator.calls.get());
+        assertEquals(2, other.getLookups());
+    }
+
+    @Test
+    public void executorGivesSameScores()
+        throws Exception
+    {
+        List<String> terms1 = Arrays.asList("d", "a", "x", "b");
+        List<String> terms2 = Arrays.asList("c", "a", "e");
+        CountingComparator sequential = new CountingComparator(new StubResource().proxy());
+        CountingComparator parallel = new CountingComparator(new StubResource().proxy());
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            parallel.setExecutor(executor);
+            assertEquals(sequential.getSimilarity(terms1, terms2),
+                    parallel.getSimilarity(terms1, terms2), 0.0);
+            assertEquals(sequential.getSimilarity(terms2, terms1),
+                    parallel.getSimilarity(terms2, terms1), 0.0);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Asymmetric measure which counts how often entity pairs are scored.
+     */
+    private static class CountingComparator
+        extends LexSemResourceComparator
+    {
+        final AtomicInteger calls = new AtomicInteger();
+
+        CountingComparator(LexicalSemanticResource aResource)
+            throws LexicalSemanticResourceException
+        {
+            super(aResource);
+        }
+
+        @Override
+        public double getSimilarity(Entity aEntity1, Entity aEntity2)
+        {
+            calls.incrementAndGet();
+            return aEntity1.getId().compareTo(aEntity2.getId()) < 0 ? 1.0 : 0.5;
+        }
+
+        @Override
+        public double getSimilarity(Set<Entity> aEntities1, Set<Entity> aEntities2)
+            throws SimilarityException, LexicalSemanticResourceException
+        {
+            List<Double> scores = new ArrayList<Double>();
+            for (Entity e1 : aEntities1) {
+                for (Entity e2 : aEntities2) {
+                    scores.add(getCachedSimilarity(e1, e2));
+                }
+            }
+            return getBestRelatedness(scores);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lsr;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.Entity;
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource;
+
+/**
+ * Minimal in-memory resource for tests. Every term has one entity. Pseudo glosses are the gloss
+ * followed by the names of the requested semantic relations.
+ */
+public class StubResource
+    implements InvocationHandler
+{
+    private final List<String> terms = new ArrayList<String>();
+    private final Map<String, String> glosses = new HashMap<String, String>();
+    private int lookups;
+
+    public StubResource gloss(String aTerm, String aGloss)
+    {
+        terms.add(aTerm);
+        glosses.put(new Entity(aTerm).getId(), aGloss);
+        return this;
+    }
+
+    /**
+     * @return the number of entity lookups.
+     */
+    public int getLookups()
+    {
+        return lookups;
+    }
+
+    public LexicalSemanticResource proxy()
+    {
+        return (LexicalSemanticResource) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { LexicalSemanticResource.class }, this);
+    }
+
+    @Override
+    public Object invoke(Object aProxy, Method aMethod, Object[] aArgs)
+    {
+        String name = aMethod.getName();
+        if (name.equals("getEntity")) {
+            lookups++;
+            return Collections.singleton(new Entity((String) aArgs[0]));
+        }
+        if (name.equals("getEntities")) {
+            List<Entity> entities = new ArrayList<Entity>();
+            for (String term : terms) {
+                entities.add(new Entity(term));
+            }
+            return entities;
+        }
+        if (name.equals("getGloss")) {
+            return glosses.get(((Entity) aArgs[0]).getId());
+        }
+        if (name.equals("getPseudoGloss")) {
+            StringBuilder gloss = new StringBuilder(glosses.get(((Entity) aArgs[0]).getId()));
+            for (Object relation : ((Map<?, ?>) aArgs[2]).keySet()) {
+                gloss.append(' ').append(relation);
+            }
+            return gloss.toString();
+        }
+        if (name.equals("hashCode")) {
+            return System.identityHashCode(aProxy);
+        }
+        if (name.equals("equals")) {
+            return aProxy == aArgs[0];
+        }
+        if (name.equals("toString")) {
+            return "StubResource";
+        }
+        throw new UnsupportedOperationException(name);
+    }
+}
@@ -0,0 +1,252 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lsr.aggregate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.dkpro.similarity.algorithms.api.SimilarityException;
+import org.dkpro.similarity.algorithms.api.TextSimilarityMeasureBase;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class MCS06AggregateComparatorTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private ExecutorService executor;
+
+	@Before
+	public void setUp()
+	{
+		executor = Executors.newFixedThreadPool(4);
+	}
+
+	@After
+	public void tearDown()
+	{
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void parallelMatchesSequential()
+		throws Exception
+	{
+		Random rnd = new Random(42);
+		Map<String,Double> idf = new HashMap<String,Double>();
+		for (int i = 0; i < 25; i++) {
+			idf.put("w" + i, 1.0 + rnd.nextInt(5));
+		}
+		idf.put("npe", 1.0);
+
+		MCS06AggregateComparator sequential = new MCS06AggregateComparator(new StubMeasure(), idf);
+		MCS06AggregateComparator parallel = new MCS06AggregateComparator(new StubMeasure(), idf);
+		parallel.setExecutor(executor);
+		// Smaller than the number of pairs of one comparison
+		parallel.setCacheSize(10);
+
+		for (int i = 0; i < 50; i++) {
+			List<String> text1 = randomText(rnd);
+			List<String> text2 = randomText(rnd);
+			assertEquals(sequential.getSimilarity(text1, text2),
+					parallel.getSimilarity(text1, text2), 0.0);
+		}
+	}
+
+	@Test
+	public void parallelScoresEachPairOnce()
+		throws Exception
+	{
+		List<String> text1 = new ArrayList<String>();
+		List<String> text2 = new ArrayList<String>();
+		Map<String,Double> idf = new HashMap<String,Double>();
+		for (int i = 0; i < 20; i++) {
+			text1.add("a" + i);
+			text2.add("b" + i);
+			idf.put("a" + i, 1.0);
+			idf.put("b" + i, 1.0);
+		}
+
+		StubMeasure measure = new StubMeasure();
+		MCS06AggregateComparator comparator = new MCS06AggregateComparator(measure, idf);
+		comparator.setExecutor(executor);
+		comparator.setCacheSize(1);
+		comparator.getSimilarity(text1, text2);
+
+		assertEquals(400, measure.calls.get());
+	}
+
+	@Test
+	public void referenceMatchesPlain()
+		throws Exception
+	{
+		Random rnd = new Random(42);
+		Map<String,Double> idf = new HashMap<String,Double>();
+		for (int i = 0; i < 25; i++) {
+			idf.put("w" + i, 1.0 + rnd.nextInt(5));
+		}
+
+		MCS06AggregateComparator plain = new MCS06AggregateComparator(new StubMeasure(), idf);
+		MCS06AggregateComparator comparator = new MCS06AggregateComparator(new StubMeasure(), idf);
+		List<String> referenceText = randomText(rnd);
+		MCS06AggregateComparator.Reference reference = comparator.prepareReference(referenceText);
+
+		for (int i = 0; i < 50; i++) {
+			List<String> text = randomText(rnd);
+			assertEquals(plain.getSimilarity(referenceText, text),
+					comparator.getSimilarity(reference, text), 0.0);
+		}
+		assertTrue(reference.getBestMatchCount() > 0);
+	}
+
+	@Test
+	public void referenceSurvivesCompaction()
+		throws Exception
+	{
+		Map<String,Double> idf = new HashMap<String,Double>();
+		MCS06AggregateComparator plain = new MCS06AggregateComparator(new StubMeasure(), idf);
+		MCS06AggregateComparator comparator = new MCS06AggregateComparator(new StubMeasure(), idf);
+		comparator.setCacheSize(10);
+		List<String> referenceText = Arrays.asList("a", "b", "c");
+		MCS06AggregateComparator.Reference reference = comparator.prepareReference(referenceText);
+
+		for (int i = 0; i < 3000; i++) {
+			List<String> text = Arrays.asList("x" + i, "a");
+			idf.put("x" + i, 1.0);
+			idf.put("a", 2.0);
+			assertEquals(plain.getSimilarity(referenceText, text),
+					comparator.getSimilarity(reference, text), 0.0);
+		}
+		assertTrue(comparator.getDictionarySize() <= 1024);
+	}
+
+	@Test
+	public void dictionaryIsCompacted()
+		throws Exception
+	{
+		StubMeasure measure = new StubMeasure();
+		MCS06AggregateComparator comparator = new MCS06AggregateComparator(measure,
+				new HashMap<String,Double>());
+		comparator.setCacheSize(100);
+		comparator.getSimilarity(Arrays.asList("a"), Arrays.asList("b"));
+
+		for (int i = 0; i < 10000; i++) {
+			comparator.getSimilarity(Arrays.asList("y" + i), Arrays.asList("z" + i));
+			assertTrue(comparator.getDictionarySize() <= 1024);
+		}
+
+		// The most recent pairs are still cached after compaction
+		int calls = measure.calls.get();
+		comparator.getSimilarity(Arrays.asList("y9999"), Arrays.asList("z9999"));
+		assertEquals(calls, measure.calls.get());
+	}
+
+	@Test
+	public void writeAndReadCache()
+		throws Exception
+	{
+		Map<String,Double> idf = new HashMap<String,Double>();
+		idf.put("w1", 1.0);
+		idf.put("w2", 2.0);
+		idf.put("w3", 1.5);
+		List<String> text1 = Arrays.asList("W1", "w2");
+		List<String> text2 = Arrays.asList("w3", "w2");
+
+		MCS06AggregateComparator comparator = new MCS06AggregateComparator(new StubMeasure(), idf);
+		double expected = comparator.getSimilarity(text1, text2);
+		File file = folder.newFile("scores.bin");
+		comparator.writeCache(file);
+
+		StubMeasure measure = new StubMeasure();
+		MCS06AggregateComparator restored = new MCS06AggregateComparator(measure, idf);
+		restored.readCache(file);
+		assertEquals(4, restored.getCacheMetrics().getSize());
+		assertEquals(expected, restored.getSimilarity(text1, text2), 0.0);
+		assertEquals(0, measure.calls.get());
+	}
+
+	@Test
+	public void textWithoutScoresIsZero()
+		throws Exception
+	{
+		Map<String,Double> idf = new HashMap<String,Double>();
+		idf.put("npe", 1.0);
+		idf.put("w1", 1.0);
+
+		MCS06AggregateComparator comparator = new MCS06AggregateComparator(new StubMeasure(), idf);
+		// Used to fail with a NoSuchElementException
+		assertEquals(0.0, comparator.getSimilarity(Arrays.asList("npe"), Arrays.asList("w1")),
+				0.0);
+		assertEquals(0.0, comparator.getSimilarity(Arrays.asList("npe"),
+				Arrays.asList((String) null, "npe")), 0.0);
+	}
+
+	private static List<String> randomText(Random aRandom)
+	{
+		List<String> text = new ArrayList<String>();
+		int length = 5 + aRandom.nextInt(35);
+		for (int i = 0; i < length; i++) {
+			int word = aRandom.nextInt(32);
+			text.add(word == 31 ? "npe" : "W" + word);
+		}
+		return text;
+	}
+
+	/**
+	 * Symmetric measure based on the hash codes of the words. It fails with a
+	 * {@link NullPointerException} for the word "npe".
+	 */
+	private static class StubMeasure
+		extends TextSimilarityMeasureBase
+	{
+		final AtomicInteger calls = new AtomicInteger();
+
+		@Override
+		public double getSimilarity(String aTerm1, String aTerm2)
+		{
+			calls.incrementAndGet();
+			if (aTerm1.equals("npe") || aTerm2.equals("npe")) {
+				throw new NullPointerException();
+			}
+			return 1.0 / (1 + Math.abs(aTerm1.hashCode() - aTerm2.hashCode()) % 7);
+		}
+
+		@Override
+		public double getSimilarity(Collection<String> aStrings1, Collection<String> aStrings2)
+			throws SimilarityException
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lsr.gloss;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class GlossIndexTest
+{
+    @Test
+    public void tokenBags()
+    {
+        Map<String, List<String>> glosses = new LinkedHashMap<String, List<String>>();
+        glosses.put("e1", Arrays.asList("a", "dog", "is", "a", "dog"));
+        glosses.put("e2", Arrays.asList("a", "cat"));
+        glosses.put("e3", null);
+        GlossIndex index = new GlossIndex("test", glosses);
+
+        assertEquals(3, index.size());
+        assertEquals("test", index.getDescription());
+        int[] bag1 = index.getTokenBag("e1");
+        assertEquals(3, bag1.length);
+        assertEquals("a", index.getToken(bag1[0]));
+        assertEquals(0, index.getTokenBag("e3").length);
+        assertNull(index.getTokenBag("e4"));
+
+        assertEquals(1, GlossIndex.getOverlap(bag1, index.getTokenBag("e2")));
+        assertEquals(0, GlossIndex.getOverlap(bag1, index.getTokenBag("e3")));
+    }
+
+    @Test
+    public void overlapMatchesSetIntersection()
+    {
+        Random rnd = new Random(42);
+        Map<String, List<String>> glosses = new LinkedHashMap<String, List<String>>();
+        for (int i = 0; i < 200; i++) {
+            String[] tokens = new String[rnd.nextInt(20)];
+            for (int j = 0; j < tokens.length; j++) {
+                tokens[j] = "t" + rnd.nextInt(30);
+            }
+            glosses.put("e" + i, Arrays.asList(tokens));
+        }
+        GlossIndex index = new GlossIndex("test", glosses);
+
+        for (int i = 0; i < 200; i++) {
+            for (int j = 0; j < 200; j += 7) {
+                Set<String> tokens1 = new HashSet<String>(glosses.get("e" + i));
+                Set<String> tokens2 = new HashSet<String>(glosses.get("e" + j));
+                assertEquals(tokens1.size(), index.getTokenBag("e" + i).length);
+                tokens1.retainAll(tokens2);
+                assertEquals(tokens1.size(), GlossIndex.getOverlap(index.getTokenBag("e" + i),
+                        index.getTokenBag("e" + j)));
+            }
+        }
+    }
+
+    @Test
+    public void writeAndLoad()
+        throws Exception
+    {
+        Map<String, List<String>> glosses = new LinkedHashMap<String, List<String>>();
+        glosses.put("e1", Arrays.asList("a", "dog"));
+        glosses.put("e2", Arrays.asList("a", "cat"));
+        glosses.put("e3", null);
+        GlossIndex index = new GlossIndex("test", glosses);
+
+        File file = new File("target/test-output/gloss.idx");
+        file.getParentFile().mkdirs();
+        index.write(file);
+        GlossIndex loaded = GlossIndex.load(file);
+
+        assertEquals("test", loaded.getDescription());
+        assertEquals(index.size(), loaded.size());
+        for (String id : glosses.keySet()) {
+            assertArrayEquals(index.getTokenBag(id), loaded.getTokenBag(id));
+        }
+        assertEquals("cat", loaded.getToken(loaded.getTokenBag("e2")[1]));
+    }
+}
@@ -0,0 +1,60 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lsr.gloss;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.Collections;
+
+import org.dkpro.similarity.algorithms.lsr.StubResource;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource.SemanticRelation;
+
+public class GlossOverlapComparatorTest
+{
+    private static final double epsilon = 0.0001;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void changingRelationsClearsCachesAndIndex()
+        throws Exception
+    {
+        StubResource resource = new StubResource()
+                .gloss("dog", "barking animal")
+                .gloss("cat", "purring pet");
+        GlossOverlapComparator comparator = new GlossOverlapComparator(resource.proxy(), true);
+        comparator.setSemanticRelations(Collections.singletonMap(SemanticRelation.hypernymy, 1));
+        comparator.initializeGlossIndex(new File(folder.getRoot(), "glosses.idx"));
+        assertNotNull(comparator.getGlossIndex());
+
+        // Both pseudo glosses contain the relation
+        assertEquals(1.0 / 3, comparator.getSimilarity("dog", "cat"), epsilon);
+
+        comparator.setSemanticRelations(Collections.<SemanticRelation, Integer> emptyMap());
+        assertNull(comparator.getGlossIndex());
+        assertEquals(0.0, comparator.getSimilarity("dog", "cat"), epsilon);
+    }
+}
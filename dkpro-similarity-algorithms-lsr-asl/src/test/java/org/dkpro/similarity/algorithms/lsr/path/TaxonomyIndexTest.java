@@ -0,0 +1,261 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.lsr.path;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TaxonomyIndexTest
+{
+    @Test
+    public void lcsAndPathLength()
+        throws Exception
+    {
+        Random rnd = new Random(42);
+        for (int size : new int[] { 1, 2, 10, 500 }) {
+            TaxonomyIndex index = randomTaxonomy(rnd, size);
+            for (int i = 0; i < 2000; i++) {
+                int n1 = rnd.nextInt(size);
+                int n2 = rnd.nextInt(size);
+                int lcs = naiveLcs(index, n1, n2);
+                assertEquals(lcs, index.getLcs(n1, n2));
+                assertEquals(index.getDepth(n1) + index.getDepth(n2) - 2 * index.getDepth(lcs),
+                        index.getPathLength(n1, n2));
+            }
+        }
+    }
+
+    @Test
+    public void multipleParents()
+    {
+        // root - a - c - y, root - b - x and x is also a child of c
+        String[] ids = { "root", "a", "b", "c", "x", "y" };
+        int[][] parents = { {}, { 0 }, { 0 }, { 1 }, { 2, 3 }, { 3 } };
+        TaxonomyIndex index = new TaxonomyIndex(ids, parents, new float[ids.length]);
+
+        assertEquals(2, index.getDepth(4));
+        assertEquals(2, index.getParent(4));
+        assertArrayEquals(new int[] { 2, 3 }, index.getParents(4));
+
+        // Via c instead of the first parent b
+        assertEquals(3, index.getLcs(4, 5));
+        assertEquals(2, index.getPathLength(4, 5));
+        assertEquals(1, index.getLcs(4, 1));
+        assertEquals(2, index.getPathLength(4, 1));
+        assertEquals(2, index.getLcs(4, 2));
+        assertEquals(1, index.getPathLength(4, 2));
+
+        // Nodes without multiple inheritance above them still use the tree
+        assertEquals(0, index.getLcs(5, 2));
+        assertEquals(4, index.getPathLength(5, 2));
+    }
+
+    @Test
+    public void randomMultipleParents()
+    {
+        Random rnd = new Random(42);
+        for (int size : new int[] { 2, 10, 300 }) {
+            String[] ids = new String[size];
+            int[][] parents = new int[size][];
+            int[] depths = new int[size];
+            for (int i = 0; i < size; i++) {
+                ids[i] = "e" + i;
+                parents[i] = randomParents(rnd, i, depths);
+            }
+            TaxonomyIndex index = new TaxonomyIndex(ids, parents, new float[size]);
+
+            for (int i = 0; i < 2000; i++) {
+                int n1 = rnd.nextInt(size);
+                int n2 = rnd.nextInt(size);
+                Map<Integer, Integer> up1 = naiveAncestors(parents, n1);
+                Map<Integer, Integer> up2 = naiveAncestors(parents, n2);
+                int lcs = -1;
+                int pathLength = Integer.MAX_VALUE;
+                for (int node : up1.keySet()) {
+                    if (up2.containsKey(node)) {
+                        pathLength = Math.min(pathLength, up1.get(node) + up2.get(node));
+                        if (lcs == -1 || depths[node] > depths[lcs]
+                                || (depths[node] == depths[lcs] && up1.get(node) + up2.get(node)
+                                        < up1.get(lcs) + up2.get(lcs))) {
+                            lcs = node;
+                        }
+                    }
+                }
+                assertEquals(depths[n1], index.getDepth(n1));
+                assertEquals(depths[lcs], index.getDepth(index.getLcs(n1, n2)));
+                assertEquals(pathLength, index.getPathLength(n1, n2));
+            }
+        }
+    }
+
+    @Test
+    public void deepTaxonomy()
+    {
+        // A chain must not overflow the stack
+        int size = 100000;
+        String[] ids = new String[size];
+        int[] parents = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = "e" + i;
+            parents[i] = i - 1;
+        }
+        TaxonomyIndex index = new TaxonomyIndex(ids, parents, new float[size]);
+
+        assertEquals(size - 1, index.getMaxDepth());
+        assertEquals(10, index.getLcs(10, size - 1));
+        assertEquals(size - 11, index.getPathLength(10, size - 1));
+    }
+
+    @Test
+    public void writeAndLoad()
+        throws Exception
+    {
+        TaxonomyIndex index = randomTaxonomy(new Random(42), 100);
+
+        File file = new File("target/test-output/taxonomy.idx");
+        file.getParentFile().mkdirs();
+        index.write(file);
+        TaxonomyIndex loaded = TaxonomyIndex.load(file);
+
+        assertEquals(index.size(), loaded.size());
+        assertEquals(index.getRootId(), loaded.getRootId());
+        for (int i = 0; i < index.size(); i++) {
+            assertEquals(i, loaded.getNode("e" + i));
+            assertEquals(index.getParent(i), loaded.getParent(i));
+            assertEquals(index.getDepth(i), loaded.getDepth(i));
+            assertEquals(index.getInformationContent(i), loaded.getInformationContent(i), 0.0f);
+        }
+        assertEquals(TaxonomyIndex.NOT_INDEXED, loaded.getNode("unknown"));
+    }
+
+    @Test
+    public void writeAndLoadMultipleParents()
+        throws Exception
+    {
+        String[] ids = { "root", "a", "b", "c" };
+        int[][] parents = { {}, { 0 }, { 0 }, { 1, 2 } };
+        TaxonomyIndex index = new TaxonomyIndex(ids, parents, new float[] { 0, 1, 2, 3 });
+
+        File file = new File("target/test-output/taxonomy-dag.idx");
+        file.getParentFile().mkdirs();
+        index.write(file);
+        TaxonomyIndex loaded = TaxonomyIndex.load(file);
+
+        for (int i = 0; i < ids.length; i++) {
+            assertArrayEquals(index.getParents(i), loaded.getParents(i));
+            assertEquals(index.getInformationContent(i), loaded.getInformationContent(i), 0.0f);
+        }
+        assertEquals(2, loaded.getPathLength(1, 2));
+    }
+
+    private static TaxonomyIndex randomTaxonomy(Random aRandom, int aSize)
+    {
+        String[] ids = new String[aSize];
+        int[] parents = new int[aSize];
+        float[] ic = new float[aSize];
+        for (int i = 0; i < aSize; i++) {
+            ids[i] = "e" + i;
+            parents[i] = i == 0 ? -1 : aRandom.nextInt(i);
+            ic[i] = aRandom.nextFloat();
+        }
+        return new TaxonomyIndex(ids, parents, ic);
+    }
+
+    /**
+     * Picks up to three distinct parents among the preceding nodes. The shallowest one comes
+     * first, as it is on the shortest path from the root.
+     */
+    private static int[] randomParents(Random aRandom, int aNode, int[] aDepths)
+    {
+        if (aNode == 0) {
+            return new int[0];
+        }
+        List<Integer> parents = new ArrayList<Integer>();
+        int count = 1 + aRandom.nextInt(Math.min(aNode, 3));
+        while (parents.size() < count) {
+            int parent = aRandom.nextInt(aNode);
+            if (!parents.contains(parent)) {
+                parents.add(parent);
+            }
+        }
+        int shallowest = 0;
+        for (int j = 1; j < parents.size(); j++) {
+            if (aDepths[parents.get(j)] < aDepths[parents.get(shallowest)]) {
+                shallowest = j;
+            }
+        }
+        parents.add(0, parents.remove(shallowest));
+        aDepths[aNode] = aDepths[parents.get(0)] + 1;
+
+        int[] result = new int[parents.size()];
+        for (int j = 0; j < result.length; j++) {
+            result[j] = parents.get(j);
+        }
+        return result;
+    }
+
+    /**
+     * @return the ancestors of the node with the length of the shortest path up to them.
+     */
+    private static Map<Integer, Integer> naiveAncestors(int[][] aParents, int aNode)
+    {
+        Map<Integer, Integer> distances = new HashMap<Integer, Integer>();
+        distances.put(aNode, 0);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Map.Entry<Integer, Integer> e : new HashMap<Integer, Integer>(distances)
+                    .entrySet()) {
+                for (int parent : aParents[e.getKey()]) {
+                    Integer old = distances.get(parent);
+                    if (old == null || old > e.getValue() + 1) {
+                        distances.put(parent, e.getValue() + 1);
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return distances;
+    }
+
+    private static int naiveLcs(TaxonomyIndex aIndex, int aNode1, int aNode2)
+    {
+        int n1 = aNode1;
+        int n2 = aNode2;
+        while (aIndex.getDepth(n1) > aIndex.getDepth(n2)) {
+            n1 = aIndex.getParent(n1);
+        }
+        while (aIndex.getDepth(n2) > aIndex.getDepth(n1)) {
+            n2 = aIndex.getParent(n2);
+        }
+        while (n1 != n2) {
+            n1 = aIndex.getParent(n1);
+            n2 = aIndex.getParent(n2);
+        }
+        return n1;
+    }
+}
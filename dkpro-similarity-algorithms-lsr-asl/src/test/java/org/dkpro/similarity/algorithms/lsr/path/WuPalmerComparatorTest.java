@@ -92,4 +92,29 @@ public class WuPalmerComparatorTest
         // symmetry
         assertEquals(1.0, comparator.getSimilarity(entities2, entities1), epsilon);
     }
+
+    @Test
+    public void testConfigurationChangesClearCaches()
+        throws Exception
+    {
+        Assume.assumeTrue(Runtime.getRuntime().maxMemory() >= 2000000000);
+
+        LexicalSemanticResource wordnet = ResourceFactory.getInstance().get("wordnet3", "en");
+        wordnet.setIsCaseSensitive(false);
+
+        WuPalmerComparator comparator = new WuPalmerComparator(wordnet, wordnet.getRoot());
+        comparator.getSimilarity("gem", "jewel");
+        comparator.getSimilarity("gem", "jewel");
+        assertEquals(1, comparator.getScoreCacheMetrics().getHitCount());
+        assertTrue(comparator.getEntityCacheMetrics().getSize() > 0);
+
+        comparator.setRoot(wordnet.getRoot());
+        assertEquals(0, comparator.getScoreCacheMetrics().getSize());
+        assertEquals(0, comparator.getEntityCacheMetrics().getSize());
+
+        comparator.getSimilarity("gem", "jewel");
+        comparator.setTaxonomyIndex(null);
+        assertEquals(0, comparator.getScoreCacheMetrics().getSize());
+        assertEquals(0, comparator.getEntityCacheMetrics().getSize());
+    }
 }
\ No newline at end of file
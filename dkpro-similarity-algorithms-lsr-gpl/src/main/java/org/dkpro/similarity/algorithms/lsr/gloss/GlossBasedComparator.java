@@ -18,21 +18,27 @@
  */
 package org.dkpro.similarity.algorithms.lsr.gloss;
 
+import java.util.Collection;
+
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasure;
 import org.dkpro.similarity.algorithms.lexical.string.OverlapCoefficientSimMetricComparator;
-import org.dkpro.similarity.algorithms.lsr.LexSemResourceComparator;
 
 import de.tudarmstadt.ukp.dkpro.lexsemresource.LexicalSemanticResource;
 import de.tudarmstadt.ukp.dkpro.lexsemresource.exception.LexicalSemanticResourceException;
+import uk.ac.shef.wit.simmetrics.tokenisers.InterfaceTokeniser;
+import uk.ac.shef.wit.simmetrics.tokenisers.TokeniserWhitespace;
 
 
 public abstract class GlossBasedComparator
-	extends LexSemResourceComparator
+	extends GlossComparatorBase
 {
     public static final double NOT_FOUND = -1.0;
     
     protected TextSimilarityMeasure overlapCoefficientComparator;
-    
+
+    // Same tokenization as the overlap coefficient comparator
+    private final InterfaceTokeniser tokeniser = new TokeniserWhitespace();
+
 	public GlossBasedComparator(LexicalSemanticResource lsr)
 		throws LexicalSemanticResourceException
 	{
@@ -40,4 +46,10 @@ public abstract class GlossBasedComparator
 
         overlapCoefficientComparator = new OverlapCoefficientSimMetricComparator();
     }
-}
\ No newline at end of file
+
+    @Override
+    protected Collection<String> tokenizeGloss(String gloss)
+    {
+        return tokeniser.tokenizeToArrayList(gloss);
+    }
+}
@@ -26,7 +26,9 @@ import java.util.Map.Entry;
  *
  * @author zesch
  *
+ * @deprecated Use a {@link GlossIndex}, which also works with several threads.
  */
+@Deprecated
 public class GlossCache extends LinkedHashMap<String,String> {
 
     private static final long serialVersionUID = 1L;
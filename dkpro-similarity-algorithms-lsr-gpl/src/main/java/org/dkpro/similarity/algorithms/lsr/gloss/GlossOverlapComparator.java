@@ -25,6 +25,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -52,8 +54,8 @@ public class GlossOverlapComparator
 
     private final boolean usePseudoGlosses;
 
-    Set<LexicalRelation> lexicalRelations;
-    Map<SemanticRelation,Integer> semanticRelations;
+    private Set<LexicalRelation> lexicalRelations;
+    private Map<SemanticRelation,Integer> semanticRelations;
 
     public GlossOverlapComparator(LexicalSemanticResource lexSemResource, boolean usePseudoGlosses) throws LexicalSemanticResourceException {
         super(lexSemResource);
@@ -73,6 +75,36 @@ public class GlossOverlapComparator
 
     }
 
+    /**
+     * Sets the lexical relations used to build pseudo glosses. Discards the cached scores and a
+     * gloss index built for other relations.
+     */
+    public void setLexicalRelations(Set<LexicalRelation> aLexicalRelations)
+    {
+        lexicalRelations = new HashSet<LexicalRelation>(aLexicalRelations);
+        glossesChanged();
+    }
+
+    public Set<LexicalRelation> getLexicalRelations()
+    {
+        return Collections.unmodifiableSet(lexicalRelations);
+    }
+
+    /**
+     * Sets the semantic relations and their depths used to build pseudo glosses. Discards the
+     * cached scores and a gloss index built for other relations.
+     */
+    public void setSemanticRelations(Map<SemanticRelation, Integer> aSemanticRelations)
+    {
+        semanticRelations = new HashMap<SemanticRelation, Integer>(aSemanticRelations);
+        glossesChanged();
+    }
+
+    public Map<SemanticRelation, Integer> getSemanticRelations()
+    {
+        return Collections.unmodifiableMap(semanticRelations);
+    }
+
 	@Override
 	public double getSimilarity(Set<Entity> entities1, Set<Entity> entities2)
 		throws LexicalSemanticResourceException, SimilarityException
@@ -92,7 +124,7 @@ public class GlossOverlapComparator
         List<Double> relatednessValues = new ArrayList<Double>();
         for (Entity e1 : entities1) {
             for (Entity e2 : entities2) {
-                relatednessValues.add( getSimilarity(e1, e2) );
+                relatednessValues.add( getCachedSimilarity(e1, e2) );
             }
         }
 
@@ -106,6 +138,20 @@ public class GlossOverlapComparator
 	{
 		double relatedness;
 
+        int[] bag1 = getIndexedTokenBag(e1);
+        int[] bag2 = getIndexedTokenBag(e2);
+        if (bag1 != null && bag2 != null) {
+            // Computed in float like the overlap coefficient comparator
+            relatedness = (float) GlossIndex.getOverlap(bag1, bag2)
+                    / (float) Math.min(bag1.length, bag2.length);
+
+            if (Double.isNaN(relatedness)) {
+                return 0.0;
+            }
+
+            return relatedness;
+        }
+
         try {
             String gloss1 = getGloss(e1);
             String gloss2 = getGloss(e2);
@@ -139,7 +185,22 @@ public class GlossOverlapComparator
         return this.getClass().getSimpleName() + "-" + gloss_suffix;
     }
 
-	private String getGloss(Entity e)
+    @Override
+    protected String getGlossIndexDescription()
+    {
+        String description = getClass().getName();
+        if (usePseudoGlosses) {
+            description += "-pseudo " + new TreeSet<LexicalRelation>(lexicalRelations) + " "
+                    + new TreeMap<SemanticRelation,Integer>(semanticRelations);
+        }
+        else {
+            description += "-normal";
+        }
+        return description;
+    }
+
+    @Override
+	protected String getGloss(Entity e)
 		throws LexicalSemanticResourceException
 	{
         String gloss;
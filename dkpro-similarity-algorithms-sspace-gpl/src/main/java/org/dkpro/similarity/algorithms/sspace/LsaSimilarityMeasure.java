@@ -27,9 +27,12 @@ import org.dkpro.similarity.algorithms.api.TextSimilarityMeasure;
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasureBase;
 import org.dkpro.similarity.algorithms.vsm.VectorComparator;
 import org.dkpro.similarity.algorithms.vsm.store.CachingVectorReader;
+import org.dkpro.similarity.algorithms.vsm.util.CacheMetrics;
+import org.dkpro.similarity.algorithms.vsm.util.ConcurrentCache;
 
 import edu.ucla.sspace.common.SemanticSpace;
 import edu.ucla.sspace.common.SemanticSpaceIO;
+import no.uib.cipr.matrix.Vector;
 
 public class LsaSimilarityMeasure 
 	extends TextSimilarityMeasureBase
@@ -39,13 +42,26 @@ public class LsaSimilarityMeasure
 	
 	private int cacheSize;
 	
+	private CachingVectorReader reader;
+	
 	public LsaSimilarityMeasure(File modelFile) throws IOException {
-		cacheSize = 100;
+		this(modelFile, new ConcurrentCache<String, Vector>(100));
+	}
+	
+	/**
+	 * @param vectorCache a thread-safe vector cache. Since vectors are cached by term, a cache
+	 *        must not be shared with measures using a different model.
+	 */
+	public LsaSimilarityMeasure(File modelFile, ConcurrentCache<String, Vector> vectorCache)
+		throws IOException
+	{
+		// The maximum weight of a weighing cache may exceed the range of the size
+		cacheSize = (int) Math.min(Integer.MAX_VALUE, vectorCache.getMaximumWeight());
 		
 		SemanticSpace sspace = SemanticSpaceIO.load(modelFile); 
 
-		measure = new VectorComparator(new CachingVectorReader(
-                new SSpaceVectorReader(sspace), cacheSize));
+		reader = new CachingVectorReader(new SSpaceVectorReader(sspace), vectorCache);
+		measure = new VectorComparator(reader);
 	}
 
 	@Override
@@ -54,7 +70,16 @@ public class LsaSimilarityMeasure
 		return measure.getSimilarity(strings1, strings2);
 	}
 
+	/**
+	 * Sets the maximum number of cached vectors, or the maximum total weight if the cache given
+	 * to the constructor weighs its vectors. Vectors exceeding the new size are evicted.
+	 */
 	public void setCacheSize(int cacheSize) {
 		this.cacheSize = cacheSize;
+		reader.getVectorCache().setMaximumWeight(cacheSize);
+	}
+	
+	public CacheMetrics getCacheMetrics() {
+		return reader.getMetrics();
 	}
-}
\ No newline at end of file
+}
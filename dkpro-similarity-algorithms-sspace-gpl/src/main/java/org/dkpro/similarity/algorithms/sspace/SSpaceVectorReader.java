@@ -25,6 +25,7 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Properties;
 
 import no.uib.cipr.matrix.Vector;
@@ -93,6 +94,14 @@ public class SSpaceVectorReader
 		return sspace.getVector(sspace.getWords().iterator().next()).length();
 	}
 
+	/**
+	 * Iterate over the words in the semantic space.
+	 */
+	public Iterator<String> getTermIterator()
+	{
+		return sspace.getWords().iterator();
+	}
+
 	@Override
 	public String getId()
 	{
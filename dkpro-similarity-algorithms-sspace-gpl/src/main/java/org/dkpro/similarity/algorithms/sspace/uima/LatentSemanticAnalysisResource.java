@@ -52,6 +52,22 @@ public class LatentSemanticAnalysisResource
     @ConfigurationParameter(name = PARAM_CACHE_SIZE, mandatory = true, defaultValue="100")
     protected int cacheSize;
     
+    /**
+     * If larger than zero, the cache is bounded by the total number of non-zero vector entries
+     * instead of by the number of vectors.
+     */
+    public static final String PARAM_CACHE_MAX_WEIGHT = "CacheMaxWeight";
+    @ConfigurationParameter(name = PARAM_CACHE_MAX_WEIGHT, mandatory = true, defaultValue="-1")
+    protected long cacheMaxWeight;
+    
+    /**
+     * Time in seconds after which a cached vector expires. Vectors do not expire if this is zero
+     * or less.
+     */
+    public static final String PARAM_CACHE_TIME_TO_LIVE = "CacheTimeToLive";
+    @ConfigurationParameter(name = PARAM_CACHE_TIME_TO_LIVE, mandatory = true, defaultValue="-1")
+    protected long cacheTimeToLive;
+    
     public static final String PARAM_PERSISTENTLY_STORE_MODEL = "PersistentlyStoreModel";
     @ConfigurationParameter(name = PARAM_PERSISTENTLY_STORE_MODEL, mandatory = true, defaultValue="false")
     protected boolean storeModelPersistently;
@@ -103,7 +119,7 @@ public class LatentSemanticAnalysisResource
 				
 			measure = new VectorComparator(new CachingVectorReader(
 	                new SSpaceVectorReader(sspace),
-	                cacheSize)); 
+	                CachingVectorReader.createCache(cacheSize, cacheMaxWeight, cacheTimeToLive))); 
 	}
 		catch (IOException e) {
 			throw new ResourceInitializationException(e);
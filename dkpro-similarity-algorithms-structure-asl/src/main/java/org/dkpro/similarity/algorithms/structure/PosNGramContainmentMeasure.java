@@ -21,6 +21,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import org.dkpro.similarity.algorithms.api.ngrams.NGramSet;
+
 /**
  * Computes the overlap of part-of-speech n-grams using the
  * containment measure, similarly as for the word n-grams
@@ -35,6 +37,7 @@ public class PosNGramContainmentMeasure
 	}
 	
 	@Override
+	@Deprecated
 	protected double getNormalizedSimilarity(
 			Set<List<String>> suspiciousNGrams, Set<List<String>> originalNGrams)
 	{
@@ -51,4 +54,18 @@ public class PosNGramContainmentMeasure
 		
 		return sim;
 	}
+
+	@Override
+	protected double getNormalizedSimilarity(
+			NGramSet suspiciousNGrams, NGramSet originalNGrams)
+	{
+		// Compare using the Containment measure (Broder, 1997)
+		double norm = suspiciousNGrams.size();
+		double sim = 0.0;
+		
+		if (norm > 0.0)
+			sim = suspiciousNGrams.intersectionSize(originalNGrams) / norm;
+		
+		return sim;
+	}
 }
@@ -18,6 +18,7 @@
 package org.dkpro.similarity.algorithms.structure;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
@@ -29,6 +30,9 @@ import org.apache.uima.jcas.JCas;
 import org.apache.uima.jcas.tcas.Annotation;
 import org.dkpro.similarity.algorithms.api.JCasTextSimilarityMeasureBase;
 import org.dkpro.similarity.algorithms.api.SimilarityException;
+import org.dkpro.similarity.algorithms.api.ngrams.LegacyHooks;
+import org.dkpro.similarity.algorithms.api.ngrams.NGramSet;
+import org.dkpro.similarity.algorithms.api.ngrams.TokenDictionary;
 
 import de.tudarmstadt.ukp.dkpro.core.api.lexmorph.type.pos.POS;
 
@@ -42,6 +46,17 @@ public class PosNGramJaccardMeasure
 {
 	int n;
 	
+	private TokenDictionary tokenDictionary;
+	
+	/**
+	 * Whether a subclass overrides {@link #getNormalizedSimilarity(Set, Set)}. Such subclasses
+	 * are scored on n-gram lists, so they keep their behavior.
+	 */
+	private final boolean legacyHook = LegacyHooks.overrides(getClass(),
+			Arrays.<Class<?>> asList(PosNGramJaccardMeasure.class,
+					PosNGramContainmentMeasure.class),
+			"getNormalizedSimilarity", Set.class, Set.class);
+	
 	public PosNGramJaccardMeasure(int n)
 	{
 		this.n = n;
@@ -79,16 +94,33 @@ public class PosNGramJaccardMeasure
     }
 	
     private double getPosNGramSimilarity(Collection<POS> pos1, Collection<POS> pos2) {
+        if (legacyHook) {
+            return getNormalizedSimilarity(getPosNGramLists(new ArrayList<POS>(pos1)),
+                    getPosNGramLists(new ArrayList<POS>(pos2)));
+        }
+
         // Get n-grams
-        Set<List<String>> ngrams1 = getPosNGrams(new ArrayList<POS>(pos1));
-        Set<List<String>> ngrams2 = getPosNGrams(new ArrayList<POS>(pos2));
+        NGramSet ngrams1 = getPosNGrams(pos1);
+        NGramSet ngrams2 = getPosNGrams(pos2);
         
         double sim = getNormalizedSimilarity(ngrams1, ngrams2);
 
         return sim;
     }
 
-    private Set<List<String>> getPosNGrams(List<POS> pos)
+    private NGramSet getPosNGrams(Collection<POS> pos)
+	{
+		String[] tags = new String[pos.size()];
+		int i = 0;
+		for (POS p : pos)
+		{
+			tags[i++] = p.getPosValue();
+		}
+		
+		return NGramSet.create(tags, tags.length, n, tokenDictionary);
+	}
+	
+    private Set<List<String>> getPosNGramLists(List<POS> pos)
 	{
 		Set<List<String>> ngrams = new HashSet<List<String>>();
 		
@@ -109,6 +141,26 @@ public class PosNGramJaccardMeasure
 		return ngrams;
 	}
 	
+	protected double getNormalizedSimilarity(NGramSet suspiciousNGrams, NGramSet originalNGrams)
+	{
+		// Compare using the Jaccard similarity coefficient (Manning & Schütze, 1999)
+		double norm = suspiciousNGrams.unionSize(originalNGrams);
+		double sim = 0.0;
+		
+		if (norm > 0.0) {
+            sim = suspiciousNGrams.intersectionSize(originalNGrams) / norm;
+        }
+		
+		return sim;
+	}
+
+	/**
+	 * Compares n-grams represented as tag lists. This is the hook of earlier versions and only
+	 * used if a subclass overrides it.
+	 * 
+	 * @deprecated override {@link #getNormalizedSimilarity(NGramSet, NGramSet)} instead.
+	 */
+	@Deprecated
 	protected double getNormalizedSimilarity(Set<List<String>> suspiciousNGrams, Set<List<String>> originalNGrams)
 	{
 		// Compare using the Jaccard similarity coefficient (Manning & Schütze, 1999)
@@ -130,6 +182,20 @@ public class PosNGramJaccardMeasure
 		return sim;
 	}
 
+	public TokenDictionary getTokenDictionary()
+	{
+		return tokenDictionary;
+	}
+
+	/**
+	 * Sets the dictionary that maps part-of-speech tags to ids. A dictionary can be shared by
+	 * several measures. By default, no dictionary is used and the tags are hashed.
+	 */
+	public void setTokenDictionary(TokenDictionary tokenDictionary)
+	{
+		this.tokenDictionary = tokenDictionary;
+	}
+
 	@Override
 	public String getName()
 	{
@@ -20,16 +20,16 @@ package org.dkpro.similarity.algorithms.structure;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 import org.apache.commons.io.IOUtils;
 import org.dkpro.similarity.algorithms.api.SimilarityException;
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasureBase;
+import org.dkpro.similarity.algorithms.api.ngrams.NGramSet;
+import org.dkpro.similarity.algorithms.api.ngrams.TokenDictionary;
 
 import de.tudarmstadt.ukp.dkpro.core.api.resources.ResourceUtils;
 
@@ -47,14 +47,16 @@ public class StopwordNGramContainmentMeasure
 	extends TextSimilarityMeasureBase
 {
 	int n;
-	List<String> stopwords;
+	Set<String> stopwords;
+	
+	private TokenDictionary tokenDictionary;
 	
 	public StopwordNGramContainmentMeasure(int n, String stopwordList)
 		throws IOException
 	{
 		this.n = n;
 	
-        stopwords = new ArrayList<String>();
+        stopwords = new HashSet<String>();
         InputStream is = null;
         try {
             URL url = ResourceUtils.resolveLocation(stopwordList, this, null);
@@ -76,57 +78,45 @@ public class StopwordNGramContainmentMeasure
 		throws SimilarityException
 	{
 		// Get n-grams (retain stopwords only)
-		Set<List<String>> ngrams1 = getNGrams(retainStopwords(stringList1));
-		Set<List<String>> ngrams2 = getNGrams(retainStopwords(stringList2));
+		NGramSet ngrams1 = getStopwordNGrams(stringList1);
+		NGramSet ngrams2 = getStopwordNGrams(stringList2);
 		
 		// Compare using the containment measure (Broder, 1997)
-		Set<List<String>> commonNGrams = new HashSet<List<String>>();
-		commonNGrams.addAll(ngrams1);
-		commonNGrams.retainAll(ngrams2);
-		
 		double norm = Math.max(ngrams1.size(), ngrams2.size());
 		double sim = 0.0;
 		
 		if (norm > 0.0)
-			sim = commonNGrams.size() / norm;
+			sim = ngrams1.intersectionSize(ngrams2) / norm;
 		
 		return sim;
 	}
 	
-	private List<String> retainStopwords(Collection<String> stringList)
+	private NGramSet getStopwordNGrams(Collection<String> stringList)
 	{
-		List<String> inputTokens = Arrays.asList(stringList.toArray(new String[] {}));
-		List<String> outputTokens = new ArrayList<String>();
+		String[] tokens = new String[stringList.size()];
+		int length = 0;
 		
-		for (String token : inputTokens)
+		for (String token : stringList)
 		{
 			if (stopwords.contains(token))
-				outputTokens.add(token);
+				tokens[length++] = token.toLowerCase();
 		}
 		
-		return outputTokens;
-		
+		return NGramSet.create(tokens, length, n, tokenDictionary);
 	}
-	
-	private Set<List<String>> getNGrams(List<String> stringList)
+
+	public TokenDictionary getTokenDictionary()
 	{
-		Set<List<String>> ngrams = new HashSet<List<String>>();
-		
-		for (int i = 0; i < stringList.size() - (n - 1); i++)
-		{
-			// Generate n-gram at index i
-			List<String> ngram = new ArrayList<String>();
-			for (int k = 0; k < n; k++)
-			{
-				String token = stringList.get(i + k).toLowerCase();
-				ngram.add(token);
-			}
-			
-			// Add
-			ngrams.add(ngram);
-		}
-		
-		return ngrams;
+		return tokenDictionary;
+	}
+
+	/**
+	 * Sets the dictionary that maps stopwords to ids. A dictionary can be shared by several
+	 * measures. By default, no dictionary is used and the stopwords are hashed.
+	 */
+	public void setTokenDictionary(TokenDictionary tokenDictionary)
+	{
+		this.tokenDictionary = tokenDictionary;
 	}
 
 	@Override
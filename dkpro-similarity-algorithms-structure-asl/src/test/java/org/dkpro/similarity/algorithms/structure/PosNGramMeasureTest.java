@@ -0,0 +1,118 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.structure;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.List;
+import java.util.Set;
+
+import org.apache.uima.fit.factory.JCasFactory;
+import org.apache.uima.jcas.JCas;
+import org.dkpro.similarity.algorithms.api.ngrams.InternedTokenDictionary;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.core.api.lexmorph.type.pos.POS;
+
+public class PosNGramMeasureTest
+{
+	static final double epsilon = 0.001;
+
+	@Test
+	public void jaccard()
+		throws Exception
+	{
+		JCas jcas1 = createJCas("DT JJ JJ NN VBZ IN DT JJ NN");
+		JCas jcas2 = createJCas("DT JJ JJ NN VBZ");
+		JCas jcas3 = createJCas("PRP VBZ");
+
+		PosNGramJaccardMeasure measure = new PosNGramJaccardMeasure(2);
+
+		// 6 distinct bigrams, of which the 4 of the second text are shared
+		assertEquals(4.0 / 6.0, measure.getSimilarity(jcas1, jcas2), epsilon);
+		assertEquals(1.0, measure.getSimilarity(jcas1, jcas1), epsilon);
+		assertEquals(0.0, measure.getSimilarity(jcas1, jcas3), epsilon);
+	}
+
+	@Test
+	public void containment()
+		throws Exception
+	{
+		JCas jcas1 = createJCas("DT JJ JJ NN VBZ IN DT JJ NN");
+		JCas jcas2 = createJCas("DT JJ JJ NN VBZ");
+
+		PosNGramContainmentMeasure measure = new PosNGramContainmentMeasure(2);
+
+		assertEquals(4.0 / 6.0, measure.getSimilarity(jcas1, jcas2), epsilon);
+		assertEquals(1.0, measure.getSimilarity(jcas2, jcas1), epsilon);
+	}
+
+	@Test
+	public void sameWithDictionary()
+		throws Exception
+	{
+		JCas jcas1 = createJCas("DT JJ JJ NN VBZ IN DT JJ NN");
+		JCas jcas2 = createJCas("DT NN VBZ IN DT JJ NN");
+
+		InternedTokenDictionary dictionary = new InternedTokenDictionary();
+		PosNGramJaccardMeasure hashed = new PosNGramJaccardMeasure(3);
+		PosNGramJaccardMeasure interned = new PosNGramJaccardMeasure(3);
+		interned.setTokenDictionary(dictionary);
+
+		assertEquals(hashed.getSimilarity(jcas1, jcas2), interned.getSimilarity(jcas1, jcas2),
+				0.0);
+		assertEquals(5, dictionary.size());
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void legacySubclass()
+		throws Exception
+	{
+		JCas jcas1 = createJCas("DT JJ JJ NN VBZ IN DT JJ NN");
+		JCas jcas2 = createJCas("DT JJ JJ NN VBZ");
+
+		// Subclasses written against the n-gram list hook keep working
+		PosNGramJaccardMeasure measure = new PosNGramContainmentMeasure(2)
+		{
+			@Override
+			protected double getNormalizedSimilarity(Set<List<String>> suspiciousNGrams,
+					Set<List<String>> originalNGrams)
+			{
+				return super.getNormalizedSimilarity(suspiciousNGrams, originalNGrams) / 2;
+			}
+		};
+
+		assertEquals(2.0 / 6.0, measure.getSimilarity(jcas1, jcas2), epsilon);
+	}
+
+	private static JCas createJCas(String aTags)
+		throws Exception
+	{
+		JCas jcas = JCasFactory.createJCas();
+		jcas.setDocumentText(aTags);
+		int begin = 0;
+		for (String tag : aTags.split(" ")) {
+			POS pos = new POS(jcas, begin, begin + tag.length());
+			pos.setPosValue(tag);
+			pos.addToIndexes();
+			begin += tag.length() + 1;
+		}
+		return jcas;
+	}
+}
@@ -23,6 +23,7 @@ import java.util.LinkedList;
 import java.util.List;
 
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasure;
+import org.dkpro.similarity.algorithms.api.ngrams.InternedTokenDictionary;
 import org.dkpro.similarity.algorithms.structure.StopwordNGramContainmentMeasure;
 import org.junit.Test;
 
@@ -67,5 +68,12 @@ public class StopwordNGramContainmentMeasureTest
 		
 		TextSimilarityMeasure comparator = new StopwordNGramContainmentMeasure(3, "classpath:/stopwords/stopwords-bnc-stamatatos.txt");
 		assertEquals(0.25, comparator.getSimilarity(doc1, doc2), epsilon);
+		
+		// Same result when the stopwords are mapped to ids instead of hashed
+		InternedTokenDictionary dictionary = new InternedTokenDictionary();
+		StopwordNGramContainmentMeasure interned = new StopwordNGramContainmentMeasure(3, "classpath:/stopwords/stopwords-bnc-stamatatos.txt");
+		interned.setTokenDictionary(dictionary);
+		assertEquals(0.25, interned.getSimilarity(doc1, doc2), epsilon);
+		assertEquals(5, dictionary.size());
 	}
 }
\ No newline at end of file
@@ -17,11 +17,12 @@
  *******************************************************************************/
 package org.dkpro.similarity.algorithms.vsm;
 
-import static java.lang.Math.min;
+import org.dkpro.similarity.algorithms.vsm.vector.FloatDenseVector;
+import org.dkpro.similarity.algorithms.vsm.vector.FloatSparseVector;
+import org.dkpro.similarity.algorithms.vsm.vector.VectorKernels;
 
 import no.uib.cipr.matrix.DenseVector;
 import no.uib.cipr.matrix.Vector;
-import no.uib.cipr.matrix.VectorEntry;
 import no.uib.cipr.matrix.sparse.SparseVector;
 
 public enum InnerVectorProduct
@@ -35,12 +36,24 @@ public enum InnerVectorProduct
 	COSINE,
 
 	/**
-	 * Alternate implementation of {@link #COSINE} that uses an optimized algorithm depending on
-	 * whether sparse or dense vectors are compared.
-	 * <p>
-	 * The optimized implementations should be faster, but we didn't really check that yet.
+	 * Alternate implementation of {@link #COSINE}. If both vectors are sparse or both are dense,
+	 * the dot product is normalized by the L2 norms of the vectors, i.e. it yields the actual
+	 * cosine also for vectors which are not normalized. For a sparse and a dense vector, only the
+	 * dot product is computed, like for {@link #COSINE}.
 	 */
 	FAST_COSINE,
+
+	/**
+	 * Cosine computed by a fused kernel which calculates the dot product and both norms in a
+	 * single pass over dense vectors. Norms already known to a
+	 * {@link org.dkpro.similarity.algorithms.vsm.vector.FloatDenseVector FloatDenseVector} are
+	 * reused, e.g. when the vectors are served from a cache. Like {@link #FAST_COSINE}, this yields
+	 * the actual cosine, so it should be combined with {@link VectorNorm#NONE}. This mode is
+	 * intended for comparing dense word embeddings.
+	 *
+	 * @see VectorKernels#cosine(Vector, Vector)
+	 */
+	FUSED_COSINE,
 	LESK_OVERLAP,
 	MIN_OVERLAP,
 	LANGUAGE_MODEL,
@@ -83,6 +96,7 @@ public enum InnerVectorProduct
 		switch(this) {
 		case COSINE: return getCosineRelatedness(vec1, vec2);
 		case FAST_COSINE: return getFastCosineRelatedness(vec1, vec2);
+		case FUSED_COSINE: return VectorKernels.cosine(vec1, vec2);
 		case LESK_OVERLAP: return getLeskOverlap(vec1, vec2);
 		case MIN_OVERLAP: return getMinOverlap(vec1, vec2);
 		case LANGUAGE_MODEL: return getLanguageModelRelatedness(vec1, vec2);
@@ -97,112 +111,27 @@ public enum InnerVectorProduct
 
 	private static double getCosineRelatedness(Vector vec1, Vector vec2)
 	{
-		Vector v1;
-		Vector v2;
-
+		// Only relevant for vectors not supported by the kernels: iterate over the shorter one
 		if (length(vec1) < length(vec2)) {
-			v1 = vec1;
-			v2 = vec2;
-		}
-		else {
-			v2 = vec1;
-			v1 = vec2;
-		}
-
-		double vectorProduct = 0.0;
-
-		for (VectorEntry e : v1) {
-			vectorProduct += e.get() * v2.get(e.index());
-		}
-
-		return vectorProduct;
-	}
-
-	// TODO REC 2010-02-16 Have to check if this is really faster
-	private static double getFastCosineRelatedness(Vector v1, Vector v2)
-	{
-		double score;
-
-		if ((v1 instanceof SparseVector) && (v2 instanceof SparseVector)) {
-			score = getFastCosineRelatednessSparse((SparseVector) v1, (SparseVector) v2);
-		}
-		else if ((v1 instanceof DenseVector) && (v2 instanceof DenseVector)) {
-			score = getFastCosineRelatednessDense((DenseVector) v1, (DenseVector) v2);
+			return VectorKernels.dot(vec1, vec2);
 		}
 		else {
-//			if (v1 instanceof SparseVector) {
-//				v1 = new DenseVector(v1);
-//			}
-//			if (v2 instanceof SparseVector) {
-//				v2 = new DenseVector(v2);
-//			}
-//			score = getFastCosineRelatednessDense((DenseVector) v1, (DenseVector) v2);
-			score = getCosineRelatedness(v1, v2);
+			return VectorKernels.dot(vec2, vec1);
 		}
-		return score;
 	}
 
 	/**
-	 * Computes the cosine. (faster than scoreDense())
+	 * Computes the cosine in a single call, normalizing the dot product by the L2 norms of the
+	 * vectors, if both vectors are sparse or both are dense.
 	 */
-	private static double getFastCosineRelatednessSparse(SparseVector vec1, SparseVector vec2)
+	private static double getFastCosineRelatedness(Vector vec1, Vector vec2)
 	{
-		double score = 0;
-
-		if (vec1 != null && vec2 != null) {
-			// int[] index1 = vec1.getIndex();
-			// int[] index2 = vec2.getIndex();
-			double[] data1 = vec1.getData();
-			double[] data2 = vec2.getData();
-
-			score = vec1.dot(vec2);
-
-			double norm1 = 0;
-			double norm2 = 0;
-			for (int i = 0; i < data1.length; i++) {
-				double v = data1[i];
-				norm1 += v * v;
-			}
-			for (int i = 0; i < data2.length; i++) {
-				double v = data2[i];
-				norm2 += v * v;
-			}
-			norm1 = Math.sqrt(norm1);
-			norm2 = Math.sqrt(norm2);
-			score = score / (norm1 * norm2);
-		}
-
-		if (Double.isNaN(score)) {
-			score = 0;
+		if (isSparse(vec1) != isSparse(vec2) || isDense(vec1) != isDense(vec2)) {
+			return getCosineRelatedness(vec1, vec2);
 		}
 
-		return score;
-	}
-
-	/**
-	 * Computes the cosine.
-	 */
-	private static double getFastCosineRelatednessDense(DenseVector vec1, DenseVector vec2)
-	{
-		double score = 0;
-
-		if (vec1 != null && vec2 != null) {
-			score = vec1.dot(vec2);
-
-			double norm1 = 0;
-			double norm2 = 0;
-			for (int i = 0; i < vec1.size(); i++) {
-				double v1 = vec1.get(i);
-				double v2 = vec2.get(i);
-				norm1 += v1 * v1;
-				norm2 += v2 * v2;
-			}
-
-			norm1 = Math.sqrt(norm1);
-			norm2 = Math.sqrt(norm2);
-
-			score = score / (norm1 * norm2);
-		}
+		double score = getCosineRelatedness(vec1, vec2)
+				/ (VectorKernels.norm2(vec1) * VectorKernels.norm2(vec2));
 
 		if (Double.isNaN(score)) {
 			score = 0;
@@ -213,30 +142,12 @@ public enum InnerVectorProduct
 
 	private static double getLeskOverlap(Vector vec1, Vector vec2)
 	{
-		double vectorOverlap = 0.0;
-
-		for (VectorEntry e : vec1) {
-			double n = vec2.get(e.index());
-			if (n != 0.0) {
-				vectorOverlap += e.get() + n;
-			}
-		}
-
-		return vectorOverlap;
+		return VectorKernels.leskOverlap(vec1, vec2);
 	}
 
 	private static double getMinOverlap(Vector vec1, Vector vec2)
 	{
-		double vectorOverlap = 0.0;
-
-		for (VectorEntry e : vec1) {
-			double n = vec2.get(e.index());
-			if (n != 0.0) {
-				vectorOverlap += min(e.get(), n);
-			}
-		}
-
-		return vectorOverlap;
+		return VectorKernels.minOverlap(vec1, vec2);
 	}
 
 	private static double getLanguageModelRelatedness(Vector vec1, Vector vec2)
@@ -249,42 +160,20 @@ public enum InnerVectorProduct
 
 	private static double getCoverage(Vector vec1, Vector vec2)
 	{
-
-		double denominator = 0;
-		for (VectorEntry e : vec2) {
-			denominator += e.get();
-		}
+		double denominator = VectorKernels.sum(vec2);
 
 		if (denominator == 0) {
 			return 0.0;
 		}
 
-		double nominator = 0;
-		for (VectorEntry e : vec1) {
-			nominator += vec2.get(e.index());
-		}
+		double nominator = VectorKernels.coveredSum(vec1, vec2);
 
 		return nominator / denominator;
 	}
 
 	private static double getLeftDice(Vector vec1, Vector vec2)
 	{
-		if (vec1.size() != vec2.size()) {
-			throw new IllegalArgumentException("Argument vectors have different sizes ("
-					+ vec1.size() + " vs. " + vec2.size() + ")");
-		}
-
-		for (VectorEntry e : vec1) {
-			if (e.get() < 0.0) {
-				throw new IllegalArgumentException("Argument vector contains negative values.");
-			}
-		}
-
-		for (VectorEntry e : vec2) {
-			if (e.get() < 0.0) {
-				throw new IllegalArgumentException("Argument vector contains negative values.");
-			}
-		}
+		checkFuzzySets(vec1, vec2);
 
 		// The first support vector is for the set A
 		double fCardA = fuzzyCardinality(vec1);
@@ -308,22 +197,7 @@ public enum InnerVectorProduct
 
 	private static double getDice(Vector vec1, Vector vec2)
 	{
-		if (vec1.size() != vec2.size()) {
-			throw new IllegalArgumentException("Argument vectors have different sizes ("
-					+ vec1.size() + " vs. " + vec2.size() + ")");
-		}
-
-		for (VectorEntry e : vec1) {
-			if (e.get() < 0.0) {
-				throw new IllegalArgumentException("Argument vector contains negative values.");
-			}
-		}
-
-		for (VectorEntry e : vec2) {
-			if (e.get() < 0.0) {
-				throw new IllegalArgumentException("Argument vector contains negative values.");
-			}
-		}
+		checkFuzzySets(vec1, vec2);
 
 		// The first support vector is for the set A
 		double fCardA = fuzzyCardinality(vec1);
@@ -342,6 +216,18 @@ public enum InnerVectorProduct
         return sim;
 	}
 
+	private static void checkFuzzySets(Vector vec1, Vector vec2)
+	{
+		if (vec1.size() != vec2.size()) {
+			throw new IllegalArgumentException("Argument vectors have different sizes ("
+					+ vec1.size() + " vs. " + vec2.size() + ")");
+		}
+
+		if (VectorKernels.hasNegativeValues(vec1) || VectorKernels.hasNegativeValues(vec2)) {
+			throw new IllegalArgumentException("Argument vector contains negative values.");
+		}
+	}
+
 	/**
 	 * The fuzzy intersection of two sets is defined as the set containing the intersection of the
 	 * elements of both sets, with their support being the minimum support for the element in
@@ -349,69 +235,33 @@ public enum InnerVectorProduct
 	 */
 	private static double fuzzyIntersetCardinality(Vector vec1, Vector vec2)
 	{
-		double sum = 0.0;
-		for (VectorEntry entry : vec1) {
-			double aSupport = entry.get();
-			double bSupport = vec2.get(entry.index());
-			sum += Math.min(aSupport, bSupport);
-		}
-		return sum;
+		return VectorKernels.minSum(vec1, vec2);
 	}
 
 	private static double fuzzyCardinality(Vector aSV)
 	{
-		double d = 0.0;
-		for (VectorEntry e : aSV) {
-			d += e.get();
-		}
-		return d;
+		return VectorKernels.sum(aSV);
 	}
 
 	private static double getAverageProduct(Vector vec1, Vector vec2)
 	{
-		if (vec1 instanceof DenseVector && vec2 instanceof DenseVector) {
-			return getAverageProductDense((DenseVector) vec1, (DenseVector) vec2);
+		// Only relevant for vectors not supported by the kernels: iterate over the shorter one
+		if (length(vec1) < length(vec2)) {
+			return VectorKernels.averageProduct(vec1, vec2);
 		}
 		else {
-			return getAverageProductGeneric(vec1, vec2);
+			return VectorKernels.averageProduct(vec2, vec1);
 		}
 	}
 
-	private static double getAverageProductGeneric(Vector vec1, Vector vec2)
+	private static boolean isSparse(Vector vec)
 	{
-		Vector v1;
-		Vector v2;
-
-		// Make sure we iterate over the shortest vector
-		if (length(vec1) < length(vec2)) {
-			v1 = vec1;
-			v2 = vec2;
-		}
-		else {
-			v2 = vec1;
-			v1 = vec2;
-		}
-
-		double vectorProduct = 0.0;
-		for (VectorEntry e : v1) {
-			double value1 = e.get();
-			double value2 = v2.get(e.index());
-			vectorProduct += ((value1 + value2) / 2.0) * value1 * value2;
-		}
-		return vectorProduct;
+		return vec instanceof SparseVector || vec instanceof FloatSparseVector;
 	}
 
-	private static double getAverageProductDense(DenseVector vec1, DenseVector vec2)
+	private static boolean isDense(Vector vec)
 	{
-		double vectorProduct = 0.0;
-		double data1[] = vec1.getData();
-		double data2[] = vec2.getData();
-		for (int i = 0; i < data1.length; i++) {
-			double value1 = data1[i];
-			double value2 = data2[i];
-			vectorProduct += ((value1 + value2) / 2.0) * value1 * value2;
-		}
-		return vectorProduct;
+		return vec instanceof DenseVector || vec instanceof FloatDenseVector;
 	}
 
 	private static int length(Vector vec)
@@ -419,6 +269,9 @@ public enum InnerVectorProduct
 		if (vec instanceof SparseVector) {
 			return ((SparseVector) vec).getUsed();
 		}
+		else if (vec instanceof FloatSparseVector) {
+			return ((FloatSparseVector) vec).getUsed();
+		}
 		else {
 			return vec.size();
 		}
@@ -24,9 +24,11 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.dkpro.similarity.algorithms.api.SimilarityException;
 import org.dkpro.similarity.algorithms.api.TextSimilarityMeasureBase;
+import org.dkpro.similarity.algorithms.api.ThresholdedTextSimilarityMeasure;
 import org.dkpro.similarity.algorithms.vsm.store.VectorReader;
 import org.dkpro.similarity.algorithms.vsm.store.IndexedDocumentsVectorReaderBase.WeightingModeIdf;
 import org.dkpro.similarity.algorithms.vsm.store.IndexedDocumentsVectorReaderBase.WeightingModeTf;
+import org.dkpro.similarity.algorithms.vsm.vector.VectorKernels;
 
 /**
  * Compare two texts or terms represented by vectors. Combining this comparator with different
@@ -152,7 +154,14 @@ import org.dkpro.similarity.algorithms.vsm.store.IndexedDocumentsVectorReaderBas
  */
 public class VectorComparator
 	extends TextSimilarityMeasureBase
+	implements ThresholdedTextSimilarityMeasure
 {
+	/**
+	 * Relative slack added to upper bounds to allow for rounding errors of the exact score and of
+	 * norms stored with single precision.
+	 */
+	private static final double BOUND_TOLERANCE = 1e-6;
+
 	private final Log log = LogFactory.getLog(getClass());
 
     private final VectorReader readerA;
@@ -246,6 +255,91 @@ public class VectorComparator
 		return innerProduct.apply(v1, v2) / normalization.apply(v1, v2);
 	}
 
+	/**
+	 * If the second reader knows the norm of the second vector without loading it (see
+	 * {@link VectorReader#getNorm2(Collection)}), the score is bounded using the norms of the
+	 * vectors. The second vector is only loaded if the bound is not below the threshold.
+	 * Otherwise, the score is computed as usual.
+	 */
+	@Override
+	public double getSimilarityIfAbove(Collection<String> tokenList1,
+			Collection<String> tokenList2, double threshold)
+		throws SimilarityException
+	{
+		Vector v1 = readerA.getVector(tokenList1);
+		if (v1 == null) {
+			return ifAbove(getNotFound(), threshold);
+		}
+
+		double norm2 = readerB.getNorm2(tokenList2);
+		if (norm2 >= 0.0 && getUpperBound(v1, norm2) < threshold) {
+			return BELOW_THRESHOLD;
+		}
+
+		Vector v2 = readerB.getVector(tokenList2);
+		if (v2 == null) {
+			return ifAbove(getNotFound(), threshold);
+		}
+
+		return innerProduct.apply(v1, v2) / normalization.apply(v1, v2);
+	}
+
+	private static double ifAbove(double aScore, double aThreshold)
+	{
+		return aScore >= aThreshold ? aScore : BELOW_THRESHOLD;
+	}
+
+	/**
+	 * Computes an upper bound of the score from the first vector and the L2 norm of the second
+	 * vector. The dot product is bounded by the product of the L2 norms (Cauchy-Schwarz), the
+	 * cosine and the Dice coefficients are at most one. The normalization is bounded from below
+	 * using that the L1 norm of a vector is at least its L2 norm. Other inner products are not
+	 * bounded.
+	 */
+	double getUpperBound(Vector aV1, double aNorm2)
+	{
+		double norm1 = VectorKernels.norm2(aV1);
+
+		double product;
+		switch (innerProduct) {
+		case COSINE:
+			product = norm1 * aNorm2;
+			break;
+		case FAST_COSINE:
+			// Only the dot product is computed for a sparse and a dense vector
+			product = Math.max(1.0, norm1 * aNorm2);
+			break;
+		case FUSED_COSINE:
+		case LEFT_DICE:
+		case DICE:
+			product = 1.0;
+			break;
+		default:
+			return Double.POSITIVE_INFINITY;
+		}
+
+		double norm;
+		switch (normalization) {
+		case NONE:
+			norm = 1.0;
+			break;
+		case L1:
+			norm = VectorKernels.norm1(aV1) * aNorm2;
+			break;
+		case L2:
+			norm = norm1 * aNorm2;
+			break;
+		default:
+			return Double.POSITIVE_INFINITY;
+		}
+
+		double bound = product / norm;
+		if (Double.isNaN(bound) || Double.isInfinite(bound)) {
+			return Double.POSITIVE_INFINITY;
+		}
+		return bound + Math.abs(bound) * BOUND_TOLERANCE;
+	}
+
 	@Override
 	public String getName()
 	{
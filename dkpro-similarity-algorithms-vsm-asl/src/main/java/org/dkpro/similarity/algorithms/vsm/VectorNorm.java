@@ -17,6 +17,8 @@
  *******************************************************************************/
 package org.dkpro.similarity.algorithms.vsm;
 
+import org.dkpro.similarity.algorithms.vsm.vector.VectorKernels;
+
 import no.uib.cipr.matrix.Vector;
 import no.uib.cipr.matrix.Vector.Norm;
 
@@ -60,7 +62,7 @@ public enum VectorNorm
 			for (Vector v : aVectors) {
 				switch (this) {
 				case L1:
-					result = result * v.norm(Norm.One);
+					result = result * VectorKernels.norm1(v);
 					break;
 				case L2:
 					result = result * v.norm(Norm.TwoRobust);
@@ -17,29 +17,123 @@
  *******************************************************************************/
 package org.dkpro.similarity.algorithms.vsm.store;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
 import org.dkpro.similarity.algorithms.api.SimilarityException;
-import org.dkpro.similarity.algorithms.vsm.util.StringKeyCache;
+import org.dkpro.similarity.algorithms.vsm.util.CacheMetrics;
+import org.dkpro.similarity.algorithms.vsm.util.ConcurrentCache;
+import org.dkpro.similarity.algorithms.vsm.util.ConcurrentCache.Loader;
+import org.dkpro.similarity.algorithms.vsm.util.ConcurrentCache.Weigher;
+import org.dkpro.similarity.algorithms.vsm.vector.FloatSparseVector;
+import org.dkpro.similarity.algorithms.vsm.vector.VectorKernels;
 
 import no.uib.cipr.matrix.Vector;
+import no.uib.cipr.matrix.sparse.SparseVector;
 
 /**
- * Adds caching to a {@link VectorReader}.
+ * Adds caching to a {@link VectorReader}. The cache is thread-safe, so a single caching reader
+ * can be shared by all threads of a pipeline as long as the source reader is thread-safe as well.
+ * A cache must only be shared between readers using the same source, because vectors are cached
+ * by term.
  *
  * @author Richard Eckart de Castilho
  */
 public class CachingVectorReader
 	extends VectorReader
 {
+	/**
+	 * Weighs vectors by their number of stored entries, i.e. the number of non-zero entries of a
+	 * sparse vector and the size of a dense vector.
+	 */
+	public static final Weigher<Object, Vector> NON_ZERO_WEIGHER = new Weigher<Object, Vector>()
+	{
+		@Override
+		public long weigh(Object aKey, Vector aValue)
+		{
+			if (aValue instanceof SparseVector) {
+				return Math.max(1, ((SparseVector) aValue).getUsed());
+			}
+			else if (aValue instanceof FloatSparseVector) {
+				return Math.max(1, ((FloatSparseVector) aValue).getUsed());
+			}
+			else {
+				return Math.max(1, aValue.size());
+			}
+		}
+	};
+
 	private final VectorReader source;
-	private final StringKeyCache<Vector> vectorCache;
+	private final ConcurrentCache<String, Vector> vectorCache;
+	private final Loader<String, Vector, SimilarityException> loader;
 
+	/**
+	 * Cache at most the given number of vectors.
+	 */
 	public CachingVectorReader(VectorReader aSource, int aCapacity)
+	{
+		this(aSource, new ConcurrentCache<String, Vector>(aCapacity));
+	}
+
+	public CachingVectorReader(VectorReader aSource, ConcurrentCache<String, Vector> aCache)
 	{
 		source = aSource;
-		vectorCache = new StringKeyCache<Vector>(aCapacity);
+		vectorCache = aCache;
+		loader = new Loader<String, Vector, SimilarityException>()
+		{
+			@Override
+			public Vector load(String aTerm)
+				throws SimilarityException
+			{
+				return source.getVector(aTerm);
+			}
+		};
+	}
+
+	/**
+	 * Create a vector cache.
+	 *
+	 * @param aCapacity
+	 *            the maximum number of vectors, used if no maximum weight is given.
+	 * @param aMaximumWeight
+	 *            if larger than zero, the cache is bounded by the total number of non-zero entries
+	 *            of the cached vectors instead of by the number of vectors.
+	 * @param aTimeToLive
+	 *            time in seconds after which a cached vector expires. Vectors do not expire if
+	 *            this is zero or less.
+	 */
+	public static ConcurrentCache<String, Vector> createCache(int aCapacity, long aMaximumWeight,
+			long aTimeToLive)
+	{
+		if (aMaximumWeight > 0) {
+			return new ConcurrentCache<String, Vector>(aMaximumWeight, NON_ZERO_WEIGHER,
+					aTimeToLive, TimeUnit.SECONDS);
+		}
+		else {
+			return new ConcurrentCache<String, Vector>(aCapacity, null, aTimeToLive,
+					TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Get the cache of this reader.
+	 * <p>
+	 * Up to version 2.2.0 this method returned a
+	 * {@link org.dkpro.similarity.algorithms.vsm.util.StringKeyCache}, which is not thread-safe.
+	 * This is a source and binary incompatible change. Code which used the counters of
+	 * {@code StringKeyCache} should use {@link #getMetrics()} instead.
+	 */
+	public ConcurrentCache<String, Vector> getVectorCache()
+	{
+		return vectorCache;
 	}
 
-	public StringKeyCache<Vector> getVectorCache()
+	public CacheMetrics getMetrics()
 	{
 		return vectorCache;
 	}
@@ -72,17 +166,68 @@ public class CachingVectorReader
 	public Vector getVector(String aTerm)
 		throws SimilarityException
 	{
-		Vector v = getVectorCache().get(aTerm);
+		return vectorCache.get(aTerm, loader);
+	}
+
+	/**
+	 * Get the norm of a cached vector if the vector already knows it, otherwise ask the source
+	 * reader.
+	 */
+	@Override
+	public double getNorm2(String aTerm)
+		throws SimilarityException
+	{
+		Vector v = vectorCache.peek(aTerm);
 		if (v != null) {
-			return v;
+			double norm = VectorKernels.knownNorm2(v);
+			if (norm >= 0.0) {
+				return norm;
+			}
 		}
+		return source.getNorm2(aTerm);
+	}
 
-		v = getSource().getVector(aTerm);
+	/**
+	 * Get the cached vectors and fetch all vectors which are not in the cache from the source in
+	 * a single batch.
+	 */
+	@Override
+	public Map<String, Vector> getVectors(Collection<String> aTerms)
+		throws SimilarityException
+	{
+		Map<String, Vector> vectors = new HashMap<String, Vector>();
+		Set<String> missing = new HashSet<String>();
+		for (String term : aTerms) {
+			if (vectors.containsKey(term) || missing.contains(term)) {
+				continue;
+			}
 
-		if (v != null) {
-			getVectorCache().put(aTerm, v);
+			Vector v = vectorCache.get(term);
+			if (v != null) {
+				vectors.put(term, v);
+			}
+			else {
+				missing.add(term);
+			}
+		}
+
+		if (!missing.isEmpty()) {
+			Map<String, Vector> loaded = vectorCache.load(missing,
+					new Loader<Collection<String>, Map<String, Vector>, SimilarityException>()
+			{
+				@Override
+				public Map<String, Vector> load(Collection<String> aKeys)
+					throws SimilarityException
+				{
+					return source.getVectors(aKeys);
+				}
+			});
+			for (Entry<String, Vector> e : loaded.entrySet()) {
+				vectorCache.put(e.getKey(), e.getValue());
+				vectors.put(e.getKey(), e.getValue());
+			}
 		}
 
-		return v;
+		return vectors;
 	}
 }
@@ -0,0 +1,407 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.dkpro.similarity.algorithms.vsm.store.EmbeddingVectorReader.EmbeddingHandler;
+
+/**
+ * Parses text embedding files (one word per line, followed by its values) in parallel. The file
+ * is read in large blocks which are cut at line boundaries and parsed by a pool of worker
+ * threads directly from the bytes. Words not contained in the filter are skipped before any
+ * string or vector is created for them. The parsed vectors are passed to the handler by the
+ * calling thread in the order of the file. At most two blocks per worker are held in memory.
+ */
+final class EmbeddingTextParser
+{
+	public static final int DEFAULT_BLOCK_SIZE = 8 * 1024 * 1024;
+
+	private static final double[] POW10 = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9,
+			1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	private final byte separator;
+	private final boolean headline;
+	private final Utf8WordSet filter;
+	private final int threads;
+	private final int blockSize;
+
+	private int dimensions = -1;
+	private long accepted;
+	private long skipped;
+
+	/**
+	 * @param aSeparator
+	 *            the byte separating the word and the values.
+	 * @param aHeadline
+	 *            whether the first line holds the number of words and the number of dimensions.
+	 * @param aFilter
+	 *            the words to keep or {@code null} to keep all words.
+	 */
+	public EmbeddingTextParser(byte aSeparator, boolean aHeadline, Utf8WordSet aFilter,
+			int aThreads, int aBlockSize)
+	{
+		separator = aSeparator;
+		headline = aHeadline;
+		filter = aFilter;
+		threads = aThreads;
+		blockSize = aBlockSize;
+	}
+
+	public void parse(ReadableByteChannel aChannel, EmbeddingHandler aHandler)
+		throws IOException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		Deque<Future<Block>> pending = new ArrayDeque<Future<Block>>();
+		Deque<byte[]> spare = new ArrayDeque<byte[]>();
+		try {
+			byte[] buffer = new byte[blockSize];
+			int filled = 0;
+			boolean eof = false;
+			boolean first = headline;
+			while (!eof) {
+				while (filled < buffer.length) {
+					int read = aChannel.read(ByteBuffer.wrap(buffer, filled, buffer.length - filled));
+					if (read < 0) {
+						eof = true;
+						break;
+					}
+					filled += read;
+				}
+
+				int end = eof ? filled : lastIndexOf(buffer, filled, (byte) '\n') + 1;
+				if (end == 0 && !eof) {
+					// Not even a single line fits into the buffer
+					buffer = Arrays.copyOf(buffer, buffer.length * 2);
+					spare.clear();
+					continue;
+				}
+
+				int start = 0;
+				if (first) {
+					start = parseHeadline(buffer, end);
+					first = false;
+				}
+
+				final byte[] block = buffer;
+				final int from = start;
+				final int to = end;
+				pending.add(executor.submit(new Callable<Block>()
+				{
+					@Override
+					public Block call()
+						throws IOException
+					{
+						return parseBlock(block, from, to);
+					}
+				}));
+
+				// The buffer now belongs to the worker, move the incomplete last line to another
+				byte[] next = spare.poll();
+				if (next == null) {
+					next = new byte[buffer.length];
+				}
+				System.arraycopy(buffer, end, next, 0, filled - end);
+				filled -= end;
+				buffer = next;
+
+				while (pending.size() >= 2 * threads) {
+					deliver(pending.poll(), aHandler, spare, buffer.length);
+				}
+			}
+			while (!pending.isEmpty()) {
+				deliver(pending.poll(), aHandler, spare, buffer.length);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * The number of dimensions declared in the headline, or -1 if the file has no headline.
+	 */
+	public int getDimensions()
+	{
+		return dimensions;
+	}
+
+	/**
+	 * The number of words passed to the handler.
+	 */
+	public long getAccepted()
+	{
+		return accepted;
+	}
+
+	/**
+	 * The number of words skipped because they were not in the filter.
+	 */
+	public long getSkipped()
+	{
+		return skipped;
+	}
+
+	private int parseHeadline(byte[] aBuffer, int aEnd)
+		throws IOException
+	{
+		int lineEnd = indexOf(aBuffer, 0, aEnd, (byte) '\n');
+		if (lineEnd < 0) {
+			lineEnd = aEnd;
+		}
+		String line = new String(aBuffer, 0, lineEnd, StandardCharsets.UTF_8).trim();
+		String[] fields = line.split(String.valueOf((char) separator));
+		if (fields.length < 2) {
+			throw new IOException("Expected number of words and dimensions in first line but got ["
+					+ line + "]");
+		}
+		dimensions = Integer.parseInt(fields[1].trim());
+		return Math.min(lineEnd + 1, aEnd);
+	}
+
+	private void deliver(Future<Block> aFuture, EmbeddingHandler aHandler, Deque<byte[]> aSpare,
+			int aBufferLength)
+		throws IOException
+	{
+		Block block;
+		try {
+			block = aFuture.get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while parsing embeddings", e);
+		}
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+
+		for (int i = 0; i < block.words.size(); i++) {
+			aHandler.handle(block.words.get(i), block.vectors.get(i));
+		}
+		accepted += block.words.size();
+		skipped += block.skipped;
+
+		if (block.buffer.length == aBufferLength) {
+			aSpare.push(block.buffer);
+		}
+	}
+
+	private Block parseBlock(byte[] aBuffer, int aFrom, int aTo)
+		throws IOException
+	{
+		Block block = new Block(aBuffer);
+		float[] values = new float[dimensions > 0 ? dimensions : 64];
+		int lineStart = aFrom;
+		while (lineStart < aTo) {
+			int lineEnd = indexOf(aBuffer, lineStart, aTo, (byte) '\n');
+			if (lineEnd < 0) {
+				lineEnd = aTo;
+			}
+			int nextLine = lineEnd + 1;
+			if (lineEnd > lineStart && aBuffer[lineEnd - 1] == '\r') {
+				lineEnd--;
+			}
+
+			int wordEnd = indexOf(aBuffer, lineStart, lineEnd, separator);
+			if (wordEnd < 0) {
+				wordEnd = lineEnd;
+			}
+
+			if (wordEnd > lineStart) {
+				if (filter != null && !filter.contains(aBuffer, lineStart, wordEnd - lineStart)) {
+					block.skipped++;
+				}
+				else {
+					int n = 0;
+					int pos = wordEnd;
+					while (true) {
+						while (pos < lineEnd && aBuffer[pos] == separator) {
+							pos++;
+						}
+						if (pos >= lineEnd) {
+							break;
+						}
+						int valueEnd = indexOf(aBuffer, pos, lineEnd, separator);
+						if (valueEnd < 0) {
+							valueEnd = lineEnd;
+						}
+						if (n == values.length) {
+							values = Arrays.copyOf(values, n * 2);
+						}
+						values[n++] = parseFloat(aBuffer, pos, valueEnd);
+						pos = valueEnd;
+					}
+
+					String word = new String(aBuffer, lineStart, wordEnd - lineStart,
+							StandardCharsets.UTF_8);
+					if (dimensions >= 0 && n != dimensions) {
+						throw new IOException("Expected " + dimensions + " values for [" + word
+								+ "] but found " + n);
+					}
+					block.words.add(word.toLowerCase());
+					block.vectors.add(Arrays.copyOf(values, n));
+				}
+			}
+			lineStart = nextLine;
+		}
+		return block;
+	}
+
+	/**
+	 * Parses a decimal number from ASCII bytes without creating a string. Numbers with up to 18
+	 * significant digits and a decimal exponent within [-22,22] are converted with a single
+	 * double operation. The conversion to float can then differ from
+	 * {@link Float#parseFloat(String)} in the last bit in very rare cases. All other numbers are
+	 * passed to {@link Float#parseFloat(String)}.
+	 */
+	static float parseFloat(byte[] aBuffer, int aFrom, int aTo)
+	{
+		int i = aFrom;
+		boolean negative = false;
+		if (i < aTo && (aBuffer[i] == '-' || aBuffer[i] == '+')) {
+			negative = aBuffer[i] == '-';
+			i++;
+		}
+
+		long mantissa = 0;
+		int digits = 0;
+		int exponent = 0;
+		boolean anyDigits = false;
+		boolean truncated = false;
+		while (i < aTo && aBuffer[i] >= '0' && aBuffer[i] <= '9') {
+			if (digits < 18) {
+				mantissa = mantissa * 10 + (aBuffer[i] - '0');
+				if (mantissa != 0) {
+					digits++;
+				}
+			}
+			else {
+				exponent++;
+				truncated |= aBuffer[i] != '0';
+			}
+			anyDigits = true;
+			i++;
+		}
+		if (i < aTo && aBuffer[i] == '.') {
+			i++;
+			while (i < aTo && aBuffer[i] >= '0' && aBuffer[i] <= '9') {
+				if (digits < 18) {
+					mantissa = mantissa * 10 + (aBuffer[i] - '0');
+					if (mantissa != 0) {
+						digits++;
+					}
+					exponent--;
+				}
+				else {
+					truncated |= aBuffer[i] != '0';
+				}
+				anyDigits = true;
+				i++;
+			}
+		}
+		if (anyDigits && i < aTo && (aBuffer[i] == 'e' || aBuffer[i] == 'E')) {
+			i++;
+			boolean negativeExponent = false;
+			if (i < aTo && (aBuffer[i] == '-' || aBuffer[i] == '+')) {
+				negativeExponent = aBuffer[i] == '-';
+				i++;
+			}
+			int e = 0;
+			boolean anyExponentDigits = false;
+			while (i < aTo && aBuffer[i] >= '0' && aBuffer[i] <= '9' && e < 10000) {
+				e = e * 10 + (aBuffer[i] - '0');
+				anyExponentDigits = true;
+				i++;
+			}
+			if (!anyExponentDigits) {
+				anyDigits = false;
+			}
+			exponent += negativeExponent ? -e : e;
+		}
+
+		if (!anyDigits || truncated || i != aTo) {
+			return Float.parseFloat(new String(aBuffer, aFrom, aTo - aFrom,
+					StandardCharsets.US_ASCII));
+		}
+		if (mantissa == 0) {
+			return negative ? -0.0f : 0.0f;
+		}
+		if (mantissa >= (1L << 53) || exponent < -22 || exponent > 22) {
+			return Float.parseFloat(new String(aBuffer, aFrom, aTo - aFrom,
+					StandardCharsets.US_ASCII));
+		}
+
+		double value = exponent >= 0 ? mantissa * POW10[exponent] : mantissa / POW10[-exponent];
+		return (float) (negative ? -value : value);
+	}
+
+	private static int indexOf(byte[] aBuffer, int aFrom, int aTo, byte aByte)
+	{
+		for (int i = aFrom; i < aTo; i++) {
+			if (aBuffer[i] == aByte) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int lastIndexOf(byte[] aBuffer, int aTo, byte aByte)
+	{
+		for (int i = aTo - 1; i >= 0; i--) {
+			if (aBuffer[i] == aByte) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * The vectors parsed from one block of the file.
+	 */
+	private static class Block
+	{
+		final byte[] buffer;
+		final List<String> words = new ArrayList<String>();
+		final List<float[]> vectors = new ArrayList<float[]>();
+		int skipped;
+
+		Block(byte[] aBuffer)
+		{
+			buffer = aBuffer;
+		}
+	}
+}
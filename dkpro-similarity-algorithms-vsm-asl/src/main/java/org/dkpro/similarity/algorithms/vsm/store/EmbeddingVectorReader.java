@@ -6,28 +6,39 @@ import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.IntStream;
 
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
 import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.apache.commons.compress.compressors.CompressorException;
-import org.apache.commons.compress.compressors.CompressorInputStream;
 import org.apache.commons.compress.compressors.CompressorStreamFactory;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.dkpro.similarity.algorithms.api.SimilarityException;
 import org.dkpro.similarity.algorithms.vsm.store.vectorindex.VectorIndexContract;
+import org.dkpro.similarity.algorithms.vsm.vector.FloatDenseVector;
 
 import no.uib.cipr.matrix.Vector;
-import no.uib.cipr.matrix.sparse.SparseVector;
 
 /**
  * 
@@ -42,11 +53,23 @@ public class EmbeddingVectorReader
 	}
 	
 	public enum EmbeddingEncoding{
-		bin, txt
+		bin, txt,
+		/**
+		 * Memory-mapped vector store, see {@link org.dkpro.similarity.algorithms.vsm.store.mapped.MappedVectorReader}
+		 */
+		mapped
+	}
+	
+	/**
+	 * Receives the embeddings while the embedding file is read.
+	 */
+	public interface EmbeddingHandler {
+		void handle(String word, float[] vector) throws IOException;
 	}
 
 	private static final int MAX_SIZE = 50;
-	private Map<String, double[]> embeddings;
+	private static final int STREAM_BUFFER_SIZE = 1024 * 1024;
+	private Map<String, float[]> embeddings;
 	private final File embeddingsFile; 
 	private final File filterFile;
 	private String valueSeperatorSequence;
@@ -54,6 +77,8 @@ public class EmbeddingVectorReader
 	private EmbeddingEncoding embeddingEncoding;
 	private boolean ignoreRelevantWordsList;
 	private String nameOfSelectedFileInContainer;
+	private int loaderThreads = Runtime.getRuntime().availableProcessors();
+	private long skippedWords;
 	
 	
 	
@@ -69,6 +94,21 @@ public class EmbeddingVectorReader
 		this.nameOfSelectedFileInContainer = nameOfSelectedFileInContainer;
 	}
 	
+	/**
+	 * Sets the number of threads parsing text embedding files. Defaults to the number of
+	 * available processors.
+	 */
+	public void setLoaderThreads(int loaderThreads) {
+		if (loaderThreads < 1) {
+			throw new IllegalArgumentException("loaderThreads must be in [1,)");
+		}
+		this.loaderThreads = loaderThreads;
+	}
+	
+	public int getLoaderThreads() {
+		return loaderThreads;
+	}
+	
 	
 	
 	@Override
@@ -82,9 +122,8 @@ public class EmbeddingVectorReader
 			 }
 		}
 
-		int vectorSize = getEmbeddings().get(term).length;
-		int[] indices = IntStream.range(0, vectorSize).toArray();
-		return new SparseVector(vectorSize, indices, getEmbeddings().get(term));
+		// The vector is read-only, so it can share the array with the embeddings map
+		return new FloatDenseVector(getEmbeddings().get(term));
 	}
 
 	@Override
@@ -92,6 +131,13 @@ public class EmbeddingVectorReader
 		return getEmbeddings().size();
 	}
 
+	/**
+	 * Iterate over the (lower-cased) words of the embedding. This triggers loading the embedding.
+	 */
+	public Iterator<String> getTermIterator() throws SimilarityException {
+		return getEmbeddings().keySet().iterator();
+	}
+
 	@Override
 	public String getId() {
 		return embeddingsFile.getAbsolutePath();
@@ -108,30 +154,72 @@ public class EmbeddingVectorReader
 	/**
 	 * Either triggers loading of embedding or just returns it as a map.
 	 * 
-	 * @return Map<String, double[]>
+	 * @return Map<String, float[]>
 	 * @throws SimilarityException
 	 */
-	private Map<String, double[]> getEmbeddings() throws SimilarityException
+	private Map<String, float[]> getEmbeddings() throws SimilarityException
 	{
 		if (embeddings == null)
 		{
-			embeddings = new HashMap<String, double[]>();
-			switch (embeddingEncoding) {
-				case bin:	loadBinModel();		break;
-				case txt:	loadTextModel();		break;
-				default: System.err.println("Undefinded Encoding of Embedding. "); break;
-			}
+			final Map<String, float[]> map = new HashMap<String, float[]>();
+			readEmbeddings(new EmbeddingHandler()
+			{
+				@Override
+				public void handle(String word, float[] vector)
+				{
+					map.put(word, vector);
+				}
+			});
+			embeddings = map;
 			System.out.printf("Remaining size of embedding %s after intersecting with set of all keys in evaluation set is %d.%n", embeddingsFile.getName(), embeddings.size());
 		}
 		return embeddings;
 	}
 	
-	private void loadTextModel()
+	/**
+	 * Reads the embedding file and passes each (lower-cased) word and its vector to the given
+	 * handler without keeping them in memory. This is used e.g. to convert an embedding file
+	 * into a {@link org.dkpro.similarity.algorithms.vsm.store.mapped.MappedVectorReader mapped
+	 * vector store}.
+	 */
+	public void readEmbeddings(final EmbeddingHandler handler)
+	{
+		long start = System.currentTimeMillis();
+		resetPeakHeapUsage();
+		skippedWords = 0;
+		final long[] count = new long[1];
+		EmbeddingHandler countingHandler = new EmbeddingHandler()
+		{
+			@Override
+			public void handle(String word, float[] vector) throws IOException
+			{
+				count[0]++;
+				handler.handle(word, vector);
+			}
+		};
+		
+		switch (embeddingEncoding) {
+			case bin:	loadBinModel(countingHandler);		break;
+			case txt:	loadTextModel(countingHandler);		break;
+			case mapped: System.err.println("Mapped vector stores have to be read using MappedVectorReader."); return;
+			default: System.err.println("Undefinded Encoding of Embedding. "); return;
+		}
+		
+		System.out.printf("Read %d vectors (%d skipped by filter) from %s in %d ms, peak heap usage %d MB.%n",
+				count[0], skippedWords, embeddingsFile.getName(), System.currentTimeMillis() - start,
+				getPeakHeapUsage() / (1024 * 1024));
+	}
+	
+	private void loadTextModel(EmbeddingHandler handler)
 	{
 		switch (embeddingFormat) {
 		case GLOVE:
 			try {
-				loadTextModelWithoutHeadline();
+				if (isSingleByteSeparator()) {
+					loadTextModelParallel(handler, false);
+				} else {
+					loadTextModelWithoutHeadline(handler);
+				}
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -139,7 +227,11 @@ public class EmbeddingVectorReader
 		case Word2Vec:
 		case FastText:
 			try {
-				loadTextModelWithHeadline();
+				if (isSingleByteSeparator()) {
+					loadTextModelParallel(handler, true);
+				} else {
+					loadTextModelWithHeadline(handler);
+				}
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
@@ -150,12 +242,9 @@ public class EmbeddingVectorReader
 		}
 	}
 	
-	private void loadBinModel()
+	private void loadBinModel(EmbeddingHandler handler)
 	{
-		//handle the different streams causes by different compressions
-		try(CompressorInputStream in = new CompressorStreamFactory().createCompressorInputStream(
-				new BufferedInputStream(new FileInputStream(embeddingsFile)));
-				DataInputStream din = new DataInputStream(in))
+		try
 		{
 			switch (embeddingFormat) {
 			case GLOVE:
@@ -163,30 +252,70 @@ public class EmbeddingVectorReader
 				break;
 			case Word2Vec:
 			case FastText:
-				loadBinModelWithHeadline();
+				loadBinModelWithHeadline(handler);
 				break;
 			default:
 				System.err.println("Should not be reached. No embeddingFormat defined in EmbeddingVectorReader");
 				break;
 			}
 			
-		} catch (FileNotFoundException e) {
-			e.printStackTrace();
 		} catch (IOException e) {
 			e.printStackTrace();
-		} catch (CompressorException e) {
-			e.printStackTrace();
 		}
 	}
 	
 	
+	/**
+	 * Loads a text based embedding using a single byte as separator. The file is read in large
+	 * blocks which are parsed by {@link #getLoaderThreads()} threads, see
+	 * {@link EmbeddingTextParser}. Words not in the filter set are skipped before their vectors
+	 * are parsed.
+	 */
+	private void loadTextModelParallel(EmbeddingHandler handler, boolean headline) throws IOException
+	{
+		Set<String> relevantWords = loadSetOfRelevantWords();
+		EmbeddingTextParser parser = new EmbeddingTextParser(
+				(byte) valueSeperatorSequence.charAt(0), headline,
+				ignoreRelevantWordsList ? null : new Utf8WordSet(relevantWords), loaderThreads,
+				EmbeddingTextParser.DEFAULT_BLOCK_SIZE);
+		
+		InputStream in = openStream();
+		if (in == null) {
+			return;
+		}
+		try
+		{
+			// Uncompressed files are read through their channel, everything else through a stream
+			ReadableByteChannel channel = in instanceof FileInputStream
+					? ((FileInputStream) in).getChannel() : Channels.newChannel(in);
+			parser.parse(channel, handler);
+		}
+		finally
+		{
+			in.close();
+		}
+		skippedWords += parser.getSkipped();
+	}
+	
+	/**
+	 * Whether the separator is a single ASCII character which does not have a special meaning
+	 * in a regular expression. Only then the parallel parser is used. Other separators are
+	 * handled using {@link String#split(String)}.
+	 */
+	private boolean isSingleByteSeparator()
+	{
+		return valueSeperatorSequence.length() == 1 && valueSeperatorSequence.charAt(0) < 128
+				&& ".$|()[]{}^?*+\\".indexOf(valueSeperatorSequence.charAt(0)) < 0;
+	}
+	
+	
 	/**
 	 * Loads a text based embedding with headline.
 	 * Filtering using a set is possible.
 	 * Normally this matches Word2Vec and FastText
 	 * 
 	 */
-	private void loadTextModelWithHeadline() throws IOException
+	private void loadTextModelWithHeadline(EmbeddingHandler handler) throws IOException
 	{
 		try (BufferedReader reader = getReader())
 		{
@@ -196,7 +325,7 @@ public class EmbeddingVectorReader
 	        vecSize = Integer.parseInt(firstLine[1]);
 	        
 	        String[] partsOfLine;
-	        double[] vector;
+	        float[] vector;
 	        Set<String> relevantWords = loadSetOfRelevantWords();
 	
 	        String line;
@@ -206,11 +335,11 @@ public class EmbeddingVectorReader
 	        		partsOfLine = line.split(valueSeperatorSequence);
 	        		word = partsOfLine[0];
 	            if (!ignoreRelevantWordsList && !relevantWords.contains(word)) continue; //abort String to Vector transformation if not on the relevantWordsList
-	            vector = new double[vecSize];
+	            vector = new float[vecSize];
 	            for (int j = 0; j < vecSize; j++) {
-	                vector[j] = Double.parseDouble(partsOfLine[j+1]);
+	                vector[j] = Float.parseFloat(partsOfLine[j+1]);
 	            }
-	            	embeddings.put(word.toLowerCase(), vector);
+	            	handler.handle(word.toLowerCase(), vector);
 	        }
 		}
 	}
@@ -221,11 +350,11 @@ public class EmbeddingVectorReader
 	 * Filtering using a set is possible.
 	 * Normally this is Glove
 	 */
-	private void loadTextModelWithoutHeadline() throws IOException
+	private void loadTextModelWithoutHeadline(EmbeddingHandler handler) throws IOException
 	{
 		try(BufferedReader reader = getReader()){
 			String[] partsOfLine;
-			double[] vector;
+			float[] vector;
 			Set<String> relevantWords = loadSetOfRelevantWords();
 			
 			String line;
@@ -237,11 +366,11 @@ public class EmbeddingVectorReader
 				
 				if (relevantWords.contains(word) || ignoreRelevantWordsList)
 				{
-					vector = new double[partsOfLine.length-1];
+					vector = new float[partsOfLine.length-1];
 					for (int i = 1; i < partsOfLine.length; i++) {
-						vector[i-1] = Double.valueOf(partsOfLine[i]);
+						vector[i-1] = Float.parseFloat(partsOfLine[i]);
 					}
-					embeddings.put(word.toLowerCase(), vector);
+					handler.handle(word.toLowerCase(), vector);
 				}
 				partsOfLine = null;
 			}
@@ -254,38 +383,37 @@ public class EmbeddingVectorReader
 	 * Filtering using a set is possible.
 	 * Normally only Word2Vec but also able to read FastText	
 	 */
-	private void loadBinModelWithHeadline() throws IOException
+	private void loadBinModelWithHeadline(EmbeddingHandler handler) throws IOException
 	{
 		int words, vecSize;
 		Set<String> relevantWords = loadSetOfRelevantWords();
+		Utf8WordSet filter = ignoreRelevantWordsList ? null : new Utf8WordSet(relevantWords);
 		try (DataInputStream dis = getInputStream())
 		{
 	        words = Integer.parseInt(readString(dis));
 	        vecSize = Integer.parseInt(readString(dis));
-	        double[] vector;
-	        String word;
+	        
+	        WordBuffer word = new WordBuffer();
+	        byte[] bytes = new byte[4 * vecSize];
+	        FloatBuffer floats = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
 	        
 	        for (long i = 0; i < words; i++) {
-	        		vector = new double[vecSize];
-	        		word = readString(dis);
-	            	            
-	            int bytesToRead = 4*vecSize;
-	            byte[] bytes = new byte[bytesToRead];
-	            dis.read(bytes);
-	            
+	        		word.read(dis);
 	            
-	            if (!ignoreRelevantWordsList && !relevantWords.contains(word)) continue;  //abort String to Vector transformation if not on the relevantWordsList
-	            
-	            byte[] floatBytes = new byte[4];
-	            for(int j = 0; j < bytesToRead; j = j+4) {
-	            		for (short k = 0 ; k < 4; k++)
-	            		{
-	            			floatBytes[k] = bytes[j+k];
-	            		}
-	            		vector[j/4] = getFloat(floatBytes);
+	            if (filter != null && !filter.contains(word.bytes, 0, word.length)) {
+	            		//abort byte to Vector transformation if not on the relevantWordsList
+	            		skipFully(dis, bytes.length);
+	            		skippedWords++;
+	            		continue;
 	            }
 	            
-	            	embeddings.put(word.toLowerCase(), vector);
+	            dis.readFully(bytes);
+	            float[] vector = new float[vecSize];
+	            // Cast so the call links against Java 8, which has no FloatBuffer.rewind()
+	            ((Buffer) floats).rewind();
+	            floats.get(vector);
+	            
+	            	handler.handle(word.toString().toLowerCase(), vector);
 	        }
 		}
 	}	
@@ -296,8 +424,38 @@ public class EmbeddingVectorReader
 	 * 
 	 * @return BufferedReader
 	 */
-	@SuppressWarnings("resource")
 	private BufferedReader getReader() 
+	{
+		InputStream in = openStream();
+		if (in == null) {
+			System.err.println("Returns a unresolved null value.");
+			return null;
+		}
+		return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+	}
+	
+	
+	/**
+	 * Generate reader for binary based embeddings.
+	 * 
+	 * @return DataInputStream
+	 */
+	private DataInputStream getInputStream()
+	{
+		InputStream in = openStream();
+		return in != null ? new DataInputStream(new BufferedInputStream(in, STREAM_BUFFER_SIZE)) : null;
+	}
+	
+	
+	/**
+	 * Opens the embedding file. Compressed files and zip containers are decompressed.
+	 * Uncompressed files are returned as {@link FileInputStream} so that they can be read through
+	 * their channel.
+	 * 
+	 * @return InputStream
+	 */
+	@SuppressWarnings("resource")
+	private InputStream openStream()
 	{
 		String format = FilenameUtils.getExtension(embeddingsFile.getAbsolutePath());
 		
@@ -312,11 +470,11 @@ public class EmbeddingVectorReader
 				{
 					zae = zf.getEntry(nameOfSelectedFileInContainer);
 					if (zae == null) throw new RuntimeException("Selected file from container file does not exist. (PARAM_CONTAINER_FILE)");
-					return new BufferedReader(new InputStreamReader(zf.getInputStream(zae)));
+					return zf.getInputStream(zae);
 				} else {
 					ArrayList<ZipArchiveEntry> list = Collections.list(zf.getEntries());
 					if (list.size() >= 1) {
-						return new BufferedReader(new InputStreamReader(zf.getInputStream(list.get(0))));
+						return zf.getInputStream(list.get(0));
 					}else {
 						try {
 							zf.close();
@@ -331,94 +489,110 @@ public class EmbeddingVectorReader
 		}
 		else
 		{
+			BufferedInputStream in = null;
 			try
 			{
-				CompressorInputStream in = new CompressorStreamFactory().createCompressorInputStream(
-						new BufferedInputStream(new FileInputStream(embeddingsFile)));
-				BufferedReader reader = new BufferedReader(new InputStreamReader(in));
-				return reader;
+				in = new BufferedInputStream(new FileInputStream(embeddingsFile));
+				return new CompressorStreamFactory().createCompressorInputStream(in);
 			} catch (FileNotFoundException e) {
 				e.printStackTrace();
 			} catch (CompressorException e) {
-				e.printStackTrace();
+				// Not compressed
+				IOUtils.closeQuietly(in);
+				try {
+					return new FileInputStream(embeddingsFile);
+				} catch (FileNotFoundException e1) {
+					e1.printStackTrace();
+				}
 			}
 		}
-		
-		System.err.println("Returns a unresolved null value.");
 		return null;
 	}
 	
 	
 	/**
-	 * Generate reader for binary based embeddings.
-	 * 
-	 * @return DataInputStream
+	 * Clears the peak usage of the heap memory pools so that {@link #getPeakHeapUsage()}
+	 * reports the peak while loading.
 	 */
-	@SuppressWarnings("resource")
-	private DataInputStream getInputStream()
+	private static void resetPeakHeapUsage()
 	{
-		String format = FilenameUtils.getExtension(embeddingsFile.getAbsolutePath());
-		
-		//handle the different streams causes by different compressions		
-		if ("zip".equals(format))
-		{
-			try {
-				ZipFile zf = new ZipFile(embeddingsFile);
-				ZipArchiveEntry zae;
-				if (!"".equals(nameOfSelectedFileInContainer))
-				{
-					zae = zf.getEntry(nameOfSelectedFileInContainer);
-					if (zae == null) throw new RuntimeException("Selected file from container file does not exist. (PARAM_CONTAINER_FILE)");
-					return new DataInputStream(zf.getInputStream(zae));
-				} else {
-					ArrayList<ZipArchiveEntry> list = Collections.list(zf.getEntries());
-					if (list.size() >= 1) {
-						return new DataInputStream(zf.getInputStream(list.get(0)));
-					}else {
-						try {
-							zf.close();
-						} catch (Exception e) {
-							e.printStackTrace();
-						}
-					}
-				} 
-			}catch (IOException e) {
-				e.printStackTrace();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				pool.resetPeakUsage();
 			}
 		}
-		else
-		{
-			try
-			{
-				CompressorInputStream in = new CompressorStreamFactory().createCompressorInputStream(
-						new BufferedInputStream(new FileInputStream(embeddingsFile)));
-				DataInputStream din = new DataInputStream(in);
-				return din;
-			} catch (FileNotFoundException e) {
-				e.printStackTrace();
-			} catch (CompressorException e) {
-				e.printStackTrace();
+	}
+	
+	/**
+	 * Sum of the peak usage of the heap memory pools. The pools may peak at different times,
+	 * so this is an upper bound of the actual peak.
+	 */
+	private static long getPeakHeapUsage()
+	{
+		long peak = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if (pool.getType() == MemoryType.HEAP && pool.isValid()) {
+				peak += pool.getPeakUsage().getUsed();
 			}
 		}
-		return null;
+		return peak;
 	}
 	
     
+    private static void skipFully(DataInputStream dis, int n)
+        throws IOException
+    {
+        int left = n;
+        while (left > 0) {
+            int skipped = dis.skipBytes(left);
+            if (skipped <= 0) {
+                // skipBytes may give up early, readByte tells EOF apart from that
+                dis.readByte();
+                skipped = 1;
+            }
+            left -= skipped;
+        }
+    }
+    
     /**
-     * Read a string from a data input stream Credit to:
-     * https://github.com/NLPchina/Word2VEC_java/blob/master/src/com/ansj/vec/Word2VEC.java
-     *
-     * @param b
-     * @return
+     * Reusable buffer for the words of a binary embedding file, so that words which are not in
+     * the filter set are never decoded into a string.
      */
-    private float getFloat(byte[] b)
+    private static class WordBuffer
     {
-        int accum = 0;
-        accum = accum | (b[0] & 0xff) << 0;
-        accum = accum | (b[1] & 0xff) << 8;
-        accum = accum | (b[2] & 0xff) << 16;
-        accum = accum | (b[3] & 0xff) << 24;
-        return Float.intBitsToFloat(accum);
+        byte[] bytes = new byte[MAX_SIZE];
+        int length;
+        
+        /**
+         * Reads the next word. Word2Vec terminates each vector with a line feed which is skipped
+         * here.
+         */
+        void read(DataInputStream dis)
+            throws IOException
+        {
+            length = 0;
+            byte b = dis.readByte();
+            while (b == 10) {
+                b = dis.readByte();
+            }
+            /*
+             * ASCII 32 is SPACE
+             * ASCII 10 is LF which means LineFeed
+             */
+            while (b != 32 && b != 10) {
+                if (length == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, length * 2);
+                }
+                bytes[length++] = b;
+                b = dis.readByte();
+            }
+        }
+        
+        @Override
+        public String toString()
+        {
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
     }
 
     /**
@@ -470,7 +644,7 @@ public class EmbeddingVectorReader
     			System.out.printf("Number of words in filter set is %d because it shoult not be loaded. (var ignoreRelevantWordsList)%n", setOfRelevantWords.size());
     			return setOfRelevantWords;
     		}
-	    	try (BufferedReader br = new BufferedReader(new FileReader(filterFile))) {
+	    	try (BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(filterFile), StandardCharsets.UTF_8))) {
 	    	    String line;
 	    	    while ((line = br.readLine()) != null) {
 	    	       setOfRelevantWords.add(line.trim());
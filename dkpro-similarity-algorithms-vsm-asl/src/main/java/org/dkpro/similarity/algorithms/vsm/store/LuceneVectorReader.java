@@ -17,23 +17,49 @@
  *******************************************************************************/
 package org.dkpro.similarity.algorithms.vsm.store;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.index.TermDocs;
 import org.apache.lucene.index.TermEnum;
-import org.apache.lucene.index.TermFreqVector;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.store.FSDirectory;
 import org.dkpro.similarity.algorithms.api.SimilarityException;
+import org.dkpro.similarity.algorithms.vsm.util.CacheMetrics;
+import org.dkpro.similarity.algorithms.vsm.util.ConcurrentCache;
+
+import no.uib.cipr.matrix.Vector;
 
 /**
  * Vector reader using an Lucene index.
+ * <p>
+ * The postings of recently used terms are kept in a cache bounded by the total number of
+ * postings, see {@link #setPostingsCacheSize(long)}. The document lengths and the vocabulary
+ * size needed by {@link WeightingModeTf#normalized} are computed on first use. They can be
+ * stored with the index using {@link #writeStatistics()}, so that later readers do not have to
+ * scan the whole index again.
  *
  * @author Richard Eckart de Castilho
  */
@@ -42,19 +68,62 @@ public class LuceneVectorReader
 {
 	public static final String FIELD_NAME = "token";
 
+	/**
+	 * Name of the file in the index folder holding the document lengths and the vocabulary size.
+	 */
+	public static final String STATISTICS_FILE_NAME = "dkpro-statistics.bin";
+
+	/**
+	 * Default maximum number of postings in the cache (about 8 MB).
+	 */
+	public static final long DEFAULT_POSTINGS_CACHE_SIZE = 1000000;
+
+	private static final int STATISTICS_MAGIC = 0x444b5354;
+	private static final int STATISTICS_VERSION = 1;
+
 	private final File path;
 
 	private IndexReader reader;
-	private Map<Integer, Integer> documentVocabularySizes;
+	private int[] documentLengths;
 	private int indexVocabularySize = -1;
+	private boolean statisticsFileChecked;
+
+	private long postingsCacheSize = DEFAULT_POSTINGS_CACHE_SIZE;
+	private ConcurrentCache<String, Postings> postingsCache;
+
+	// The postings last used are kept even if they are too large for the cache, because
+	// getVector() asks for the frequency of each of their documents in turn.
 	private String termBuffer;
-	private Map<Integer, Integer> termFrequencies;
+	private Postings termPostings;
 
 	public LuceneVectorReader(File aPath)
 	{
 		path = aPath;
 	}
 
+	/**
+	 * Set the maximum total number of postings (document/frequency pairs) which are cached.
+	 * The postings of a single term larger than this are not cached. Zero disables the cache.
+	 */
+	public void setPostingsCacheSize(long aPostingsCacheSize)
+	{
+		postingsCacheSize = aPostingsCacheSize;
+		postingsCache = null;
+	}
+
+	public long getPostingsCacheSize()
+	{
+		return postingsCacheSize;
+	}
+
+	/**
+	 * Get the metrics of the postings cache or {@code null} if the cache is disabled.
+	 */
+	public CacheMetrics getPostingsCacheMetrics()
+	{
+		return getPostingsCache();
+	}
+
 	@Override
 	public String getId()
 	{
@@ -68,6 +137,49 @@ public class LuceneVectorReader
 		return getReader().numDocs();
 	}
 
+	/**
+	 * Visits the terms in index order, re-positioning a single {@link TermDocs} on each term
+	 * instead of opening a new one per term.
+	 */
+	@Override
+	public Map<String, Vector> getVectors(Collection<String> aTerms)
+		throws SimilarityException
+	{
+		List<String> terms = new ArrayList<String>(new HashSet<String>(aTerms));
+		Collections.sort(terms);
+
+		Map<String, Vector> vectors = new HashMap<String, Vector>();
+		TermDocs termDocs = null;
+		try {
+			for (String term : terms) {
+				if (!term.equals(termBuffer) && getCachedPostings(term) == null) {
+					if (termDocs == null) {
+						termDocs = getReader().termDocs();
+					}
+					usePostings(term, readPostings(termDocs, term));
+				}
+				Vector vector = getVector(term);
+				if (vector != null) {
+					vectors.put(term, vector);
+				}
+			}
+			return vectors;
+		}
+		catch (IOException e) {
+			throw new SimilarityException(e);
+		}
+		finally {
+			if (termDocs != null) {
+				try {
+					termDocs.close();
+				}
+				catch (IOException e) {
+					// Ignore
+				}
+			}
+		}
+	}
+
 	@Override
 	public int getDocumentFrequency(String aTerm)
 		throws SimilarityException
@@ -85,43 +197,91 @@ public class LuceneVectorReader
 	public Set<Integer> getDocuments(String aTerm)
 		throws SimilarityException
 	{
-		return getTermFrequenies(aTerm).keySet();
+		return getPostings(aTerm).documentSet();
 	}
 
 	@Override
 	public int getTermFrequency(int aDocId, String aTerm)
 		throws SimilarityException
 	{
-		Integer count = getTermFrequenies(aTerm).get(aDocId);
-		return (count == null) ? 0 : count;
+		return getPostings(aTerm).getFrequency(aDocId);
 	}
 
+	/**
+	 * Get the number of terms in the index. The number is computed on first use unless it has
+	 * been stored with the index using {@link #writeStatistics()}.
+	 */
 	@Override
 	public int getIndexVocabularySize()
 		throws SimilarityException
 	{
-		try {
-			if (indexVocabularySize == -1) {
+		if (indexVocabularySize == -1) {
+			readStatistics();
+		}
+
+		if (indexVocabularySize == -1) {
+			try {
 				int iTerms = 0;
-				TermEnum te = reader.terms();
+				TermEnum te = getReader().terms();
 				while (te.next()) {
 					iTerms++;
 				}
+				te.close();
 				indexVocabularySize = iTerms;
 			}
-			return indexVocabularySize;
-		}
-		catch (IOException e) {
-			throw new SimilarityException(e);
+			catch (IOException e) {
+				throw new SimilarityException(e);
+			}
 		}
-
+		return indexVocabularySize;
 	}
 
+	/**
+	 * Get the number of distinct terms in the given document. The lengths of all documents are
+	 * computed on first use unless they have been stored with the index using
+	 * {@link #writeStatistics()}.
+	 */
 	@Override
 	public int getDocumentLength(int aDocId)
 		throws SimilarityException
 	{
-		return getDocumentVocabularySizes().get(aDocId);
+		int[] lengths = getDocumentLengths();
+		return aDocId < lengths.length ? lengths[aDocId] : 0;
+	}
+
+	/**
+	 * Compute the document lengths and the vocabulary size and store them in
+	 * {@link #STATISTICS_FILE_NAME} in the index folder. Readers opened later on the same,
+	 * unchanged index read them from there instead of scanning the index. If the index is
+	 * changed afterwards, the file is ignored.
+	 */
+	public void writeStatistics()
+		throws SimilarityException
+	{
+		int[] lengths = getDocumentLengths();
+		int vocabularySize = getIndexVocabularySize();
+
+		File file = new File(path, STATISTICS_FILE_NAME);
+		DataOutputStream out = null;
+		try {
+			out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			out.writeInt(STATISTICS_MAGIC);
+			out.writeInt(STATISTICS_VERSION);
+			out.writeLong(getReader().getVersion());
+			out.writeInt(vocabularySize);
+			out.writeInt(lengths.length);
+			for (int length : lengths) {
+				out.writeInt(length);
+			}
+			out.close();
+			out = null;
+		}
+		catch (IOException e) {
+			throw new SimilarityException(e);
+		}
+		finally {
+			IOUtils.closeQuietly(out);
+		}
 	}
 
 	@Override
@@ -137,72 +297,171 @@ public class LuceneVectorReader
 		}
 	}
 
-	private Map<Integer, Integer> getDocumentVocabularySizes()
+	private int[] getDocumentLengths()
 		throws SimilarityException
 	{
-		try {
-			if (documentVocabularySizes == null) {
-				documentVocabularySizes = new HashMap<Integer, Integer>();
-
-				for (int documentID = 0; documentID < reader.maxDoc(); documentID++) {
-
-					if (!reader.isDeleted(documentID)) {
-						TermFreqVector tfv = reader.getTermFreqVector(documentID, FIELD_NAME);
-						if (tfv == null) {
-							continue;
-						}
+		if (documentLengths == null) {
+			readStatistics();
+		}
 
-						documentVocabularySizes.put(documentID, tfv.size());
+		if (documentLengths == null) {
+			// Count the documents of each term instead of loading the term vector of each
+			// document. This reads the postings sequentially and does not require term vectors.
+			TermEnum terms = null;
+			TermDocs termDocs = null;
+			try {
+				IndexReader r = getReader();
+				int[] lengths = new int[r.maxDoc()];
+				terms = r.terms(new Term(FIELD_NAME, ""));
+				termDocs = r.termDocs();
+				do {
+					Term term = terms.term();
+					if (term == null || !FIELD_NAME.equals(term.field())) {
+						break;
+					}
+					termDocs.seek(terms);
+					while (termDocs.next()) {
+						lengths[termDocs.doc()]++;
 					}
 				}
+				while (terms.next());
+				documentLengths = lengths;
+			}
+			catch (IOException e) {
+				throw new SimilarityException(e);
+			}
+			finally {
+				closeQuietly(terms);
+				closeQuietly(termDocs);
 			}
+		}
+
+		return documentLengths;
+	}
+
+	/**
+	 * Read the statistics stored with the index if they are present and match the index.
+	 */
+	private void readStatistics()
+		throws SimilarityException
+	{
+		if (statisticsFileChecked) {
+			return;
+		}
+		statisticsFileChecked = true;
+
+		File file = new File(path, STATISTICS_FILE_NAME);
+		if (!file.isFile()) {
+			return;
+		}
 
-			return documentVocabularySizes;
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+			if (in.readInt() != STATISTICS_MAGIC || in.readInt() != STATISTICS_VERSION
+					|| in.readLong() != getReader().getVersion()) {
+				// Written by another version or for an older state of the index
+				return;
+			}
+			int vocabularySize = in.readInt();
+			int[] lengths = new int[in.readInt()];
+			for (int i = 0; i < lengths.length; i++) {
+				lengths[i] = in.readInt();
+			}
+			indexVocabularySize = vocabularySize;
+			documentLengths = lengths;
 		}
 		catch (IOException e) {
 			throw new SimilarityException(e);
 		}
+		finally {
+			IOUtils.closeQuietly(in);
+		}
 	}
 
-	private Map<Integer, Integer> getTermFrequenies(String aTerm) throws SimilarityException
+	private Postings getPostings(String aTerm)
+		throws SimilarityException
 	{
-		// Return buffered IDs.
-		if (aTerm.equals(termBuffer) && termFrequencies != null) {
-			return termFrequencies;
+		// Return buffered postings.
+		if (aTerm.equals(termBuffer)) {
+			return termPostings;
 		}
 
-		// Fetch the IDs from the index and at the same time cache the term frequencies.
-		TermDocs termDocs = null;
-		try {
-			Term term = new Term(FIELD_NAME, aTerm);
-			termDocs = getReader().termDocs(term);
-
-			termBuffer = aTerm;
-			termFrequencies = new HashMap<Integer, Integer>();
-
-			// the semantics of lucene next() is different from java.util.collections, initial
-			// next() is required (do not transform into do while loop)
-			while (termDocs.next()) {
-				termFrequencies.put(termDocs.doc(), termDocs.freq());
+		Postings postings = getCachedPostings(aTerm);
+		if (postings == null) {
+			TermDocs termDocs = null;
+			try {
+				termDocs = getReader().termDocs();
+				postings = readPostings(termDocs, aTerm);
+			}
+			catch (IOException e) {
+				throw new SimilarityException(e);
+			}
+			finally {
+				closeQuietly(termDocs);
 			}
+		}
+		usePostings(aTerm, postings);
+		return postings;
+	}
+
+	private Postings getCachedPostings(String aTerm)
+	{
+		ConcurrentCache<String, Postings> cache = getPostingsCache();
+		return cache != null ? cache.get(aTerm) : null;
+	}
 
-			return termFrequencies;
+	private void usePostings(String aTerm, Postings aPostings)
+	{
+		termBuffer = aTerm;
+		termPostings = aPostings;
+		ConcurrentCache<String, Postings> cache = getPostingsCache();
+		if (cache != null) {
+			cache.put(aTerm, aPostings);
 		}
-		catch (IOException e) {
-			termBuffer = null;
-			termFrequencies = null;
-			throw new SimilarityException(e);
+	}
+
+	private ConcurrentCache<String, Postings> getPostingsCache()
+	{
+		if (postingsCache == null && postingsCacheSize > 0) {
+			postingsCache = new ConcurrentCache<String, Postings>(postingsCacheSize,
+					new ConcurrentCache.Weigher<String, Postings>()
+					{
+						@Override
+						public long weigh(String aKey, Postings aValue)
+						{
+							// Count the entry itself, otherwise terms without postings are free
+							return aValue.docs.length + 1;
+						}
+					}, 0, TimeUnit.MILLISECONDS);
 		}
-		finally {
-			if (termDocs != null) {
-				try {
-					termDocs.close();
-				}
-				catch (IOException e) {
-					return null;
-				}
+		return postingsCache;
+	}
+
+	/**
+	 * Position the given term docs on the given term and read its postings.
+	 */
+	private Postings readPostings(TermDocs aTermDocs, String aTerm)
+		throws IOException
+	{
+		aTermDocs.seek(new Term(FIELD_NAME, aTerm));
+
+		int[] docs = new int[16];
+		int[] freqs = new int[16];
+		int n = 0;
+		// the semantics of lucene next() is different from java.util.collections, initial
+		// next() is required (do not transform into do while loop)
+		while (aTermDocs.next()) {
+			if (n == docs.length) {
+				docs = Arrays.copyOf(docs, n * 2);
+				freqs = Arrays.copyOf(freqs, n * 2);
 			}
+			docs[n] = aTermDocs.doc();
+			freqs[n] = aTermDocs.freq();
+			n++;
 		}
+
+		return new Postings(Arrays.copyOf(docs, n), Arrays.copyOf(freqs, n));
 	}
 
 	private IndexReader getReader()
@@ -221,4 +480,109 @@ public class LuceneVectorReader
 			throw new SimilarityException(e);
 		}
 	}
+
+	private static void closeQuietly(TermEnum aTermEnum)
+	{
+		if (aTermEnum != null) {
+			try {
+				aTermEnum.close();
+			}
+			catch (IOException e) {
+				// Ignore
+			}
+		}
+	}
+
+	private static void closeQuietly(TermDocs aTermDocs)
+	{
+		if (aTermDocs != null) {
+			try {
+				aTermDocs.close();
+			}
+			catch (IOException e) {
+				// Ignore
+			}
+		}
+	}
+
+	/**
+	 * The documents containing a term in ascending order and the frequency of the term in each
+	 * of them.
+	 */
+	private static final class Postings
+	{
+		final int[] docs;
+		final int[] freqs;
+
+		// Position of the last lookup. Documents are usually looked up in order.
+		private int last = -1;
+
+		Postings(int[] aDocs, int[] aFreqs)
+		{
+			docs = aDocs;
+			freqs = aFreqs;
+		}
+
+		int getFrequency(int aDocId)
+		{
+			int i = last + 1;
+			if (i >= docs.length || docs[i] != aDocId) {
+				i = Arrays.binarySearch(docs, aDocId);
+				if (i < 0) {
+					return 0;
+				}
+			}
+			last = i;
+			return freqs[i];
+		}
+
+		Set<Integer> documentSet()
+		{
+			return new AbstractSet<Integer>()
+			{
+				@Override
+				public Iterator<Integer> iterator()
+				{
+					return new Iterator<Integer>()
+					{
+						private int i;
+
+						@Override
+						public boolean hasNext()
+						{
+							return i < docs.length;
+						}
+
+						@Override
+						public Integer next()
+						{
+							if (i >= docs.length) {
+								throw new NoSuchElementException();
+							}
+							return docs[i++];
+						}
+
+						@Override
+						public void remove()
+						{
+							throw new UnsupportedOperationException();
+						}
+					};
+				}
+
+				@Override
+				public boolean contains(Object aObject)
+				{
+					return aObject instanceof Integer
+							&& Arrays.binarySearch(docs, (Integer) aObject) >= 0;
+				}
+
+				@Override
+				public int size()
+				{
+					return docs.length;
+				}
+			};
+		}
+	}
 }
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.store;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * Set of words which can be queried with the UTF-8 bytes of a word, e.g. straight from a file
+ * buffer, without decoding them into a {@link String} first. The set is immutable and can be
+ * queried from multiple threads.
+ */
+final class Utf8WordSet
+{
+	private final byte[][] words;
+	private final int[] hashes;
+	private final int mask;
+	private final int size;
+
+	public Utf8WordSet(Collection<String> aWords)
+	{
+		int capacity = 16;
+		while (capacity < aWords.size() * 2) {
+			capacity <<= 1;
+		}
+		words = new byte[capacity][];
+		hashes = new int[capacity];
+		mask = capacity - 1;
+
+		int count = 0;
+		for (String word : aWords) {
+			byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+			int hash = hash(bytes, 0, bytes.length);
+			int slot = hash & mask;
+			while (words[slot] != null) {
+				if (hashes[slot] == hash && equals(words[slot], bytes, 0, bytes.length)) {
+					break;
+				}
+				slot = (slot + 1) & mask;
+			}
+			if (words[slot] == null) {
+				words[slot] = bytes;
+				hashes[slot] = hash;
+				count++;
+			}
+		}
+		size = count;
+	}
+
+	public boolean contains(byte[] aBuffer, int aOffset, int aLength)
+	{
+		int hash = hash(aBuffer, aOffset, aLength);
+		int slot = hash & mask;
+		while (words[slot] != null) {
+			if (hashes[slot] == hash && equals(words[slot], aBuffer, aOffset, aLength)) {
+				return true;
+			}
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	public int size()
+	{
+		return size;
+	}
+
+	private static int hash(byte[] aBuffer, int aOffset, int aLength)
+	{
+		int hash = 0;
+		for (int i = aOffset; i < aOffset + aLength; i++) {
+			hash = 31 * hash + aBuffer[i];
+		}
+		// Spread the bits, the slot is taken from the low bits only
+		return hash ^ (hash >>> 16);
+	}
+
+	private static boolean equals(byte[] aWord, byte[] aBuffer, int aOffset, int aLength)
+	{
+		if (aWord.length != aLength) {
+			return false;
+		}
+		for (int i = 0; i < aLength; i++) {
+			if (aWord[i] != aBuffer[aOffset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
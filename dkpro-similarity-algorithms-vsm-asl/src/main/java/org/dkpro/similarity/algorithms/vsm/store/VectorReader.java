@@ -19,6 +19,7 @@ package org.dkpro.similarity.algorithms.vsm.store;
 
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -26,6 +27,8 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.dkpro.similarity.algorithms.api.SimilarityException;
 import org.dkpro.similarity.algorithms.vsm.VectorAggregation;
 import org.dkpro.similarity.algorithms.vsm.VectorAggregationStrategy;
+import org.dkpro.similarity.algorithms.vsm.VectorAggregationStrategy.CentroidVectorAggregation;
+import org.dkpro.similarity.algorithms.vsm.VectorAggregationStrategy.SumVectorAggregation;
 
 import no.uib.cipr.matrix.DenseVector;
 import no.uib.cipr.matrix.Vector;
@@ -75,10 +78,13 @@ public abstract class VectorReader
 			}
 		}
 
+		// Fetch all term vectors at once
+		Map<String, Vector> vectors = getVectors(counts.keySet());
+
 		// Accumulate the vector
 		VectorAggregationStrategy agg = vectorAggregationTemplate.newInstance();
 		for (Entry<String, AtomicInteger> e : counts.entrySet()) {
-			Vector termVec = getVector(e.getKey());
+			Vector termVec = vectors.get(e.getKey());
 			if (termVec == null) {
 				continue;
 			}
@@ -99,6 +105,79 @@ public abstract class VectorReader
 		return agg.get();
 	}
 
+	/**
+	 * Get the concept vectors for the given terms. The default implementation calls
+	 * {@link #getVector(String)} once per distinct term. Readers which can fetch several vectors
+	 * more efficiently than one at a time should override this method.
+	 *
+	 * @param terms a list of terms, may contain duplicates.
+	 * @return a map from each term which was found to its concept vector.
+	 */
+	public Map<String, Vector> getVectors(Collection<String> terms)
+		throws SimilarityException
+	{
+		Map<String, Vector> vectors = new HashMap<String, Vector>();
+		for (String term : new HashSet<String>(terms)) {
+			Vector vector = getVector(term);
+			if (vector != null) {
+				vectors.put(term, vector);
+			}
+		}
+		return vectors;
+	}
+
+	/**
+	 * Get the L2 norm of the concept vector for the given term if it is known without loading
+	 * the vector, e.g. because the reader stores precomputed norms. The default implementation
+	 * does not know any norms.
+	 *
+	 * @return the norm or a negative value if it is not known or the term has no vector.
+	 */
+	public double getNorm2(String term)
+		throws SimilarityException
+	{
+		return -1.0;
+	}
+
+	/**
+	 * Get the L2 norm of the vector which {@link #getVector(Collection)} returns for the given
+	 * terms if it is known without loading vectors. This is the case for a single distinct term
+	 * whose norm is known, aggregated by the {@link VectorAggregation#SUM sum} or the
+	 * {@link VectorAggregation#CENTROID centroid} strategy.
+	 *
+	 * @return the norm or a negative value if it is not known.
+	 */
+	public final double getNorm2(Collection<String> terms)
+		throws SimilarityException
+	{
+		if (terms == null || terms.isEmpty()) {
+			return -1.0;
+		}
+
+		String term = terms.iterator().next();
+		for (String t : terms) {
+			if (!term.equals(t)) {
+				return -1.0;
+			}
+		}
+
+		double norm = getNorm2(term);
+		if (norm < 0.0) {
+			return -1.0;
+		}
+
+		Class<?> aggregation = vectorAggregationTemplate.getClass();
+		if (aggregation == CentroidVectorAggregation.class) {
+			return norm;
+		}
+		else if (aggregation == SumVectorAggregation.class) {
+			return norm * terms.size();
+		}
+		else {
+			return -1.0;
+		}
+	}
+
 	/**
 	 * Get the number of concepts known to this source. This is equivalent to the size of the
 	 * concept vectors.
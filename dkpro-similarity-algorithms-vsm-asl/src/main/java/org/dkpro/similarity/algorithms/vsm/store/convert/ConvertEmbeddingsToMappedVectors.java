@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.store.convert;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.dkpro.similarity.algorithms.vsm.store.EmbeddingVectorReader;
+import org.dkpro.similarity.algorithms.vsm.store.EmbeddingVectorReader.EmbeddingEncoding;
+import org.dkpro.similarity.algorithms.vsm.store.EmbeddingVectorReader.EmbeddingFormat;
+import org.dkpro.similarity.algorithms.vsm.store.EmbeddingVectorReader.EmbeddingHandler;
+import org.dkpro.similarity.algorithms.vsm.store.mapped.MappedVectorReader;
+import org.dkpro.similarity.algorithms.vsm.store.mapped.MappedVectorWriter;
+import org.dkpro.similarity.algorithms.vsm.util.ProgressMeter;
+
+/**
+ * Convert a GloVe, Word2Vec or FastText embedding file (as read by {@link EmbeddingVectorReader})
+ * to a memory-mapped vector store which can be read using {@link MappedVectorReader}. This only
+ * needs to be done once per embedding file.
+ * <p>
+ * Usage: {@code <embedding file> <GLOVE|Word2Vec|FastText> <txt|bin> <output file>
+ * [<filter file> [<file in container> [<value separator>]]]}
+ */
+public class ConvertEmbeddingsToMappedVectors
+{
+	public static void main(String[] args)
+		throws Exception
+	{
+		File inputFile = new File(args[0]);
+		EmbeddingFormat format = EmbeddingFormat.valueOf(args[1]);
+		EmbeddingEncoding encoding = EmbeddingEncoding.valueOf(args[2]);
+		File outputFile = new File(args[3]);
+		File filterFile = new File(args.length > 4 ? args[4] : "");
+		String fileInContainer = args.length > 5 ? args[5] : "";
+		String separator = args.length > 6 ? args[6] : " ";
+
+		convert(new EmbeddingVectorReader(inputFile, format, encoding, filterFile,
+				fileInContainer, separator), outputFile);
+	}
+
+	/**
+	 * Stream all embeddings from the given reader into a new mapped vector store.
+	 *
+	 * @return the number of vectors written.
+	 */
+	public static long convert(EmbeddingVectorReader aSource, final File aOutputFile)
+		throws IOException
+	{
+		final MappedVectorWriter[] writer = new MappedVectorWriter[1];
+		final ProgressMeter p = new ProgressMeter(0);
+
+		System.out.println("Converting embeddings " + aSource.getId() + " to " + aOutputFile);
+		aSource.readEmbeddings(new EmbeddingHandler()
+		{
+			@Override
+			public void handle(String aWord, float[] aVector)
+				throws IOException
+			{
+				if (writer[0] == null) {
+					// The dimension is only known once the first vector has been read
+					writer[0] = new MappedVectorWriter(aOutputFile, aVector.length);
+				}
+				writer[0].put(aWord, aVector);
+
+				p.next();
+				if (p.getCount() % 100000 == 0) {
+					System.out.println(p);
+				}
+			}
+		});
+
+		if (writer[0] == null) {
+			throw new IOException("No embeddings found in " + aSource.getId());
+		}
+		writer[0].close();
+
+		System.out.println("Wrote " + p.getCount() + " vectors");
+		return p.getCount();
+	}
+}
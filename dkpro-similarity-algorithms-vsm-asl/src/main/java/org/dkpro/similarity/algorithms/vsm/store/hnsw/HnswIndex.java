@@ -0,0 +1,670 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.store.hnsw;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.dkpro.similarity.algorithms.api.SimilarityException;
+import org.dkpro.similarity.algorithms.vsm.store.VectorReader;
+import org.dkpro.similarity.algorithms.vsm.vector.FloatDenseVector;
+import org.dkpro.similarity.algorithms.vsm.vector.FloatSparseVector;
+import org.dkpro.similarity.algorithms.vsm.vector.VectorKernels;
+
+import no.uib.cipr.matrix.DenseVector;
+import no.uib.cipr.matrix.Vector;
+
+/**
+ * Approximate nearest-neighbour index finding the terms most similar to a query by cosine, based
+ * on a Hierarchical Navigable Small World (HNSW) graph. The index can be built from any
+ * {@link VectorReader} given the vocabulary to include, e.g. the term iterator of a
+ * {@code VectorIndexReader}, {@code MappedVectorReader}, {@code EmbeddingVectorReader} or
+ * {@code SSpaceVectorReader}:
+ * <pre>
+ * {@code
+ * HnswIndex index = HnswIndex.build(reader, reader.getTermIterator());
+ * index.save(new File("target/embeddings.hnsw"));
+ * List<Neighbor> related = index.getNearest("car", 10);
+ * }
+ * </pre>
+ * The vectors are stored L2-normalized with {@code float} precision, dense vectors as
+ * {@link FloatDenseVector} and sparse vectors as {@link FloatSparseVector}. Recall is traded
+ * against speed using the size of the candidate list during construction and during search (see
+ * {@link #setEf(int)}).
+ * <p>
+ * Adding terms is not thread-safe. Once the index has been built, it can be queried concurrently.
+ *
+ * @see <a href="https://arxiv.org/abs/1603.09320">Malkov and Yashunin: Efficient and robust
+ *      approximate nearest neighbor search using Hierarchical Navigable Small World graphs</a>
+ */
+public class HnswIndex
+{
+	public static final int MAGIC = 0x444b484e; // DKHN
+	public static final int VERSION = 1;
+
+	public static final int DEFAULT_M = 16;
+	public static final int DEFAULT_EF_CONSTRUCTION = 200;
+	public static final int DEFAULT_EF = 50;
+
+	private static final int DENSE = 0;
+	private static final int SPARSE = 1;
+
+	private static final int BATCH_SIZE = 1000;
+
+	private final int m;
+	private final int efConstruction;
+	private final double levelFactor;
+	private final Random random = new Random(42);
+
+	private int ef = DEFAULT_EF;
+
+	private final List<String> terms = new ArrayList<String>();
+	private final Map<String, Integer> ids = new HashMap<String, Integer>();
+	private final List<Vector> vectors = new ArrayList<Vector>();
+
+	/**
+	 * Per node and level the number of neighbours followed by the neighbour ids.
+	 */
+	private final List<int[][]> links = new ArrayList<int[][]>();
+
+	private int entryPoint = -1;
+	private int maxLevel = -1;
+
+	public HnswIndex()
+	{
+		this(DEFAULT_M, DEFAULT_EF_CONSTRUCTION);
+	}
+
+	/**
+	 * @param aM
+	 *            the number of neighbours per node and level. Twice as many are kept on the
+	 *            lowest level. Higher values improve recall for high-dimensional data at the cost
+	 *            of memory and indexing time.
+	 * @param aEfConstruction
+	 *            the number of candidates considered when inserting a node. Higher values yield a
+	 *            better graph at the cost of indexing time.
+	 */
+	public HnswIndex(int aM, int aEfConstruction)
+	{
+		if (aM < 2) {
+			throw new IllegalArgumentException("M must be at least 2 but was [" + aM + "]");
+		}
+		m = aM;
+		efConstruction = Math.max(aEfConstruction, aM);
+		levelFactor = 1.0 / Math.log(aM);
+	}
+
+	/**
+	 * Build an index over the vectors of the given terms. Terms without a vector in the reader
+	 * and terms with a zero vector are skipped.
+	 */
+	public static HnswIndex build(VectorReader aReader, Iterator<String> aTerms)
+		throws SimilarityException
+	{
+		return build(aReader, aTerms, DEFAULT_M, DEFAULT_EF_CONSTRUCTION);
+	}
+
+	/**
+	 * Build an index over the vectors of the given terms. Terms without a vector in the reader
+	 * and terms with a zero vector are skipped.
+	 */
+	public static HnswIndex build(VectorReader aReader, Iterator<String> aTerms, int aM,
+			int aEfConstruction)
+		throws SimilarityException
+	{
+		HnswIndex index = new HnswIndex(aM, aEfConstruction);
+		List<String> batch = new ArrayList<String>(BATCH_SIZE);
+		while (aTerms.hasNext()) {
+			batch.add(aTerms.next());
+			if (batch.size() == BATCH_SIZE || !aTerms.hasNext()) {
+				// Fetch the vectors in batches - insert in the order of the vocabulary to keep
+				// the graph reproducible
+				Map<String, Vector> batchVectors = aReader.getVectors(batch);
+				for (String term : batch) {
+					Vector vector = batchVectors.get(term);
+					if (vector != null) {
+						index.add(term, vector);
+					}
+				}
+				batch.clear();
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Add a term to the index.
+	 *
+	 * @return {@code false} if the term was already in the index or if the vector is a zero
+	 *         vector.
+	 */
+	public boolean add(String aTerm, Vector aVector)
+	{
+		if (ids.containsKey(aTerm)) {
+			return false;
+		}
+
+		Vector vector = normalize(aVector);
+		if (vector == null) {
+			return false;
+		}
+
+		int id = terms.size();
+		int level = randomLevel();
+		int[][] nodeLinks = new int[level + 1][];
+		for (int l = 0; l <= level; l++) {
+			nodeLinks[l] = new int[maxConnections(l) + 1];
+		}
+		terms.add(aTerm);
+		ids.put(aTerm, id);
+		vectors.add(vector);
+		links.add(nodeLinks);
+
+		if (entryPoint == -1) {
+			entryPoint = id;
+			maxLevel = level;
+			return true;
+		}
+
+		int ep = entryPoint;
+		for (int l = maxLevel; l > level; l--) {
+			ep = greedySearch(vector, ep, l);
+		}
+
+		for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+			List<Candidate> candidates = searchLayer(vector, ep, efConstruction, l);
+			for (Candidate c : selectNeighbors(candidates, m)) {
+				addLink(id, c.node, l);
+				addLink(c.node, id, l);
+			}
+			ep = candidates.get(0).node;
+		}
+
+		if (level > maxLevel) {
+			maxLevel = level;
+			entryPoint = id;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Find the terms most similar to the given term. The term itself is not included in the
+	 * result.
+	 *
+	 * @return the neighbours in order of decreasing similarity or {@code null} if the term is not
+	 *         in the index.
+	 */
+	public List<Neighbor> getNearest(String aTerm, int aK)
+	{
+		Integer id = ids.get(aTerm);
+		if (id == null) {
+			return null;
+		}
+
+		List<Neighbor> result = new ArrayList<Neighbor>(aK);
+		for (Candidate c : search(vectors.get(id), aK + 1, Math.max(ef, aK + 1))) {
+			if (c.node != id && result.size() < aK) {
+				result.add(new Neighbor(terms.get(c.node), c.similarity));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Find the terms most similar to the given vector.
+	 *
+	 * @return the neighbours in order of decreasing similarity.
+	 */
+	public List<Neighbor> getNearest(Vector aQuery, int aK)
+	{
+		return getNearest(aQuery, aK, ef);
+	}
+
+	/**
+	 * Find the terms most similar to the given vector.
+	 *
+	 * @param aEf
+	 *            the number of candidates to consider. Higher values improve recall at the cost
+	 *            of query time. Values smaller than {@code aK} are raised to {@code aK}.
+	 * @return the neighbours in order of decreasing similarity.
+	 */
+	public List<Neighbor> getNearest(Vector aQuery, int aK, int aEf)
+	{
+		List<Neighbor> result = new ArrayList<Neighbor>(aK);
+		Vector query = normalize(aQuery);
+		if (query == null) {
+			return result;
+		}
+
+		for (Candidate c : search(query, aK, Math.max(aEf, aK))) {
+			result.add(new Neighbor(terms.get(c.node), c.similarity));
+		}
+		return result;
+	}
+
+	/**
+	 * Set the default number of candidates considered during search.
+	 */
+	public void setEf(int aEf)
+	{
+		ef = aEf;
+	}
+
+	public int getEf()
+	{
+		return ef;
+	}
+
+	public int getM()
+	{
+		return m;
+	}
+
+	public int size()
+	{
+		return terms.size();
+	}
+
+	public boolean contains(String aTerm)
+	{
+		return ids.containsKey(aTerm);
+	}
+
+	/**
+	 * Write the index to the given file.
+	 */
+	public void save(File aFile)
+		throws IOException
+	{
+		DataOutputStream os = new DataOutputStream(new BufferedOutputStream(
+				new FileOutputStream(aFile)));
+		try {
+			os.writeInt(MAGIC);
+			os.writeInt(VERSION);
+			os.writeInt(m);
+			os.writeInt(efConstruction);
+			os.writeInt(terms.size());
+			os.writeInt(entryPoint);
+			os.writeInt(maxLevel);
+
+			for (int id = 0; id < terms.size(); id++) {
+				os.writeUTF(terms.get(id));
+				writeVector(os, vectors.get(id));
+
+				int[][] nodeLinks = links.get(id);
+				os.writeInt(nodeLinks.length);
+				for (int[] levelLinks : nodeLinks) {
+					os.writeInt(levelLinks[0]);
+					for (int i = 1; i <= levelLinks[0]; i++) {
+						os.writeInt(levelLinks[i]);
+					}
+				}
+			}
+		}
+		finally {
+			os.close();
+		}
+	}
+
+	/**
+	 * Read an index written using {@link #save(File)}.
+	 */
+	public static HnswIndex load(File aFile)
+		throws IOException
+	{
+		DataInputStream is = new DataInputStream(new BufferedInputStream(new FileInputStream(
+				aFile)));
+		try {
+			if (is.readInt() != MAGIC) {
+				throw new IOException("[" + aFile + "] is not an HNSW index");
+			}
+			int version = is.readInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported HNSW index version [" + version + "]");
+			}
+
+			HnswIndex index = new HnswIndex(is.readInt(), is.readInt());
+			int size = is.readInt();
+			index.entryPoint = is.readInt();
+			index.maxLevel = is.readInt();
+
+			for (int id = 0; id < size; id++) {
+				String term = is.readUTF();
+				index.terms.add(term);
+				index.ids.put(term, id);
+				index.vectors.add(readVector(is));
+
+				int[][] nodeLinks = new int[is.readInt()][];
+				for (int l = 0; l < nodeLinks.length; l++) {
+					int count = is.readInt();
+					nodeLinks[l] = new int[index.maxConnections(l) + 1];
+					nodeLinks[l][0] = count;
+					for (int i = 1; i <= count; i++) {
+						nodeLinks[l][i] = is.readInt();
+					}
+				}
+				index.links.add(nodeLinks);
+			}
+			return index;
+		}
+		finally {
+			is.close();
+		}
+	}
+
+	private List<Candidate> search(Vector aQuery, int aK, int aEf)
+	{
+		if (entryPoint == -1) {
+			return Collections.emptyList();
+		}
+
+		int ep = entryPoint;
+		for (int l = maxLevel; l > 0; l--) {
+			ep = greedySearch(aQuery, ep, l);
+		}
+
+		List<Candidate> candidates = searchLayer(aQuery, ep, aEf, 0);
+		return candidates.size() > aK ? candidates.subList(0, aK) : candidates;
+	}
+
+	/**
+	 * Move to the neighbour most similar to the query until there is no better one.
+	 */
+	private int greedySearch(Vector aQuery, int aEntryPoint, int aLevel)
+	{
+		int current = aEntryPoint;
+		double currentSim = similarity(aQuery, current);
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			int[] levelLinks = links.get(current)[aLevel];
+			for (int i = 1; i <= levelLinks[0]; i++) {
+				int n = levelLinks[i];
+				double sim = similarity(aQuery, n);
+				if (sim > currentSim) {
+					currentSim = sim;
+					current = n;
+					changed = true;
+				}
+			}
+		}
+		return current;
+	}
+
+	/**
+	 * Best-first search on one level of the graph.
+	 *
+	 * @return up to {@code aEf} nodes in order of decreasing similarity.
+	 */
+	private List<Candidate> searchLayer(Vector aQuery, int aEntryPoint, int aEf, int aLevel)
+	{
+		BitSet visited = new BitSet(terms.size());
+		PriorityQueue<Candidate> candidates = new PriorityQueue<Candidate>(aEf,
+				Collections.reverseOrder(Candidate.BY_SIMILARITY));
+		PriorityQueue<Candidate> results = new PriorityQueue<Candidate>(aEf + 1,
+				Candidate.BY_SIMILARITY);
+
+		Candidate start = new Candidate(aEntryPoint, similarity(aQuery, aEntryPoint));
+		visited.set(aEntryPoint);
+		candidates.add(start);
+		results.add(start);
+
+		while (!candidates.isEmpty()) {
+			Candidate c = candidates.poll();
+			if (results.size() >= aEf && c.similarity < results.peek().similarity) {
+				break;
+			}
+
+			int[] levelLinks = links.get(c.node)[aLevel];
+			for (int i = 1; i <= levelLinks[0]; i++) {
+				int n = levelLinks[i];
+				if (visited.get(n)) {
+					continue;
+				}
+				visited.set(n);
+
+				double sim = similarity(aQuery, n);
+				if (results.size() < aEf || sim > results.peek().similarity) {
+					Candidate nc = new Candidate(n, sim);
+					candidates.add(nc);
+					results.add(nc);
+					if (results.size() > aEf) {
+						results.poll();
+					}
+				}
+			}
+		}
+
+		List<Candidate> sorted = new ArrayList<Candidate>(results);
+		Collections.sort(sorted, Collections.reverseOrder(Candidate.BY_SIMILARITY));
+		return sorted;
+	}
+
+	/**
+	 * Select neighbours using the heuristic from the HNSW paper: a candidate is only chosen if
+	 * it is more similar to the base node than to any neighbour already chosen. This keeps
+	 * links into different regions of the graph. Remaining slots are filled with the most similar
+	 * of the skipped candidates.
+	 *
+	 * @param aCandidates
+	 *            the candidates in order of decreasing similarity to the base node.
+	 */
+	private List<Candidate> selectNeighbors(List<Candidate> aCandidates, int aMax)
+	{
+		if (aCandidates.size() <= aMax) {
+			return aCandidates;
+		}
+
+		List<Candidate> selected = new ArrayList<Candidate>(aMax);
+		List<Candidate> skipped = new ArrayList<Candidate>();
+		for (Candidate c : aCandidates) {
+			if (selected.size() >= aMax) {
+				break;
+			}
+
+			boolean diverse = true;
+			for (Candidate s : selected) {
+				if (similarity(c.node, s.node) > c.similarity) {
+					diverse = false;
+					break;
+				}
+			}
+
+			if (diverse) {
+				selected.add(c);
+			}
+			else {
+				skipped.add(c);
+			}
+		}
+
+		for (int i = 0; i < skipped.size() && selected.size() < aMax; i++) {
+			selected.add(skipped.get(i));
+		}
+
+		return selected;
+	}
+
+	private void addLink(int aFrom, int aTo, int aLevel)
+	{
+		int[][] nodeLinks = links.get(aFrom);
+		int[] levelLinks = nodeLinks[aLevel];
+		int count = levelLinks[0];
+		if (count < levelLinks.length - 1) {
+			levelLinks[count + 1] = aTo;
+			levelLinks[0] = count + 1;
+			return;
+		}
+
+		// The node has too many neighbours - select again from the existing ones and the new one
+		List<Candidate> candidates = new ArrayList<Candidate>(count + 1);
+		for (int i = 1; i <= count; i++) {
+			candidates.add(new Candidate(levelLinks[i], similarity(aFrom, levelLinks[i])));
+		}
+		candidates.add(new Candidate(aTo, similarity(aFrom, aTo)));
+		Collections.sort(candidates, Collections.reverseOrder(Candidate.BY_SIMILARITY));
+
+		List<Candidate> selected = selectNeighbors(candidates, count);
+		for (int i = 0; i < selected.size(); i++) {
+			levelLinks[i + 1] = selected.get(i).node;
+		}
+		levelLinks[0] = selected.size();
+	}
+
+	private int maxConnections(int aLevel)
+	{
+		return aLevel == 0 ? 2 * m : m;
+	}
+
+	private int randomLevel()
+	{
+		return (int) (-Math.log(1.0 - random.nextDouble()) * levelFactor);
+	}
+
+	private double similarity(Vector aQuery, int aNode)
+	{
+		return VectorKernels.dot(aQuery, vectors.get(aNode));
+	}
+
+	private double similarity(int aNode1, int aNode2)
+	{
+		return VectorKernels.dot(vectors.get(aNode1), vectors.get(aNode2));
+	}
+
+	/**
+	 * Create an L2-normalized float copy of the given vector.
+	 *
+	 * @return the normalized vector or {@code null} for a zero vector.
+	 */
+	private static Vector normalize(Vector aVector)
+	{
+		double norm = VectorKernels.norm2(aVector);
+		if (norm == 0.0 || Double.isNaN(norm)) {
+			return null;
+		}
+
+		if (aVector instanceof DenseVector || aVector instanceof FloatDenseVector) {
+			float[] data = VectorKernels.toFloatArray(aVector);
+			for (int i = 0; i < data.length; i++) {
+				data[i] = (float) (data[i] / norm);
+			}
+			return new FloatDenseVector(data, 1.0);
+		}
+		else {
+			FloatSparseVector sparse = new FloatSparseVector(aVector);
+			float[] values = sparse.getData();
+			float[] data = new float[values.length];
+			for (int i = 0; i < data.length; i++) {
+				data[i] = (float) (values[i] / norm);
+			}
+			return new FloatSparseVector(sparse.size(), sparse.getIndex(), data, 1.0);
+		}
+	}
+
+	private static void writeVector(DataOutputStream aOut, Vector aVector)
+		throws IOException
+	{
+		if (aVector instanceof FloatDenseVector) {
+			float[] data = ((FloatDenseVector) aVector).getData();
+			aOut.writeByte(DENSE);
+			aOut.writeInt(data.length);
+			for (float v : data) {
+				aOut.writeFloat(v);
+			}
+		}
+		else {
+			FloatSparseVector sparse = (FloatSparseVector) aVector;
+			aOut.writeByte(SPARSE);
+			aOut.writeInt(sparse.size());
+			aOut.writeInt(sparse.getUsed());
+			for (int i : sparse.getIndex()) {
+				aOut.writeInt(i);
+			}
+			for (float v : sparse.getData()) {
+				aOut.writeFloat(v);
+			}
+		}
+	}
+
+	private static Vector readVector(DataInputStream aIn)
+		throws IOException
+	{
+		int type = aIn.readByte();
+		switch (type) {
+		case DENSE: {
+			float[] data = new float[aIn.readInt()];
+			for (int i = 0; i < data.length; i++) {
+				data[i] = aIn.readFloat();
+			}
+			return new FloatDenseVector(data, 1.0);
+		}
+		case SPARSE: {
+			int size = aIn.readInt();
+			int[] index = new int[aIn.readInt()];
+			float[] data = new float[index.length];
+			for (int i = 0; i < index.length; i++) {
+				index[i] = aIn.readInt();
+			}
+			for (int i = 0; i < data.length; i++) {
+				data[i] = aIn.readFloat();
+			}
+			return new FloatSparseVector(size, index, data);
+		}
+		default:
+			throw new IOException("Unknown vector type [" + type + "]");
+		}
+	}
+
+	private static class Candidate
+	{
+		static final Comparator<Candidate> BY_SIMILARITY = new Comparator<Candidate>()
+		{
+			@Override
+			public int compare(Candidate aO1, Candidate aO2)
+			{
+				return Double.compare(aO1.similarity, aO2.similarity);
+			}
+		};
+
+		final int node;
+		final double similarity;
+
+		Candidate(int aNode, double aSimilarity)
+		{
+			node = aNode;
+			similarity = aSimilarity;
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.store.hnsw;
+
+/**
+ * A term found by a nearest-neighbour query and its cosine similarity to the query.
+ */
+public class Neighbor
+{
+	private final String term;
+	private final double similarity;
+
+	public Neighbor(String aTerm, double aSimilarity)
+	{
+		term = aTerm;
+		similarity = aSimilarity;
+	}
+
+	public String getTerm()
+	{
+		return term;
+	}
+
+	public double getSimilarity()
+	{
+		return similarity;
+	}
+
+	@Override
+	public String toString()
+	{
+		return term + " (" + similarity + ")";
+	}
+}
@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.store.mapped;
+
+/**
+ * Layout of the memory-mapped vector store. The file starts with a fixed-size header followed by
+ * the vector rows (float32, big-endian), the slot table, the term offset table and finally the
+ * UTF-8 encoded terms. Terms are sorted by their UTF-8 bytes so a lookup is a binary search on the
+ * mapped term data and never needs to materialize the vocabulary on the heap.
+ *
+ * <pre>
+ * int    magic
+ * int    version
+ * int    term count (n)
+ * int    dimension (d)
+ * int    row count
+ * int    reserved
+ * long   offset of vector rows  (row count * d * float32)
+ * long   offset of slot table   (n * int32, row of the i-th sorted term)
+ * long   offset of term offsets ((n + 1) * int32, relative to the term data)
+ * long   offset of term data    (UTF-8 bytes)
+ * long   length of term data
+ * </pre>
+ */
+public interface MappedVectorContract
+{
+	public static final int MAGIC = 0x444b564d; // "DKVM"
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 64;
+
+	public static final String TERM_ENCODING = "UTF-8";
+}
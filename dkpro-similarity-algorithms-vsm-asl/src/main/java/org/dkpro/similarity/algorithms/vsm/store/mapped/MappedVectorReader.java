@@ -0,0 +1,400 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.store.mapped;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.dkpro.similarity.algorithms.api.SimilarityException;
+import org.dkpro.similarity.algorithms.vsm.store.VectorReader;
+import org.dkpro.similarity.algorithms.vsm.vector.FloatDenseVector;
+
+import no.uib.cipr.matrix.Vector;
+
+/**
+ * Reads vectors from a memory-mapped vector store created using {@link MappedVectorWriter}, e.g.
+ * by converting a word embedding file using
+ * {@link org.dkpro.similarity.algorithms.vsm.store.convert.ConvertEmbeddingsToMappedVectors}.
+ * <p>
+ * Opening the store only maps the file, thus startup time and heap usage do not depend on the
+ * size of the vocabulary. Since the data lives in the OS page cache, several processes reading
+ * the same store share the memory. As for {@code EmbeddingVectorReader}, a term which is not found
+ * is looked up again in lower case.
+ * <p>
+ * The reader is thread-safe once it has been opened.
+ */
+public class MappedVectorReader
+	extends VectorReader
+	implements MappedVectorContract
+{
+	private final File path;
+
+	private volatile Mapping mapping;
+	private volatile boolean closed;
+
+	public MappedVectorReader(File aPath)
+	{
+		path = aPath;
+	}
+
+	@Override
+	public String getId()
+	{
+		return path.getAbsolutePath();
+	}
+
+	@Override
+	public Vector getVector(String aTerm)
+		throws SimilarityException
+	{
+		Mapping m = open();
+
+		int row = m.findRow(aTerm);
+		if (row == -1) {
+			return null;
+		}
+		return new FloatDenseVector(m.readRow(row));
+	}
+
+	/**
+	 * Resolves all terms first and then reads the vectors in the order in which they are stored,
+	 * i.e. in a single pass over the mapped file.
+	 */
+	@Override
+	public Map<String, Vector> getVectors(Collection<String> aTerms)
+		throws SimilarityException
+	{
+		Mapping m = open();
+
+		Set<String> terms = new HashSet<String>(aTerms);
+		String[] found = new String[terms.size()];
+		long[] rows = new long[terms.size()];
+		int n = 0;
+		for (String term : terms) {
+			int row = m.findRow(term);
+			if (row != -1) {
+				// Sort by row, remembering the term in the lower bits
+				rows[n] = ((long) row << 32) | n;
+				found[n] = term;
+				n++;
+			}
+		}
+		Arrays.sort(rows, 0, n);
+
+		Map<String, Vector> vectors = new HashMap<String, Vector>();
+		for (int i = 0; i < n; i++) {
+			int row = (int) (rows[i] >>> 32);
+			String term = found[(int) rows[i]];
+			vectors.put(term, new FloatDenseVector(m.readRow(row)));
+		}
+		return vectors;
+	}
+
+	/**
+	 * Get the raw vector for the given term.
+	 *
+	 * @return the vector or {@code null} if the term is not in the store.
+	 */
+	public float[] getFloats(String aTerm)
+		throws SimilarityException
+	{
+		Mapping m = open();
+
+		int row = m.findRow(aTerm);
+		if (row == -1) {
+			return null;
+		}
+
+		return m.readRow(row);
+	}
+
+	public boolean contains(String aTerm)
+		throws SimilarityException
+	{
+		return open().findRow(aTerm) != -1;
+	}
+
+	/**
+	 * Get the size of the vectors in the store.
+	 */
+	@Override
+	public int getConceptCount()
+		throws SimilarityException
+	{
+		return open().dimension;
+	}
+
+	/**
+	 * Get the number of terms in the store.
+	 */
+	public int getTermCount()
+		throws SimilarityException
+	{
+		return open().termCount;
+	}
+
+	/**
+	 * Iterate over the terms in the store in the order of their UTF-8 bytes.
+	 */
+	public Iterator<String> getTermIterator()
+		throws SimilarityException
+	{
+		final Mapping m = open();
+		return new Iterator<String>()
+		{
+			private int next = 0;
+
+			@Override
+			public boolean hasNext()
+			{
+				return next < m.termCount;
+			}
+
+			@Override
+			public String next()
+			{
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				return m.getTerm(next++);
+			}
+
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	/**
+	 * Releases the mapped file. Afterwards, all methods reading from the store throw a
+	 * {@link SimilarityException}. Reads which are already in progress, as well as iterators
+	 * obtained before, still complete using the mapping they started with.
+	 */
+	@Override
+	public void close()
+	{
+		// Mapped buffers are released by the garbage collector once no read uses them anymore
+		closed = true;
+		mapping = null;
+	}
+
+	private Mapping open()
+		throws SimilarityException
+	{
+		Mapping m = mapping;
+		if (m == null) {
+			synchronized (this) {
+				m = mapping;
+				if (m == null) {
+					if (closed) {
+						throw new SimilarityException("Mapped vector store has been closed: ["
+								+ path + "]");
+					}
+					m = map();
+					mapping = m;
+				}
+			}
+		}
+		return m;
+	}
+
+	private Mapping map()
+		throws SimilarityException
+	{
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(path, "r");
+			FileChannel channel = raf.getChannel();
+
+			MappedByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER_SIZE);
+			if (header.getInt(0) != MAGIC) {
+				throw new SimilarityException("Not a mapped vector store: [" + path + "]");
+			}
+			if (header.getInt(4) != VERSION) {
+				throw new SimilarityException("Unsupported mapped vector store version ["
+						+ header.getInt(4) + "] in [" + path + "]");
+			}
+			int termCount = header.getInt(8);
+			int dimension = header.getInt(12);
+			int rowCount = header.getInt(16);
+			long vectorsOffset = header.getLong(24);
+			long slotsOffset = header.getLong(32);
+			long termOffsetsOffset = header.getLong(40);
+			long termDataOffset = header.getLong(48);
+			long termDataLength = header.getLong(56);
+
+			ByteBuffer slots = channel.map(MapMode.READ_ONLY, slotsOffset, (long) termCount * 4);
+			ByteBuffer termOffsets = channel.map(MapMode.READ_ONLY, termOffsetsOffset,
+					(long) (termCount + 1) * 4);
+			ByteBuffer termData = channel.map(MapMode.READ_ONLY, termDataOffset, termDataLength);
+
+			// A single buffer can only address 2GB, so the rows are spread over several chunks.
+			long rowSize = (long) dimension * 4;
+			int rowsPerChunk = (int) Math.max(1, Integer.MAX_VALUE / Math.max(1, rowSize));
+			int nChunks = (rowCount + rowsPerChunk - 1) / rowsPerChunk;
+			ByteBuffer[] chunks = new ByteBuffer[nChunks];
+			for (int i = 0; i < nChunks; i++) {
+				int rows = Math.min(rowsPerChunk, rowCount - i * rowsPerChunk);
+				chunks[i] = channel.map(MapMode.READ_ONLY,
+						vectorsOffset + i * rowsPerChunk * rowSize, rows * rowSize);
+			}
+			return new Mapping(termCount, dimension, rowsPerChunk, slots, termOffsets, termData,
+					chunks);
+		}
+		catch (IOException e) {
+			throw new SimilarityException(e);
+		}
+		finally {
+			if (raf != null) {
+				try {
+					// The mappings remain valid after the channel has been closed
+					raf.close();
+				}
+				catch (IOException e) {
+					// Ignore
+				}
+			}
+		}
+	}
+
+	/**
+	 * The mapped sections of the store. A read uses the same mapping from start to end, so
+	 * closing the reader does not affect reads in progress.
+	 */
+	private static final class Mapping
+	{
+		final int termCount;
+		final int dimension;
+		final int rowsPerChunk;
+		final ByteBuffer slots;
+		final ByteBuffer termOffsets;
+		final ByteBuffer termData;
+		final ByteBuffer[] vectorChunks;
+
+		Mapping(int aTermCount, int aDimension, int aRowsPerChunk, ByteBuffer aSlots,
+				ByteBuffer aTermOffsets, ByteBuffer aTermData, ByteBuffer[] aVectorChunks)
+		{
+			termCount = aTermCount;
+			dimension = aDimension;
+			rowsPerChunk = aRowsPerChunk;
+			slots = aSlots;
+			termOffsets = aTermOffsets;
+			termData = aTermData;
+			vectorChunks = aVectorChunks;
+		}
+
+		float[] readRow(int aRow)
+		{
+			float[] data = new float[dimension];
+			ByteBuffer chunk = vectorChunks[aRow / rowsPerChunk];
+			int offset = (aRow % rowsPerChunk) * dimension * 4;
+			for (int i = 0; i < dimension; i++) {
+				data[i] = chunk.getFloat(offset + i * 4);
+			}
+			return data;
+		}
+
+		int findRow(String aTerm)
+		{
+			int row = getRow(aTerm);
+			if (row == -1) {
+				row = getRow(aTerm.toLowerCase());
+			}
+			return row;
+		}
+
+		/**
+		 * Binary search on the sorted, mapped term data.
+		 *
+		 * @return the row of the term or -1 if the term is not in the store.
+		 */
+		private int getRow(String aTerm)
+		{
+			byte[] key;
+			try {
+				key = aTerm.getBytes(TERM_ENCODING);
+			}
+			catch (UnsupportedEncodingException e) {
+				throw new IllegalStateException(e);
+			}
+
+			int low = 0;
+			int high = termCount - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int cmp = compareTerm(mid, key);
+				if (cmp < 0) {
+					low = mid + 1;
+				}
+				else if (cmp > 0) {
+					high = mid - 1;
+				}
+				else {
+					return slots.getInt(mid * 4);
+				}
+			}
+			return -1;
+		}
+
+		private int compareTerm(int aIndex, byte[] aKey)
+		{
+			int begin = termOffsets.getInt(aIndex * 4);
+			int end = termOffsets.getInt((aIndex + 1) * 4);
+			int len = Math.min(end - begin, aKey.length);
+			for (int i = 0; i < len; i++) {
+				int c = (termData.get(begin + i) & 0xff) - (aKey[i] & 0xff);
+				if (c != 0) {
+					return c;
+				}
+			}
+			return (end - begin) - aKey.length;
+		}
+
+		String getTerm(int aIndex)
+		{
+			int begin = termOffsets.getInt(aIndex * 4);
+			int end = termOffsets.getInt((aIndex + 1) * 4);
+			byte[] bytes = new byte[end - begin];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = termData.get(begin + i);
+			}
+			try {
+				return new String(bytes, TERM_ENCODING);
+			}
+			catch (UnsupportedEncodingException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
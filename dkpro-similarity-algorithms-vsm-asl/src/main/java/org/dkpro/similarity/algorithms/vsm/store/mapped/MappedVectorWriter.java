@@ -0,0 +1,230 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.store.mapped;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.dkpro.similarity.algorithms.vsm.vector.FloatDenseVector;
+import org.dkpro.similarity.algorithms.vsm.vector.VectorKernels;
+
+import no.uib.cipr.matrix.Vector;
+
+/**
+ * Writes a memory-mapped vector store that can be read using {@link MappedVectorReader}. Vectors
+ * are streamed to disk as they are added, only the vocabulary is kept in memory until the writer
+ * is closed.
+ *
+ * @see MappedVectorContract
+ */
+public class MappedVectorWriter
+	implements MappedVectorContract
+{
+	private final File file;
+	private final int dimension;
+
+	private RandomAccessFile raf;
+	private DataOutputStream out;
+	private Map<String, Integer> rows;
+	private int rowCount;
+
+	public MappedVectorWriter(File aFile, int aDimension)
+	{
+		file = aFile;
+		dimension = aDimension;
+	}
+
+	public void put(String aTerm, Vector aVector)
+		throws IOException
+	{
+		if (aVector == null || aTerm == null || aTerm.length() == 0) {
+			return;
+		}
+
+		if (aVector.size() != dimension) {
+			throw new IllegalArgumentException("Vector for term [" + aTerm + "] has size "
+					+ aVector.size() + " but store has dimension " + dimension);
+		}
+
+		if (aVector instanceof FloatDenseVector) {
+			put(aTerm, ((FloatDenseVector) aVector).getData());
+		}
+		else {
+			put(aTerm, VectorKernels.toFloatArray(aVector));
+		}
+	}
+
+	/**
+	 * Add a vector. If the term has already been added, the new vector replaces the previous one.
+	 */
+	public void put(String aTerm, double[] aVector)
+		throws IOException
+	{
+		if (aVector == null || aTerm == null || aTerm.length() == 0) {
+			return;
+		}
+
+		if (aVector.length != dimension) {
+			throw new IllegalArgumentException("Vector for term [" + aTerm + "] has size "
+					+ aVector.length + " but store has dimension " + dimension);
+		}
+
+		float[] data = new float[aVector.length];
+		for (int i = 0; i < data.length; i++) {
+			data[i] = (float) aVector[i];
+		}
+		put(aTerm, data);
+	}
+
+	/**
+	 * Add a vector. If the term has already been added, the new vector replaces the previous one.
+	 */
+	public void put(String aTerm, float[] aVector)
+		throws IOException
+	{
+		if (aVector == null || aTerm == null || aTerm.length() == 0) {
+			return;
+		}
+
+		if (aVector.length != dimension) {
+			throw new IllegalArgumentException("Vector for term [" + aTerm + "] has size "
+					+ aVector.length + " but store has dimension " + dimension);
+		}
+
+		DataOutputStream os = getOut();
+		for (float v : aVector) {
+			os.writeFloat(v);
+		}
+		rows.put(aTerm, rowCount);
+		rowCount++;
+	}
+
+	public int getDimension()
+	{
+		return dimension;
+	}
+
+	/**
+	 * Write the vocabulary index and the header. The store cannot be used before the writer has
+	 * been closed.
+	 */
+	public void close()
+		throws IOException
+	{
+		try {
+			DataOutputStream os = getOut();
+
+			// Sort the vocabulary by the UTF-8 bytes of the terms - this is the order in which the
+			// reader performs its binary search.
+			List<byte[]> terms = new ArrayList<byte[]>(rows.size());
+			Map<byte[], Integer> termRows = new HashMap<byte[], Integer>(rows.size() * 2);
+			for (Map.Entry<String, Integer> e : rows.entrySet()) {
+				byte[] bytes = e.getKey().getBytes(TERM_ENCODING);
+				terms.add(bytes);
+				termRows.put(bytes, e.getValue());
+			}
+			rows = null;
+			Collections.sort(terms, new Comparator<byte[]>()
+			{
+				@Override
+				public int compare(byte[] aO1, byte[] aO2)
+				{
+					return compareBytes(aO1, aO2);
+				}
+			});
+
+			long vectorsOffset = HEADER_SIZE;
+			long slotsOffset = vectorsOffset + (long) rowCount * dimension * 4;
+
+			for (byte[] term : terms) {
+				os.writeInt(termRows.get(term));
+			}
+
+			long termOffsetsOffset = slotsOffset + (long) terms.size() * 4;
+			int termOffset = 0;
+			os.writeInt(termOffset);
+			for (byte[] term : terms) {
+				termOffset += term.length;
+				os.writeInt(termOffset);
+			}
+
+			long termDataOffset = termOffsetsOffset + (long) (terms.size() + 1) * 4;
+			for (byte[] term : terms) {
+				os.write(term);
+			}
+			os.flush();
+
+			raf.seek(0);
+			raf.writeInt(MAGIC);
+			raf.writeInt(VERSION);
+			raf.writeInt(terms.size());
+			raf.writeInt(dimension);
+			raf.writeInt(rowCount);
+			raf.writeInt(0);
+			raf.writeLong(vectorsOffset);
+			raf.writeLong(slotsOffset);
+			raf.writeLong(termOffsetsOffset);
+			raf.writeLong(termDataOffset);
+			raf.writeLong(termOffset);
+		}
+		finally {
+			if (raf != null) {
+				raf.close();
+			}
+			raf = null;
+			out = null;
+		}
+	}
+
+	private DataOutputStream getOut()
+		throws IOException
+	{
+		if (out == null) {
+			raf = new RandomAccessFile(file, "rw");
+			raf.setLength(0);
+			raf.write(new byte[HEADER_SIZE]);
+			out = new DataOutputStream(new BufferedOutputStream(
+					Channels.newOutputStream(raf.getChannel()), 1024 * 1024));
+			rows = new HashMap<String, Integer>();
+			rowCount = 0;
+		}
+		return out;
+	}
+
+	static int compareBytes(byte[] aO1, byte[] aO2)
+	{
+		int len = Math.min(aO1.length, aO2.length);
+		for (int i = 0; i < len; i++) {
+			int c = (aO1[i] & 0xff) - (aO2[i] & 0xff);
+			if (c != 0) {
+				return c;
+			}
+		}
+		return aO1.length - aO2.length;
+	}
+}
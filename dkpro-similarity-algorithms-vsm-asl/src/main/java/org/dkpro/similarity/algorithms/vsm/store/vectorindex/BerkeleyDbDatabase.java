@@ -19,8 +19,15 @@ package org.dkpro.similarity.algorithms.vsm.store.vectorindex;
 
 import java.io.UnsupportedEncodingException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
 import com.sleepycat.bind.tuple.TupleBinding;
 import com.sleepycat.je.Cursor;
@@ -139,6 +146,77 @@ public class BerkeleyDbDatabase {
 		return obj;
 	}
 	
+	/**
+	 * Gets the first bytes of the entry for the given key without reading the rest of the entry.
+	 *
+	 * @return the bytes or {@code null} if the key is not in the database.
+	 */
+	public byte[] getPrefix(String id, int length) throws DatabaseException {
+		DatabaseEntry key;
+		try {
+			key = new DatabaseEntry(id.getBytes(KEY_ENCODING));
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+		DatabaseEntry data = new DatabaseEntry();
+		data.setPartial(0, length, true);
+		OperationStatus status = db.get(null, key, data, LockMode.DEFAULT);
+		if (status != OperationStatus.SUCCESS) {
+			return null;
+		}
+		return Arrays.copyOfRange(data.getData(), data.getOffset(), data.getOffset() + data.getSize());
+	}
+	
+	/**
+	 * Gets the entries for several keys at once. The keys are visited in the order of the
+	 * database using a single cursor, which is faster than looking up each key separately.
+	 *
+	 * @return a map from the keys which were found to their entries.
+	 */
+	public Map<String, Object> get(Collection<String> ids) throws DatabaseException {
+		List<byte[]> keys = new ArrayList<byte[]>(ids.size());
+		try {
+			for (String id : new HashSet<String>(ids)) {
+				keys.add(id.getBytes(KEY_ENCODING));
+			}
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		}
+		
+		// The default BerkeleyDB key order is the unsigned byte order
+		Collections.sort(keys, new Comparator<byte[]>() {
+			@Override
+			public int compare(byte[] o1, byte[] o2) {
+				int len = Math.min(o1.length, o2.length);
+				for (int i = 0; i < len; i++) {
+					int c = (o1[i] & 0xff) - (o2[i] & 0xff);
+					if (c != 0) {
+						return c;
+					}
+				}
+				return o1.length - o2.length;
+			}
+		});
+		
+		Map<String, Object> result = new HashMap<String, Object>();
+		Cursor cursor = getCursor();
+		try {
+			DatabaseEntry data = new DatabaseEntry();
+			for (byte[] key : keys) {
+				DatabaseEntry dbKey = new DatabaseEntry(key);
+				if (cursor.getSearchKey(dbKey, data, LockMode.DEFAULT) == OperationStatus.SUCCESS) {
+					result.put(new String(key, KEY_ENCODING), entryBinding.entryToObject(data));
+				}
+			}
+		} catch (UnsupportedEncodingException e) {
+			throw new RuntimeException(e);
+		} finally {
+			cursor.close();
+		}
+		
+		return result;
+	}
+	
 	/**
 	 * Returns a cursor. Don't forget to close it.
 	 * @return
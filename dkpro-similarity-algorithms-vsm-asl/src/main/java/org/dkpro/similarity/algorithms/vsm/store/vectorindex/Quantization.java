@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.store.vectorindex;
+
+/**
+ * Precision of the values stored by the {@link QuantizedVectorBinding}.
+ */
+public enum Quantization
+{
+	/**
+	 * 4 bytes per value.
+	 */
+	FLOAT32(4),
+
+	/**
+	 * 2 bytes per value (IEEE 754 half precision). Values are rounded to about three significant
+	 * decimal digits.
+	 */
+	FLOAT16(2),
+
+	/**
+	 * 1 byte per value. The values of a vector are scaled linearly to the range [-127, 127], so
+	 * small values in vectors with a large maximum value lose most of their precision.
+	 */
+	INT8(1);
+
+	private final int bytesPerValue;
+
+	private Quantization(int aBytesPerValue)
+	{
+		bytesPerValue = aBytesPerValue;
+	}
+
+	public int getBytesPerValue()
+	{
+		return bytesPerValue;
+	}
+}
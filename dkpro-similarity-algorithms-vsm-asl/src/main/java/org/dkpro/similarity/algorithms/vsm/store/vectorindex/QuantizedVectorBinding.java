@@ -0,0 +1,321 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.store.vectorindex;
+
+import org.dkpro.similarity.algorithms.vsm.vector.FloatDenseVector;
+import org.dkpro.similarity.algorithms.vsm.vector.FloatSparseVector;
+import org.dkpro.similarity.algorithms.vsm.vector.VectorKernels;
+
+import no.uib.cipr.matrix.Vector;
+
+import com.sleepycat.bind.tuple.TupleBinding;
+import com.sleepycat.bind.tuple.TupleInput;
+import com.sleepycat.bind.tuple.TupleOutput;
+
+/**
+ * Binding for the vector index format {@link VectorIndexContract#FORMAT_VERSION_2 version 2}.
+ * Each vector is stored together with its precomputed L2 norm, so readers do not need to
+ * calculate it again for every comparison. Values are stored as {@link Quantization quantized}
+ * floats and the indexes of sparse vectors as variable-length deltas. Vectors are decoded
+ * directly from the database buffer into a {@link FloatSparseVector} or {@link FloatDenseVector}.
+ * <p>
+ * Record layout:
+ * <pre>
+ * byte    flags (bit 0: sparse, bits 4-5: quantization)
+ * float   L2 norm of the stored (quantized) values
+ * varint  number of stored values
+ * varint* sparse only: index deltas
+ * float   int8 only: scale
+ * ...     values
+ * </pre>
+ */
+public class QuantizedVectorBinding
+	extends TupleBinding<Vector>
+{
+	private static final int FLAG_SPARSE = 1;
+	private static final int MASK_QUANTIZATION = 0x30;
+	private static final int SHIFT_QUANTIZATION = 4;
+
+	/**
+	 * Length of the record header holding the flags and the norm.
+	 */
+	static final int HEADER_LENGTH = 5;
+
+	private final int vectorSize;
+	private final Quantization quantization;
+
+	/**
+	 * Create a binding for reading. The quantization is read from each record.
+	 */
+	public QuantizedVectorBinding(int aVectorSize)
+	{
+		this(aVectorSize, Quantization.FLOAT32);
+	}
+
+	/**
+	 * @param aQuantization
+	 *            the precision used for writing.
+	 */
+	public QuantizedVectorBinding(int aVectorSize, Quantization aQuantization)
+	{
+		vectorSize = aVectorSize;
+		quantization = aQuantization;
+	}
+
+	@Override
+	public Vector entryToObject(TupleInput aInput)
+	{
+		byte[] buf = aInput.getBufferBytes();
+		int[] pos = { aInput.getBufferOffset() };
+
+		int flags = buf[pos[0]++];
+		Quantization q = Quantization.values()[(flags & MASK_QUANTIZATION) >>> SHIFT_QUANTIZATION];
+		double norm = Float.intBitsToFloat(readInt(buf, pos));
+		int used = readVarInt(buf, pos);
+
+		int[] index = null;
+		if ((flags & FLAG_SPARSE) != 0) {
+			index = new int[used];
+			int last = 0;
+			for (int i = 0; i < used; i++) {
+				last += readVarInt(buf, pos);
+				index[i] = last;
+			}
+		}
+
+		float[] data = new float[used];
+		int p = pos[0];
+		switch (q) {
+		case FLOAT32:
+			for (int i = 0; i < used; i++, p += 4) {
+				data[i] = Float.intBitsToFloat(readInt(buf, p));
+			}
+			break;
+		case FLOAT16:
+			for (int i = 0; i < used; i++, p += 2) {
+				data[i] = halfToFloat(((buf[p] & 0xff) << 8) | (buf[p + 1] & 0xff));
+			}
+			break;
+		case INT8: {
+			float scale = Float.intBitsToFloat(readInt(buf, p));
+			p += 4;
+			for (int i = 0; i < used; i++, p++) {
+				data[i] = buf[p] * scale;
+			}
+			break;
+		}
+		default:
+			throw new IllegalStateException("Unknown quantization [" + q + "]");
+		}
+
+		if (index != null) {
+			return new FloatSparseVector(vectorSize, index, data, norm);
+		}
+		else {
+			return new FloatDenseVector(data, norm);
+		}
+	}
+
+	@Override
+	public void objectToEntry(Vector aVector, TupleOutput aOutput)
+	{
+		// Compact copy with the indexes in ascending order as required by the delta encoding
+		FloatSparseVector nonZero = aVector instanceof FloatSparseVector
+				? (FloatSparseVector) aVector : new FloatSparseVector(aVector);
+		int[] index = nonZero.getIndex();
+		float[] values = nonZero.getData();
+
+		// A sparse entry costs at least one additional byte for the index delta
+		boolean sparse = (long) index.length * (quantization.getBytesPerValue() + 1)
+				< (long) vectorSize * quantization.getBytesPerValue();
+		if (!sparse) {
+			values = VectorKernels.toFloatArray(aVector);
+		}
+
+		// Quantize first so the stored norm matches the decoded values
+		float[] stored = new float[values.length];
+		byte[] quantized = null;
+		float scale = 0.0f;
+		switch (quantization) {
+		case FLOAT32:
+			stored = values;
+			break;
+		case FLOAT16:
+			for (int i = 0; i < values.length; i++) {
+				stored[i] = halfToFloat(floatToHalf(values[i]));
+			}
+			break;
+		case INT8: {
+			float max = 0.0f;
+			for (float v : values) {
+				max = Math.max(max, Math.abs(v));
+			}
+			scale = max / 127.0f;
+			quantized = new byte[values.length];
+			for (int i = 0; i < values.length; i++) {
+				int b = scale == 0.0f ? 0 : Math.round(values[i] / scale);
+				quantized[i] = (byte) Math.max(-127, Math.min(127, b));
+				stored[i] = quantized[i] * scale;
+			}
+			break;
+		}
+		default:
+			throw new IllegalStateException("Unknown quantization [" + quantization + "]");
+		}
+
+		double sumOfSquares = 0.0;
+		for (float v : stored) {
+			sumOfSquares += (double) v * v;
+		}
+
+		aOutput.writeFast((sparse ? FLAG_SPARSE : 0)
+				| (quantization.ordinal() << SHIFT_QUANTIZATION));
+		writeInt(aOutput, Float.floatToIntBits((float) Math.sqrt(sumOfSquares)));
+		writeVarInt(aOutput, stored.length);
+
+		if (sparse) {
+			int last = 0;
+			for (int i : index) {
+				writeVarInt(aOutput, i - last);
+				last = i;
+			}
+		}
+
+		switch (quantization) {
+		case FLOAT32:
+			for (float v : stored) {
+				writeInt(aOutput, Float.floatToIntBits(v));
+			}
+			break;
+		case FLOAT16:
+			for (float v : stored) {
+				int h = floatToHalf(v);
+				aOutput.writeFast(h >>> 8);
+				aOutput.writeFast(h);
+			}
+			break;
+		case INT8:
+			writeInt(aOutput, Float.floatToIntBits(scale));
+			aOutput.writeFast(quantized);
+			break;
+		default:
+			throw new IllegalStateException("Unknown quantization [" + quantization + "]");
+		}
+	}
+
+	/**
+	 * Read the L2 norm from the header of a record.
+	 */
+	static double readNorm(byte[] aHeader)
+	{
+		return Float.intBitsToFloat(readInt(aHeader, 1));
+	}
+
+	private static void writeInt(TupleOutput aOutput, int aValue)
+	{
+		aOutput.writeFast(aValue >>> 24);
+		aOutput.writeFast(aValue >>> 16);
+		aOutput.writeFast(aValue >>> 8);
+		aOutput.writeFast(aValue);
+	}
+
+	private static int readInt(byte[] aBuf, int aPos)
+	{
+		return ((aBuf[aPos] & 0xff) << 24) | ((aBuf[aPos + 1] & 0xff) << 16)
+				| ((aBuf[aPos + 2] & 0xff) << 8) | (aBuf[aPos + 3] & 0xff);
+	}
+
+	private static int readInt(byte[] aBuf, int[] aPos)
+	{
+		int value = readInt(aBuf, aPos[0]);
+		aPos[0] += 4;
+		return value;
+	}
+
+	static void writeVarInt(TupleOutput aOutput, int aValue)
+	{
+		int v = aValue;
+		while ((v & ~0x7f) != 0) {
+			aOutput.writeFast((v & 0x7f) | 0x80);
+			v >>>= 7;
+		}
+		aOutput.writeFast(v);
+	}
+
+	static int readVarInt(byte[] aBuf, int[] aPos)
+	{
+		int p = aPos[0];
+		int value = 0;
+		int shift = 0;
+		int b;
+		do {
+			b = aBuf[p++];
+			value |= (b & 0x7f) << shift;
+			shift += 7;
+		}
+		while ((b & 0x80) != 0);
+		aPos[0] = p;
+		return value;
+	}
+
+	/**
+	 * Convert to IEEE 754 half precision, rounding to the nearest even value.
+	 */
+	static int floatToHalf(float aValue)
+	{
+		int bits = Float.floatToIntBits(aValue);
+		int sign = (bits >>> 16) & 0x8000;
+		int abs = bits & 0x7fffffff;
+
+		if (abs >= 0x7f800000) {
+			// Infinity or NaN
+			return sign | 0x7c00 | (abs > 0x7f800000 ? 0x200 : 0);
+		}
+		if (abs >= 0x477ff000) {
+			// Too large, rounds to infinity
+			return sign | 0x7c00;
+		}
+		if (abs < 0x38800000) {
+			// Subnormal half (or zero): the value in units of 2^-24
+			return sign | Math.round(Float.intBitsToFloat(abs) * (1 << 24));
+		}
+
+		int half = (((abs >>> 23) - 112) << 10) | ((abs >>> 13) & 0x3ff);
+		int rest = abs & 0x1fff;
+		if (rest > 0x1000 || (rest == 0x1000 && (half & 1) != 0)) {
+			half++;
+		}
+		return sign | half;
+	}
+
+	static float halfToFloat(int aHalf)
+	{
+		int sign = (aHalf & 0x8000) << 16;
+		int exp = (aHalf >>> 10) & 0x1f;
+		int mantissa = aHalf & 0x3ff;
+
+		if (exp == 0) {
+			float value = mantissa / (float) (1 << 24);
+			return sign != 0 ? -value : value;
+		}
+		if (exp == 0x1f) {
+			return Float.intBitsToFloat(sign | 0x7f800000 | (mantissa << 13));
+		}
+		return Float.intBitsToFloat(sign | ((exp + 112) << 23) | (mantissa << 13));
+	}
+}
@@ -24,5 +24,26 @@ public interface VectorIndexContract
 	public static final String CONFIG_PROP_N_CONCEPTS = "nConcepts";
 	public static final String CONFIG_FILE_ENCODING = "UTF-8";
 
+	/**
+	 * Version of the vector format. Indexes without this property use {@link #FORMAT_VERSION_1}.
+	 */
+	public static final String CONFIG_PROP_FORMAT_VERSION = "formatVersion";
+
+	/**
+	 * Quantization used when writing {@link #FORMAT_VERSION_2}. Informational only, each record
+	 * carries its own quantization.
+	 */
+	public static final String CONFIG_PROP_QUANTIZATION = "quantization";
+
+	/**
+	 * Vectors stored as doubles, optionally compressed. See {@link VectorBinding}.
+	 */
+	public static final int FORMAT_VERSION_1 = 1;
+
+	/**
+	 * Vectors stored quantized with a precomputed norm. See {@link QuantizedVectorBinding}.
+	 */
+	public static final int FORMAT_VERSION_2 = 2;
+
 	public static final int DEFAULT_DB_CACHE = 16;
 }
@@ -22,7 +22,11 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Properties;
 
 import no.uib.cipr.matrix.Vector;
@@ -35,7 +39,9 @@ import com.sleepycat.bind.tuple.TupleBinding;
 import com.sleepycat.je.DatabaseException;
 
 /**
- * Reads an ESA vector index.
+ * Reads an ESA vector index. The vector format version is detected from the index configuration,
+ * so indexes written in {@link VectorIndexContract#FORMAT_VERSION_1 version 1} and
+ * {@link VectorIndexContract#FORMAT_VERSION_2 version 2} can both be read.
  *
  * @author Richard Eckart de Castilho
  */
@@ -48,6 +54,7 @@ public class VectorIndexReader
 	private BerkeleyDbDatabase db;
 	private long dbCacheSize = DEFAULT_DB_CACHE;
 	private int nConcepts;
+	private int formatVersion;
 
 	public VectorIndexReader(File aPath)
 	{
@@ -72,6 +79,50 @@ public class VectorIndexReader
 		}
 	}
 
+	/**
+	 * Fetches all vectors using a single database cursor, visiting the terms in index order.
+	 */
+	@Override
+	public Map<String, Vector> getVectors(Collection<String> aTerms)
+		throws SimilarityException
+	{
+		try {
+			Map<String, Vector> vectors = new HashMap<String, Vector>();
+			for (Entry<String, Object> e : getDb().get(aTerms).entrySet()) {
+				vectors.put(e.getKey(), (Vector) e.getValue());
+			}
+			return vectors;
+		}
+		catch (DatabaseException e) {
+			throw new SimilarityException(e);
+		}
+	}
+
+	/**
+	 * Indexes in format {@link VectorIndexContract#FORMAT_VERSION_2 version 2} store the norm in
+	 * front of each vector, so only the first bytes of the entry are read.
+	 */
+	@Override
+	public double getNorm2(String aTerm)
+		throws SimilarityException
+	{
+		BerkeleyDbDatabase database = getDb();
+		if (formatVersion != FORMAT_VERSION_2) {
+			return -1.0;
+		}
+
+		try {
+			byte[] header = database.getPrefix(aTerm, QuantizedVectorBinding.HEADER_LENGTH);
+			if (header == null || header.length < QuantizedVectorBinding.HEADER_LENGTH) {
+				return -1.0;
+			}
+			return QuantizedVectorBinding.readNorm(header);
+		}
+		catch (DatabaseException e) {
+			throw new SimilarityException(e);
+		}
+	}
+
 	@Override
 	public int getConceptCount()
 		throws SimilarityException
@@ -110,6 +161,16 @@ public class VectorIndexReader
 		return nConcepts;
 	}
 
+	/**
+	 * Get the version of the vector format used by the index.
+	 */
+	public int getFormatVersion()
+		throws SimilarityException
+	{
+		getDb();
+		return formatVersion;
+	}
+
 	private BerkeleyDbDatabase getDb()
 		throws SimilarityException
 	{
@@ -120,6 +181,8 @@ public class VectorIndexReader
 				in = new InputStreamReader(new FileInputStream(new File(path, CONFIG_FILE_NAME)), CONFIG_FILE_ENCODING);
 				props.load(in);
 				nConcepts = Integer.parseInt(props.getProperty(CONFIG_PROP_N_CONCEPTS));
+				formatVersion = Integer.parseInt(props.getProperty(CONFIG_PROP_FORMAT_VERSION,
+						String.valueOf(FORMAT_VERSION_1)));
 			}
 			catch (IOException e) {
 				throw new SimilarityException(e);
@@ -131,7 +194,18 @@ public class VectorIndexReader
 			dbEnv = new BerkeleyDbEnvironment(path.getAbsolutePath(), true, false, dbCacheSize);
 
 			// init conceptVectorIndex
-			TupleBinding<?> binding = new VectorBinding(nConcepts);
+			TupleBinding<?> binding;
+			switch (formatVersion) {
+			case FORMAT_VERSION_1:
+				binding = new VectorBinding(nConcepts);
+				break;
+			case FORMAT_VERSION_2:
+				binding = new QuantizedVectorBinding(nConcepts);
+				break;
+			default:
+				throw new SimilarityException("Unsupported vector index format version ["
+						+ formatVersion + "]");
+			}
 			db = new BerkeleyDbDatabase(dbEnv, CONCEPT_VECTOR_DB_NAME, true, false, binding);
 		}
 		return db;
@@ -22,6 +22,10 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import no.uib.cipr.matrix.Vector;
@@ -43,6 +47,8 @@ public class VectorIndexWriter
 	private BerkeleyDbDatabase db;
 	private long dbCacheSize = DEFAULT_DB_CACHE;
 	private int nConcepts;
+	private int formatVersion = FORMAT_VERSION_1;
+	private Quantization quantization = Quantization.FLOAT32;
 
 	public VectorIndexWriter(File aPath, int aNConcepts)
 	{
@@ -55,6 +61,46 @@ public class VectorIndexWriter
 		dbCacheSize = aDbCacheSize;
 	}
 
+	/**
+	 * Set the vector format to write. Defaults to {@link VectorIndexContract#FORMAT_VERSION_1}
+	 * which can be read by older versions of the reader. Must be set before the first vector is
+	 * added.
+	 */
+	public void setFormatVersion(int aFormatVersion)
+	{
+		if (db != null) {
+			throw new IllegalStateException("Format cannot be changed after writing has started");
+		}
+		if (aFormatVersion != FORMAT_VERSION_1 && aFormatVersion != FORMAT_VERSION_2) {
+			throw new IllegalArgumentException("Unsupported vector index format version ["
+					+ aFormatVersion + "]");
+		}
+		formatVersion = aFormatVersion;
+	}
+
+	public int getFormatVersion()
+	{
+		return formatVersion;
+	}
+
+	/**
+	 * Set the precision of the stored values. Only used by
+	 * {@link VectorIndexContract#FORMAT_VERSION_2}. Must be set before the first vector is added.
+	 */
+	public void setQuantization(Quantization aQuantization)
+	{
+		if (db != null) {
+			throw new IllegalStateException(
+					"Quantization cannot be changed after writing has started");
+		}
+		quantization = aQuantization;
+	}
+
+	public Quantization getQuantization()
+	{
+		return quantization;
+	}
+
 	public void put(String aTerm, Vector aVector)
 		throws IOException
 	{
@@ -65,6 +111,32 @@ public class VectorIndexWriter
 		getDb().put(aTerm, aVector);
 	}
 
+	/**
+	 * Add several vectors at once. The vectors are written in the order of their terms, which
+	 * keeps the database pages of subsequent writes close together.
+	 */
+	public void put(Map<String, Vector> aVectors)
+		throws IOException
+	{
+		List<String> terms = new ArrayList<String>(aVectors.keySet());
+		Collections.sort(terms);
+		for (String term : terms) {
+			put(term, aVectors.get(term));
+		}
+	}
+
+	/**
+	 * Write all data added so far to disk. Once this method returns, the vectors survive a crash
+	 * of the writing process.
+	 */
+	public void flush()
+		throws IOException
+	{
+		if (dbEnv != null) {
+			dbEnv.getEnvironment().sync();
+		}
+	}
+
 	public int getConceptCount()
 	{
 		return nConcepts;
@@ -88,13 +160,23 @@ public class VectorIndexWriter
 			dbEnv = new BerkeleyDbEnvironment(path.getAbsolutePath(), false, true, dbCacheSize);
 
 			// init conceptVectorIndex
-			TupleBinding<?> binding = new VectorBinding(nConcepts);
+			TupleBinding<?> binding;
+			if (formatVersion == FORMAT_VERSION_2) {
+				binding = new QuantizedVectorBinding(nConcepts, quantization);
+			}
+			else {
+				binding = new VectorBinding(nConcepts);
+			}
 			db = new BerkeleyDbDatabase(dbEnv, CONCEPT_VECTOR_DB_NAME, false, true, binding);
 
 			Writer out = null;
 			try {
 				Properties props = new Properties();
 				props.setProperty(CONFIG_PROP_N_CONCEPTS, String.valueOf(nConcepts));
+				if (formatVersion != FORMAT_VERSION_1) {
+					props.setProperty(CONFIG_PROP_FORMAT_VERSION, String.valueOf(formatVersion));
+					props.setProperty(CONFIG_PROP_QUANTIZATION, quantization.name());
+				}
 				out = new OutputStreamWriter(new FileOutputStream(new File(path, CONFIG_FILE_NAME)),
 						CONFIG_FILE_ENCODING);
 				props.store(out, null);
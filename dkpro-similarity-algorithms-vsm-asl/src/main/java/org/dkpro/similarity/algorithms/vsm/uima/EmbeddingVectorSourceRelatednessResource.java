@@ -11,6 +11,8 @@ import org.dkpro.similarity.algorithms.vsm.store.CachingVectorReader;
 import org.dkpro.similarity.algorithms.vsm.store.EmbeddingVectorReader;
 import org.dkpro.similarity.algorithms.vsm.store.EmbeddingVectorReader.EmbeddingEncoding;
 import org.dkpro.similarity.algorithms.vsm.store.EmbeddingVectorReader.EmbeddingFormat;
+import org.dkpro.similarity.algorithms.vsm.store.VectorReader;
+import org.dkpro.similarity.algorithms.vsm.store.mapped.MappedVectorReader;
 import org.dkpro.similarity.uima.resource.TextSimilarityResourceBase;
 
 import de.tudarmstadt.ukp.dkpro.core.api.parameter.ComponentParameters;
@@ -26,6 +28,22 @@ public final class EmbeddingVectorSourceRelatednessResource
 	    @ConfigurationParameter(name = PARAM_CACHE_SIZE, mandatory = true, defaultValue="100")
 	    protected int cacheSize;
 	    
+	    /**
+	     * If larger than zero, the cache is bounded by the total number of non-zero vector entries
+	     * instead of by the number of vectors.
+	     */
+	    public static final String PARAM_CACHE_MAX_WEIGHT = "CacheMaxWeight";
+	    @ConfigurationParameter(name = PARAM_CACHE_MAX_WEIGHT, mandatory = true, defaultValue="-1")
+	    protected long cacheMaxWeight;
+	    
+	    /**
+	     * Time in seconds after which a cached vector expires. Vectors do not expire if this is
+	     * zero or less.
+	     */
+	    public static final String PARAM_CACHE_TIME_TO_LIVE = "CacheTimeToLive";
+	    @ConfigurationParameter(name = PARAM_CACHE_TIME_TO_LIVE, mandatory = true, defaultValue="-1")
+	    protected long cacheTimeToLive;
+	    
 	    public static final String PARAM_EMBEDDING_FORMAT = "PARAM_EMBEDDING_FORMAT";
 	    @ConfigurationParameter(name = PARAM_EMBEDDING_FORMAT, mandatory = true, defaultValue="GLOVE")
 	    protected EmbeddingFormat embeddingFormat;
@@ -58,19 +76,26 @@ public final class EmbeddingVectorSourceRelatednessResource
 	        
 	        this.mode = TextSimilarityResourceMode.list;
 	        
-	        measure =	new VectorComparator( 
-	        						new CachingVectorReader(
-	        								new EmbeddingVectorReader( 
-	        										new File(modelLocation),
-	        										embeddingFormat,
-	        										embeddingEncoding,
-	        										new File(filterLocation),
-	        										containerFile,
-	        										seperatorSequence
-	        								),
-	        								cacheSize
-	        						)
-	        				);
+	        VectorReader reader;
+	        if (embeddingEncoding == EmbeddingEncoding.mapped) {
+	        	// Vectors are read from the page cache - no need to load them or use a cache
+	        	reader = new MappedVectorReader(new File(modelLocation));
+	        }
+	        else {
+	        	reader = new CachingVectorReader(
+	        				new EmbeddingVectorReader( 
+	        						new File(modelLocation),
+	        						embeddingFormat,
+	        						embeddingEncoding,
+	        						new File(filterLocation),
+	        						containerFile,
+	        						seperatorSequence
+	        				),
+	        				CachingVectorReader.createCache(cacheSize, cacheMaxWeight, cacheTimeToLive)
+	        		);
+	        }
+	        
+	        measure =	new VectorComparator(reader);
 	        
 	        return true;
 	    }
@@ -42,6 +42,22 @@ public final class VectorIndexSourceRelatednessResource
     @ConfigurationParameter(name = PARAM_CACHE_SIZE, mandatory = true, defaultValue="100")
     protected String cacheSize;
 
+    /**
+     * If larger than zero, the cache is bounded by the total number of non-zero vector entries
+     * instead of by the number of vectors.
+     */
+    public static final String PARAM_CACHE_MAX_WEIGHT = "CacheMaxWeight";
+    @ConfigurationParameter(name = PARAM_CACHE_MAX_WEIGHT, mandatory = true, defaultValue="-1")
+    protected long cacheMaxWeight;
+
+    /**
+     * Time in seconds after which a cached vector expires. Vectors do not expire if this is zero
+     * or less.
+     */
+    public static final String PARAM_CACHE_TIME_TO_LIVE = "CacheTimeToLive";
+    @ConfigurationParameter(name = PARAM_CACHE_TIME_TO_LIVE, mandatory = true, defaultValue="-1")
+    protected long cacheTimeToLive;
+
     @Override
     public boolean initialize(ResourceSpecifier aSpecifier, Map<String, Object> aAdditionalParams)
         throws ResourceInitializationException
@@ -54,7 +70,8 @@ public final class VectorIndexSourceRelatednessResource
 
         measure = new VectorComparator(new CachingVectorReader(
                 new VectorIndexReader(new File(modelLocation)),
-                Integer.parseInt(cacheSize)
+                CachingVectorReader.createCache(Integer.parseInt(cacheSize), cacheMaxWeight,
+                        cacheTimeToLive)
         ));
         
         return true;
@@ -0,0 +1,63 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.util;
+
+/**
+ * Usage statistics of a cache. All counters are cumulative since the cache was created.
+ *
+ * @see ConcurrentCache
+ */
+public interface CacheMetrics
+{
+	/**
+	 * Number of lookups which found a value in the cache.
+	 */
+	long getHitCount();
+
+	/**
+	 * Number of lookups which did not find a value in the cache, including lookups of expired
+	 * values.
+	 */
+	long getMissCount();
+
+	/**
+	 * Number of values removed from the cache because the cache was full or the values expired.
+	 */
+	long getEvictionCount();
+
+	/**
+	 * Number of load operations. Loading several values in one batch counts as one operation.
+	 */
+	long getLoadCount();
+
+	/**
+	 * Total time spent loading values, in nanoseconds.
+	 */
+	long getTotalLoadTime();
+
+	/**
+	 * Number of values currently in the cache.
+	 */
+	int getSize();
+
+	/**
+	 * Total weight of the values currently in the cache. If the cache is bounded by size, this is
+	 * equal to {@link #getSize()}.
+	 */
+	long getWeight();
+}
@@ -0,0 +1,450 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.util;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe cache evicting the least recently used values once the cache exceeds its maximum
+ * size or weight. Values may optionally expire after a fixed time.
+ * <p>
+ * The cache is split into independently locked segments so that threads accessing different keys
+ * rarely contend. The maximum weight applies to the whole cache, but the least recently used order
+ * is maintained per segment: when the cache is full, the least recently used value of the segment
+ * receiving the new value is evicted first.
+ * <p>
+ * Unlike {@link StringKeyCache}, keys are not interned and {@code null} values are not cached.
+ */
+public class ConcurrentCache<K, V>
+	implements CacheMetrics
+{
+	private static final int SEGMENTS = 16;
+
+	/**
+	 * Computes the weight of a cached value.
+	 */
+	public interface Weigher<K, V>
+	{
+		long weigh(K aKey, V aValue);
+	}
+
+	/**
+	 * Loads a value which is not in the cache.
+	 */
+	public interface Loader<K, V, E extends Exception>
+	{
+		V load(K aKey)
+			throws E;
+	}
+
+	private final Segment<K, V>[] segments;
+	private final Weigher<? super K, ? super V> weigher;
+	private volatile long maximumWeight;
+	private final long timeToLive;
+	private final AtomicLong weight = new AtomicLong();
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder loads = new LongAdder();
+	private final LongAdder loadTime = new LongAdder();
+
+	/**
+	 * Create a cache holding at most the given number of values.
+	 */
+	public ConcurrentCache(int aCapacity)
+	{
+		this(aCapacity, null, 0, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Create a cache bounded by the total weight of its values.
+	 *
+	 * @param aMaximumWeight
+	 *            the maximum total weight of the cached values.
+	 * @param aWeigher
+	 *            computes the weight of a value. If {@code null}, each value has the weight one.
+	 * @param aTimeToLive
+	 *            time after which a value expires once it has been put into the cache. Values do
+	 *            not expire if this is zero or less.
+	 * @param aUnit
+	 *            the unit of the time to live.
+	 */
+	public ConcurrentCache(long aMaximumWeight, Weigher<? super K, ? super V> aWeigher,
+			long aTimeToLive, TimeUnit aUnit)
+	{
+		if (aMaximumWeight < 1) {
+			throw new IllegalArgumentException("Maximum weight must be at least 1");
+		}
+
+		maximumWeight = aMaximumWeight;
+		weigher = aWeigher;
+		timeToLive = aTimeToLive > 0 ? aUnit.toNanos(aTimeToLive) : 0;
+
+		segments = newSegments(SEGMENTS);
+	}
+
+	/**
+	 * Get the cached value for the given key.
+	 *
+	 * @return the value or {@code null} if the value is not in the cache.
+	 */
+	public V get(K aKey)
+	{
+		V value = segmentFor(aKey).get(aKey);
+		if (value != null) {
+			hits.increment();
+		}
+		else {
+			misses.increment();
+		}
+		return value;
+	}
+
+	/**
+	 * Get the cached value for the given key without counting a hit or miss.
+	 *
+	 * @return the value or {@code null} if the value is not in the cache.
+	 */
+	public V peek(K aKey)
+	{
+		return segmentFor(aKey).get(aKey);
+	}
+
+	/**
+	 * Get the cached value for the given key or load and cache it if it is not in the cache. The
+	 * loader is called without holding any lock, so concurrent requests for the same missing key
+	 * may load the value more than once.
+	 *
+	 * @return the value or {@code null} if the loader returned {@code null}.
+	 */
+	public <E extends Exception> V get(K aKey, Loader<? super K, ? extends V, E> aLoader)
+		throws E
+	{
+		V value = get(aKey);
+		if (value != null) {
+			return value;
+		}
+
+		long start = System.nanoTime();
+		value = aLoader.load(aKey);
+		loadTime.add(System.nanoTime() - start);
+		loads.increment();
+
+		if (value != null) {
+			put(aKey, value);
+		}
+		return value;
+	}
+
+	/**
+	 * Call the given loader without looking up or caching anything, but record the time spent
+	 * loading in the metrics. This is useful when several values are loaded at once.
+	 */
+	public <T, R, E extends Exception> R load(T aKeys, Loader<? super T, ? extends R, E> aLoader)
+		throws E
+	{
+		long start = System.nanoTime();
+		R result = aLoader.load(aKeys);
+		loadTime.add(System.nanoTime() - start);
+		loads.increment();
+		return result;
+	}
+
+	public void put(K aKey, V aValue)
+	{
+		if (aKey == null || aValue == null) {
+			throw new IllegalArgumentException("Key and value must not be null");
+		}
+
+		long valueWeight = weigher != null ? weigher.weigh(aKey, aValue) : 1;
+		int index = segmentIndex(aKey);
+
+		// The value is heavier than the whole cache. Do not insert it and do not evict other
+		// values for it, but drop an older value of the key, which is now outdated.
+		if (valueWeight > maximumWeight) {
+			segments[index].remove(aKey);
+			return;
+		}
+
+		long expires = timeToLive > 0 ? System.nanoTime() + timeToLive : 0;
+		segments[index].put(aKey, new CacheEntry<V>(aValue, valueWeight, expires));
+
+		// Evict least recently used values other than the one which was just added
+		evict(index, aKey);
+	}
+
+	public void remove(K aKey)
+	{
+		segmentFor(aKey).remove(aKey);
+	}
+
+	public void clear()
+	{
+		for (Segment<K, V> s : segments) {
+			s.clear();
+		}
+	}
+
+	/**
+	 * Get a copy of the values which are currently in the cache and have not expired. The copy is
+	 * not affected by later changes of the cache and does not count as an access.
+	 */
+	public Map<K, V> snapshot()
+	{
+		Map<K, V> copy = new HashMap<K, V>();
+		long now = System.nanoTime();
+		for (Segment<K, V> s : segments) {
+			s.copyTo(copy, now);
+		}
+		return copy;
+	}
+
+	public long getMaximumWeight()
+	{
+		return maximumWeight;
+	}
+
+	/**
+	 * Change the maximum size or weight of the cache. If the cache is larger than the new maximum,
+	 * least recently used values are evicted immediately.
+	 */
+	public void setMaximumWeight(long aMaximumWeight)
+	{
+		if (aMaximumWeight < 1) {
+			throw new IllegalArgumentException("Maximum weight must be at least 1");
+		}
+
+		maximumWeight = aMaximumWeight;
+		evict(0, null);
+	}
+
+	@Override
+	public long getHitCount()
+	{
+		return hits.sum();
+	}
+
+	@Override
+	public long getMissCount()
+	{
+		return misses.sum();
+	}
+
+	@Override
+	public long getEvictionCount()
+	{
+		return evictions.sum();
+	}
+
+	@Override
+	public long getLoadCount()
+	{
+		return loads.sum();
+	}
+
+	@Override
+	public long getTotalLoadTime()
+	{
+		return loadTime.sum();
+	}
+
+	@Override
+	public int getSize()
+	{
+		int size = 0;
+		for (Segment<K, V> s : segments) {
+			size += s.size();
+		}
+		return size;
+	}
+
+	@Override
+	public long getWeight()
+	{
+		return weight.get();
+	}
+
+	@Override
+	public String toString()
+	{
+		return "Hits: " + getHitCount() + " Misses: " + getMissCount() + " Evictions: "
+				+ getEvictionCount() + " Loads: " + getLoadCount() + " Load time: "
+				+ TimeUnit.NANOSECONDS.toMillis(getTotalLoadTime()) + "ms Size: " + getSize()
+				+ " Weight: " + getWeight() + " Maximum weight: " + maximumWeight;
+	}
+
+	/**
+	 * Evict least recently used values, starting with the segment at the given index, until the
+	 * cache is within its maximum weight. The value with the given key is kept.
+	 */
+	private void evict(int aIndex, Object aKeepKey)
+	{
+		int index = aIndex;
+		int empty = 0;
+		while (weight.get() > maximumWeight && empty < segments.length) {
+			if (segments[index].evictEldest(aKeepKey)) {
+				empty = 0;
+			}
+			else {
+				empty++;
+				index = (index + 1) % segments.length;
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private Segment<K, V>[] newSegments(int aCount)
+	{
+		Segment<K, V>[] s = new Segment[aCount];
+		for (int i = 0; i < aCount; i++) {
+			s[i] = new Segment<K, V>(weight, evictions);
+		}
+		return s;
+	}
+
+	private Segment<K, V> segmentFor(Object aKey)
+	{
+		return segments[segmentIndex(aKey)];
+	}
+
+	private int segmentIndex(Object aKey)
+	{
+		int h = aKey.hashCode();
+		h ^= (h >>> 16);
+		return (h & 0x7fffffff) % segments.length;
+	}
+
+	private static final class CacheEntry<V>
+	{
+		final V value;
+		final long weight;
+		final long expires;
+
+		CacheEntry(V aValue, long aWeight, long aExpires)
+		{
+			value = aValue;
+			weight = aWeight;
+			expires = aExpires;
+		}
+
+		boolean isExpired(long aNow)
+		{
+			return expires != 0 && aNow - expires >= 0;
+		}
+	}
+
+	private static final class Segment<SK, SV>
+	{
+		private final LinkedHashMap<SK, CacheEntry<SV>> map;
+		private final AtomicLong weight;
+		private final LongAdder evictions;
+
+		Segment(AtomicLong aWeight, LongAdder aEvictions)
+		{
+			weight = aWeight;
+			evictions = aEvictions;
+			map = new LinkedHashMap<SK, CacheEntry<SV>>(16, 0.75f, true);
+		}
+
+		synchronized SV get(SK aKey)
+		{
+			CacheEntry<SV> e = map.get(aKey);
+			if (e == null) {
+				return null;
+			}
+
+			if (e.isExpired(System.nanoTime())) {
+				map.remove(aKey);
+				weight.addAndGet(-e.weight);
+				evictions.increment();
+				return null;
+			}
+
+			return e.value;
+		}
+
+		synchronized void put(SK aKey, CacheEntry<SV> aEntry)
+		{
+			CacheEntry<SV> old = map.put(aKey, aEntry);
+			weight.addAndGet(old != null ? aEntry.weight - old.weight : aEntry.weight);
+		}
+
+		/**
+		 * Evict the least recently used value, except for the value with the given key.
+		 *
+		 * @return whether a value has been evicted.
+		 */
+		synchronized boolean evictEldest(Object aKeepKey)
+		{
+			Iterator<Map.Entry<SK, CacheEntry<SV>>> i = map.entrySet().iterator();
+			while (i.hasNext()) {
+				Map.Entry<SK, CacheEntry<SV>> eldest = i.next();
+				if (aKeepKey != null && eldest.getKey().equals(aKeepKey)) {
+					continue;
+				}
+
+				i.remove();
+				weight.addAndGet(-eldest.getValue().weight);
+				evictions.increment();
+				return true;
+			}
+			return false;
+		}
+
+		synchronized boolean remove(Object aKey)
+		{
+			CacheEntry<SV> old = map.remove(aKey);
+			if (old != null) {
+				weight.addAndGet(-old.weight);
+				return true;
+			}
+			return false;
+		}
+
+		synchronized void clear()
+		{
+			long removed = 0;
+			for (CacheEntry<SV> e : map.values()) {
+				removed += e.weight;
+			}
+			map.clear();
+			weight.addAndGet(-removed);
+		}
+
+		synchronized int size()
+		{
+			return map.size();
+		}
+
+		synchronized void copyTo(Map<SK, SV> aTarget, long aNow)
+		{
+			for (Map.Entry<SK, CacheEntry<SV>> e : map.entrySet()) {
+				if (!e.getValue().isExpired(aNow)) {
+					aTarget.put(e.getKey(), e.getValue().value);
+				}
+			}
+		}
+	}
+}
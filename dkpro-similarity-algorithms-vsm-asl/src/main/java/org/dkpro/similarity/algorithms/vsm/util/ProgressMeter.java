@@ -26,6 +26,7 @@ public class ProgressMeter
 	private long _last;
 	private long _count;
 	private final long _limit;
+	private long _skipped;
 
 	public ProgressMeter(final long limit)
 	{
@@ -54,6 +55,25 @@ public class ProgressMeter
 		_last = System.currentTimeMillis();
 	}
 
+	/**
+	 * Count items which have already been processed before, e.g. when resuming an interrupted
+	 * job. They count towards the progress but not towards the throughput and the ETA.
+	 */
+	public void skip(final long count)
+	{
+		_count += count;
+		_skipped += count;
+	}
+
+	/**
+	 * Get the number of items processed per second since the meter was created.
+	 */
+	public double getThroughput()
+	{
+		final long time = System.currentTimeMillis() - _start;
+		return time > 0 ? ((_count - _skipped) * 1000.0) / time : 0.0;
+	}
+
 	public void setLeft(final long count)
 	{
 		_count = _limit - count;
@@ -68,19 +88,20 @@ public class ProgressMeter
 		sb.append(_count);
 		sb.append(" of ");
 		sb.append(_limit);
-		if (_count > 0 && _limit > 0) {
+		// Skipped items took no time, so they must not lower the average
+		final long processed = _count - _skipped;
+		if (processed > 0 && _limit > 0) {
 			final int perc = 100 - (int) (((_limit - _count) * 100) / _limit);
 			sb.append(" (");
 			sb.append(perc);
 			sb.append("%  ETA ");
 			final double timeSoFar = (_last - _start);
-			final long estTotal = round((timeSoFar / _count) * _limit);
-			final long timeLeft = round(estTotal - timeSoFar);
+			final long timeLeft = round((timeSoFar / processed) * (_limit - _count));
 			sb.append(milliToStringShort(timeLeft));
 			sb.append("  RUN ");
 			sb.append(milliToStringShort(_last - _start));
 			sb.append("  AVG ");
-			sb.append(round(timeSoFar / _count));
+			sb.append(round(timeSoFar / processed));
 			sb.append("  LAST ");
 			sb.append(_last - _preLast);
 			sb.append(")");
@@ -24,7 +24,9 @@ import java.util.Map.Entry;
  * Custom EsaVectorCache, since the general EsaVectorCache distorts results. See Bug 148.
  *
  * @author Richard Eckart de Castilho
+ * @deprecated This cache is not thread-safe. Use {@link ConcurrentCache} instead.
  */
+@Deprecated
 public class StringKeyCache<T>
 	extends LinkedHashMap<String, T>
 {
@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.vector;
+
+import java.util.Arrays;
+
+import no.uib.cipr.matrix.AbstractVector;
+import no.uib.cipr.matrix.DenseVector;
+import no.uib.cipr.matrix.Vector;
+
+/**
+ * Read-only dense vector storing its elements as {@code float} values. Compared to
+ * {@link DenseVector}, it requires only half of the memory. The array passed to the constructor
+ * is not copied, thus readers can hand out vectors backed by their internal storage.
+ * <p>
+ * Modifying operations throw an {@link UnsupportedOperationException}. Use {@link #copy()} to
+ * obtain a modifiable vector. Since the vector cannot change, its L2 norm is calculated only once
+ * and then remembered, or it can be passed to the constructor if it is already known.
+ */
+public class FloatDenseVector
+	extends AbstractVector
+{
+	private static final long serialVersionUID = -4427880049383357566L;
+
+	private final float[] data;
+
+	/**
+	 * The L2 norm or a negative value if it has not been calculated yet.
+	 */
+	private volatile double norm2 = -1.0;
+
+	public FloatDenseVector(float[] aData)
+	{
+		super(aData.length);
+		data = aData;
+	}
+
+	/**
+	 * @param aNorm2
+	 *            the precomputed L2 norm of the vector.
+	 */
+	public FloatDenseVector(float[] aData, double aNorm2)
+	{
+		this(aData);
+		norm2 = aNorm2;
+	}
+
+	/**
+	 * Creates a dense float copy of the given vector.
+	 */
+	public FloatDenseVector(Vector aVector)
+	{
+		this(VectorKernels.toFloatArray(aVector));
+	}
+
+	/**
+	 * Get the backing array. It must not be modified.
+	 */
+	public float[] getData()
+	{
+		return data;
+	}
+
+	@Override
+	public double get(int aIndex)
+	{
+		return data[aIndex];
+	}
+
+	@Override
+	public DenseVector copy()
+	{
+		double[] copy = new double[data.length];
+		for (int i = 0; i < data.length; i++) {
+			copy[i] = data[i];
+		}
+		return new DenseVector(copy, false);
+	}
+
+	@Override
+	public double dot(Vector aVector)
+	{
+		checkSize(aVector);
+		return VectorKernels.dot(this, aVector);
+	}
+
+	@Override
+	protected double norm1()
+	{
+		return VectorKernels.norm1(this);
+	}
+
+	@Override
+	protected double norm2()
+	{
+		return getNorm2();
+	}
+
+	@Override
+	protected double norm2_robust()
+	{
+		return getNorm2();
+	}
+
+	/**
+	 * Get the L2 norm of the vector.
+	 */
+	public double getNorm2()
+	{
+		double n = norm2;
+		if (n < 0.0) {
+			n = VectorKernels.norm2(data);
+			norm2 = n;
+		}
+		return n;
+	}
+
+	/**
+	 * Get the L2 norm if it is already known.
+	 *
+	 * @return the norm or a negative value.
+	 */
+	double getKnownNorm2()
+	{
+		return norm2;
+	}
+
+	void setKnownNorm2(double aNorm2)
+	{
+		norm2 = aNorm2;
+	}
+
+	@Override
+	protected double normInf()
+	{
+		return VectorKernels.normInf(this);
+	}
+
+	@Override
+	public boolean equals(Object aObj)
+	{
+		if (this == aObj) {
+			return true;
+		}
+		if (!(aObj instanceof FloatDenseVector)) {
+			return false;
+		}
+		return Arrays.equals(data, ((FloatDenseVector) aObj).data);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return Arrays.hashCode(data);
+	}
+}
@@ -0,0 +1,307 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.vector;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import no.uib.cipr.matrix.AbstractVector;
+import no.uib.cipr.matrix.Vector;
+import no.uib.cipr.matrix.VectorEntry;
+import no.uib.cipr.matrix.sparse.SparseVector;
+
+/**
+ * Read-only sparse vector storing its non-zero elements as a sorted {@code int} index array and
+ * a parallel {@code float} value array. Compared to {@link SparseVector}, the values require only
+ * half of the memory and the arrays are always compact. The arrays passed to the constructor are
+ * not copied.
+ * <p>
+ * Modifying operations throw an {@link UnsupportedOperationException}. Use {@link #copy()} to
+ * obtain a modifiable vector. As for {@link FloatDenseVector}, the L2 norm is calculated only once
+ * or can be passed to the constructor.
+ */
+public class FloatSparseVector
+	extends AbstractVector
+{
+	private static final long serialVersionUID = 2935306213929744009L;
+
+	private final int[] index;
+	private final float[] data;
+
+	/**
+	 * The L2 norm or a negative value if it has not been calculated yet.
+	 */
+	private volatile double norm2 = -1.0;
+
+	/**
+	 * @param aSize
+	 *            the size of the vector.
+	 * @param aIndex
+	 *            the indexes of the non-zero elements in ascending order.
+	 * @param aData
+	 *            the values of the non-zero elements.
+	 */
+	public FloatSparseVector(int aSize, int[] aIndex, float[] aData)
+	{
+		super(aSize);
+
+		if (aIndex.length != aData.length) {
+			throw new IllegalArgumentException("Index and data arrays have different lengths ("
+					+ aIndex.length + " vs. " + aData.length + ")");
+		}
+
+		for (int i = 0; i < aIndex.length; i++) {
+			if (aIndex[i] < 0 || aIndex[i] >= aSize || (i > 0 && aIndex[i - 1] >= aIndex[i])) {
+				throw new IllegalArgumentException("Indexes must be ascending and within [0,"
+						+ aSize + ")");
+			}
+		}
+
+		index = aIndex;
+		data = aData;
+	}
+
+	/**
+	 * @param aNorm2
+	 *            the precomputed L2 norm of the vector.
+	 */
+	public FloatSparseVector(int aSize, int[] aIndex, float[] aData, double aNorm2)
+	{
+		this(aSize, aIndex, aData);
+		norm2 = aNorm2;
+	}
+
+	/**
+	 * Creates a sparse float copy of the non-zero elements of the given vector.
+	 */
+	public FloatSparseVector(Vector aVector)
+	{
+		super(aVector.size());
+
+		int used = 0;
+		for (VectorEntry e : aVector) {
+			if (e.get() != 0.0) {
+				used++;
+			}
+		}
+
+		index = new int[used];
+		data = new float[used];
+		int i = 0;
+		for (VectorEntry e : aVector) {
+			if (e.get() != 0.0) {
+				index[i] = e.index();
+				data[i] = (float) e.get();
+				i++;
+			}
+		}
+		sort(index, data);
+	}
+
+	/**
+	 * Get the backing index array. It must not be modified.
+	 */
+	public int[] getIndex()
+	{
+		return index;
+	}
+
+	/**
+	 * Get the backing value array. It must not be modified.
+	 */
+	public float[] getData()
+	{
+		return data;
+	}
+
+	/**
+	 * Get the number of stored elements.
+	 */
+	public int getUsed()
+	{
+		return index.length;
+	}
+
+	@Override
+	public double get(int aIndex)
+	{
+		check(aIndex);
+		int i = Arrays.binarySearch(index, aIndex);
+		return i >= 0 ? data[i] : 0.0;
+	}
+
+	@Override
+	public SparseVector copy()
+	{
+		double[] copy = new double[data.length];
+		for (int i = 0; i < data.length; i++) {
+			copy[i] = data[i];
+		}
+		return new SparseVector(size, index.clone(), copy, false);
+	}
+
+	@Override
+	public double dot(Vector aVector)
+	{
+		checkSize(aVector);
+		return VectorKernels.dot(this, aVector);
+	}
+
+	@Override
+	protected double norm1()
+	{
+		return VectorKernels.norm1(this);
+	}
+
+	@Override
+	protected double norm2()
+	{
+		return getNorm2();
+	}
+
+	@Override
+	protected double norm2_robust()
+	{
+		return getNorm2();
+	}
+
+	/**
+	 * Get the L2 norm of the vector.
+	 */
+	public double getNorm2()
+	{
+		double n = norm2;
+		if (n < 0.0) {
+			n = VectorKernels.norm2(data);
+			norm2 = n;
+		}
+		return n;
+	}
+
+	/**
+	 * Get the L2 norm if it is already known.
+	 *
+	 * @return the norm or a negative value.
+	 */
+	double getKnownNorm2()
+	{
+		return norm2;
+	}
+
+	@Override
+	protected double normInf()
+	{
+		return VectorKernels.normInf(this);
+	}
+
+	/**
+	 * Iterates over the stored elements only.
+	 */
+	@Override
+	public Iterator<VectorEntry> iterator()
+	{
+		return new Iterator<VectorEntry>()
+		{
+			private int next = 0;
+
+			private final VectorEntry entry = new VectorEntry()
+			{
+				@Override
+				public int index()
+				{
+					return index[next - 1];
+				}
+
+				@Override
+				public double get()
+				{
+					return data[next - 1];
+				}
+
+				@Override
+				public void set(double aValue)
+				{
+					throw new UnsupportedOperationException("Vector is read-only");
+				}
+			};
+
+			@Override
+			public boolean hasNext()
+			{
+				return next < index.length;
+			}
+
+			@Override
+			public VectorEntry next()
+			{
+				if (!hasNext()) {
+					throw new NoSuchElementException();
+				}
+				next++;
+				return entry;
+			}
+
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException("Vector is read-only");
+			}
+		};
+	}
+
+	@Override
+	public boolean equals(Object aObj)
+	{
+		if (this == aObj) {
+			return true;
+		}
+		if (!(aObj instanceof FloatSparseVector)) {
+			return false;
+		}
+		FloatSparseVector other = (FloatSparseVector) aObj;
+		return size == other.size && Arrays.equals(index, other.index)
+				&& Arrays.equals(data, other.data);
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return 31 * Arrays.hashCode(index) + Arrays.hashCode(data);
+	}
+
+	/**
+	 * Insertion sort of the parallel arrays by index. The vectors we copy from usually iterate in
+	 * index order already, so this is normally a single pass.
+	 */
+	private static void sort(int[] aIndex, float[] aData)
+	{
+		for (int i = 1; i < aIndex.length; i++) {
+			if (aIndex[i - 1] > aIndex[i]) {
+				for (int j = i; j > 0 && aIndex[j - 1] > aIndex[j]; j--) {
+					int ti = aIndex[j];
+					aIndex[j] = aIndex[j - 1];
+					aIndex[j - 1] = ti;
+					float td = aData[j];
+					aData[j] = aData[j - 1];
+					aData[j - 1] = td;
+				}
+			}
+		}
+	}
+}
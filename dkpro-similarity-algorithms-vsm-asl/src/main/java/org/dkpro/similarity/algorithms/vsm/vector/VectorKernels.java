@@ -0,0 +1,998 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.vector;
+
+import no.uib.cipr.matrix.DenseVector;
+import no.uib.cipr.matrix.Vector;
+import no.uib.cipr.matrix.VectorEntry;
+import no.uib.cipr.matrix.sparse.SparseVector;
+
+/**
+ * Allocation-free kernels operating directly on the arrays backing {@link DenseVector},
+ * {@link SparseVector}, {@link FloatDenseVector} and {@link FloatSparseVector}. Sparse/sparse
+ * pairs are combined by a merge-join over the sorted index arrays, sparse/dense pairs by direct
+ * array access. Pairs mixing {@code float} and {@code double} vectors and other vector types fall
+ * back to iterating over the first vector and looking up the elements of the second.
+ * <p>
+ * The pairwise operations only visit the elements stored in the first vector (all elements for
+ * dense vectors) for which the second vector has a non-zero element. This is the same as
+ * iterating over the first vector, provided that the operation yields zero if the element of the
+ * second vector is zero.
+ * <p>
+ * Each combination of vector types has one loop per operation, so neither the operation nor the
+ * order of the operands is decided per element.
+ */
+public final class VectorKernels
+{
+	private static final int PRODUCT = 0;
+	private static final int LESK = 1;
+	private static final int MIN_OVERLAP = 2;
+	private static final int SECOND = 3;
+	private static final int MIN = 4;
+	private static final int AVERAGE_PRODUCT = 5;
+
+	private static final int SUM = 0;
+	private static final int ABS_SUM = 1;
+	private static final int SQUARE_SUM = 2;
+	private static final int ABS_MAX = 3;
+	private static final int MIN_VALUE = 4;
+
+	private VectorKernels()
+	{
+		// No instances
+	}
+
+	/**
+	 * Sum of {@code a[i] * b[i]}.
+	 */
+	public static double dot(Vector aV1, Vector aV2)
+	{
+		return join(PRODUCT, aV1, aV2);
+	}
+
+	/**
+	 * Sum of {@code a[i] + b[i]} for all elements where {@code b[i]} is not zero.
+	 */
+	public static double leskOverlap(Vector aV1, Vector aV2)
+	{
+		return join(LESK, aV1, aV2);
+	}
+
+	/**
+	 * Sum of {@code min(a[i], b[i])} for all elements where {@code b[i]} is not zero.
+	 */
+	public static double minOverlap(Vector aV1, Vector aV2)
+	{
+		return join(MIN_OVERLAP, aV1, aV2);
+	}
+
+	/**
+	 * Sum of the elements {@code b[i]} for which the first vector stores an element.
+	 */
+	public static double coveredSum(Vector aV1, Vector aV2)
+	{
+		return join(SECOND, aV1, aV2);
+	}
+
+	/**
+	 * Sum of {@code min(a[i], b[i])}. Both vectors must not contain negative values.
+	 */
+	public static double minSum(Vector aV1, Vector aV2)
+	{
+		return join(MIN, aV1, aV2);
+	}
+
+	/**
+	 * Sum of {@code ((a[i] + b[i]) / 2) * a[i] * b[i]}.
+	 */
+	public static double averageProduct(Vector aV1, Vector aV2)
+	{
+		return join(AVERAGE_PRODUCT, aV1, aV2);
+	}
+
+	/**
+	 * Cosine of the angle between the two vectors, or {@code 0.0} if one of them is a zero vector.
+	 * <p>
+	 * For pairs of dense vectors, the dot product and both norms are computed in a single pass
+	 * over the arrays using several independent accumulators, which allows the CPU to execute
+	 * the multiply-adds of consecutive elements in parallel. If the norms of two
+	 * {@link FloatDenseVector}s are already known, only the dot product is computed. Otherwise the
+	 * norms computed in the pass are remembered by the vectors.
+	 */
+	public static double cosine(Vector aV1, Vector aV2)
+	{
+		double cosine;
+		if (aV1 instanceof FloatDenseVector && aV2 instanceof FloatDenseVector) {
+			FloatDenseVector d1 = (FloatDenseVector) aV1;
+			FloatDenseVector d2 = (FloatDenseVector) aV2;
+			double norm1 = d1.getKnownNorm2();
+			double norm2 = d2.getKnownNorm2();
+			if (norm1 >= 0.0 && norm2 >= 0.0) {
+				cosine = dot(d1.getData(), d2.getData()) / (norm1 * norm2);
+			}
+			else {
+				cosine = fusedCosine(d1, d2);
+			}
+		}
+		else if (aV1 instanceof DenseVector && aV2 instanceof DenseVector) {
+			cosine = fusedCosine(((DenseVector) aV1).getData(), ((DenseVector) aV2).getData());
+		}
+		else {
+			cosine = dot(aV1, aV2) / (norm2(aV1) * norm2(aV2));
+		}
+
+		return Double.isNaN(cosine) ? 0.0 : cosine;
+	}
+
+	/**
+	 * Sum of the elements.
+	 */
+	public static double sum(Vector aVector)
+	{
+		return reduce(SUM, aVector);
+	}
+
+	/**
+	 * L1 norm, i.e. the sum of the absolute values of the elements.
+	 */
+	public static double norm1(Vector aVector)
+	{
+		return reduce(ABS_SUM, aVector);
+	}
+
+	/**
+	 * L2 norm, i.e. the square root of the sum of the squared elements.
+	 */
+	public static double norm2(Vector aVector)
+	{
+		if (aVector instanceof FloatDenseVector) {
+			return ((FloatDenseVector) aVector).getNorm2();
+		}
+		if (aVector instanceof FloatSparseVector) {
+			return ((FloatSparseVector) aVector).getNorm2();
+		}
+		return Math.sqrt(reduce(SQUARE_SUM, aVector));
+	}
+
+	/**
+	 * L2 norm if the vector already knows it, i.e. for {@link FloatDenseVector}s and
+	 * {@link FloatSparseVector}s whose norm was passed to the constructor or calculated before.
+	 *
+	 * @return the norm or a negative value if it is not known.
+	 */
+	public static double knownNorm2(Vector aVector)
+	{
+		if (aVector instanceof FloatDenseVector) {
+			return ((FloatDenseVector) aVector).getKnownNorm2();
+		}
+		if (aVector instanceof FloatSparseVector) {
+			return ((FloatSparseVector) aVector).getKnownNorm2();
+		}
+		return -1.0;
+	}
+
+	/**
+	 * Maximum norm, i.e. the largest absolute value of the elements.
+	 */
+	public static double normInf(Vector aVector)
+	{
+		return reduce(ABS_MAX, aVector);
+	}
+
+	/**
+	 * Checks if any stored element is negative.
+	 */
+	public static boolean hasNegativeValues(Vector aVector)
+	{
+		return reduce(MIN_VALUE, aVector) < 0.0;
+	}
+
+	/**
+	 * Get the elements of the given vector as a dense {@code float} array.
+	 */
+	public static float[] toFloatArray(Vector aVector)
+	{
+		float[] data = new float[aVector.size()];
+		if (aVector instanceof DenseVector) {
+			double[] d = ((DenseVector) aVector).getData();
+			for (int i = 0; i < data.length; i++) {
+				data[i] = (float) d[i];
+			}
+		}
+		else if (aVector instanceof FloatDenseVector) {
+			System.arraycopy(((FloatDenseVector) aVector).getData(), 0, data, 0, data.length);
+		}
+		else {
+			for (VectorEntry e : aVector) {
+				data[e.index()] = (float) e.get();
+			}
+		}
+		return data;
+	}
+
+	static double norm2(float[] aData)
+	{
+		return Math.sqrt(reduce(SQUARE_SUM, aData));
+	}
+
+	/**
+	 * Dot product unrolled by four.
+	 */
+	private static double dot(float[] aData1, float[] aData2)
+	{
+		checkSize(aData1.length, aData2.length);
+		double d0 = 0.0, d1 = 0.0, d2 = 0.0, d3 = 0.0;
+		int n = aData1.length & ~3;
+		int i = 0;
+		for (; i < n; i += 4) {
+			d0 += (double) aData1[i] * aData2[i];
+			d1 += (double) aData1[i + 1] * aData2[i + 1];
+			d2 += (double) aData1[i + 2] * aData2[i + 2];
+			d3 += (double) aData1[i + 3] * aData2[i + 3];
+		}
+		for (; i < aData1.length; i++) {
+			d0 += (double) aData1[i] * aData2[i];
+		}
+		return (d0 + d1) + (d2 + d3);
+	}
+
+	/**
+	 * Dot product and the norms of both vectors in one pass unrolled by two. The norms are
+	 * remembered by the vectors.
+	 */
+	private static double fusedCosine(FloatDenseVector aV1, FloatDenseVector aV2)
+	{
+		float[] data1 = aV1.getData();
+		float[] data2 = aV2.getData();
+		checkSize(data1.length, data2.length);
+		double d0 = 0.0, d1 = 0.0;
+		double a0 = 0.0, a1 = 0.0;
+		double b0 = 0.0, b1 = 0.0;
+		int n = data1.length & ~1;
+		int i = 0;
+		for (; i < n; i += 2) {
+			double x0 = data1[i];
+			double y0 = data2[i];
+			double x1 = data1[i + 1];
+			double y1 = data2[i + 1];
+			d0 += x0 * y0;
+			a0 += x0 * x0;
+			b0 += y0 * y0;
+			d1 += x1 * y1;
+			a1 += x1 * x1;
+			b1 += y1 * y1;
+		}
+		if (i < data1.length) {
+			double x = data1[i];
+			double y = data2[i];
+			d0 += x * y;
+			a0 += x * x;
+			b0 += y * y;
+		}
+
+		double norm1 = Math.sqrt(a0 + a1);
+		double norm2 = Math.sqrt(b0 + b1);
+		aV1.setKnownNorm2(norm1);
+		aV2.setKnownNorm2(norm2);
+		return (d0 + d1) / (norm1 * norm2);
+	}
+
+	/**
+	 * Dot product and the norms of both vectors in one pass unrolled by two.
+	 */
+	private static double fusedCosine(double[] aData1, double[] aData2)
+	{
+		checkSize(aData1.length, aData2.length);
+		double d0 = 0.0, d1 = 0.0;
+		double a0 = 0.0, a1 = 0.0;
+		double b0 = 0.0, b1 = 0.0;
+		int n = aData1.length & ~1;
+		int i = 0;
+		for (; i < n; i += 2) {
+			double x0 = aData1[i];
+			double y0 = aData2[i];
+			double x1 = aData1[i + 1];
+			double y1 = aData2[i + 1];
+			d0 += x0 * y0;
+			a0 += x0 * x0;
+			b0 += y0 * y0;
+			d1 += x1 * y1;
+			a1 += x1 * x1;
+			b1 += y1 * y1;
+		}
+		if (i < aData1.length) {
+			double x = aData1[i];
+			double y = aData2[i];
+			d0 += x * y;
+			a0 += x * x;
+			b0 += y * y;
+		}
+		return (d0 + d1) / (Math.sqrt(a0 + a1) * Math.sqrt(b0 + b1));
+	}
+
+	private static double join(int aOp, Vector aV1, Vector aV2)
+	{
+		if (aV1 instanceof SparseVector) {
+			SparseVector s1 = (SparseVector) aV1;
+			if (aV2 instanceof SparseVector) {
+				SparseVector s2 = (SparseVector) aV2;
+				return sparseSparse(aOp, s1.getRawIndex(), s1.getRawData(), s1.getUsed(),
+						s2.getRawIndex(), s2.getRawData(), s2.getUsed());
+			}
+			if (aV2 instanceof DenseVector) {
+				return sparseDense(aOp, s1.getRawIndex(), s1.getRawData(), s1.getUsed(),
+						((DenseVector) aV2).getData());
+			}
+		}
+		else if (aV1 instanceof DenseVector) {
+			double[] d1 = ((DenseVector) aV1).getData();
+			if (aV2 instanceof DenseVector) {
+				return denseDense(aOp, d1, ((DenseVector) aV2).getData());
+			}
+			if (aV2 instanceof SparseVector) {
+				SparseVector s2 = (SparseVector) aV2;
+				return denseSparse(aOp, s2.getRawIndex(), s2.getRawData(), s2.getUsed(), d1);
+			}
+		}
+		else if (aV1 instanceof FloatSparseVector) {
+			FloatSparseVector s1 = (FloatSparseVector) aV1;
+			if (aV2 instanceof FloatSparseVector) {
+				FloatSparseVector s2 = (FloatSparseVector) aV2;
+				return sparseSparse(aOp, s1.getIndex(), s1.getData(), s2.getIndex(),
+						s2.getData());
+			}
+			if (aV2 instanceof FloatDenseVector) {
+				return sparseDense(aOp, s1.getIndex(), s1.getData(),
+						((FloatDenseVector) aV2).getData());
+			}
+		}
+		else if (aV1 instanceof FloatDenseVector) {
+			float[] d1 = ((FloatDenseVector) aV1).getData();
+			if (aV2 instanceof FloatDenseVector) {
+				return denseDense(aOp, d1, ((FloatDenseVector) aV2).getData());
+			}
+			if (aV2 instanceof FloatSparseVector) {
+				FloatSparseVector s2 = (FloatSparseVector) aV2;
+				return denseSparse(aOp, s2.getIndex(), s2.getData(), d1);
+			}
+		}
+
+		return generic(aOp, aV1, aV2);
+	}
+
+	/**
+	 * Fallback for vector types not supported by the kernels.
+	 */
+	private static double combine(int aOp, double a, double b)
+	{
+		switch (aOp) {
+		case PRODUCT:
+			return a * b;
+		case LESK:
+			return b != 0.0 ? a + b : 0.0;
+		case MIN_OVERLAP:
+			return b != 0.0 ? Math.min(a, b) : 0.0;
+		case SECOND:
+			return b;
+		case MIN:
+			return Math.min(a, b);
+		case AVERAGE_PRODUCT:
+			return ((a + b) / 2.0) * a * b;
+		default:
+			throw new IllegalArgumentException("Unknown operation [" + aOp + "]");
+		}
+	}
+
+	private static double generic(int aOp, Vector aV1, Vector aV2)
+	{
+		double result = 0.0;
+		for (VectorEntry e : aV1) {
+			result += combine(aOp, e.get(), aV2.get(e.index()));
+		}
+		return result;
+	}
+
+	private static double denseDense(int aOp, double[] aData1, double[] aData2)
+	{
+		checkSize(aData1.length, aData2.length);
+		double result = 0.0;
+		switch (aOp) {
+		case PRODUCT:
+			for (int i = 0; i < aData1.length; i++) {
+				result += aData1[i] * aData2[i];
+			}
+			return result;
+		case LESK:
+			for (int i = 0; i < aData1.length; i++) {
+				double b = aData2[i];
+				if (b != 0.0) {
+					result += aData1[i] + b;
+				}
+			}
+			return result;
+		case MIN_OVERLAP:
+			for (int i = 0; i < aData1.length; i++) {
+				double b = aData2[i];
+				if (b != 0.0) {
+					result += Math.min(aData1[i], b);
+				}
+			}
+			return result;
+		case SECOND:
+			for (int i = 0; i < aData1.length; i++) {
+				result += aData2[i];
+			}
+			return result;
+		case MIN:
+			for (int i = 0; i < aData1.length; i++) {
+				result += Math.min(aData1[i], aData2[i]);
+			}
+			return result;
+		case AVERAGE_PRODUCT:
+			for (int i = 0; i < aData1.length; i++) {
+				double a = aData1[i];
+				double b = aData2[i];
+				result += ((a + b) / 2.0) * a * b;
+			}
+			return result;
+		default:
+			throw new IllegalArgumentException("Unknown operation [" + aOp + "]");
+		}
+	}
+
+	private static double denseDense(int aOp, float[] aData1, float[] aData2)
+	{
+		checkSize(aData1.length, aData2.length);
+		double result = 0.0;
+		switch (aOp) {
+		case PRODUCT:
+			for (int i = 0; i < aData1.length; i++) {
+				result += (double) aData1[i] * aData2[i];
+			}
+			return result;
+		case LESK:
+			for (int i = 0; i < aData1.length; i++) {
+				double b = aData2[i];
+				if (b != 0.0) {
+					result += aData1[i] + b;
+				}
+			}
+			return result;
+		case MIN_OVERLAP:
+			for (int i = 0; i < aData1.length; i++) {
+				double b = aData2[i];
+				if (b != 0.0) {
+					result += Math.min(aData1[i], b);
+				}
+			}
+			return result;
+		case SECOND:
+			for (int i = 0; i < aData1.length; i++) {
+				result += aData2[i];
+			}
+			return result;
+		case MIN:
+			for (int i = 0; i < aData1.length; i++) {
+				result += Math.min(aData1[i], aData2[i]);
+			}
+			return result;
+		case AVERAGE_PRODUCT:
+			for (int i = 0; i < aData1.length; i++) {
+				double a = aData1[i];
+				double b = aData2[i];
+				result += ((a + b) / 2.0) * a * b;
+			}
+			return result;
+		default:
+			throw new IllegalArgumentException("Unknown operation [" + aOp + "]");
+		}
+	}
+
+	private static double sparseSparse(int aOp, int[] aIndex1, double[] aData1, int aUsed1,
+			int[] aIndex2, double[] aData2, int aUsed2)
+	{
+		double result = 0.0;
+		switch (aOp) {
+		case PRODUCT:
+			for (int i = 0, j = 0; i < aUsed1 && j < aUsed2;) {
+				if (aIndex1[i] < aIndex2[j]) {
+					i++;
+				}
+				else if (aIndex1[i] > aIndex2[j]) {
+					j++;
+				}
+				else {
+					result += aData1[i] * aData2[j];
+					i++;
+					j++;
+				}
+			}
+			return result;
+		case LESK:
+			for (int i = 0, j = 0; i < aUsed1 && j < aUsed2;) {
+				if (aIndex1[i] < aIndex2[j]) {
+					i++;
+				}
+				else if (aIndex1[i] > aIndex2[j]) {
+					j++;
+				}
+				else {
+					double b = aData2[j];
+					if (b != 0.0) {
+						result += aData1[i] + b;
+					}
+					i++;
+					j++;
+				}
+			}
+			return result;
+		case MIN_OVERLAP:
+			for (int i = 0, j = 0; i < aUsed1 && j < aUsed2;) {
+				if (aIndex1[i] < aIndex2[j]) {
+					i++;
+				}
+				else if (aIndex1[i] > aIndex2[j]) {
+					j++;
+				}
+				else {
+					double b = aData2[j];
+					if (b != 0.0) {
+						result += Math.min(aData1[i], b);
+					}
+					i++;
+					j++;
+				}
+			}
+			return result;
+		case SECOND:
+			for (int i = 0, j = 0; i < aUsed1 && j < aUsed2;) {
+				if (aIndex1[i] < aIndex2[j]) {
+					i++;
+				}
+				else if (aIndex1[i] > aIndex2[j]) {
+					j++;
+				}
+				else {
+					result += aData2[j];
+					i++;
+					j++;
+				}
+			}
+			return result;
+		case MIN:
+			for (int i = 0, j = 0; i < aUsed1 && j < aUsed2;) {
+				if (aIndex1[i] < aIndex2[j]) {
+					i++;
+				}
+				else if (aIndex1[i] > aIndex2[j]) {
+					j++;
+				}
+				else {
+					result += Math.min(aData1[i], aData2[j]);
+					i++;
+					j++;
+				}
+			}
+			return result;
+		case AVERAGE_PRODUCT:
+			for (int i = 0, j = 0; i < aUsed1 && j < aUsed2;) {
+				if (aIndex1[i] < aIndex2[j]) {
+					i++;
+				}
+				else if (aIndex1[i] > aIndex2[j]) {
+					j++;
+				}
+				else {
+					double a = aData1[i];
+					double b = aData2[j];
+					result += ((a + b) / 2.0) * a * b;
+					i++;
+					j++;
+				}
+			}
+			return result;
+		default:
+			throw new IllegalArgumentException("Unknown operation [" + aOp + "]");
+		}
+	}
+
+	private static double sparseSparse(int aOp, int[] aIndex1, float[] aData1, int[] aIndex2,
+			float[] aData2)
+	{
+		double result = 0.0;
+		switch (aOp) {
+		case PRODUCT:
+			for (int i = 0, j = 0; i < aIndex1.length && j < aIndex2.length;) {
+				if (aIndex1[i] < aIndex2[j]) {
+					i++;
+				}
+				else if (aIndex1[i] > aIndex2[j]) {
+					j++;
+				}
+				else {
+					result += (double) aData1[i] * aData2[j];
+					i++;
+					j++;
+				}
+			}
+			return result;
+		case LESK:
+			for (int i = 0, j = 0; i < aIndex1.length && j < aIndex2.length;) {
+				if (aIndex1[i] < aIndex2[j]) {
+					i++;
+				}
+				else if (aIndex1[i] > aIndex2[j]) {
+					j++;
+				}
+				else {
+					double b = aData2[j];
+					if (b != 0.0) {
+						result += aData1[i] + b;
+					}
+					i++;
+					j++;
+				}
+			}
+			return result;
+		case MIN_OVERLAP:
+			for (int i = 0, j = 0; i < aIndex1.length && j < aIndex2.length;) {
+				if (aIndex1[i] < aIndex2[j]) {
+					i++;
+				}
+				else if (aIndex1[i] > aIndex2[j]) {
+					j++;
+				}
+				else {
+					double b = aData2[j];
+					if (b != 0.0) {
+						result += Math.min(aData1[i], b);
+					}
+					i++;
+					j++;
+				}
+			}
+			return result;
+		case SECOND:
+			for (int i = 0, j = 0; i < aIndex1.length && j < aIndex2.length;) {
+				if (aIndex1[i] < aIndex2[j]) {
+					i++;
+				}
+				else if (aIndex1[i] > aIndex2[j]) {
+					j++;
+				}
+				else {
+					result += aData2[j];
+					i++;
+					j++;
+				}
+			}
+			return result;
+		case MIN:
+			for (int i = 0, j = 0; i < aIndex1.length && j < aIndex2.length;) {
+				if (aIndex1[i] < aIndex2[j]) {
+					i++;
+				}
+				else if (aIndex1[i] > aIndex2[j]) {
+					j++;
+				}
+				else {
+					result += Math.min(aData1[i], aData2[j]);
+					i++;
+					j++;
+				}
+			}
+			return result;
+		case AVERAGE_PRODUCT:
+			for (int i = 0, j = 0; i < aIndex1.length && j < aIndex2.length;) {
+				if (aIndex1[i] < aIndex2[j]) {
+					i++;
+				}
+				else if (aIndex1[i] > aIndex2[j]) {
+					j++;
+				}
+				else {
+					double a = aData1[i];
+					double b = aData2[j];
+					result += ((a + b) / 2.0) * a * b;
+					i++;
+					j++;
+				}
+			}
+			return result;
+		default:
+			throw new IllegalArgumentException("Unknown operation [" + aOp + "]");
+		}
+	}
+
+	/**
+	 * The sparse vector is the first argument of the operation.
+	 */
+	private static double sparseDense(int aOp, int[] aIndex, double[] aSparse, int aUsed,
+			double[] aDense)
+	{
+		double result = 0.0;
+		switch (aOp) {
+		case PRODUCT:
+			for (int i = 0; i < aUsed; i++) {
+				result += aSparse[i] * aDense[aIndex[i]];
+			}
+			return result;
+		case LESK:
+			for (int i = 0; i < aUsed; i++) {
+				double b = aDense[aIndex[i]];
+				if (b != 0.0) {
+					result += aSparse[i] + b;
+				}
+			}
+			return result;
+		case MIN_OVERLAP:
+			for (int i = 0; i < aUsed; i++) {
+				double b = aDense[aIndex[i]];
+				if (b != 0.0) {
+					result += Math.min(aSparse[i], b);
+				}
+			}
+			return result;
+		case SECOND:
+			for (int i = 0; i < aUsed; i++) {
+				result += aDense[aIndex[i]];
+			}
+			return result;
+		case MIN:
+			for (int i = 0; i < aUsed; i++) {
+				result += Math.min(aSparse[i], aDense[aIndex[i]]);
+			}
+			return result;
+		case AVERAGE_PRODUCT:
+			for (int i = 0; i < aUsed; i++) {
+				double a = aSparse[i];
+				double b = aDense[aIndex[i]];
+				result += ((a + b) / 2.0) * a * b;
+			}
+			return result;
+		default:
+			throw new IllegalArgumentException("Unknown operation [" + aOp + "]");
+		}
+	}
+
+	/**
+	 * The dense vector is the first argument of the operation.
+	 */
+	private static double denseSparse(int aOp, int[] aIndex, double[] aSparse, int aUsed,
+			double[] aDense)
+	{
+		double result = 0.0;
+		switch (aOp) {
+		case PRODUCT:
+			for (int i = 0; i < aUsed; i++) {
+				result += aDense[aIndex[i]] * aSparse[i];
+			}
+			return result;
+		case LESK:
+			for (int i = 0; i < aUsed; i++) {
+				double b = aSparse[i];
+				if (b != 0.0) {
+					result += aDense[aIndex[i]] + b;
+				}
+			}
+			return result;
+		case MIN_OVERLAP:
+			for (int i = 0; i < aUsed; i++) {
+				double b = aSparse[i];
+				if (b != 0.0) {
+					result += Math.min(aDense[aIndex[i]], b);
+				}
+			}
+			return result;
+		case SECOND:
+			for (int i = 0; i < aUsed; i++) {
+				result += aSparse[i];
+			}
+			return result;
+		case MIN:
+			for (int i = 0; i < aUsed; i++) {
+				result += Math.min(aDense[aIndex[i]], aSparse[i]);
+			}
+			return result;
+		case AVERAGE_PRODUCT:
+			for (int i = 0; i < aUsed; i++) {
+				double a = aDense[aIndex[i]];
+				double b = aSparse[i];
+				result += ((a + b) / 2.0) * a * b;
+			}
+			return result;
+		default:
+			throw new IllegalArgumentException("Unknown operation [" + aOp + "]");
+		}
+	}
+
+	/**
+	 * The sparse vector is the first argument of the operation.
+	 */
+	private static double sparseDense(int aOp, int[] aIndex, float[] aSparse,
+			float[] aDense)
+	{
+		double result = 0.0;
+		switch (aOp) {
+		case PRODUCT:
+			for (int i = 0; i < aIndex.length; i++) {
+				result += (double) aSparse[i] * aDense[aIndex[i]];
+			}
+			return result;
+		case LESK:
+			for (int i = 0; i < aIndex.length; i++) {
+				double b = aDense[aIndex[i]];
+				if (b != 0.0) {
+					result += aSparse[i] + b;
+				}
+			}
+			return result;
+		case MIN_OVERLAP:
+			for (int i = 0; i < aIndex.length; i++) {
+				double b = aDense[aIndex[i]];
+				if (b != 0.0) {
+					result += Math.min(aSparse[i], b);
+				}
+			}
+			return result;
+		case SECOND:
+			for (int i = 0; i < aIndex.length; i++) {
+				result += aDense[aIndex[i]];
+			}
+			return result;
+		case MIN:
+			for (int i = 0; i < aIndex.length; i++) {
+				result += Math.min(aSparse[i], aDense[aIndex[i]]);
+			}
+			return result;
+		case AVERAGE_PRODUCT:
+			for (int i = 0; i < aIndex.length; i++) {
+				double a = aSparse[i];
+				double b = aDense[aIndex[i]];
+				result += ((a + b) / 2.0) * a * b;
+			}
+			return result;
+		default:
+			throw new IllegalArgumentException("Unknown operation [" + aOp + "]");
+		}
+	}
+
+	/**
+	 * The dense vector is the first argument of the operation.
+	 */
+	private static double denseSparse(int aOp, int[] aIndex, float[] aSparse,
+			float[] aDense)
+	{
+		double result = 0.0;
+		switch (aOp) {
+		case PRODUCT:
+			for (int i = 0; i < aIndex.length; i++) {
+				result += (double) aDense[aIndex[i]] * aSparse[i];
+			}
+			return result;
+		case LESK:
+			for (int i = 0; i < aIndex.length; i++) {
+				double b = aSparse[i];
+				if (b != 0.0) {
+					result += aDense[aIndex[i]] + b;
+				}
+			}
+			return result;
+		case MIN_OVERLAP:
+			for (int i = 0; i < aIndex.length; i++) {
+				double b = aSparse[i];
+				if (b != 0.0) {
+					result += Math.min(aDense[aIndex[i]], b);
+				}
+			}
+			return result;
+		case SECOND:
+			for (int i = 0; i < aIndex.length; i++) {
+				result += aSparse[i];
+			}
+			return result;
+		case MIN:
+			for (int i = 0; i < aIndex.length; i++) {
+				result += Math.min(aDense[aIndex[i]], aSparse[i]);
+			}
+			return result;
+		case AVERAGE_PRODUCT:
+			for (int i = 0; i < aIndex.length; i++) {
+				double a = aDense[aIndex[i]];
+				double b = aSparse[i];
+				result += ((a + b) / 2.0) * a * b;
+			}
+			return result;
+		default:
+			throw new IllegalArgumentException("Unknown operation [" + aOp + "]");
+		}
+	}
+
+	private static double reduce(int aOp, Vector aVector)
+	{
+		if (aVector instanceof DenseVector) {
+			double[] data = ((DenseVector) aVector).getData();
+			return reduce(aOp, data, data.length);
+		}
+		else if (aVector instanceof SparseVector) {
+			SparseVector s = (SparseVector) aVector;
+			return reduce(aOp, s.getRawData(), s.getUsed());
+		}
+		else if (aVector instanceof FloatDenseVector) {
+			return reduce(aOp, ((FloatDenseVector) aVector).getData());
+		}
+		else if (aVector instanceof FloatSparseVector) {
+			return reduce(aOp, ((FloatSparseVector) aVector).getData());
+		}
+
+		double result = initial(aOp);
+		for (VectorEntry e : aVector) {
+			result = accumulate(aOp, result, e.get());
+		}
+		return result;
+	}
+
+	private static double reduce(int aOp, double[] aData, int aLength)
+	{
+		double result = initial(aOp);
+		for (int i = 0; i < aLength; i++) {
+			result = accumulate(aOp, result, aData[i]);
+		}
+		return result;
+	}
+
+	private static double reduce(int aOp, float[] aData)
+	{
+		double result = initial(aOp);
+		for (int i = 0; i < aData.length; i++) {
+			result = accumulate(aOp, result, aData[i]);
+		}
+		return result;
+	}
+
+	private static double initial(int aOp)
+	{
+		return aOp == MIN_VALUE ? Double.POSITIVE_INFINITY : 0.0;
+	}
+
+	private static double accumulate(int aOp, double aResult, double aValue)
+	{
+		switch (aOp) {
+		case SUM:
+			return aResult + aValue;
+		case ABS_SUM:
+			return aResult + Math.abs(aValue);
+		case SQUARE_SUM:
+			return aResult + aValue * aValue;
+		case ABS_MAX:
+			return Math.max(aResult, Math.abs(aValue));
+		case MIN_VALUE:
+			return Math.min(aResult, aValue);
+		default:
+			throw new IllegalArgumentException("Unknown operation [" + aOp + "]");
+		}
+	}
+
+	private static void checkSize(int aSize1, int aSize2)
+	{
+		if (aSize1 != aSize2) {
+			throw new IllegalArgumentException("Argument vectors have different sizes (" + aSize1
+					+ " vs. " + aSize2 + ")");
+		}
+	}
+}
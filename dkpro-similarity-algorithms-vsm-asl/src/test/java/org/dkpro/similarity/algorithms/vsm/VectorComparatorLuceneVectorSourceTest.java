@@ -17,10 +17,17 @@
  *******************************************************************************/
 package org.dkpro.similarity.algorithms.vsm;
 
+import static java.util.Arrays.asList;
 import static org.dkpro.similarity.algorithms.api.TermSimilarityMeasure.NOT_FOUND;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 import java.io.File;
+import java.util.List;
+import java.util.Map;
+
+import no.uib.cipr.matrix.Vector;
+import no.uib.cipr.matrix.Vector.Norm;
 
 import org.dkpro.similarity.algorithms.api.SimilarityException;
 import org.dkpro.similarity.algorithms.api.TermSimilarityMeasure;
@@ -413,6 +420,29 @@ public class VectorComparatorLuceneVectorSourceTest {
         testAlways(c);
     }
 
+    @Test
+    public void testBatchLookup() throws Exception {
+		LuceneVectorReader vSrc = new LuceneVectorReader(new File(
+				"src/test/resources/vsm/test_index_token"));
+
+		List<String> terms = asList("sentence", "another", "humbegrumpf", "example", "funny",
+				"just", "example");
+		Map<String, Vector> vectors = vSrc.getVectors(terms);
+
+		assertEquals(5, vectors.size());
+		for (String term : terms) {
+			Vector expected = vSrc.getVector(term);
+			if (expected == null) {
+				assertFalse(vectors.containsKey(term));
+			}
+			else {
+				assertEquals(0.0, expected.copy().add(-1, vectors.get(term)).norm(Norm.Two),
+						EPSILON);
+			}
+		}
+		vSrc.close();
+    }
+
 	private static void testAlways(TermSimilarityMeasure c)
 		throws SimilarityException
 	{
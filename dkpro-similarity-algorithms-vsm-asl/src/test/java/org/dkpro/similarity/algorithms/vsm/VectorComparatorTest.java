@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.dkpro.similarity.algorithms.api.ThresholdedTextSimilarityMeasure;
+import org.dkpro.similarity.algorithms.api.TopKSimilarities;
+import org.dkpro.similarity.algorithms.api.TopKSimilarities.Hit;
+import org.dkpro.similarity.algorithms.vsm.store.VectorReader;
+import org.dkpro.similarity.algorithms.vsm.vector.FloatDenseVector;
+import org.dkpro.similarity.algorithms.vsm.vector.VectorKernels;
+import org.junit.Test;
+
+import no.uib.cipr.matrix.Vector;
+
+public class VectorComparatorTest
+{
+	@Test
+	public void ifAbove()
+		throws Exception
+	{
+		Random rnd = new Random(42);
+		VectorReader reader = new MapVectorReader(randomVectors(rnd, 50, 8));
+
+		InnerVectorProduct[] products = { InnerVectorProduct.COSINE,
+				InnerVectorProduct.FAST_COSINE, InnerVectorProduct.FUSED_COSINE,
+				InnerVectorProduct.DICE, InnerVectorProduct.LESK_OVERLAP };
+		VectorNorm[] norms = { VectorNorm.NONE, VectorNorm.L1, VectorNorm.L2 };
+		double[] thresholds = { -1.0, 0.0, 0.5, 1.0, 2.0, 5.0 };
+
+		for (InnerVectorProduct product : products) {
+			for (VectorNorm norm : norms) {
+				VectorComparator comparator = new VectorComparator(reader);
+				comparator.setInnerProduct(product);
+				comparator.setNormalization(norm);
+				for (int i = 0; i < 200; i++) {
+					List<String> terms1 = asList("t" + rnd.nextInt(50));
+					// The norm of the second vector is known for a single term only
+					List<String> terms2 = rnd.nextBoolean() ? asList("t" + rnd.nextInt(60))
+							: asList("t" + rnd.nextInt(60), "t" + rnd.nextInt(50));
+					double exact = comparator.getSimilarity(terms1, terms2);
+					for (double threshold : thresholds) {
+						double score = comparator.getSimilarityIfAbove(terms1, terms2, threshold);
+						if (exact >= threshold) {
+							assertEquals(exact, score, 0.0);
+						}
+						else {
+							assertTrue(score == exact
+									|| score == ThresholdedTextSimilarityMeasure.BELOW_THRESHOLD);
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void boundSkipsSecondVector()
+		throws Exception
+	{
+		Map<String, Vector> vectors = new HashMap<String, Vector>();
+		vectors.put("a", new FloatDenseVector(new float[] { 1.0f, 0.0f }));
+		vectors.put("b", new FloatDenseVector(new float[] { 0.0f, 0.5f }));
+		MapVectorReader reader = new MapVectorReader(vectors);
+		VectorComparator comparator = new VectorComparator(reader);
+		comparator.setNormalization(VectorNorm.NONE);
+
+		// The dot product is at most 1.0 * 0.5
+		assertEquals(ThresholdedTextSimilarityMeasure.BELOW_THRESHOLD,
+				comparator.getSimilarityIfAbove(asList("a"), asList("b"), 0.6), 0.0);
+		assertEquals(1, reader.loaded);
+
+		assertEquals(0.0, comparator.getSimilarityIfAbove(asList("a"), asList("b"), 0.4), 0.0);
+		assertEquals(3, reader.loaded);
+	}
+
+	@Test
+	public void topK()
+		throws Exception
+	{
+		Random rnd = new Random(42);
+		VectorComparator comparator = new VectorComparator(new MapVectorReader(randomVectors(rnd,
+				200, 16)));
+		comparator.setNormalization(VectorNorm.NONE);
+
+		List<String> query = asList("t0");
+		List<Collection<String>> candidates = new ArrayList<Collection<String>>();
+		for (int i = 0; i < 200; i++) {
+			candidates.add(asList("t" + i));
+		}
+
+		List<Hit> hits = TopKSimilarities.getTopK(comparator, query, candidates, 10,
+				Double.NEGATIVE_INFINITY);
+		assertEquals(10, hits.size());
+		assertEquals(0, hits.get(0).getIndex());
+
+		int better = 0;
+		for (Collection<String> candidate : candidates) {
+			if (comparator.getSimilarity(query, candidate) > hits.get(9).getScore()) {
+				better++;
+			}
+		}
+		assertEquals(9, better);
+	}
+
+	private static Map<String, Vector> randomVectors(Random aRandom, int aCount, int aDimensions)
+	{
+		Map<String, Vector> vectors = new HashMap<String, Vector>();
+		for (int i = 0; i < aCount; i++) {
+			float[] data = new float[aDimensions];
+			for (int d = 0; d < aDimensions; d++) {
+				data[d] = aRandom.nextFloat();
+			}
+			// Query vector is the longest, so it is its own best match for the dot product
+			if (i == 0) {
+				for (int d = 0; d < aDimensions; d++) {
+					data[d] = 2.0f;
+				}
+			}
+			vectors.put("t" + i, new FloatDenseVector(data));
+		}
+		return vectors;
+	}
+
+	private static class MapVectorReader
+		extends VectorReader
+	{
+		private final Map<String, Vector> vectors;
+		private int loaded;
+
+		public MapVectorReader(Map<String, Vector> aVectors)
+		{
+			vectors = aVectors;
+		}
+
+		@Override
+		public Vector getVector(String aTerm)
+		{
+			loaded++;
+			return vectors.get(aTerm);
+		}
+
+		@Override
+		public double getNorm2(String aTerm)
+		{
+			Vector vector = vectors.get(aTerm);
+			return vector != null ? VectorKernels.norm2(vector) : -1.0;
+		}
+
+		@Override
+		public int getConceptCount()
+		{
+			return vectors.size();
+		}
+
+		@Override
+		public String getId()
+		{
+			return "map";
+		}
+
+		@Override
+		public void close()
+		{
+			// Nothing to do
+		}
+	}
+}
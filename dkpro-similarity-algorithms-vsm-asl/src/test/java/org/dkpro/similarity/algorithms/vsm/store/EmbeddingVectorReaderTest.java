@@ -0,0 +1,187 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import org.apache.commons.io.FileUtils;
+import org.dkpro.similarity.algorithms.vsm.store.EmbeddingVectorReader.EmbeddingEncoding;
+import org.dkpro.similarity.algorithms.vsm.store.EmbeddingVectorReader.EmbeddingFormat;
+import org.dkpro.similarity.algorithms.vsm.store.EmbeddingVectorReader.EmbeddingHandler;
+import org.junit.Test;
+
+import no.uib.cipr.matrix.Vector;
+
+public class EmbeddingVectorReaderTest
+{
+	@Test
+	public void parseFloat()
+	{
+		for (String value : new String[] { "0", "-0", "1", "-1.5", "+2.5E+2", "1e-3", "0.000123",
+				".5", "5.", "3.4028235E38", "1.4E-45", "123456789012345678901234567890",
+				"0.12345678901234567890123", "NaN", "-Infinity", "7.0e-10" }) {
+			assertEquals(value, Float.parseFloat(value), parse(value), 0.0f);
+		}
+
+		Random rnd = new Random(42);
+		for (int i = 0; i < 100000; i++) {
+			float expected = (float) (rnd.nextGaussian() * Math.pow(10, rnd.nextInt(8) - 4));
+			String value = i % 2 == 0 ? String.valueOf(expected)
+					: String.format(Locale.US, "%.6f", expected);
+			float reference = Float.parseFloat(value);
+			assertEquals(value, reference, parse(value), Math.ulp(reference));
+		}
+	}
+
+	@Test
+	public void parseTextInBlocks()
+		throws Exception
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append("200 3\n");
+		for (int i = 0; i < 200; i++) {
+			sb.append("Word").append(i).append(' ').append(i).append(" 0.5 -").append(i)
+					.append(i % 3 == 0 ? " \r\n" : "\n");
+		}
+
+		final List<String> words = new ArrayList<String>();
+		final List<float[]> vectors = new ArrayList<float[]>();
+		EmbeddingTextParser parser = new EmbeddingTextParser((byte) ' ', true,
+				new Utf8WordSet(Arrays.asList("Word7", "Word150", "Word199", "missing")), 3, 64);
+		parser.parse(Channels.newChannel(new ByteArrayInputStream(
+				sb.toString().getBytes(StandardCharsets.UTF_8))), new EmbeddingHandler()
+		{
+			@Override
+			public void handle(String aWord, float[] aVector)
+			{
+				words.add(aWord);
+				vectors.add(aVector);
+			}
+		});
+
+		assertEquals(3, parser.getDimensions());
+		assertEquals(Arrays.asList("word7", "word150", "word199"), words);
+		assertArrayEquals(new float[] { 150, 0.5f, -150 }, vectors.get(1), 0.0f);
+		assertEquals(3, parser.getAccepted());
+		assertEquals(197, parser.getSkipped());
+	}
+
+	@Test
+	public void textWithoutCompression()
+		throws Exception
+	{
+		File dir = new File("target/test-embedding-text");
+		FileUtils.deleteQuietly(dir);
+		dir.mkdirs();
+
+		File embeddings = new File(dir, "fasttext.vec");
+		FileUtils.writeStringToFile(embeddings, "3 2\nCar 0.1 0.2 \nbanana -0.4 0.3 \nüber 1 2 \n",
+				"UTF-8");
+		File filter = new File(dir, "filter.txt");
+		FileUtils.writeStringToFile(filter, "Car\nüber\n", "UTF-8");
+
+		EmbeddingVectorReader reader = new EmbeddingVectorReader(embeddings,
+				EmbeddingFormat.FastText, EmbeddingEncoding.txt, filter, "", " ");
+		reader.setLoaderThreads(2);
+		assertVector(reader.getVector("car"), 0.1, 0.2);
+		assertVector(reader.getVector("über"), 1, 2);
+		assertNull(reader.getVector("banana"));
+		assertEquals(2, reader.getConceptCount());
+	}
+
+	@Test
+	public void binary()
+		throws Exception
+	{
+		File dir = new File("target/test-embedding-bin");
+		FileUtils.deleteQuietly(dir);
+		dir.mkdirs();
+
+		// Word2Vec writes a line feed after each vector
+		File embeddings = new File(dir, "word2vec.bin");
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(embeddings));
+		try {
+			out.write("3 2\n".getBytes(StandardCharsets.UTF_8));
+			writeBinaryVector(out, "Car", 0.1f, 0.2f);
+			writeBinaryVector(out, "banana", -0.4f, 0.3f);
+			writeBinaryVector(out, "über", 1f, 2f);
+		}
+		finally {
+			out.close();
+		}
+
+		EmbeddingVectorReader reader = new EmbeddingVectorReader(embeddings,
+				EmbeddingFormat.Word2Vec, EmbeddingEncoding.bin, new File(dir, "nofilter"), "",
+				" ");
+		assertVector(reader.getVector("car"), 0.1, 0.2);
+		assertVector(reader.getVector("banana"), -0.4, 0.3);
+		assertVector(reader.getVector("über"), 1, 2);
+
+		File filter = new File(dir, "filter.txt");
+		FileUtils.writeStringToFile(filter, "banana\n", "UTF-8");
+		reader = new EmbeddingVectorReader(embeddings, EmbeddingFormat.Word2Vec,
+				EmbeddingEncoding.bin, filter, "", " ");
+		assertNull(reader.getVector("car"));
+		assertVector(reader.getVector("banana"), -0.4, 0.3);
+		assertEquals(1, reader.getConceptCount());
+	}
+
+	private static float parse(String aValue)
+	{
+		byte[] bytes = (" " + aValue + " ").getBytes(StandardCharsets.US_ASCII);
+		return EmbeddingTextParser.parseFloat(bytes, 1, bytes.length - 1);
+	}
+
+	private static void writeBinaryVector(DataOutputStream aOut, String aWord, float... aValues)
+		throws Exception
+	{
+		aOut.write((aWord + " ").getBytes(StandardCharsets.UTF_8));
+		ByteBuffer buffer = ByteBuffer.allocate(4 * aValues.length).order(ByteOrder.LITTLE_ENDIAN);
+		for (float value : aValues) {
+			buffer.putFloat(value);
+		}
+		aOut.write(buffer.array());
+		aOut.write('\n');
+	}
+
+	private static void assertVector(Vector aVector, double... aExpected)
+	{
+		assertNotNull(aVector);
+		assertEquals(aExpected.length, aVector.size());
+		for (int i = 0; i < aExpected.length; i++) {
+			assertEquals(aExpected[i], aVector.get(i), 0.000001);
+		}
+	}
+}
@@ -0,0 +1,167 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.store;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.TermDocs;
+import org.apache.lucene.index.TermEnum;
+import org.apache.lucene.index.TermFreqVector;
+import org.apache.lucene.store.FSDirectory;
+import org.dkpro.similarity.algorithms.vsm.store.IndexedDocumentsVectorReaderBase.WeightingModeTf;
+import org.junit.Before;
+import org.junit.Test;
+
+import no.uib.cipr.matrix.Matrices;
+import no.uib.cipr.matrix.Vector;
+
+public class LuceneVectorReaderTest
+{
+	private File index;
+
+	@Before
+	public void setup()
+		throws Exception
+	{
+		// Work on a copy because the statistics are written into the index folder
+		index = new File("target/test-lucene-vector-reader");
+		FileUtils.deleteQuietly(index);
+		FileUtils.copyDirectory(new File("src/test/resources/vsm/test_index_token"), index);
+	}
+
+	@Test
+	public void statistics()
+		throws Exception
+	{
+		IndexReader ir = IndexReader.open(FSDirectory.open(index), true);
+		int vocabularySize = 0;
+		int[] lengths = new int[ir.maxDoc()];
+		TermEnum te = ir.terms();
+		while (te.next()) {
+			vocabularySize++;
+			if (LuceneVectorReader.FIELD_NAME.equals(te.term().field())) {
+				TermDocs td = ir.termDocs(te.term());
+				while (td.next()) {
+					lengths[td.doc()]++;
+				}
+				td.close();
+			}
+		}
+
+		LuceneVectorReader reader = new LuceneVectorReader(index);
+		assertEquals(vocabularySize, reader.getIndexVocabularySize());
+		for (int doc = 0; doc < ir.maxDoc(); doc++) {
+			// The test index has no term vectors, so the lengths are counted from the postings
+			TermFreqVector tfv = ir.getTermFreqVector(doc, LuceneVectorReader.FIELD_NAME);
+			assertEquals(tfv != null ? tfv.size() : lengths[doc], reader.getDocumentLength(doc));
+		}
+
+		reader.writeStatistics();
+		reader.close();
+		assertTrue(new File(index, LuceneVectorReader.STATISTICS_FILE_NAME).isFile());
+
+		LuceneVectorReader stored = new LuceneVectorReader(index);
+		for (int doc = 0; doc < ir.maxDoc(); doc++) {
+			assertEquals(reader.getDocumentLength(doc), stored.getDocumentLength(doc));
+		}
+		stored.close();
+
+		// Tamper with the stored vocabulary size to make sure it is read from the file
+		RandomAccessFile raf = new RandomAccessFile(
+				new File(index, LuceneVectorReader.STATISTICS_FILE_NAME), "rw");
+		raf.seek(16);
+		raf.writeInt(12345);
+		raf.close();
+		stored = new LuceneVectorReader(index);
+		assertEquals(12345, stored.getIndexVocabularySize());
+		stored.close();
+		ir.close();
+	}
+
+	@Test
+	public void postingsCache()
+		throws Exception
+	{
+		List<String> terms = getTerms();
+
+		LuceneVectorReader uncached = createReader();
+		uncached.setPostingsCacheSize(0);
+		LuceneVectorReader cached = createReader();
+		LuceneVectorReader tiny = createReader();
+		tiny.setPostingsCacheSize(2);
+
+		// Query each term twice so that the second round is served from the cache
+		for (int round = 0; round < 2; round++) {
+			for (String term : terms) {
+				Vector expected = uncached.getVector(term);
+				assertVector(term, expected, cached.getVector(term));
+				assertVector(term, expected, tiny.getVector(term));
+			}
+		}
+		assertNull(uncached.getPostingsCacheMetrics());
+		assertTrue(cached.getPostingsCacheMetrics().getHitCount() > 0);
+
+		Map<String, Vector> batch = createReader().getVectors(terms);
+		for (String term : terms) {
+			assertVector(term, uncached.getVector(term), batch.get(term));
+		}
+
+		assertNull(cached.getVector("doesnotexist"));
+	}
+
+	private LuceneVectorReader createReader()
+	{
+		LuceneVectorReader reader = new LuceneVectorReader(index);
+		reader.setWeightingModeTf(WeightingModeTf.normalized);
+		return reader;
+	}
+
+	private List<String> getTerms()
+		throws Exception
+	{
+		List<String> terms = new ArrayList<String>();
+		IndexReader ir = IndexReader.open(FSDirectory.open(index), true);
+		TermEnum te = ir.terms();
+		while (te.next()) {
+			if (LuceneVectorReader.FIELD_NAME.equals(te.term().field())) {
+				terms.add(te.term().text());
+			}
+		}
+		ir.close();
+		return terms;
+	}
+
+	private static void assertVector(String aTerm, Vector aExpected, Vector aActual)
+	{
+		assertNotNull(aTerm, aExpected);
+		assertNotNull(aTerm, aActual);
+		assertArrayEquals(aTerm, Matrices.getArray(aExpected), Matrices.getArray(aActual), 0.0);
+	}
+}
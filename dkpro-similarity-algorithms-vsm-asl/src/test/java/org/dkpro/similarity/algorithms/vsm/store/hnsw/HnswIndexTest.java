@@ -0,0 +1,197 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.store.hnsw;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.dkpro.similarity.algorithms.vsm.store.mapped.MappedVectorReader;
+import org.dkpro.similarity.algorithms.vsm.store.mapped.MappedVectorWriter;
+import org.dkpro.similarity.algorithms.vsm.vector.VectorKernels;
+import org.junit.Test;
+
+import no.uib.cipr.matrix.DenseVector;
+import no.uib.cipr.matrix.Vector;
+import no.uib.cipr.matrix.sparse.SparseVector;
+
+public class HnswIndexTest
+{
+	private static final int TERMS = 2000;
+	private static final int DIMENSION = 24;
+
+	@Test
+	public void recall()
+		throws Exception
+	{
+		List<Vector> vectors = randomDenseVectors(TERMS, DIMENSION, 1);
+		HnswIndex index = new HnswIndex();
+		for (int i = 0; i < vectors.size(); i++) {
+			assertTrue(index.add("t" + i, vectors.get(i)));
+		}
+		assertEquals(TERMS, index.size());
+
+		assertTrue(recall(index, vectors, 10, 100) >= 0.95);
+	}
+
+	@Test
+	public void sparseVectors()
+		throws Exception
+	{
+		Random rnd = new Random(2);
+		List<Vector> vectors = new ArrayList<Vector>();
+		HnswIndex index = new HnswIndex(8, 100);
+		for (int i = 0; i < 500; i++) {
+			SparseVector v = new SparseVector(10000);
+			for (int j = 0; j < 20; j++) {
+				// Cluster the vectors so they share dimensions
+				v.set((i % 10) * 100 + rnd.nextInt(100), rnd.nextDouble());
+			}
+			vectors.add(v);
+			index.add("t" + i, v);
+		}
+
+		assertTrue(recall(index, vectors, 5, 50) >= 0.9);
+	}
+
+	@Test
+	public void nearestTermExcludesTerm()
+	{
+		HnswIndex index = new HnswIndex();
+		index.add("a", new DenseVector(new double[] { 1.0, 0.0 }));
+		index.add("b", new DenseVector(new double[] { 0.9, 0.1 }));
+		index.add("c", new DenseVector(new double[] { 0.0, 1.0 }));
+		assertFalse(index.add("a", new DenseVector(new double[] { 0.0, 1.0 })));
+		assertFalse(index.add("zero", new DenseVector(2)));
+
+		List<Neighbor> nearest = index.getNearest("a", 2);
+		assertEquals(2, nearest.size());
+		assertEquals("b", nearest.get(0).getTerm());
+		assertEquals("c", nearest.get(1).getTerm());
+		assertEquals(0.0, nearest.get(1).getSimilarity(), 1e-6);
+
+		assertNull(index.getNearest("unknown", 2));
+	}
+
+	@Test
+	public void buildFromReaderAndPersist()
+		throws Exception
+	{
+		File dir = new File("target/test-hnsw");
+		FileUtils.deleteQuietly(dir);
+		dir.mkdirs();
+
+		List<Vector> vectors = randomDenseVectors(500, DIMENSION, 3);
+		File store = new File(dir, "vectors.bin");
+		MappedVectorWriter writer = new MappedVectorWriter(store, DIMENSION);
+		for (int i = 0; i < vectors.size(); i++) {
+			writer.put("t" + i, vectors.get(i));
+		}
+		writer.close();
+
+		MappedVectorReader reader = new MappedVectorReader(store);
+		HnswIndex index = HnswIndex.build(reader, reader.getTermIterator());
+		assertEquals(500, index.size());
+
+		File file = new File(dir, "index.hnsw");
+		index.save(file);
+		HnswIndex loaded = HnswIndex.load(file);
+		reader.close();
+
+		assertEquals(index.size(), loaded.size());
+		for (int i = 0; i < 50; i++) {
+			List<Neighbor> expected = index.getNearest("t" + i, 5);
+			List<Neighbor> actual = loaded.getNearest("t" + i, 5);
+			assertEquals(expected.size(), actual.size());
+			for (int n = 0; n < expected.size(); n++) {
+				assertEquals(expected.get(n).getTerm(), actual.get(n).getTerm());
+				assertEquals(expected.get(n).getSimilarity(), actual.get(n).getSimilarity(), 0.0);
+			}
+		}
+	}
+
+	/**
+	 * Fraction of the true top-k neighbours of some query vectors found by the index.
+	 */
+	private static double recall(HnswIndex aIndex, final List<Vector> aVectors, int aK, int aEf)
+	{
+		Random rnd = new Random(0);
+		int found = 0;
+		int total = 0;
+		for (int q = 0; q < 50; q++) {
+			final Vector query = aVectors.get(rnd.nextInt(aVectors.size()));
+
+			List<Integer> exact = new ArrayList<Integer>();
+			for (int i = 0; i < aVectors.size(); i++) {
+				exact.add(i);
+			}
+			Collections.sort(exact, new Comparator<Integer>()
+			{
+				@Override
+				public int compare(Integer aO1, Integer aO2)
+				{
+					return Double.compare(cosine(query, aVectors.get(aO2)),
+							cosine(query, aVectors.get(aO1)));
+				}
+			});
+
+			Set<String> approximate = new HashSet<String>();
+			for (Neighbor n : aIndex.getNearest(query, aK, aEf)) {
+				approximate.add(n.getTerm());
+			}
+
+			for (int i = 0; i < aK; i++) {
+				if (approximate.contains("t" + exact.get(i))) {
+					found++;
+				}
+				total++;
+			}
+		}
+		return (double) found / total;
+	}
+
+	private static double cosine(Vector aV1, Vector aV2)
+	{
+		return VectorKernels.cosine(aV1, aV2);
+	}
+
+	private static List<Vector> randomDenseVectors(int aCount, int aDimension, long aSeed)
+	{
+		Random rnd = new Random(aSeed);
+		List<Vector> vectors = new ArrayList<Vector>();
+		for (int i = 0; i < aCount; i++) {
+			double[] data = new double[aDimension];
+			for (int d = 0; d < aDimension; d++) {
+				data[d] = rnd.nextGaussian();
+			}
+			vectors.add(new DenseVector(data));
+		}
+		return vectors;
+	}
+}
@@ -0,0 +1,143 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.store.mapped;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.dkpro.similarity.algorithms.api.SimilarityException;
+import org.dkpro.similarity.algorithms.vsm.VectorComparator;
+import org.dkpro.similarity.algorithms.vsm.store.EmbeddingVectorReader;
+import org.dkpro.similarity.algorithms.vsm.store.EmbeddingVectorReader.EmbeddingEncoding;
+import org.dkpro.similarity.algorithms.vsm.store.EmbeddingVectorReader.EmbeddingFormat;
+import org.dkpro.similarity.algorithms.vsm.store.convert.ConvertEmbeddingsToMappedVectors;
+import org.junit.Test;
+
+import no.uib.cipr.matrix.Vector;
+
+public class MappedVectorReaderWriterTest
+{
+	@Test
+	public void test()
+		throws Exception
+	{
+		File file = new File("target/test-mapped/vectors.bin");
+		FileUtils.deleteQuietly(file.getParentFile());
+		file.getParentFile().mkdirs();
+
+		MappedVectorWriter writer = new MappedVectorWriter(file, 3);
+		writer.put("zebra", new double[] { 1.0, 2.0, 3.0 });
+		writer.put("apple", new double[] { 0.5, 0.0, -0.5 });
+		writer.put("über", new double[] { 0.25, 0.25, 0.25 });
+		writer.put("apple", new double[] { 1.5, 0.0, -1.5 });
+		writer.close();
+
+		MappedVectorReader reader = new MappedVectorReader(file);
+		assertEquals(3, reader.getConceptCount());
+		assertEquals(3, reader.getTermCount());
+
+		assertVector(reader.getVector("zebra"), 1.0, 2.0, 3.0);
+		assertVector(reader.getVector("apple"), 1.5, 0.0, -1.5);
+		assertVector(reader.getVector("über"), 0.25, 0.25, 0.25);
+		assertVector(reader.getVector("Zebra"), 1.0, 2.0, 3.0);
+		assertNull(reader.getVector("banana"));
+
+		Map<String, Vector> vectors = reader.getVectors(Arrays.asList("zebra", "Über", "banana",
+				"apple"));
+		assertEquals(3, vectors.size());
+		assertVector(vectors.get("zebra"), 1.0, 2.0, 3.0);
+		assertVector(vectors.get("Über"), 0.25, 0.25, 0.25);
+		assertVector(vectors.get("apple"), 1.5, 0.0, -1.5);
+
+		List<String> terms = new ArrayList<String>();
+		for (Iterator<String> i = reader.getTermIterator(); i.hasNext();) {
+			terms.add(i.next());
+		}
+		assertEquals(Arrays.asList("apple", "zebra", "über"), terms);
+
+		// Iterators obtained before closing keep working, new reads fail
+		Iterator<String> open = reader.getTermIterator();
+		reader.close();
+		assertEquals("apple", open.next());
+		try {
+			reader.getVector("zebra");
+			fail("Reading from a closed reader must fail");
+		}
+		catch (SimilarityException e) {
+			// Expected
+		}
+	}
+
+	@Test
+	public void convertEmbeddings()
+		throws Exception
+	{
+		File dir = new File("target/test-mapped-convert");
+		FileUtils.deleteQuietly(dir);
+		dir.mkdirs();
+
+		File embeddings = new File(dir, "glove.txt.gz");
+		Writer out = new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(embeddings)),
+				"UTF-8");
+		try {
+			IOUtils.writeLines(Arrays.asList(
+					"car 0.1 0.2 0.3 0.4",
+					"automobile 0.1 0.2 0.3 0.5",
+					"banana -0.4 0.3 -0.2 0.1"), "\n", out);
+		}
+		finally {
+			out.close();
+		}
+		File store = new File(dir, "glove.bin");
+
+		EmbeddingVectorReader source = new EmbeddingVectorReader(embeddings,
+				EmbeddingFormat.GLOVE, EmbeddingEncoding.txt, new File(dir, "nofilter"), "", " ");
+		assertEquals(3, ConvertEmbeddingsToMappedVectors.convert(source, store));
+
+		VectorComparator expected = new VectorComparator(source);
+		VectorComparator actual = new VectorComparator(new MappedVectorReader(store));
+		assertEquals(expected.getSimilarity("car", "automobile"),
+				actual.getSimilarity("car", "automobile"), 0.000001);
+		assertEquals(expected.getSimilarity("car", "banana"),
+				actual.getSimilarity("car", "banana"), 0.000001);
+	}
+
+	private void assertVector(Vector aVector, double... aExpected)
+	{
+		assertNotNull(aVector);
+		assertEquals(aExpected.length, aVector.size());
+		for (int i = 0; i < aExpected.length; i++) {
+			assertEquals(aExpected[i], aVector.get(i), 0.000001);
+		}
+	}
+}
@@ -19,8 +19,11 @@ package org.dkpro.similarity.algorithms.vsm.store.vectorindex;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
+import java.util.Arrays;
+import java.util.Map;
 
 import no.uib.cipr.matrix.DenseVector;
 import no.uib.cipr.matrix.Vector;
@@ -30,6 +33,9 @@ import no.uib.cipr.matrix.sparse.SparseVector;
 import org.apache.commons.io.FileUtils;
 import org.dkpro.similarity.algorithms.vsm.store.vectorindex.VectorIndexReader;
 import org.dkpro.similarity.algorithms.vsm.store.vectorindex.VectorIndexWriter;
+import org.dkpro.similarity.algorithms.vsm.vector.FloatDenseVector;
+import org.dkpro.similarity.algorithms.vsm.vector.FloatSparseVector;
+import org.dkpro.similarity.algorithms.vsm.vector.VectorKernels;
 import org.junit.Test;
 
 public class VectorIndexReaderWriterTest
@@ -74,6 +80,134 @@ public class VectorIndexReaderWriterTest
 		testVector(vi4);
 }
 
+	@Test
+	public void batchLookup()
+		throws Exception
+	{
+		File path = new File("target/test-batch");
+		FileUtils.deleteQuietly(path);
+		path.mkdirs();
+
+		VectorIndexWriter writer = new VectorIndexWriter(path, 10);
+		for (int i = 0; i < 10; i++) {
+			SparseVector v = new SparseVector(10);
+			v.set(i, i + 1);
+			writer.put("term" + i, v);
+		}
+		writer.close();
+
+		VectorIndexReader reader = new VectorIndexReader(path);
+		Map<String, Vector> vectors = reader.getVectors(
+				Arrays.asList("term7", "term2", "unknown", "term2", "term0"));
+		reader.close();
+
+		assertEquals(3, vectors.size());
+		assertEquals(8.0, vectors.get("term7").get(7), 0.00001);
+		assertEquals(3.0, vectors.get("term2").get(2), 0.00001);
+		assertEquals(1.0, vectors.get("term0").get(0), 0.00001);
+	}
+
+	@Test
+	public void formatVersion2()
+		throws Exception
+	{
+		SparseVector sparse = new SparseVector(100000);
+		sparse.set(3, 0.5);
+		sparse.set(200, -1.25);
+		sparse.set(70000, 0.001);
+		sparse.set(99999, 3.0);
+
+		DenseVector dense = new DenseVector(300);
+		for (int i = 0; i < dense.size(); i++) {
+			dense.set(i, Math.sin(i));
+		}
+
+		for (Quantization q : Quantization.values()) {
+			// Precision relative to the largest value of the vector
+			double delta = q == Quantization.INT8 ? 3.0 / 127 : q == Quantization.FLOAT16 ? 0.002
+					: 0.000001;
+
+			File path = new File("target/test-v2");
+			FileUtils.deleteQuietly(path);
+			path.mkdirs();
+
+			VectorIndexWriter writer = new VectorIndexWriter(path, 100000);
+			writer.setFormatVersion(VectorIndexContract.FORMAT_VERSION_2);
+			writer.setQuantization(q);
+			writer.put("sparse", sparse);
+			writer.close();
+
+			VectorIndexReader reader = new VectorIndexReader(path);
+			assertEquals(VectorIndexContract.FORMAT_VERSION_2, reader.getFormatVersion());
+			Vector vo = reader.getVector("sparse");
+			reader.close();
+
+			assertTrue(vo instanceof FloatSparseVector);
+			assertEquals(4, ((FloatSparseVector) vo).getUsed());
+			assertEquals(sparse.size(), vo.size());
+			assertEquals(0.0, vo.copy().add(-1, sparse).norm(Norm.Infinity), delta);
+			assertEquals(sparse.norm(Norm.Two), vo.norm(Norm.Two), delta);
+
+			FileUtils.deleteQuietly(path);
+			path.mkdirs();
+			writer = new VectorIndexWriter(path, 300);
+			writer.setFormatVersion(VectorIndexContract.FORMAT_VERSION_2);
+			writer.setQuantization(q);
+			writer.put("dense", dense);
+			writer.close();
+
+			reader = new VectorIndexReader(path);
+			vo = reader.getVector("dense");
+			double storedNorm = reader.getNorm2("dense");
+			assertEquals(-1.0, reader.getNorm2("unknown"), 0.0);
+			reader.close();
+
+			assertTrue(vo instanceof FloatDenseVector);
+			assertEquals(0.0, vo.copy().add(-1, dense).norm(Norm.Infinity), delta / 3.0);
+			// The stored norm is the norm of the decoded values
+			assertEquals(VectorKernels.norm2(new FloatDenseVector(
+					((FloatDenseVector) vo).getData())), vo.norm(Norm.Two), 0.00001);
+			// The norm can be read without loading the vector
+			assertEquals(vo.norm(Norm.Two), storedNorm, 0.0);
+		}
+	}
+
+	@Test
+	public void formatVersion1IsDefault()
+		throws Exception
+	{
+		File path = new File("target/test-v1");
+		FileUtils.deleteQuietly(path);
+		path.mkdirs();
+
+		VectorIndexWriter writer = new VectorIndexWriter(path, 10);
+		writer.put("term", new DenseVector(new double[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10 }));
+		writer.close();
+
+		VectorIndexReader reader = new VectorIndexReader(path);
+		assertEquals(VectorIndexContract.FORMAT_VERSION_1, reader.getFormatVersion());
+		assertEquals(10.0, reader.getVector("term").get(9), 0.0);
+		// Version 1 does not store norms
+		assertEquals(-1.0, reader.getNorm2("term"), 0.0);
+		reader.close();
+	}
+
+	@Test
+	public void halfPrecision()
+	{
+		for (float f : new float[] { 0.0f, 1.0f, -2.5f, 65504.0f, 0.00006103515625f,
+				0.000000059604645f }) {
+			assertEquals(f, QuantizedVectorBinding.halfToFloat(
+					QuantizedVectorBinding.floatToHalf(f)), 0.0f);
+		}
+		assertEquals(0x3c00, QuantizedVectorBinding.floatToHalf(1.0f));
+		assertEquals(0x7c00, QuantizedVectorBinding.floatToHalf(100000.0f));
+		assertTrue(Float.isNaN(QuantizedVectorBinding.halfToFloat(
+				QuantizedVectorBinding.floatToHalf(Float.NaN))));
+		assertEquals(0.1f, QuantizedVectorBinding.halfToFloat(
+				QuantizedVectorBinding.floatToHalf(0.1f)), 0.0001f);
+	}
+
 	private void testVector(Vector aVector)
 		throws Exception
 	{
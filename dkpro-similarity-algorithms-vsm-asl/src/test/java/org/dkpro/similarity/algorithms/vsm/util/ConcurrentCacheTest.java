@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.dkpro.similarity.algorithms.vsm.store.CachingVectorReader;
+import org.dkpro.similarity.algorithms.vsm.util.ConcurrentCache.Loader;
+import org.junit.Test;
+
+import no.uib.cipr.matrix.DenseVector;
+import no.uib.cipr.matrix.Vector;
+import no.uib.cipr.matrix.sparse.SparseVector;
+
+public class ConcurrentCacheTest
+{
+	@Test
+	public void sizeBounded()
+	{
+		ConcurrentCache<String, String> cache = new ConcurrentCache<String, String>(1);
+		cache.put("a", "A");
+		assertEquals("A", cache.get("a"));
+		cache.put("b", "B");
+		assertNull(cache.get("a"));
+		assertEquals("B", cache.get("b"));
+
+		assertEquals(1, cache.getSize());
+		assertEquals(2, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void capacityIsExact()
+	{
+		ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<Integer, Integer>(100);
+		for (int i = 0; i < 1000; i++) {
+			cache.put(i, i);
+		}
+		
+		assertEquals(100, cache.getSize());
+		assertEquals(900, cache.getEvictionCount());
+	}
+
+	@Test
+	public void shrink()
+	{
+		ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<Integer, Integer>(100);
+		for (int i = 0; i < 100; i++) {
+			cache.put(i, i);
+		}
+
+		cache.setMaximumWeight(10);
+		assertEquals(10, cache.getSize());
+		assertEquals(10, cache.getMaximumWeight());
+		assertEquals(90, cache.getEvictionCount());
+
+		cache.put(100, 100);
+		assertEquals(10, cache.getSize());
+		assertEquals(Integer.valueOf(100), cache.get(100));
+	}
+
+	@Test
+	public void snapshot()
+	{
+		ConcurrentCache<String, String> cache = new ConcurrentCache<String, String>(2);
+		cache.put("a", "A");
+		cache.put("b", "B");
+		cache.put("c", "C");
+
+		Map<String, String> copy = cache.snapshot();
+		assertEquals(2, copy.size());
+		assertEquals("B", copy.get("b"));
+		assertEquals("C", copy.get("c"));
+		assertEquals(0, cache.getHitCount());
+
+		cache.clear();
+		assertEquals(2, copy.size());
+	}
+
+	@Test
+	public void weightBounded()
+	{
+		ConcurrentCache<String, Vector> cache = new ConcurrentCache<String, Vector>(10,
+				CachingVectorReader.NON_ZERO_WEIGHER, 0, TimeUnit.SECONDS);
+
+		SparseVector sparse = new SparseVector(1000);
+		sparse.set(1, 1.0);
+		sparse.set(2, 1.0);
+		cache.put("sparse", sparse);
+		assertEquals(2, cache.getWeight());
+
+		// Heavier than the whole cache - never cached and does not evict other values
+		cache.put("dense", new DenseVector(1000));
+		assertNull(cache.get("dense"));
+		assertNotNull(cache.get("sparse"));
+		assertEquals(2, cache.getWeight());
+		assertEquals(0, cache.getEvictionCount());
+
+		// Replacing a cached value by a value which is too heavy drops the old value
+		cache.put("sparse", new DenseVector(1000));
+		assertNull(cache.get("sparse"));
+		assertEquals(0, cache.getWeight());
+	}
+
+	@Test
+	public void timeToLive()
+		throws Exception
+	{
+		ConcurrentCache<String, String> cache = new ConcurrentCache<String, String>(10, null, 1,
+				TimeUnit.MILLISECONDS);
+		cache.put("a", "A");
+		Thread.sleep(10);
+		assertNull(cache.get("a"));
+		assertEquals(0, cache.getSize());
+		assertEquals(1, cache.getEvictionCount());
+	}
+
+	@Test
+	public void concurrentLoading()
+		throws Exception
+	{
+		final ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<Integer, Integer>(50);
+		final Loader<Integer, Integer, RuntimeException> loader =
+				new Loader<Integer, Integer, RuntimeException>()
+		{
+			@Override
+			public Integer load(Integer aKey)
+			{
+				return aKey * 2;
+			}
+		};
+
+		List<Thread> threads = new ArrayList<Thread>();
+		final List<Throwable> errors = new ArrayList<Throwable>();
+		for (int t = 0; t < 8; t++) {
+			Thread thread = new Thread()
+			{
+				@Override
+				public void run()
+				{
+					try {
+						for (int i = 0; i < 10000; i++) {
+							int key = i % 100;
+							assertEquals(key * 2, (int) cache.get(key, loader));
+						}
+					}
+					catch (Throwable e) {
+						synchronized (errors) {
+							errors.add(e);
+						}
+					}
+				}
+			};
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+
+		assertTrue(errors.toString(), errors.isEmpty());
+		assertEquals(80000, cache.getHitCount() + cache.getMissCount());
+		assertEquals(cache.getMissCount(), cache.getLoadCount());
+		assertTrue(cache.getSize() <= 50);
+	}
+}
@@ -0,0 +1,114 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.vector;
+
+import java.util.Random;
+
+import org.dkpro.similarity.algorithms.vsm.InnerVectorProduct;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import no.uib.cipr.matrix.DenseVector;
+import no.uib.cipr.matrix.Vector;
+import no.uib.cipr.matrix.Vector.Norm;
+
+/**
+ * Compares the cosine computed using MTJ with the {@link InnerVectorProduct#FUSED_COSINE fused
+ * kernel} for embedding-like dense vectors.
+ */
+@Ignore("This is a performance test - excluding from normal junit runs")
+public class FusedCosinePerformanceTest
+{
+	private static final int VECTORS = 2000;
+	private static final int DIMENSION = 300;
+	private static final int CYCLES = 5;
+
+	@Test
+	public void test()
+	{
+		Random rnd = new Random(42);
+		DenseVector[] mtj = new DenseVector[VECTORS];
+		FloatDenseVector[] floats = new FloatDenseVector[VECTORS];
+		for (int i = 0; i < VECTORS; i++) {
+			float[] data = new float[DIMENSION];
+			for (int d = 0; d < DIMENSION; d++) {
+				data[d] = (float) rnd.nextGaussian();
+			}
+			floats[i] = new FloatDenseVector(data);
+			mtj[i] = floats[i].copy();
+		}
+
+		double sumMtj = 0.0;
+		double sumFast = 0.0;
+		double sumFused = 0.0;
+		double sumKnown = 0.0;
+		for (int c = 0; c < CYCLES; c++) {
+			long start = System.nanoTime();
+			double s = 0.0;
+			for (int i = 1; i < VECTORS; i++) {
+				for (int j = 0; j < i; j++) {
+					Vector v1 = mtj[i];
+					Vector v2 = mtj[j];
+					s += v1.dot(v2) / (v1.norm(Norm.Two) * v2.norm(Norm.Two));
+				}
+			}
+			sumMtj += System.nanoTime() - start;
+
+			start = System.nanoTime();
+			double f = 0.0;
+			for (int i = 1; i < VECTORS; i++) {
+				for (int j = 0; j < i; j++) {
+					f += InnerVectorProduct.FAST_COSINE.apply(mtj[i], mtj[j]);
+				}
+			}
+			sumFast += System.nanoTime() - start;
+
+			// Fresh vectors so the norms are computed in the fused pass
+			FloatDenseVector[] fresh = new FloatDenseVector[VECTORS];
+			for (int i = 0; i < VECTORS; i++) {
+				fresh[i] = new FloatDenseVector(floats[i].getData());
+			}
+			start = System.nanoTime();
+			double u = 0.0;
+			for (int i = 1; i < VECTORS; i++) {
+				for (int j = 0; j < i; j++) {
+					u += InnerVectorProduct.FUSED_COSINE.apply(fresh[i], fresh[j]);
+				}
+			}
+			sumFused += System.nanoTime() - start;
+
+			// The norms are known now, only the dot products are computed
+			start = System.nanoTime();
+			double k = 0.0;
+			for (int i = 1; i < VECTORS; i++) {
+				for (int j = 0; j < i; j++) {
+					k += InnerVectorProduct.FUSED_COSINE.apply(fresh[i], fresh[j]);
+				}
+			}
+			sumKnown += System.nanoTime() - start;
+
+			System.out.printf("checksums: %.6f %.6f %.6f %.6f%n", s, f, u, k);
+		}
+
+		long pairs = (long) VECTORS * (VECTORS - 1) / 2;
+		System.out.printf("MTJ dot/norm:          %6.1f ns/pair%n", sumMtj / CYCLES / pairs);
+		System.out.printf("FAST_COSINE:           %6.1f ns/pair%n", sumFast / CYCLES / pairs);
+		System.out.printf("FUSED_COSINE:          %6.1f ns/pair%n", sumFused / CYCLES / pairs);
+		System.out.printf("FUSED_COSINE (norms):  %6.1f ns/pair%n", sumKnown / CYCLES / pairs);
+	}
+}
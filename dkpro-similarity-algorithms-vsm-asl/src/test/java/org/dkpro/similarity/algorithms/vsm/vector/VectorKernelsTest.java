@@ -0,0 +1,234 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.algorithms.vsm.vector;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.dkpro.similarity.algorithms.vsm.InnerVectorProduct;
+import org.dkpro.similarity.algorithms.vsm.VectorNorm;
+import org.junit.Test;
+
+import no.uib.cipr.matrix.AbstractVector;
+import no.uib.cipr.matrix.DenseVector;
+import no.uib.cipr.matrix.Vector;
+import no.uib.cipr.matrix.VectorEntry;
+import no.uib.cipr.matrix.sparse.SparseVector;
+
+public class VectorKernelsTest
+{
+	// Values are exactly representable as floats
+	private static final double[] A = { 0.5, 0.0, 1.25, 0.0, 2.0, 0.75, 0.0, 0.0, 3.5 };
+	private static final double[] B = { 0.25, 1.0, 0.0, 0.0, 1.5, 0.0, 0.5, 0.0, 2.0 };
+
+	@Test
+	public void dot()
+	{
+		for (Vector a : representations(A)) {
+			for (Vector b : representations(B)) {
+				assertEquals(0.125 + 3.0 + 7.0, VectorKernels.dot(a, b), 0.0);
+			}
+		}
+	}
+
+	@Test
+	public void norms()
+	{
+		for (Vector a : representations(A)) {
+			assertEquals(8.0, VectorKernels.norm1(a), 0.0);
+			assertEquals(8.0, VectorNorm.L1.apply(a), 0.0);
+			assertEquals(Math.sqrt(18.625), VectorKernels.norm2(a), 1e-12);
+			assertEquals(Math.sqrt(18.625), VectorNorm.L2.apply(a), 1e-12);
+			assertEquals(3.5, VectorKernels.normInf(a), 0.0);
+			assertEquals(8.0, VectorKernels.sum(a), 0.0);
+		}
+	}
+
+	@Test
+	public void sameResultForAllRepresentations()
+	{
+		for (InnerVectorProduct product : InnerVectorProduct.values()) {
+			for (Vector a : representations(A)) {
+				for (Vector b : representations(B)) {
+					if (product == InnerVectorProduct.FAST_COSINE && isSparse(a) != isSparse(b)) {
+						// Mixed pairs are not normalized, see fastCosineOfMixedPairs()
+						continue;
+					}
+
+					// The generic vector is not supported by the kernels and is evaluated by
+					// iterating over the first vector and looking up the elements of the second
+					double expected = product.apply(new GenericVector(a), new GenericVector(b));
+					assertEquals(product + " " + a.getClass().getSimpleName() + "/"
+							+ b.getClass().getSimpleName(), expected, product.apply(a, b), 1e-12);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void floatVectorsAreCompact()
+	{
+		FloatSparseVector s = new FloatSparseVector(new DenseVector(A));
+		assertEquals(5, s.getUsed());
+		assertEquals(A.length, s.size());
+		assertEquals(1.25, s.get(2), 0.0);
+		assertEquals(0.0, s.get(3), 0.0);
+
+		Vector copy = s.copy();
+		copy.set(3, 1.0);
+		assertEquals(0.0, s.get(3), 0.0);
+	}
+
+	@Test
+	public void aggregationOfFloatVectors()
+	{
+		DenseVector sum = new DenseVector(A.length);
+		sum.add(new FloatSparseVector(new DenseVector(A)));
+		sum.add(new FloatDenseVector(new DenseVector(B)));
+		for (int i = 0; i < A.length; i++) {
+			assertEquals(A[i] + B[i], sum.get(i), 0.0);
+		}
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void floatVectorsAreReadOnly()
+	{
+		new FloatDenseVector(new DenseVector(A)).set(0, 1.0);
+	}
+
+	@Test
+	public void fastCosine()
+	{
+		for (Vector a : representations(A)) {
+			assertEquals(1.0, InnerVectorProduct.FAST_COSINE.apply(a, a), 1e-12);
+			assertTrue(InnerVectorProduct.FAST_COSINE.apply(a, new DenseVector(A.length)) == 0.0);
+		}
+	}
+
+	@Test
+	public void fastCosineOfMixedPairs()
+	{
+		for (Vector a : representations(A)) {
+			for (Vector b : representations(B)) {
+				double cosine = InnerVectorProduct.FAST_COSINE.apply(a, b);
+				if (isSparse(a) == isSparse(b)) {
+					assertEquals(10.125 / Math.sqrt(18.625 * 7.5625), cosine, 1e-12);
+				}
+				else {
+					// Like the original implementation, only the dot product for mixed pairs
+					assertEquals(10.125, cosine, 1e-12);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void fusedCosine()
+	{
+		for (Vector a : representations(A)) {
+			for (Vector b : representations(B)) {
+				assertEquals(10.125 / Math.sqrt(18.625 * 7.5625),
+						InnerVectorProduct.FUSED_COSINE.apply(a, b), 1e-12);
+			}
+		}
+	}
+
+	@Test
+	public void robustL2Norm()
+	{
+		// The squares of these values overflow or underflow a double
+		assertEquals(5e200, VectorNorm.L2.apply(new DenseVector(new double[] { 3e200, 4e200 })),
+				1e188);
+		assertEquals(5e-200, VectorNorm.L2.apply(new DenseVector(new double[] { 3e-200,
+				4e-200 })), 1e-212);
+	}
+
+	@Test
+	public void fusedCosineRemembersNorms()
+	{
+		FloatDenseVector a = new FloatDenseVector(new DenseVector(A));
+		FloatDenseVector b = new FloatDenseVector(new DenseVector(B));
+		double expected = InnerVectorProduct.FAST_COSINE.apply(new DenseVector(A),
+				new DenseVector(B));
+
+		// Computes the norms in the same pass as the dot product
+		assertEquals(expected, VectorKernels.cosine(a, b), 1e-12);
+		assertEquals(Math.sqrt(18.625), a.getKnownNorm2(), 1e-12);
+		assertEquals(Math.sqrt(7.5625), b.getKnownNorm2(), 1e-12);
+
+		// Uses the known norms
+		assertEquals(expected, VectorKernels.cosine(a, b), 1e-12);
+
+		// Uses precomputed norms passed to the constructor
+		FloatDenseVector c = new FloatDenseVector(a.getData(), 2 * a.getNorm2());
+		assertEquals(expected / 2, VectorKernels.cosine(c, b), 1e-12);
+	}
+
+	private static boolean isSparse(Vector aVector)
+	{
+		return aVector instanceof SparseVector || aVector instanceof FloatSparseVector;
+	}
+
+	private static List<Vector> representations(double[] aData)
+	{
+		List<Vector> vectors = new ArrayList<Vector>();
+		vectors.add(new DenseVector(aData));
+		vectors.add(new FloatDenseVector(new DenseVector(aData)));
+		vectors.add(new FloatSparseVector(new DenseVector(aData)));
+
+		// Leave some unused capacity in the backing arrays
+		SparseVector sparse = new SparseVector(aData.length, aData.length * 2);
+		for (int i = 0; i < aData.length; i++) {
+			if (aData[i] != 0.0) {
+				sparse.set(i, aData[i]);
+			}
+		}
+		vectors.add(sparse);
+		return vectors;
+	}
+
+	private static class GenericVector
+		extends AbstractVector
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Vector delegate;
+
+		public GenericVector(Vector aDelegate)
+		{
+			super(aDelegate.size());
+			delegate = aDelegate;
+		}
+
+		@Override
+		public double get(int aIndex)
+		{
+			return delegate.get(aIndex);
+		}
+
+		@Override
+		public Iterator<VectorEntry> iterator()
+		{
+			return delegate.iterator();
+		}
+	}
+}
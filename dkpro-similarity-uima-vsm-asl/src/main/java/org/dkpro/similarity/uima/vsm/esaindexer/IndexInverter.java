@@ -18,12 +18,29 @@ package org.dkpro.similarity.uima.vsm.esaindexer;
 import static org.apache.commons.io.FileUtils.deleteQuietly;
 
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import no.uib.cipr.matrix.Vector;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.lucene.index.CorruptIndexException;
 import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.TermEnum;
@@ -31,6 +48,8 @@ import org.apache.lucene.store.FSDirectory;
 import org.dkpro.similarity.algorithms.api.SimilarityException;
 import org.dkpro.similarity.algorithms.vsm.store.LuceneVectorReader;
 import org.dkpro.similarity.algorithms.vsm.store.convert.ConvertLuceneToVectorIndex;
+import org.dkpro.similarity.algorithms.vsm.store.vectorindex.Quantization;
+import org.dkpro.similarity.algorithms.vsm.store.vectorindex.VectorIndexContract;
 import org.dkpro.similarity.algorithms.vsm.store.vectorindex.VectorIndexWriter;
 import org.dkpro.similarity.algorithms.vsm.util.ProgressMeter;
 
@@ -43,11 +62,35 @@ import org.dkpro.similarity.algorithms.vsm.util.ProgressMeter;
  */
 public class IndexInverter {
 
+	/**
+	 * Name of the file in the output folder recording the progress of an
+	 * unfinished run.
+	 */
+	public static final String CHECKPOINT_FILE_NAME = "inverter.checkpoint";
+
+	static final String CHECKPOINT_PROP_TERMS = "terms";
+	static final String CHECKPOINT_PROP_CHUNK_SIZE = "chunkSize";
+	static final String CHECKPOINT_PROP_FORMAT_VERSION = "formatVersion";
+	static final String CHECKPOINT_PROP_QUANTIZATION = "quantization";
+	static final String CHECKPOINT_PROP_COMPLETED = "completed";
+
 	private final File luceneIndexDir;
 	private final File invertedIndexDir;
 
 	private int minDocumentFrequency = 1;
 
+	private int formatVersion = VectorIndexContract.FORMAT_VERSION_1;
+
+	private Quantization quantization = Quantization.FLOAT32;
+
+	private int threads = Runtime.getRuntime().availableProcessors();
+
+	private int chunkSize = 1000;
+
+	private int checkpointInterval = 10;
+
+	private boolean resume = true;
+
 	public IndexInverter() {
 		super();
 		this.luceneIndexDir = new File("target/lucene");
@@ -64,45 +107,253 @@ public class IndexInverter {
 		// standard configuration
 	}
 
+	/**
+	 * Creates the inverted index. The term dictionary is split into chunks of
+	 * {@link #getChunkSize()} terms which are inverted in parallel by
+	 * {@link #getThreads()} workers. Each worker uses its own
+	 * {@link LuceneVectorReader}. The vectors are written by the calling thread
+	 * and at most two chunks per worker are held in memory at any time.
+	 * <p>
+	 * Progress is recorded in a checkpoint file in the output folder. If a
+	 * previous run was interrupted and {@link #isResume() resume} is enabled,
+	 * the chunks already written are skipped. Otherwise the output folder is
+	 * cleared first. The checkpoint file is removed once the index is complete.
+	 */
 	public void createInvertedIndex() throws CorruptIndexException, IOException, SimilarityException {
 
-		deleteQuietly(invertedIndexDir);
-		if (!invertedIndexDir.mkdirs()) {
-		    throw new IOException("Cannot create folder: " + invertedIndexDir);
-		}
-
 		final IndexReader reader = IndexReader.open(FSDirectory.open(luceneIndexDir));
 		final TermEnum termEnum = reader.terms();
-		final Set<String> terms = new HashSet<String>();
+		final Set<String> termSet = new HashSet<String>();
 
 		int totalTerms = 0;
 		while (termEnum.next()) {
 			final String term = termEnum.term().text();
 			final int termDocFreq = termEnum.docFreq();
 			if (minDocumentFrequency <= termDocFreq) {
-				terms.add(term);
+				termSet.add(term);
 			}
 			totalTerms++;
 		}
+		termEnum.close();
 		reader.close();
 
+		// The chunks must be the same when resuming an interrupted run
+		final List<String> terms = new ArrayList<String>(termSet);
+		Collections.sort(terms);
+		final int chunkCount = (terms.size() + chunkSize - 1) / chunkSize;
+
+		final File checkpointFile = new File(invertedIndexDir, CHECKPOINT_FILE_NAME);
+		final BitSet completed = resume ? readCheckpoint(checkpointFile, terms.size()) : null;
+		if (completed == null) {
+			deleteQuietly(invertedIndexDir);
+			if (!invertedIndexDir.mkdirs()) {
+				throw new IOException("Cannot create folder: " + invertedIndexDir);
+			}
+		}
+		final BitSet done = completed != null ? completed : new BitSet(chunkCount);
+
 		System.out.println("Using " + terms.size() + " terms out of " + totalTerms);
 		System.out.println("Input Lucene index: " + luceneIndexDir);
-		final LuceneVectorReader luceneVectorReader = new LuceneVectorReader(luceneIndexDir);
-		configureLuceneVectorReader(luceneVectorReader);
-		
 		System.out.println("Output inverted index: " + invertedIndexDir);
-		final VectorIndexWriter vectorIndexWriter = new VectorIndexWriter(invertedIndexDir,
-				luceneVectorReader.getConceptCount());
+		if (completed != null) {
+			System.out.println("Resuming with " + done.cardinality() + " of " + chunkCount
+					+ " chunks done");
+		}
+
+		final List<LuceneVectorReader> luceneVectorReaders = Collections
+				.synchronizedList(new ArrayList<LuceneVectorReader>());
+		final ThreadLocal<LuceneVectorReader> localReader = new ThreadLocal<LuceneVectorReader>() {
+			@Override
+			protected LuceneVectorReader initialValue() {
+				final LuceneVectorReader luceneVectorReader = new LuceneVectorReader(luceneIndexDir);
+				configureLuceneVectorReader(luceneVectorReader);
+				luceneVectorReaders.add(luceneVectorReader);
+				return luceneVectorReader;
+			}
+		};
+
+		final ExecutorService executor = Executors.newFixedThreadPool(threads);
+		final CompletionService<Chunk> completionService = new ExecutorCompletionService<Chunk>(executor);
+		VectorIndexWriter vectorIndexWriter = null;
+		try {
+			final LuceneVectorReader luceneVectorReader = new LuceneVectorReader(luceneIndexDir);
+			configureLuceneVectorReader(luceneVectorReader);
+			vectorIndexWriter = new VectorIndexWriter(invertedIndexDir, luceneVectorReader.getConceptCount());
+			luceneVectorReader.close();
+			vectorIndexWriter.setFormatVersion(formatVersion);
+			vectorIndexWriter.setQuantization(quantization);
+
+			final ProgressMeter progressMeter = new ProgressMeter(terms.size());
+			for (int i = 0; i < chunkCount; i++) {
+				if (done.get(i)) {
+					progressMeter.skip(chunkEnd(i, terms.size()) - i * chunkSize);
+				}
+			}
+
+			final int maxPending = 2 * threads;
+			int pending = 0;
+			int nextChunk = done.nextClearBit(0);
+			int sinceCheckpoint = 0;
+			while (nextChunk < chunkCount || pending > 0) {
+				// Keep the workers busy, but do not run ahead of the writer
+				while (nextChunk < chunkCount && pending < maxPending) {
+					final int id = nextChunk;
+					final List<String> chunkTerms = terms.subList(id * chunkSize, chunkEnd(id, terms.size()));
+					completionService.submit(new Callable<Chunk>() {
+						@Override
+						public Chunk call() throws Exception {
+							return new Chunk(id, chunkTerms.size(), localReader.get().getVectors(chunkTerms));
+						}
+					});
+					pending++;
+					nextChunk = done.nextClearBit(nextChunk + 1);
+				}
+
+				final Chunk chunk = take(completionService);
+				pending--;
+				vectorIndexWriter.put(chunk.vectors);
+				done.set(chunk.id);
+				progressMeter.setDone(progressMeter.getCount() + chunk.termCount);
+
+				sinceCheckpoint++;
+				if (sinceCheckpoint >= checkpointInterval) {
+					vectorIndexWriter.flush();
+					writeCheckpoint(checkpointFile, terms.size(), done);
+					sinceCheckpoint = 0;
+					System.out.printf("%s (%.1f terms/s)%n", progressMeter, progressMeter.getThroughput());
+				}
+			}
+
+			vectorIndexWriter.close();
+			vectorIndexWriter = null;
+			deleteQuietly(checkpointFile);
+			System.out.printf("%s (%.1f terms/s)%n", progressMeter, progressMeter.getThroughput());
+		}
+		finally {
+			executor.shutdownNow();
+			if (vectorIndexWriter != null) {
+				vectorIndexWriter.close();
+			}
+			synchronized (luceneVectorReaders) {
+				for (LuceneVectorReader luceneVectorReader : luceneVectorReaders) {
+					luceneVectorReader.close();
+				}
+			}
+		}
+	}
+
+	private int chunkEnd(int chunk, int termCount) {
+		return Math.min((chunk + 1) * chunkSize, termCount);
+	}
+
+	private Chunk take(CompletionService<Chunk> completionService) throws IOException, SimilarityException {
+		try {
+			return completionService.take().get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while inverting index", e);
+		}
+		catch (ExecutionException e) {
+			final Throwable cause = e.getCause();
+			if (cause instanceof SimilarityException) {
+				throw (SimilarityException) cause;
+			}
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			throw new SimilarityException(cause);
+		}
+	}
+
+	/**
+	 * Reads the chunks completed by a previous run.
+	 * 
+	 * @return the completed chunks or {@code null} if there is no usable
+	 *         checkpoint.
+	 */
+	private BitSet readCheckpoint(File checkpointFile, int termCount) throws IOException {
+		if (!checkpointFile.isFile()) {
+			return null;
+		}
+
+		final Properties props = new Properties();
+		final InputStream in = new FileInputStream(checkpointFile);
+		try {
+			props.load(in);
+		}
+		finally {
+			IOUtils.closeQuietly(in);
+		}
+
+		// A checkpoint is only valid for the same term partition
+		if (!String.valueOf(termCount).equals(props.getProperty(CHECKPOINT_PROP_TERMS))
+				|| !String.valueOf(chunkSize).equals(props.getProperty(CHECKPOINT_PROP_CHUNK_SIZE))
+				|| !String.valueOf(formatVersion).equals(props.getProperty(CHECKPOINT_PROP_FORMAT_VERSION))
+				|| !quantization.name().equals(props.getProperty(CHECKPOINT_PROP_QUANTIZATION))) {
+			System.out.println("Ignoring checkpoint for different settings: " + checkpointFile);
+			return null;
+		}
+
+		final BitSet completed = new BitSet();
+		for (String id : props.getProperty(CHECKPOINT_PROP_COMPLETED, "").split(",")) {
+			if (id.length() > 0) {
+				completed.set(Integer.parseInt(id));
+			}
+		}
+		return completed;
+	}
+
+	/**
+	 * Records the completed chunks. The checkpoint is written to a temporary
+	 * file first, so an interrupted write does not destroy the previous
+	 * checkpoint.
+	 */
+	private void writeCheckpoint(File checkpointFile, int termCount, BitSet completed) throws IOException {
+		final StringBuilder ids = new StringBuilder();
+		for (int i = completed.nextSetBit(0); i >= 0; i = completed.nextSetBit(i + 1)) {
+			if (ids.length() > 0) {
+				ids.append(',');
+			}
+			ids.append(i);
+		}
+
+		final Properties props = new Properties();
+		props.setProperty(CHECKPOINT_PROP_TERMS, String.valueOf(termCount));
+		props.setProperty(CHECKPOINT_PROP_CHUNK_SIZE, String.valueOf(chunkSize));
+		props.setProperty(CHECKPOINT_PROP_FORMAT_VERSION, String.valueOf(formatVersion));
+		props.setProperty(CHECKPOINT_PROP_QUANTIZATION, quantization.name());
+		props.setProperty(CHECKPOINT_PROP_COMPLETED, ids.toString());
+
+		final File tmpFile = new File(checkpointFile.getPath() + ".tmp");
+		final OutputStream out = new FileOutputStream(tmpFile);
+		try {
+			props.store(out, null);
+		}
+		finally {
+			IOUtils.closeQuietly(out);
+		}
+		if (checkpointFile.exists() && !checkpointFile.delete()) {
+			throw new IOException("Cannot replace checkpoint: " + checkpointFile);
+		}
+		if (!tmpFile.renameTo(checkpointFile)) {
+			throw new IOException("Cannot write checkpoint: " + checkpointFile);
+		}
+	}
+
+	/**
+	 * The vectors of a range of terms.
+	 */
+	private static class Chunk {
+		final int id;
+		final int termCount;
+		final Map<String, Vector> vectors;
 
-		final ProgressMeter progressMeter = new ProgressMeter(terms.size());
-		for (String term : terms) {
-			final Vector vector = luceneVectorReader.getVector(term);
-			vectorIndexWriter.put(term, vector);
-			progressMeter.next();
-			System.out.println("[" + term + "] " + progressMeter);
+		Chunk(int id, int termCount, Map<String, Vector> vectors) {
+			this.id = id;
+			this.termCount = termCount;
+			this.vectors = vectors;
 		}
-		vectorIndexWriter.close();
 	}
 
 	public int getMinDocumentFrequency() {
@@ -122,4 +373,89 @@ public class IndexInverter {
 		}
 		this.minDocumentFrequency = minDocumentFrequency;
 	}
-}
\ No newline at end of file
+
+	public int getFormatVersion() {
+		return formatVersion;
+	}
+
+	/**
+	 * Sets the vector format of the inverted index, see
+	 * {@link VectorIndexWriter#setFormatVersion(int)}.
+	 * 
+	 * @param formatVersion
+	 *            {@link VectorIndexContract#FORMAT_VERSION_1} (default) or
+	 *            {@link VectorIndexContract#FORMAT_VERSION_2}
+	 */
+	public void setFormatVersion(int formatVersion) {
+		this.formatVersion = formatVersion;
+	}
+
+	public Quantization getQuantization() {
+		return quantization;
+	}
+
+	/**
+	 * Sets the precision of the stored values when writing
+	 * {@link VectorIndexContract#FORMAT_VERSION_2}.
+	 */
+	public void setQuantization(Quantization quantization) {
+		this.quantization = quantization;
+	}
+
+	public int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * Sets the number of worker threads. Defaults to the number of available
+	 * processors.
+	 */
+	public void setThreads(int threads) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads must be in [1,)");
+		}
+		this.threads = threads;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Sets the number of terms inverted by a worker in one go. Changing the
+	 * chunk size invalidates the checkpoint of an interrupted run.
+	 */
+	public void setChunkSize(int chunkSize) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize must be in [1,)");
+		}
+		this.chunkSize = chunkSize;
+	}
+
+	public int getCheckpointInterval() {
+		return checkpointInterval;
+	}
+
+	/**
+	 * Sets after how many written chunks the progress is flushed to disk and
+	 * recorded in the checkpoint.
+	 */
+	public void setCheckpointInterval(int checkpointInterval) {
+		if (checkpointInterval < 1) {
+			throw new IllegalArgumentException("checkpointInterval must be in [1,)");
+		}
+		this.checkpointInterval = checkpointInterval;
+	}
+
+	public boolean isResume() {
+		return resume;
+	}
+
+	/**
+	 * Whether to continue an interrupted run from its checkpoint. If disabled,
+	 * the output folder is always cleared. Default: true.
+	 */
+	public void setResume(boolean resume) {
+		this.resume = resume;
+	}
+}
@@ -39,6 +39,7 @@ import org.apache.uima.fit.component.JCasAnnotator_ImplBase;
 import org.apache.uima.fit.descriptor.ConfigurationParameter;
 import org.apache.uima.jcas.JCas;
 import org.apache.uima.resource.ResourceInitializationException;
+import org.dkpro.similarity.algorithms.api.SimilarityException;
 import org.dkpro.similarity.algorithms.vsm.store.LuceneVectorReader;
 
 import de.tudarmstadt.ukp.dkpro.core.api.featurepath.FeaturePathException;
@@ -157,6 +158,17 @@ public class LuceneIndexer extends JCasAnnotator_ImplBase {
 		} catch (IOException e) {
 			throw new AnalysisEngineProcessException(e);
 		}
+
+		// Store the document lengths and vocabulary size with the index so that readers do not
+		// have to scan the index for them
+		LuceneVectorReader reader = new LuceneVectorReader(indexPath);
+		try {
+			reader.writeStatistics();
+		} catch (SimilarityException e) {
+			throw new AnalysisEngineProcessException(e);
+		} finally {
+			reader.close();
+		}
 	}
 
 	private static boolean matches(Matcher matcher, String string) {
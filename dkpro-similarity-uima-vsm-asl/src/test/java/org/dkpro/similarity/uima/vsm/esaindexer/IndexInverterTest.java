@@ -0,0 +1,190 @@
+/*******************************************************************************
+ * Copyright 2012
+ * Ubiquitous Knowledge Processing (UKP) Lab
+ * Technische Universität Darmstadt
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package org.dkpro.similarity.uima.vsm.esaindexer;
+
+import static org.apache.commons.io.FileUtils.deleteQuietly;
+import static org.apache.uima.fit.factory.AnalysisEngineFactory.createEngine;
+import static org.apache.uima.fit.factory.CollectionReaderFactory.createReader;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import no.uib.cipr.matrix.Matrices;
+import no.uib.cipr.matrix.Vector;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.TermEnum;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.uima.fit.pipeline.SimplePipeline;
+import org.dkpro.similarity.algorithms.vsm.store.LuceneVectorReader;
+import org.dkpro.similarity.algorithms.vsm.store.vectorindex.Quantization;
+import org.dkpro.similarity.algorithms.vsm.store.vectorindex.VectorIndexContract;
+import org.dkpro.similarity.algorithms.vsm.store.vectorindex.VectorIndexReader;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import de.tudarmstadt.ukp.dkpro.core.api.segmentation.type.Stem;
+import de.tudarmstadt.ukp.dkpro.core.io.text.TextReader;
+import de.tudarmstadt.ukp.dkpro.core.snowball.SnowballStemmer;
+import de.tudarmstadt.ukp.dkpro.core.tokit.BreakIteratorSegmenter;
+
+public class IndexInverterTest {
+
+	private final static File luceneIndexDir = new File("target/inverter/lucene");
+
+	// All terms in the index, this is what the inverter partitions into chunks
+	private static List<String> allTerms;
+
+	// Only these terms have a vector
+	private static List<String> terms;
+
+	@BeforeClass
+	public static void createLuceneIndex() throws Exception {
+		deleteQuietly(luceneIndexDir);
+		SimplePipeline.runPipeline(
+				createReader(TextReader.class,
+						TextReader.PARAM_SOURCE_LOCATION, "src/test/resources/input/",
+						TextReader.PARAM_PATTERNS, "*.txt"),
+				createEngine(BreakIteratorSegmenter.class,
+						BreakIteratorSegmenter.PARAM_LANGUAGE, "en"),
+				createEngine(SnowballStemmer.class,
+						SnowballStemmer.PARAM_LANGUAGE, "en",
+						SnowballStemmer.PARAM_LOWER_CASE, true),
+				createEngine(LuceneIndexer.class,
+						LuceneIndexer.PARAM_INDEX_PATH, luceneIndexDir.getPath(),
+						LuceneIndexer.PARAM_MIN_TERMS_PER_DOCUMENT, 1,
+						LuceneIndexer.PARAM_FEATURE_PATH, Stem.class.getName() + "/value"));
+
+		final TreeSet<String> allTermSet = new TreeSet<String>();
+		final TreeSet<String> termSet = new TreeSet<String>();
+		final IndexReader reader = IndexReader.open(FSDirectory.open(luceneIndexDir));
+		final TermEnum termEnum = reader.terms();
+		while (termEnum.next()) {
+			allTermSet.add(termEnum.term().text());
+			if (LuceneVectorReader.FIELD_NAME.equals(termEnum.term().field())) {
+				termSet.add(termEnum.term().text());
+			}
+		}
+		reader.close();
+		allTerms = new ArrayList<String>(allTermSet);
+		terms = new ArrayList<String>(termSet);
+	}
+
+	@Test
+	public void parallelInversionMatchesSerial() throws Exception {
+		final File serialDir = new File("target/inverter/serial");
+		final IndexInverter serial = new IndexInverter(luceneIndexDir, serialDir);
+		serial.setThreads(1);
+		serial.createInvertedIndex();
+
+		final File parallelDir = new File("target/inverter/parallel");
+		final IndexInverter parallel = new IndexInverter(luceneIndexDir, parallelDir);
+		parallel.setThreads(4);
+		parallel.setChunkSize(1);
+		parallel.setCheckpointInterval(2);
+		parallel.createInvertedIndex();
+
+		assertFalse(new File(parallelDir, IndexInverter.CHECKPOINT_FILE_NAME).exists());
+		assertSameVectors(serialDir, parallelDir, terms);
+	}
+
+	@Test
+	public void resumeSkipsCompletedChunks() throws Exception {
+		final File fullDir = new File("target/inverter/full");
+		new IndexInverter(luceneIndexDir, fullDir).createInvertedIndex();
+
+		// Pretend a previous run was interrupted after writing the chunk of the first term
+		final File resumedDir = new File("target/inverter/resumed");
+		deleteQuietly(resumedDir);
+		assertTrue(resumedDir.mkdirs());
+		final Properties props = new Properties();
+		props.setProperty(IndexInverter.CHECKPOINT_PROP_TERMS, String.valueOf(allTerms.size()));
+		props.setProperty(IndexInverter.CHECKPOINT_PROP_CHUNK_SIZE, "1");
+		props.setProperty(IndexInverter.CHECKPOINT_PROP_FORMAT_VERSION,
+				String.valueOf(VectorIndexContract.FORMAT_VERSION_1));
+		props.setProperty(IndexInverter.CHECKPOINT_PROP_QUANTIZATION, Quantization.FLOAT32.name());
+		props.setProperty(IndexInverter.CHECKPOINT_PROP_COMPLETED,
+				String.valueOf(allTerms.indexOf(terms.get(0))));
+		final OutputStream out = new FileOutputStream(new File(resumedDir,
+				IndexInverter.CHECKPOINT_FILE_NAME));
+		props.store(out, null);
+		out.close();
+
+		final IndexInverter resumed = new IndexInverter(luceneIndexDir, resumedDir);
+		resumed.setThreads(2);
+		resumed.setChunkSize(1);
+		resumed.createInvertedIndex();
+
+		assertFalse(new File(resumedDir, IndexInverter.CHECKPOINT_FILE_NAME).exists());
+		final VectorIndexReader reader = new VectorIndexReader(resumedDir);
+		assertNull(reader.getVector(terms.get(0)));
+		reader.close();
+		assertSameVectors(fullDir, resumedDir, terms.subList(1, terms.size()));
+	}
+
+	@Test
+	public void checkpointForOtherSettingsIsIgnored() throws Exception {
+		final File dir = new File("target/inverter/stale");
+		deleteQuietly(dir);
+		assertTrue(dir.mkdirs());
+		final Properties props = new Properties();
+		props.setProperty(IndexInverter.CHECKPOINT_PROP_TERMS, String.valueOf(allTerms.size() + 1));
+		props.setProperty(IndexInverter.CHECKPOINT_PROP_CHUNK_SIZE, "1");
+		props.setProperty(IndexInverter.CHECKPOINT_PROP_COMPLETED,
+				String.valueOf(allTerms.indexOf(terms.get(0))));
+		final OutputStream out = new FileOutputStream(new File(dir, IndexInverter.CHECKPOINT_FILE_NAME));
+		props.store(out, null);
+		out.close();
+
+		final IndexInverter inverter = new IndexInverter(luceneIndexDir, dir);
+		inverter.setChunkSize(1);
+		inverter.createInvertedIndex();
+
+		final VectorIndexReader reader = new VectorIndexReader(dir);
+		assertNotNull(reader.getVector(terms.get(0)));
+		reader.close();
+	}
+
+	private static void assertSameVectors(File expectedDir, File actualDir, List<String> aTerms)
+		throws Exception
+	{
+		final VectorIndexReader expected = new VectorIndexReader(expectedDir);
+		final VectorIndexReader actual = new VectorIndexReader(actualDir);
+		assertEquals(expected.getConceptCount(), actual.getConceptCount());
+		for (String term : aTerms) {
+			final Vector e = expected.getVector(term);
+			final Vector a = actual.getVector(term);
+			assertNotNull(term, e);
+			assertNotNull(term, a);
+			assertArrayEquals(term, Matrices.getArray(e), Matrices.getArray(a), 0.0);
+		}
+		expected.close();
+		actual.close();
+	}
+}